@@ -0,0 +1,40 @@
+package com.vladmihalcea.hpjp.benchmark;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for JMH benchmarks that reuses the {@link AbstractTest} bootstrap logic,
+ * so every benchmark runs against the same in-memory HSQLDB database the integration tests use.
+ * <p>
+ * The {@link jakarta.persistence.EntityManagerFactory} or {@link org.hibernate.SessionFactory}
+ * is built once per trial, after JMH has injected the {@link Param} values.
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public abstract class AbstractBenchmark extends AbstractTest {
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        destroy();
+        executorService.shutdownNow();
+    }
+
+    @Override
+    protected boolean proxyDataSource() {
+        return false;
+    }
+}
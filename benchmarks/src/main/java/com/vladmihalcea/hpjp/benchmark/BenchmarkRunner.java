@@ -0,0 +1,72 @@
+package com.vladmihalcea.hpjp.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs the JMH benchmarks and, unless told otherwise on the command line,
+ * writes the results as JSON to {@code target/jmh-result-<hibernate-version>.json}
+ * so that runs against different Hibernate versions can be compared.
+ *
+ * @author Vlad Mihalcea
+ */
+public class BenchmarkRunner {
+
+    public static final String LOGBACK_CONFIGURATION = "logback-benchmark.xml";
+
+    public static final String BENCHMARK_PROPERTIES = "benchmark.properties";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+
+        List<String> jvmArgs = new ArrayList<>();
+        jvmArgs.add("-Dlogback.configurationFile=" + LOGBACK_CONFIGURATION);
+        Collection<String> userJvmArgs = commandLineOptions.getJvmArgsAppend().orElse(null);
+        if (userJvmArgs != null) {
+            jvmArgs.addAll(userJvmArgs);
+        }
+
+        Options options = new OptionsBuilder()
+            .parent(commandLineOptions)
+            .resultFormat(
+                commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON)
+            )
+            .result(
+                commandLineOptions.getResult().orElse(
+                    String.format("target/jmh-result-%s.json", hibernateVersion())
+                )
+            )
+            .jvmArgsAppend(jvmArgs.toArray(new String[0]))
+            .build();
+
+        new Runner(options).run();
+    }
+
+    /**
+     * The shaded jar loses the Hibernate manifest entries,
+     * so the version is resolved by Maven at build time.
+     */
+    private static String hibernateVersion() {
+        Properties properties = new Properties();
+        try (InputStream inputStream = BenchmarkRunner.class.getClassLoader().getResourceAsStream(BENCHMARK_PROPERTIES)) {
+            if (inputStream != null) {
+                properties.load(inputStream);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return properties.getProperty("hibernate.version", "unknown");
+    }
+}
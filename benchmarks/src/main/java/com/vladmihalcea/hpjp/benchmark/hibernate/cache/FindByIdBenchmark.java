@@ -0,0 +1,106 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.cache;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Properties;
+
+/**
+ * Measures {@code find} by identifier with and without the second-level cache,
+ * replacing the timer-based {@code LoadedStateBenchmarkTest}.
+ *
+ * @author Vlad Mihalcea
+ */
+public class FindByIdBenchmark extends AbstractBenchmark {
+
+    @Param({"false", "true"})
+    private boolean secondLevelCache;
+
+    @Param({"1000"})
+    private int postCount;
+
+    private long nextId;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.cache.use_second_level_cache", String.valueOf(secondLevelCache));
+        if (secondLevelCache) {
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+        }
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+        properties.put("hibernate.jdbc.batch_size", "100");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 0; i < postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("High-Performance Java Persistence, part %d", i))
+                );
+            }
+        });
+        //warm up the cache so that every measured find can be a cache hit
+        doInJPA(entityManager -> {
+            for (long i = 0; i < postCount; i++) {
+                entityManager.find(Post.class, i);
+            }
+        });
+    }
+
+    @Benchmark
+    public void findById(Blackhole blackhole) {
+        long id = nextId++ % postCount;
+        doInJPA(entityManager -> {
+            blackhole.consume(entityManager.find(Post.class, id));
+        });
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        @Version
+        private short version;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.concurrency;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.concurrency.queue.JobQueue;
+import com.vladmihalcea.hpjp.hibernate.concurrency.queue.JobStatus;
+import com.vladmihalcea.hpjp.hibernate.concurrency.queue.QueueJob;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of {@link JobQueue} batches that 1 to 64 workers can claim and complete
+ * per second, for several batch sizes.
+ * <p>
+ * Every operation is a {@link JobQueue#poll()} call, which claims a batch of jobs, runs a no-op job handler,
+ * and marks the batch as done. When the queue is drained, the worker that found it empty resets all jobs
+ * to pending, so the reset cost is amortized over the whole queue.
+ *
+ * @author Vlad Mihalcea
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JobQueueBenchmark extends AbstractBenchmark {
+
+    public static final int JOB_COUNT = 10_000;
+
+    @Param({"1", "10", "50"})
+    private int batchSize;
+
+    private JobQueue<BenchmarkJob> queue;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            BenchmarkJob.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "100");
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 64;
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= JOB_COUNT; i++) {
+                entityManager.persist(new BenchmarkJob().setId(i));
+            }
+        });
+        queue = new JobQueue<>(entityManagerFactory(), BenchmarkJob.class, job -> {})
+            .setBatchSize(batchSize);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int workers1() {
+        return poll();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int workers4() {
+        return poll();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int workers16() {
+        return poll();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int workers64() {
+        return poll();
+    }
+
+    private int poll() {
+        int claimCount = queue.poll();
+        if (claimCount == 0) {
+            doInJPA(entityManager -> {
+                entityManager.createQuery("""
+                    update BenchmarkJob j
+                    set j.status = :pending
+                    where j.status = :done
+                    """)
+                .setParameter("pending", JobStatus.PENDING)
+                .setParameter("done", JobStatus.DONE)
+                .executeUpdate();
+            });
+        }
+        return claimCount;
+    }
+
+    @Entity(name = "BenchmarkJob")
+    @Table(name = "benchmark_job")
+    public static class BenchmarkJob extends QueueJob {
+    }
+}
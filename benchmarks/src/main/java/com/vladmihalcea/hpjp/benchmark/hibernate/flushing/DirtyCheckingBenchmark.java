@@ -0,0 +1,114 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.flushing;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.forum.Post;
+import com.vladmihalcea.hpjp.hibernate.forum.PostComment;
+import com.vladmihalcea.hpjp.hibernate.forum.PostDetails;
+import com.vladmihalcea.hpjp.hibernate.forum.Tag;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Measures the flush-time cost of the default dirty checking mechanism
+ * for a growing number of managed entity graphs, replacing the timer-based
+ * {@code DefaultDirtyCheckingPerformanceTest}.
+ * <p>
+ * The {@code cleanFlush} benchmark only pays for the dirty checking, while the
+ * {@code dirtyFlush} benchmark also pays for the UPDATE statements it triggers.
+ *
+ * @author Vlad Mihalcea
+ */
+public class DirtyCheckingBenchmark extends AbstractBenchmark {
+
+    @Param({"5", "10", "20", "50", "100"})
+    private int entityCount;
+
+    private EntityManager entityManager;
+
+    private List<Post> posts;
+
+    private int iteration;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostDetails.class,
+            PostComment.class,
+            Tag.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        properties.put("hibernate.jdbc.batch_size", "50");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 0; i < entityCount; i++) {
+                Post post = new Post()
+                    .setId(i)
+                    .setTitle("High-Performance Java Persistence")
+                    .setDetails(
+                        new PostDetails()
+                            .setCreatedOn(new Date())
+                            .setCreatedBy("Vlad Mihalcea")
+                    )
+                    .addTag(new Tag().setId(i * 2).setName("Java"))
+                    .addTag(new Tag().setId(i * 2 + 1).setName("Hibernate"))
+                    .addComment(new PostComment().setId(i * 2).setReview("Good"))
+                    .addComment(new PostComment().setId(i * 2 + 1).setReview("Excellent"));
+
+                entityManager.persist(post);
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void beginTransaction() {
+        entityManager = entityManagerFactory().createEntityManager();
+        entityManager.getTransaction().begin();
+        posts = entityManager.createQuery("""
+            select distinct p
+            from Post p
+            join fetch p.details
+            join fetch p.tags
+            """, Post.class)
+        .getResultList();
+        for (Post post : posts) {
+            post.getComments().size();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void commitTransaction() {
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @Benchmark
+    public void cleanFlush() {
+        entityManager.flush();
+    }
+
+    @Benchmark
+    public void dirtyFlush() {
+        String value = String.valueOf(iteration++);
+        for (Post post : posts) {
+            post.setTitle(value);
+            post.getTags().get(0).setName(value);
+            post.getDetails().setCreatedBy(value);
+            post.getComments().get(0).setReview(value);
+        }
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,96 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.identifier;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.identifier.optimizer.providers.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the insert throughput of the sequence and table identifier providers
+ * with the {@code PrefetchingTableGenerator} and the {@code TsidBlockGenerator}
+ * when 1 to 64 threads insert concurrently.
+ * <p>
+ * Every operation persists a batch of {@code Post} entities in a new transaction,
+ * so the sequence and table generators have to fetch new values from the database
+ * once the pooled optimizer values are used, while the TSID generator does not.
+ *
+ * @author Vlad Mihalcea
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class IdentifierGeneratorConcurrencyBenchmark extends AbstractBenchmark {
+
+    @Param({"SEQUENCE_1", "SEQUENCE_50", "TABLE_1", "TABLE_50", "PREFETCHING_TABLE_50", "TSID"})
+    private String identifierProvider;
+
+    @Param({"10"})
+    private int batchSize;
+
+    private PostEntityProvider<?> entityProvider;
+
+    @Override
+    protected Class<?>[] entities() {
+        entityProvider = switch (identifierProvider) {
+            case "SEQUENCE_1" -> new Sequence1PostEntityProvider();
+            case "SEQUENCE_50" -> new Sequence50PostEntityProvider();
+            case "TABLE_1" -> new Table1PostEntityProvider();
+            case "TABLE_50" -> new Table50PostEntityProvider();
+            case "PREFETCHING_TABLE_50" -> new PrefetchingTable50PostEntityProvider();
+            case "TSID" -> new TsidPostEntityProvider();
+            default -> throw new IllegalArgumentException(
+                String.format("The [%s] identifier provider is not supported!", identifierProvider)
+            );
+        };
+        return entityProvider.entities();
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 64;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads1() {
+        persistPosts();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void threads4() {
+        persistPosts();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void threads16() {
+        persistPosts();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void threads64() {
+        persistPosts();
+    }
+
+    private void persistPosts() {
+        doInJPA(entityManager -> {
+            for (int i = 0; i < batchSize; i++) {
+                entityManager.persist(entityProvider.newPost());
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.logging;
+
+import com.vladmihalcea.hpjp.hibernate.logging.inspector.SQLCommentStatementInspector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-statement overhead of the regular expression used by the
+ * {@link SQLCommentStatementInspector} before with the cached, single-pass comment stripping.
+ * <p>
+ * The statements mimic the SQL generated by Hibernate when <code>hibernate.use_sql_comments</code>
+ * is enabled: entity loads, inserts, updates, deletes, and JPQL queries, with a few statements
+ * without comments. As with a real application, the statement strings are created once and
+ * some statements are executed much more often than others.
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SQLCommentStatementInspectorBenchmark {
+
+    private static final Pattern SQL_COMMENT_PATTERN = Pattern.compile("\\/\\*.*?\\*\\/\\s*");
+
+    private static final int STATEMENT_MIX_SIZE = 1 << 12;
+
+    @Param({"300"})
+    private int distinctStatementCount;
+
+    private String[] statementMix;
+
+    private SQLCommentStatementInspector statementInspector;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> statements = new ArrayList<>(distinctStatementCount);
+        for (int i = 0; i < distinctStatementCount; i++) {
+            statements.add(statement(i));
+        }
+
+        Random random = new Random(42);
+        statementMix = new String[STATEMENT_MIX_SIZE];
+        for (int i = 0; i < STATEMENT_MIX_SIZE; i++) {
+            double skew = random.nextDouble();
+            statementMix[i] = statements.get((int) (skew * skew * distinctStatementCount));
+        }
+
+        statementInspector = new SQLCommentStatementInspector();
+    }
+
+    private String statement(int i) {
+        String entity = "Entity" + (i / 6);
+        String table = "entity_" + (i / 6);
+        return switch (i % 6) {
+            case 0 -> String.format(
+                "/* load com.vladmihalcea.hpjp.%1$s */ select e1_0.id,e1_0.created_on,e1_0.title,e1_0.version from %2$s e1_0 where e1_0.id=?",
+                entity, table
+            );
+            case 1 -> String.format(
+                "/* insert for com.vladmihalcea.hpjp.%1$s */insert into %2$s (created_on,title,version,id) values (?,?,?,?)",
+                entity, table
+            );
+            case 2 -> String.format(
+                "/* update for com.vladmihalcea.hpjp.%1$s */update %2$s set created_on=?,title=?,version=? where id=? and version=?",
+                entity, table
+            );
+            case 3 -> String.format(
+                "/* delete for com.vladmihalcea.hpjp.%1$s */delete from %2$s where id=? and version=?",
+                entity, table
+            );
+            case 4 -> String.format(
+                "/* select e from %1$s e join fetch e.details where e.title like :title order by e.id */ " +
+                "select e1_0.id,e1_0.created_on,d1_0.id,d1_0.created_by,e1_0.title,e1_0.version from %2$s e1_0 " +
+                "join %2$s_details d1_0 on e1_0.id=d1_0.id where e1_0.title like ? escape '' order by e1_0.id fetch first ? rows only",
+                entity, table
+            );
+            default -> String.format(
+                "select next value for %1$s_seq from (values(0))",
+                table
+            );
+        };
+    }
+
+    private String nextStatement() {
+        return statementMix[index++ & (STATEMENT_MIX_SIZE - 1)];
+    }
+
+    @Benchmark
+    public String regex() {
+        return SQL_COMMENT_PATTERN.matcher(nextStatement()).replaceAll("");
+    }
+
+    @Benchmark
+    public String singlePassScan() {
+        return SQLCommentStatementInspector.stripComments(nextStatement());
+    }
+
+    @Benchmark
+    public String cachedInspector() {
+        return statementInspector.inspect(nextStatement());
+    }
+}
@@ -0,0 +1,126 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.query;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.Post;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.PostComment;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset.KeysetCursor;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset.KeysetPage;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset.KeysetPaginator;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset.KeysetSort;
+import jakarta.persistence.Tuple;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of fetching a page using offset pagination and keyset pagination,
+ * for pages located deeper and deeper in a table of 100,000 posts.
+ * <p>
+ * The offset query has to scan and discard all the records of the previous pages, so its latency grows with
+ * the page number, while the keyset query seeks the first record of the page using the
+ * <code>(created_on, id)</code> index, so its latency is flat.
+ *
+ * @author Vlad Mihalcea
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KeysetPaginationBenchmark extends AbstractBenchmark {
+
+    public static final int POST_COUNT = 100_000;
+
+    public static final int PAGE_SIZE = 10;
+
+    @Param({"1", "100", "1000", "10000"})
+    private int pageNumber;
+
+    private final KeysetPaginator<Post> paginator = new KeysetPaginator<>(
+        Post.class,
+        "p",
+        new KeysetSort()
+            .asc("createdOn")
+            .asc("id")
+    );
+
+    private String cursor;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class,
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "100");
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected void afterInit() {
+        LocalDateTime timestamp = LocalDateTime.of(2018, 10, 9, 12, 0, 0, 0);
+        int batchSize = 1000;
+        for (long firstId = 1; firstId <= POST_COUNT; firstId += batchSize) {
+            long batchFirstId = firstId;
+            doInJPA(entityManager -> {
+                for (long id = batchFirstId; id < batchFirstId + batchSize && id <= POST_COUNT; id++) {
+                    entityManager.persist(
+                        new Post()
+                            .setId(id)
+                            .setTitle(String.format("High-Performance Java Persistence, part %d", id))
+                            .setCreatedOn(Timestamp.valueOf(timestamp.plusSeconds(id)))
+                    );
+                }
+            });
+        }
+        doInJPA(entityManager -> {
+            entityManager.createNativeQuery("""
+                create index idx_post_created_on_id on post (created_on, id)
+                """)
+            .executeUpdate();
+        });
+
+        if (pageNumber > 1) {
+            Tuple lastRecord = doInJPA(entityManager -> {
+                return entityManager.createQuery("""
+                    select p.createdOn as createdOn, p.id as id
+                    from Post p
+                    order by p.createdOn, p.id
+                    """, Tuple.class)
+                .setFirstResult((pageNumber - 1) * PAGE_SIZE - 1)
+                .setMaxResults(1)
+                .getSingleResult();
+            });
+            cursor = KeysetCursor.of(lastRecord.get("createdOn"), lastRecord.get("id")).encode();
+        }
+    }
+
+    @Benchmark
+    public List<Post> offset() {
+        return doInJPA(entityManager -> {
+            return entityManager.createQuery("""
+                select p
+                from Post p
+                order by p.createdOn, p.id
+                """, Post.class)
+            .setFirstResult((pageNumber - 1) * PAGE_SIZE)
+            .setMaxResults(PAGE_SIZE)
+            .getResultList();
+        });
+    }
+
+    @Benchmark
+    public KeysetPage<Post> keyset() {
+        return doInJPA(entityManager -> {
+            return cursor == null ?
+                paginator.first(entityManager, PAGE_SIZE) :
+                paginator.next(entityManager, cursor, PAGE_SIZE);
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.query;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.forum.Post;
+import com.vladmihalcea.hpjp.hibernate.forum.PostComment;
+import com.vladmihalcea.hpjp.hibernate.forum.PostDetails;
+import com.vladmihalcea.hpjp.hibernate.forum.Tag;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.NativeQuery;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Properties;
+
+/**
+ * Measures how long it takes to create JPQL and native queries
+ * for a given query plan cache size, replacing the timer-based {@code PlanCacheSizePerformanceTest}.
+ *
+ * @author Vlad Mihalcea
+ */
+public class PlanCacheSizeBenchmark extends AbstractBenchmark {
+
+    @Param({"1", "100"})
+    private int planCacheMaxSize;
+
+    private EntityManager entityManager;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostDetails.class,
+            PostComment.class,
+            Tag.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+        properties.put("hibernate.query.plan_cache_max_size", planCacheMaxSize);
+        properties.put("hibernate.query.plan_parameter_metadata_max_size", planCacheMaxSize);
+    }
+
+    @Override
+    protected void afterInit() {
+        entityManager = entityManagerFactory().createEntityManager();
+    }
+
+    @Override
+    public void tearDown() {
+        entityManager.close();
+        super.tearDown();
+    }
+
+    @Benchmark
+    public void entityQueries(Blackhole blackhole) {
+        blackhole.consume(
+            entityManager.createQuery("""
+                select p.id, p.title, c.review
+                from PostComment c
+                join c.post p
+                """)
+            .setFirstResult(10)
+            .setMaxResults(20)
+            .setHint(AvailableHints.HINT_FETCH_SIZE, 20)
+        );
+        blackhole.consume(
+            entityManager.createQuery("""
+                select c
+                from PostComment c
+                join fetch c.post p
+                where p.title like :title
+                """, PostComment.class)
+        );
+    }
+
+    @Benchmark
+    public void nativeQueries(Blackhole blackhole) {
+        blackhole.consume(
+            entityManager.createNativeQuery("""
+                select p.id, p.title, c.review
+                from post_comment c
+                join post p on p.id = c.post_id
+                """)
+            .setFirstResult(10)
+            .setMaxResults(20)
+            .setHint(AvailableHints.HINT_FETCH_SIZE, 20)
+        );
+        blackhole.consume(
+            entityManager.createNativeQuery("""
+                select c.*, p.*
+                from post_comment c
+                join post p on p.id = c.post_id
+                where p.title like :title
+                """)
+            .unwrap(NativeQuery.class)
+            .addEntity(PostComment.class)
+            .addEntity(Post.class)
+        );
+    }
+}
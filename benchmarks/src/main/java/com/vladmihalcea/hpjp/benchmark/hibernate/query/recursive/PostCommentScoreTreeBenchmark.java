@@ -0,0 +1,156 @@
+package com.vladmihalcea.hpjp.benchmark.hibernate.query.recursive;
+
+import com.vladmihalcea.hpjp.hibernate.query.recursive.PostCommentScore;
+import com.vladmihalcea.hpjp.hibernate.query.recursive.complex.AbstractPostCommentScorePerformanceTest.Post;
+import com.vladmihalcea.hpjp.hibernate.query.recursive.complex.AbstractPostCommentScorePerformanceTest.PostComment;
+import com.vladmihalcea.hpjp.hibernate.query.recursive.complex.AbstractPostCommentScorePerformanceTest.PostCommentVote;
+import com.vladmihalcea.hpjp.hibernate.query.recursive.complex.AbstractPostCommentScorePerformanceTest.User;
+import com.vladmihalcea.hpjp.util.TopKTreeAssembler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed {@link HashMap} tree building followed by sorting all roots, as done by
+ * {@code PostCommentScoreFetchAllPerformanceTest} before, with the {@link TopKTreeAssembler}.
+ * <p>
+ * The vote rows are generated in memory, using the same comment tree shape and comment count matrix
+ * as the {@code AbstractPostCommentScorePerformanceTest}, so only the tree assembly is measured.
+ * The assembler is reused across invocations, so its internal arrays are allocated only once.
+ * Like the original test, only the first vote of every comment is scored.
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PostCommentScoreTreeBenchmark {
+
+    @Param({"4", "8", "16", "32", "64"})
+    private int commentCount;
+
+    @Param({"3"})
+    private int rank;
+
+    private List<PostCommentVote> postCommentVotes;
+
+    private final TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(
+        PostCommentScore.NODE_HANDLER
+    );
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User user1 = new User();
+        user1.setId(1L);
+        User user2 = new User();
+        user2.setId(2L);
+
+        Post post = new Post();
+        post.setId(1L);
+
+        List<PostCommentVote> votes = new ArrayList<>();
+        long commentId = 0;
+        for (int i = 0; i < commentCount; i++) {
+            PostComment comment1 = postComment(post, null, ++commentId);
+            votes.add(vote(user1, comment1));
+
+            for (int j = 0; j < commentCount / 2; j++) {
+                PostComment comment1_1 = postComment(post, comment1, ++commentId);
+                votes.add(vote(user1, comment1_1));
+                votes.add(vote(user2, comment1_1));
+
+                for (int k = 0; k < commentCount / 4; k++) {
+                    PostComment comment1_1_1 = postComment(post, comment1_1, ++commentId);
+                    votes.add(vote(user1, comment1_1_1));
+                    votes.add(vote(user2, comment1_1_1));
+                }
+            }
+        }
+        postCommentVotes = votes;
+    }
+
+    @Benchmark
+    public List<PostCommentScore> hashMapSort() {
+        Map<Long, PostCommentScore> postCommentScoreMap = new HashMap<>();
+
+        for (PostCommentVote postCommentVote : postCommentVotes) {
+            PostComment postComment = postCommentVote.getComment();
+            PostCommentScore postCommentScore = postCommentScoreMap.get(postComment.getId());
+            if (postCommentScore == null) {
+                postCommentScore = postCommentScore(postComment);
+                postCommentScore.setScore(postCommentScore.getScore() + (postCommentVote.isUp() ? 1 : -1));
+                postCommentScoreMap.put(postComment.getId(), postCommentScore);
+            }
+        }
+
+        List<PostCommentScore> roots = new ArrayList<>();
+
+        for (PostCommentScore postCommentScore : postCommentScoreMap.values()) {
+            Long parentId = postCommentScore.getParentId();
+            if (parentId == null) {
+                roots.add(postCommentScore);
+            } else {
+                postCommentScoreMap.get(parentId).addChild(postCommentScore);
+            }
+        }
+
+        roots.sort(Comparator.comparing(PostCommentScore::getTotalScore).reversed());
+
+        if (roots.size() > rank) {
+            roots = roots.subList(0, rank);
+        }
+        return roots;
+    }
+
+    @Benchmark
+    public List<PostCommentScore> topKTreeAssembler() {
+        treeAssembler.clear();
+
+        Long previousCommentId = null;
+        for (PostCommentVote postCommentVote : postCommentVotes) {
+            PostComment postComment = postCommentVote.getComment();
+            PostComment parent = postComment.getParent();
+            boolean firstVote = !postComment.getId().equals(previousCommentId);
+            treeAssembler.add(
+                postComment.getId(),
+                parent != null ? parent.getId() : TopKTreeAssembler.NO_PARENT,
+                firstVote ? (postCommentVote.isUp() ? 1 : -1) : 0,
+                postComment,
+                PostCommentScoreTreeBenchmark::postCommentScore
+            );
+            previousCommentId = postComment.getId();
+        }
+
+        return treeAssembler.topRoots(rank);
+    }
+
+    private static PostCommentScore postCommentScore(PostComment postComment) {
+        PostComment parent = postComment.getParent();
+        PostCommentScore postCommentScore = new PostCommentScore();
+        postCommentScore.setId(postComment.getId());
+        postCommentScore.setReview(postComment.getReview());
+        postCommentScore.setCreatedOn(postComment.getCreatedOn());
+        postCommentScore.setParentId(parent != null ? parent.getId() : null);
+        return postCommentScore;
+    }
+
+    private static PostComment postComment(Post post, PostComment parent, long id) {
+        PostComment postComment = new PostComment();
+        postComment.setId(id);
+        postComment.setPost(post);
+        postComment.setParent(parent);
+        postComment.setReview(String.format("Comment %d", id));
+        return postComment;
+    }
+
+    private static PostCommentVote vote(User user, PostComment postComment) {
+        PostCommentVote postCommentVote = new PostCommentVote(user, postComment);
+        postCommentVote.setUp(ThreadLocalRandom.current().nextBoolean());
+        return postCommentVote;
+    }
+}
@@ -0,0 +1,104 @@
+package com.vladmihalcea.hpjp.benchmark.jdbc;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.forum.Post;
+import com.vladmihalcea.hpjp.hibernate.forum.PostComment;
+import com.vladmihalcea.hpjp.hibernate.forum.PostDetails;
+import com.vladmihalcea.hpjp.hibernate.forum.Tag;
+import com.vladmihalcea.hpjp.util.DataSourceProxyType;
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Measures the per-statement overhead of the {@link DataSourceProxyType} options,
+ * compared to using the HSQLDB {@link javax.sql.DataSource} directly.
+ *
+ * @author Vlad Mihalcea
+ */
+public class DataSourceProxyTypeBenchmark extends AbstractBenchmark {
+
+    @Param({"NONE", "DATA_SOURCE_PROXY", "METRICS"})
+    private String proxyType;
+
+    @Param({"1000"})
+    private int postCount;
+
+    private long nextId;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostDetails.class,
+            PostComment.class,
+            Tag.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean proxyDataSource() {
+        return !"NONE".equals(proxyType);
+    }
+
+    @Override
+    protected DataSourceProxyType dataSourceProxyType() {
+        return DataSourceProxyType.valueOf(proxyType);
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 1;
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("High-Performance Java Persistence, review no. %1$d", i))
+                );
+            }
+        });
+    }
+
+    @Benchmark
+    public void jdbcSelect(Blackhole blackhole) {
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("""
+                 SELECT
+                     p.id AS id,
+                     p.title AS title
+                 FROM post p
+                 WHERE p.id = ?
+                 """
+             )) {
+            preparedStatement.setLong(1, (nextId++ % postCount) + 1);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    blackhole.consume(resultSet.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.vladmihalcea.hpjp.benchmark.jdbc;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.forum.Post;
+import com.vladmihalcea.hpjp.hibernate.forum.PostComment;
+import com.vladmihalcea.hpjp.hibernate.forum.PostDetails;
+import com.vladmihalcea.hpjp.hibernate.forum.Tag;
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Compares plain JDBC and JPA when reading a page of posts
+ * and when batch inserting posts, as done by {@code JDBCVsJPATest}.
+ *
+ * @author Vlad Mihalcea
+ */
+public class JDBCVsJPABenchmark extends AbstractBenchmark {
+
+    @Param({"1000"})
+    private int postCount;
+
+    @Param({"10"})
+    private int maxResults;
+
+    @Param({"50"})
+    private int batchSize;
+
+    private long nextId;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostDetails.class,
+            PostComment.class,
+            Tag.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("High-Performance Java Persistence, review no. %1$d", i))
+                );
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIdentifiers() {
+        nextId = postCount + 1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedPosts() {
+        doInJPA(entityManager -> {
+            entityManager.createQuery("""
+                delete from Post
+                where id > :id
+                """)
+            .setParameter("id", (long) postCount)
+            .executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public void jdbcRead(Blackhole blackhole) {
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("""
+                 SELECT
+                     p.id AS id,
+                     p.title AS title
+                 FROM post p
+                 ORDER BY p.id
+                 LIMIT ?
+                 """
+             )) {
+            preparedStatement.setInt(1, maxResults);
+
+            List<Post> posts = new ArrayList<>();
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int index = 0;
+                    posts.add(
+                        new Post()
+                            .setId(resultSet.getLong(++index))
+                            .setTitle(resultSet.getString(++index))
+                    );
+                }
+            }
+            blackhole.consume(posts);
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    @Benchmark
+    public void jpaRead(Blackhole blackhole) {
+        doInJPA(entityManager -> {
+            blackhole.consume(
+                entityManager.createQuery("""
+                    select p
+                    from Post p
+                    order by p.id
+                    """, Post.class)
+                .setMaxResults(maxResults)
+                .getResultList()
+            );
+        });
+    }
+
+    @Benchmark
+    public void jdbcWrite() {
+        try (Connection connection = dataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement postStatement = connection.prepareStatement("""
+                INSERT INTO post (
+                    id,
+                    title
+                )
+                VALUES (
+                    ?,
+                    ?
+                )
+                """
+            )) {
+                for (int i = 0; i < batchSize; i++) {
+                    long id = nextId++;
+                    int index = 0;
+                    postStatement.setLong(++index, id);
+                    postStatement.setString(++index, String.format("High-Performance Java Persistence, review no. %1$d", id));
+                    postStatement.addBatch();
+                }
+                postStatement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    @Benchmark
+    public void jpaWrite() {
+        doInJPA(entityManager -> {
+            for (int i = 0; i < batchSize; i++) {
+                long id = nextId++;
+                entityManager.persist(
+                    new Post()
+                        .setId(id)
+                        .setTitle(String.format("High-Performance Java Persistence, review no. %1$d", id))
+                );
+            }
+        });
+    }
+}
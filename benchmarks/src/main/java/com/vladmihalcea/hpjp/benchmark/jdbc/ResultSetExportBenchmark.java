@@ -0,0 +1,116 @@
+package com.vladmihalcea.hpjp.benchmark.jdbc;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.ExportFormat;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.PostgreSQLCopyQueryResultSetToFileTest.Post;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.PostgreSQLCopyQueryResultSetToFileTest.PostComment;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.ResultSetExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time it takes the {@link ResultSetExporter} to export a table of 1,000,000 posts
+ * to CSV and binary files, using a single query or several id range partitions exported in parallel.
+ *
+ * @author Vlad Mihalcea
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResultSetExportBenchmark extends AbstractBenchmark {
+
+    public static final int POST_COUNT = 1_000_000;
+
+    @Param({"CSV", "BINARY"})
+    private ExportFormat format;
+
+    @Param({"1", "4"})
+    private int partitionCount;
+
+    private Path outputFolder;
+
+    private ExecutorService partitionExecutor;
+
+    private ResultSetExporter exporter;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class,
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "1000");
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 8;
+    }
+
+    @Override
+    protected void afterInit() {
+        int batchSize = 10_000;
+        for (long firstId = 1; firstId <= POST_COUNT; firstId += batchSize) {
+            long batchFirstId = firstId;
+            doInJPA(entityManager -> {
+                for (long id = batchFirstId; id < batchFirstId + batchSize && id <= POST_COUNT; id++) {
+                    entityManager.persist(
+                        new Post()
+                            .setId(id)
+                            .setTitle(String.format("High-Performance Java Persistence - page %d", id))
+                    );
+                }
+            });
+        }
+        try {
+            outputFolder = Files.createTempDirectory("result-set-export");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        partitionExecutor = Executors.newFixedThreadPool(partitionCount);
+        exporter = new ResultSetExporter(dataSource())
+            .setFormat(format)
+            .setFetchSize(10_000)
+            .setPartitionExecutor(partitionExecutor);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutputFolder() {
+        partitionExecutor.shutdownNow();
+        try (Stream<Path> files = Files.list(outputFolder)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+            Files.delete(outputFolder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Benchmark
+    public long export() {
+        return exporter.exportPartitioned("""
+            SELECT p.id, p.title
+            FROM post p
+            WHERE p.id >= ? AND p.id < ?
+            """, 1, POST_COUNT, partitionCount, outputFolder, "post").rowCount();
+    }
+}
@@ -0,0 +1,127 @@
+package com.vladmihalcea.hpjp.benchmark.jdbc;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.forum.Post;
+import com.vladmihalcea.hpjp.hibernate.forum.PostComment;
+import com.vladmihalcea.hpjp.hibernate.forum.PostDetails;
+import com.vladmihalcea.hpjp.hibernate.forum.Tag;
+import com.vladmihalcea.hpjp.jdbc.caching.StatementCachingDataSource;
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Measures how much the {@link StatementCachingDataSource} saves on HSQLDB, whose JDBC Driver
+ * parses and compiles the SQL statement every time a {@link PreparedStatement} is created.
+ * <p>
+ * A {@code statementCacheSize} of {@code 0} disables the statement cache.
+ *
+ * @author Vlad Mihalcea
+ */
+public class StatementCacheBenchmark extends AbstractBenchmark {
+
+    @Param({"0", "256"})
+    private int statementCacheSize;
+
+    @Param({"1000"})
+    private int postCount;
+
+    private long nextId;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostDetails.class,
+            PostComment.class,
+            Tag.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 1;
+    }
+
+    @Override
+    protected HikariDataSource connectionPoolDataSource(DataSource dataSource) {
+        return super.connectionPoolDataSource(
+            statementCacheSize > 0 ?
+                new StatementCachingDataSource(dataSource, statementCacheSize) :
+                dataSource
+        );
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= postCount; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("High-Performance Java Persistence, review no. %1$d", i))
+                );
+            }
+        });
+    }
+
+    private long nextId() {
+        long id = nextId++ % postCount;
+        return id + 1;
+    }
+
+    @Benchmark
+    public void jdbcSelect(Blackhole blackhole) {
+        try (Connection connection = dataSource().getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("""
+                 SELECT
+                     p.id AS id,
+                     p.title AS title
+                 FROM post p
+                 WHERE p.id = ?
+                 """
+             )) {
+            preparedStatement.setLong(1, nextId());
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    blackhole.consume(resultSet.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    @Benchmark
+    public void jpqlSelect(Blackhole blackhole) {
+        doInJPA(entityManager -> {
+            blackhole.consume(
+                entityManager.createQuery("""
+                    select p
+                    from Post p
+                    where p.id = :id
+                    """, Post.class)
+                .setParameter("id", nextId())
+                .getSingleResult()
+            );
+        });
+    }
+}
@@ -0,0 +1,227 @@
+package com.vladmihalcea.hpjp.benchmark.jooq;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import jakarta.persistence.*;
+import org.hibernate.tool.schema.internal.script.MultiLineSqlScriptExtractor;
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Base class for the benchmarks comparing jOOQ, plain JDBC, and Hibernate on the schema of the
+ * <code>jooq-hsqldb</code> module. The schema is created by the same DDL script the jOOQ code generator
+ * uses, and the Hibernate entities are mapped to those tables, so all three data access
+ * frameworks run the same statements against the same tables.
+ * <p>
+ * jOOQ uses a shared {@link Configuration}, which gets the connections from the same pool
+ * Hibernate and the JDBC benchmarks use.
+ *
+ * @author Vlad Mihalcea
+ */
+public abstract class AbstractJOOQBenchmark extends AbstractBenchmark {
+
+    public static final String DDL_SCRIPT = "hsqldb/initial_schema.sql";
+
+    private Configuration jooqConfiguration;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostDetails.class,
+            PostCommentDetails.class,
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.hbm2ddl.auto", "none");
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 4;
+    }
+
+    @Override
+    protected void beforeInit() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(
+                    Thread.currentThread().getContextClassLoader().getResourceAsStream(DDL_SCRIPT)
+                )
+            )) {
+            List<String> sqlStatements = MultiLineSqlScriptExtractor.INSTANCE.extractCommands(reader, dialect());
+            try (Connection connection = dataSource().getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (String sqlStatement : sqlStatements) {
+                    statement.execute(sqlStatement);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+        jooqConfiguration = new DefaultConfiguration()
+            .set(SQLDialect.HSQLDB)
+            .set(new ThreadLocalTransactionProvider(new DataSourceConnectionProvider(dataSource())));
+    }
+
+    protected DSLContext dslContext() {
+        return DSL.using(jooqConfiguration);
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+
+    @Entity(name = "PostDetails")
+    @Table(name = "post_details")
+    public static class PostDetails {
+
+        @Id
+        private Long id;
+
+        @Column(name = "created_by")
+        private String createdBy;
+
+        @Column(name = "created_on")
+        private LocalDateTime createdOn;
+
+        public Long getId() {
+            return id;
+        }
+
+        public PostDetails setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getCreatedBy() {
+            return createdBy;
+        }
+
+        public PostDetails setCreatedBy(String createdBy) {
+            this.createdBy = createdBy;
+            return this;
+        }
+
+        public LocalDateTime getCreatedOn() {
+            return createdOn;
+        }
+
+        public PostDetails setCreatedOn(LocalDateTime createdOn) {
+            this.createdOn = createdOn;
+            return this;
+        }
+    }
+
+    @Entity(name = "PostCommentDetails")
+    @Table(name = "post_comment_details")
+    public static class PostCommentDetails {
+
+        @Id
+        private Long id;
+
+        @Column(name = "post_id")
+        private Long postId;
+
+        @Column(name = "user_id")
+        private Long userId;
+
+        private String ip;
+
+        private String fingerprint;
+
+        public Long getId() {
+            return id;
+        }
+
+        public PostCommentDetails setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Long getPostId() {
+            return postId;
+        }
+
+        public PostCommentDetails setPostId(Long postId) {
+            this.postId = postId;
+            return this;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public PostCommentDetails setUserId(Long userId) {
+            this.userId = userId;
+            return this;
+        }
+
+        public String getIp() {
+            return ip;
+        }
+
+        public PostCommentDetails setIp(String ip) {
+            this.ip = ip;
+            return this;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public PostCommentDetails setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.vladmihalcea.hpjp.benchmark.jooq;
+
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.jooq.BatchBindStep;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST;
+
+/**
+ * Compares jOOQ, plain JDBC, and Hibernate when batch inserting posts, as done by the
+ * <code>jooq-hsqldb</code> <code>BatchTest</code>.
+ *
+ * @author Vlad Mihalcea
+ */
+public class JOOQBatchInsertBenchmark extends AbstractJOOQBenchmark {
+
+    @Param({"50"})
+    private int batchSize;
+
+    private long nextId;
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        super.additionalProperties(properties);
+        properties.put("hibernate.jdbc.batch_size", String.valueOf(batchSize));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetIdentifiers() {
+        nextId = 1;
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInsertedPosts() {
+        doInJPA(entityManager -> {
+            entityManager.createQuery("delete from Post").executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public void jooq() {
+        dslContext().transaction(configuration -> {
+            BatchBindStep batch = configuration.dsl().batch(
+                configuration.dsl()
+                    .insertInto(POST, POST.ID, POST.TITLE)
+                    .values((Long) null, null)
+            );
+            for (int i = 0; i < batchSize; i++) {
+                long id = nextId++;
+                batch.bind(id, String.format("High-Performance Java Persistence, review no. %1$d", id));
+            }
+            batch.execute();
+        });
+    }
+
+    @Benchmark
+    public void jdbc() {
+        try (Connection connection = dataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement postStatement = connection.prepareStatement("""
+                INSERT INTO post (
+                    id,
+                    title
+                )
+                VALUES (
+                    ?,
+                    ?
+                )
+                """
+            )) {
+                for (int i = 0; i < batchSize; i++) {
+                    long id = nextId++;
+                    int index = 0;
+                    postStatement.setLong(++index, id);
+                    postStatement.setString(++index, String.format("High-Performance Java Persistence, review no. %1$d", id));
+                    postStatement.addBatch();
+                }
+                postStatement.executeBatch();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    @Benchmark
+    public void hibernate() {
+        doInJPA(entityManager -> {
+            for (int i = 0; i < batchSize; i++) {
+                long id = nextId++;
+                entityManager.persist(
+                    new Post()
+                        .setId(id)
+                        .setTitle(String.format("High-Performance Java Persistence, review no. %1$d", id))
+                );
+            }
+        });
+    }
+}
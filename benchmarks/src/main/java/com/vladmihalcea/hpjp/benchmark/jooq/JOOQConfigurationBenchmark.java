@@ -0,0 +1,158 @@
+package com.vladmihalcea.hpjp.benchmark.jooq;
+
+import com.vladmihalcea.hpjp.benchmark.AbstractBenchmark;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.PostgreSQLCopyQueryResultSetToFileTest.Post;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.PostgreSQLCopyQueryResultSetToFileTest.PostComment;
+import com.vladmihalcea.hpjp.jooq.ExecutionMetricsListener;
+import com.vladmihalcea.hpjp.jooq.SQLRenderCache;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.jooq.*;
+import org.jooq.Record;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Measures the per-call overhead of running a jOOQ query in its own transaction:
+ * <ul>
+ *     <li>borrowing the connection from a Hibernate {@link Session} and building a new jOOQ {@link Configuration}
+ *     for every call, like the <code>AbstractJOOQIntegrationTest.doInJOOQ</code> methods do</li>
+ *     <li>using a shared {@link Configuration} with a pooled {@link ConnectionProvider} and a
+ *     {@link ThreadLocalTransactionProvider}, like the <code>doInJOOQTransaction</code> methods do</li>
+ *     <li>using the shared {@link Configuration} and the {@link SQLRenderCache}, so that the query is rendered once</li>
+ * </ul>
+ *
+ * @author Vlad Mihalcea
+ */
+public class JOOQConfigurationBenchmark extends AbstractBenchmark {
+
+    public static final int POST_COUNT = 1000;
+
+    private static final Field<Long> POST_ID = field("id", Long.class);
+
+    private static final Field<String> POST_TITLE = field("title", String.class);
+
+    private static final Table<Record> POST = table("post");
+
+    private final ExecutionMetricsListener executionMetrics = new ExecutionMetricsListener();
+
+    private final SQLRenderCache renderCache = new SQLRenderCache();
+
+    private Configuration jooqConfiguration;
+
+    private long nextId;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class,
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "100");
+        properties.put("hibernate.generate_statistics", Boolean.FALSE.toString());
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 4;
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long id = 1; id <= POST_COUNT; id++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(id)
+                        .setTitle(String.format("High-Performance Java Persistence - page %d", id))
+                );
+            }
+        });
+        jooqConfiguration = new DefaultConfiguration()
+            .set(SQLDialect.HSQLDB)
+            .set(new ThreadLocalTransactionProvider(new DataSourceConnectionProvider(dataSource())))
+            .set(executionMetrics);
+    }
+
+    @TearDown(Level.Trial)
+    public void logExecutionMetrics() {
+        LOGGER.info("Shared configuration execution metrics: {}", executionMetrics);
+        LOGGER.info(
+            "Render cache hits: {}, misses: {}",
+            renderCache.getHitCount(),
+            renderCache.getMissCount()
+        );
+    }
+
+    @Benchmark
+    public Result<? extends Record> perCallConfiguration() {
+        long id = nextId();
+        Session session = null;
+        Transaction txn = null;
+        try {
+            session = sessionFactory().openSession();
+            txn = session.beginTransaction();
+            Result<? extends Record> result = session.doReturningWork(
+                connection -> postById(DSL.using(connection, SQLDialect.HSQLDB), id).fetch()
+            );
+            txn.commit();
+            return result;
+        } catch (Throwable e) {
+            if (txn != null) txn.rollback();
+            throw e;
+        } finally {
+            if (session != null) {
+                session.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public Result<? extends Record> sharedConfiguration() {
+        long id = nextId();
+        return DSL.using(jooqConfiguration).transactionResult(
+            configuration -> postById(configuration.dsl(), id).fetch()
+        );
+    }
+
+    @Benchmark
+    public Result<? extends Record> sharedConfigurationWithRenderCache() {
+        long id = nextId();
+        return DSL.using(jooqConfiguration).transactionResult(
+            configuration -> renderCache.fetch(
+                configuration.dsl(),
+                "postById",
+                sql -> postById(sql, 0),
+                id
+            )
+        );
+    }
+
+    private ResultQuery<Record2<Long, String>> postById(DSLContext sql, long id) {
+        return sql
+            .select(POST_ID, POST_TITLE)
+            .from(POST)
+            .where(POST_ID.eq(id));
+    }
+
+    private long nextId() {
+        return nextId++ % POST_COUNT + 1;
+    }
+}
@@ -0,0 +1,179 @@
+package com.vladmihalcea.hpjp.benchmark.jooq;
+
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import jakarta.persistence.Tuple;
+import org.jooq.Record3;
+import org.jooq.Result;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST;
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST_DETAILS;
+
+/**
+ * Compares jOOQ, plain JDBC, and Hibernate when iterating over the posts using keyset pagination,
+ * as done by the <code>jooq-hsqldb</code> <code>KeysetPaginationTest</code>. Every benchmark call
+ * fetches the page following the last one, starting over once the last page was fetched.
+ * <p>
+ * The posts are sorted by the <code>post_details</code> columns, so that the
+ * <code>post_details_created_on_idx</code> index can be used to seek the next page.
+ *
+ * @author Vlad Mihalcea
+ */
+public class JOOQKeysetPaginationBenchmark extends AbstractJOOQBenchmark {
+
+    @Param({"10000"})
+    private int postCount;
+
+    @Param({"25"})
+    private int pageSize;
+
+    private LocalDateTime lastCreatedOn;
+
+    private Long lastId;
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        super.additionalProperties(properties);
+        properties.put("hibernate.jdbc.batch_size", "100");
+    }
+
+    @Override
+    protected void afterInit() {
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+        doInJPA(entityManager -> {
+            for (long id = 1; id <= postCount; id++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(id)
+                        .setTitle(String.format("High-Performance Java Persistence - Chapter %d", id))
+                );
+                entityManager.persist(
+                    new PostDetails()
+                        .setId(id)
+                        .setCreatedBy("Vlad Mihalcea")
+                        .setCreatedOn(timestamp.plusMinutes(id / 10))
+                );
+                if (id % 100 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public void jooq(Blackhole blackhole) {
+        Result<Record3<Long, String, LocalDateTime>> page = dslContext().transactionResult(configuration -> {
+            var select = configuration.dsl()
+                .select(POST.ID, POST.TITLE, POST_DETAILS.CREATED_ON)
+                .from(POST)
+                .join(POST_DETAILS).on(POST.ID.eq(POST_DETAILS.ID))
+                .orderBy(POST_DETAILS.CREATED_ON.desc(), POST_DETAILS.ID.desc());
+            return lastId != null ?
+                select.seek(lastCreatedOn, lastId).limit(pageSize).fetch() :
+                select.limit(pageSize).fetch();
+        });
+        if (page.isEmpty()) {
+            lastId = null;
+        } else {
+            Record3<Long, String, LocalDateTime> last = page.get(page.size() - 1);
+            lastCreatedOn = last.value3();
+            lastId = last.value1();
+        }
+        blackhole.consume(page);
+    }
+
+    @Benchmark
+    public void jdbc(Blackhole blackhole) {
+        try (Connection connection = dataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                lastId != null ?
+                    """
+                    SELECT p.id, p.title, pd.created_on
+                    FROM post p
+                    JOIN post_details pd ON p.id = pd.id
+                    WHERE (pd.created_on, pd.id) < (CAST(? AS TIMESTAMP), CAST(? AS BIGINT))
+                    ORDER BY pd.created_on DESC, pd.id DESC
+                    LIMIT ?
+                    """ :
+                    """
+                    SELECT p.id, p.title, pd.created_on
+                    FROM post p
+                    JOIN post_details pd ON p.id = pd.id
+                    ORDER BY pd.created_on DESC, pd.id DESC
+                    LIMIT ?
+                    """
+            )) {
+                int index = 0;
+                if (lastId != null) {
+                    statement.setTimestamp(++index, Timestamp.valueOf(lastCreatedOn));
+                    statement.setLong(++index, lastId);
+                }
+                statement.setInt(++index, pageSize);
+                List<Object[]> page = new ArrayList<>(pageSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        page.add(new Object[]{
+                            resultSet.getLong(1),
+                            resultSet.getString(2),
+                            resultSet.getTimestamp(3).toLocalDateTime()
+                        });
+                    }
+                }
+                connection.commit();
+                if (page.isEmpty()) {
+                    lastId = null;
+                } else {
+                    Object[] last = page.get(page.size() - 1);
+                    lastId = (Long) last[0];
+                    lastCreatedOn = (LocalDateTime) last[2];
+                }
+                blackhole.consume(page);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    @Benchmark
+    public void hibernate(Blackhole blackhole) {
+        List<Tuple> page = doInJPA(entityManager -> {
+            return lastId != null ?
+                entityManager.createQuery("""
+                    select p.id as id, p.title as title, pd.createdOn as createdOn
+                    from Post p
+                    join PostDetails pd on p.id = pd.id
+                    where (pd.createdOn, pd.id) < (:createdOn, :id)
+                    order by pd.createdOn desc, pd.id desc
+                    """, Tuple.class)
+                .setParameter("createdOn", lastCreatedOn)
+                .setParameter("id", lastId)
+                .setMaxResults(pageSize)
+                .getResultList() :
+                entityManager.createQuery("""
+                    select p.id as id, p.title as title, pd.createdOn as createdOn
+                    from Post p
+                    join PostDetails pd on p.id = pd.id
+                    order by pd.createdOn desc, pd.id desc
+                    """, Tuple.class)
+                .setMaxResults(pageSize)
+                .getResultList();
+        });
+        if (page.isEmpty()) {
+            lastId = null;
+        } else {
+            Tuple last = page.get(page.size() - 1);
+            lastId = last.get("id", Long.class);
+            lastCreatedOn = last.get("createdOn", LocalDateTime.class);
+        }
+        blackhole.consume(page);
+    }
+}
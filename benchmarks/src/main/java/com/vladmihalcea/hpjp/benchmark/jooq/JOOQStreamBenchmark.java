@@ -0,0 +1,154 @@
+package com.vladmihalcea.hpjp.benchmark.jooq;
+
+import com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.tables.records.PostCommentDetailsRecord;
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST_COMMENT_DETAILS;
+
+/**
+ * Compares jOOQ, plain JDBC, and Hibernate when streaming the post comment details
+ * to find the users sharing the same IP and fingerprint, as done by the
+ * <code>jooq-hsqldb</code> <code>StreamTest</code>.
+ *
+ * @author Vlad Mihalcea
+ */
+public class JOOQStreamBenchmark extends AbstractJOOQBenchmark {
+
+    @Param({"10000"})
+    private int commentCount;
+
+    @Param({"100"})
+    private int fetchSize;
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        super.additionalProperties(properties);
+        properties.put("hibernate.jdbc.batch_size", "100");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long id = 1; id <= commentCount; id++) {
+                entityManager.persist(
+                    new PostCommentDetails()
+                        .setId(id)
+                        .setPostId(id % 100)
+                        .setUserId(id % 1000)
+                        .setIp(String.format("192.168.0.%d", id % 250))
+                        .setFingerprint(String.format("ABC%d", id % 50))
+                );
+                if (id % 100 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    public int jooq() {
+        return dslContext().transactionResult(configuration -> {
+            FraudDetector fraudDetector = new FraudDetector();
+            try (Stream<PostCommentDetailsRecord> stream = configuration.dsl()
+                .selectFrom(POST_COMMENT_DETAILS)
+                .fetchSize(fetchSize)
+                .stream()) {
+                stream.forEach(record -> fraudDetector.add(
+                    record.getPostId(),
+                    record.getUserId(),
+                    record.getIp(),
+                    record.getFingerprint()
+                ));
+            }
+            return fraudDetector.getPossibleFraudCount();
+        });
+    }
+
+    @Benchmark
+    public int jdbc() {
+        try (Connection connection = dataSource().getConnection()) {
+            connection.setAutoCommit(false);
+            FraudDetector fraudDetector = new FraudDetector();
+            try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT post_id, user_id, ip, fingerprint
+                FROM post_comment_details
+                """
+            )) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        fraudDetector.add(
+                            resultSet.getLong(1),
+                            resultSet.getLong(2),
+                            resultSet.getString(3),
+                            resultSet.getString(4)
+                        );
+                    }
+                }
+            }
+            connection.commit();
+            return fraudDetector.getPossibleFraudCount();
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    @Benchmark
+    public int hibernate() {
+        return doInJPA(entityManager -> {
+            FraudDetector fraudDetector = new FraudDetector();
+            try (Stream<Object[]> stream = entityManager.createQuery("""
+                    select pcd.postId, pcd.userId, pcd.ip, pcd.fingerprint
+                    from PostCommentDetails pcd
+                    """, Object[].class)
+                .setHint("org.hibernate.fetchSize", fetchSize)
+                .getResultStream()) {
+                stream.forEach(row -> fraudDetector.add(
+                    (Long) row[0],
+                    (Long) row[1],
+                    (String) row[2],
+                    (String) row[3]
+                ));
+            }
+            return fraudDetector.getPossibleFraudCount();
+        });
+    }
+
+    /**
+     * Counts the comments of a post whose IP and fingerprint were already used by another user.
+     */
+    static class FraudDetector {
+
+        private final Map<String, Set<Long>> userIdsByPostIpFingerprint = new HashMap<>();
+
+        private int possibleFraudCount;
+
+        void add(Long postId, Long userId, String ip, String fingerprint) {
+            Set<Long> userIds = userIdsByPostIpFingerprint.computeIfAbsent(
+                postId + "/" + ip + "/" + fingerprint,
+                key -> new HashSet<>()
+            );
+            if (userIds.add(userId) && userIds.size() > 1) {
+                possibleFraudCount++;
+            }
+        }
+
+        int getPossibleFraudCount() {
+            return possibleFraudCount;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.vladmihalcea.hpjp.benchmark.spring.data;
+
+import com.vladmihalcea.hpjp.spring.data.query.fetch.config.SpringDataJPAPageCountConfiguration;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.domain.Post;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.CountMode;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.PageCountCache;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.repository.PostRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Tuple;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of fetching a page deeper and deeper in a table of 100,000 posts,
+ * using the Spring Data <code>PostRepository</code> of the <code>spring.data.query.fetch</code> package:
+ * <ul>
+ *     <li>a <code>Page</code> whose total is counted on every request, like the <code>Page</code> query methods do</li>
+ *     <li>a <code>Page</code> whose total is counted once and then taken from the {@link PageCountCache}</li>
+ *     <li>a <code>Slice</code>, which fetches one more record instead of counting them</li>
+ *     <li>a keyset <code>Window</code>, like the ones used by the <code>spring.data.query.window</code> tests,
+ *     which seeks the first record of the page instead of skipping the previous ones</li>
+ * </ul>
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PageCountBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageCountBenchmark.class);
+
+    public static final int POST_COUNT = 100_000;
+
+    public static final int PAGE_SIZE = 25;
+
+    public static final String TITLE_PATTERN = "High-Performance Java Persistence %";
+
+    @Param({"1", "100", "1000"})
+    private int pageNumber;
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private PostRepository postRepository;
+
+    private PageCountCache pageCountCache;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Pageable pageRequest;
+
+    private ScrollPosition windowPosition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = new AnnotationConfigApplicationContext(BenchmarkConfiguration.class);
+        postRepository = applicationContext.getBean(PostRepository.class);
+        pageCountCache = applicationContext.getBean(PageCountCache.class);
+        transactionTemplate = new TransactionTemplate(applicationContext.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(true);
+
+        TransactionTemplate writeTransactionTemplate = applicationContext.getBean(TransactionTemplate.class);
+        LocalDateTime timestamp = LocalDateTime.of(2024, 10, 12, 12, 0, 0);
+        int batchSize = 1000;
+        for (long firstId = 1; firstId <= POST_COUNT; firstId += batchSize) {
+            long batchFirstId = firstId;
+            writeTransactionTemplate.executeWithoutResult(status -> {
+                for (long id = batchFirstId; id < batchFirstId + batchSize && id <= POST_COUNT; id++) {
+                    postRepository.persist(
+                        new Post()
+                            .setId(id)
+                            .setTitle(String.format("High-Performance Java Persistence - Chapter %d", id))
+                            .setCreatedOn(timestamp.plusSeconds(id))
+                    );
+                }
+            });
+        }
+
+        EntityManagerFactory entityManagerFactory = applicationContext.getBean(EntityManagerFactory.class);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.createNativeQuery("""
+                create index idx_post_created_on_id on post (created_on, id)
+                """)
+            .executeUpdate();
+            entityManager.getTransaction().commit();
+
+            pageRequest = PageRequest.of(pageNumber - 1, PAGE_SIZE, Sort.by("createdOn", "id"));
+            if (pageNumber > 1) {
+                Tuple lastRecord = entityManager.createQuery("""
+                    select p.createdOn as createdOn, p.id as id
+                    from Post p
+                    order by p.createdOn, p.id
+                    """, Tuple.class)
+                .setFirstResult((pageNumber - 1) * PAGE_SIZE - 1)
+                .setMaxResults(1)
+                .getSingleResult();
+                windowPosition = ScrollPosition.forward(
+                    Map.of(
+                        "createdOn", lastRecord.get("createdOn"),
+                        "id", lastRecord.get("id")
+                    )
+                );
+            } else {
+                windowPosition = ScrollPosition.keyset();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LOGGER.info(
+            "Page count cache hits: {}, misses: {}",
+            pageCountCache.getHitCount(),
+            pageCountCache.getMissCount()
+        );
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public Page<Post> pageExactCount() {
+        return transactionTemplate.execute(
+            status -> postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest, CountMode.EXACT)
+        );
+    }
+
+    @Benchmark
+    public Page<Post> pageCachedCount() {
+        return transactionTemplate.execute(
+            status -> postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest, CountMode.CACHED)
+        );
+    }
+
+    @Benchmark
+    public Slice<Post> slice() {
+        return transactionTemplate.execute(
+            status -> postRepository.findSliceByTitleLike(TITLE_PATTERN, pageRequest)
+        );
+    }
+
+    @Benchmark
+    public Window<Post> window() {
+        return transactionTemplate.execute(
+            status -> postRepository.findWindowByTitleLike(
+                TITLE_PATTERN,
+                PageRequest.of(0, PAGE_SIZE, Sort.by("createdOn", "id")),
+                windowPosition
+            )
+        );
+    }
+
+    /**
+     * Uses the pooling {@link DataSource} directly, without the query logging and counting proxy
+     * the tests use, like the {@code AbstractBenchmark} does.
+     */
+    public static class BenchmarkConfiguration extends SpringDataJPAPageCountConfiguration {
+
+        @Bean
+        @Override
+        public DataSource dataSource() {
+            return poolingDataSource();
+        }
+    }
+}
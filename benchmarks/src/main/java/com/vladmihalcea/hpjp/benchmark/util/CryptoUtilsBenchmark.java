@@ -0,0 +1,123 @@
+package com.vladmihalcea.hpjp.benchmark.util;
+
+import com.vladmihalcea.hpjp.util.CryptoUtils;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link CryptoUtils} throughput when encrypting and decrypting a batch of column values,
+ * using a single thread and using all the available cores, as the former <code>CpuTest</code> did.
+ * <p>
+ * The {@link CipherMode#LEGACY_ECB} mode derives the AES key and looks up the {@link Cipher}
+ * for every value, as {@link CryptoUtils} did before caching them.
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class CryptoUtilsBenchmark {
+
+    public enum CipherMode {
+        LEGACY_ECB,
+        ECB,
+        GCM
+    }
+
+    @Param({"LEGACY_ECB", "ECB", "GCM"})
+    private CipherMode cipherMode;
+
+    @Param({"100"})
+    private int batchSize;
+
+    @Param({"64"})
+    private int messageLength;
+
+    private String[] messages;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        messages = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            StringBuilder messageBuilder = new StringBuilder(messageLength);
+            for (int j = 0; j < messageLength; j++) {
+                messageBuilder.append((char) random.nextInt('a', 'z' + 1));
+            }
+            messages[i] = messageBuilder.toString();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String[] singleCore() {
+        return encryptDecrypt();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String[] multiCore() {
+        return encryptDecrypt();
+    }
+
+    private String[] encryptDecrypt() {
+        return switch (cipherMode) {
+            case LEGACY_ECB -> {
+                String[] decryptedMessages = new String[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    decryptedMessages[i] = legacyDecrypt(legacyEncrypt(messages[i]));
+                }
+                yield decryptedMessages;
+            }
+            case ECB -> CryptoUtils.decryptAll(CryptoUtils.encryptAll(messages));
+            case GCM -> {
+                String[] decryptedMessages = new String[batchSize];
+                for (int i = 0; i < batchSize; i++) {
+                    decryptedMessages[i] = CryptoUtils.decryptAuthenticated(
+                        CryptoUtils.encryptAuthenticated(messages[i])
+                    );
+                }
+                yield decryptedMessages;
+            }
+        };
+    }
+
+    private static String legacyEncrypt(String message) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5PADDING");
+            cipher.init(Cipher.ENCRYPT_MODE, legacyEncryptionKey());
+            return Base64.getEncoder().encodeToString(
+                cipher.doFinal(message.getBytes(StandardCharsets.UTF_8))
+            );
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String legacyDecrypt(String message) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5PADDING");
+            cipher.init(Cipher.DECRYPT_MODE, legacyEncryptionKey());
+            return new String(cipher.doFinal(Base64.getDecoder().decode(message)), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SecretKeySpec legacyEncryptionKey() throws GeneralSecurityException {
+        byte[] key = MessageDigest.getInstance("SHA-256").digest(CryptoUtils.getEncryptionKey().getEncoded());
+        return new SecretKeySpec(Arrays.copyOf(key, 16), "AES");
+    }
+}
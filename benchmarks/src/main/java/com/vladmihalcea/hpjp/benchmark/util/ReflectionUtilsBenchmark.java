@@ -0,0 +1,128 @@
+package com.vladmihalcea.hpjp.benchmark.util;
+
+import com.vladmihalcea.hpjp.util.ReflectionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the cached {@link ReflectionUtils} lookups and generated accessors with
+ * the former uncached implementation and with a direct call, for the reflective calls
+ * found on hot paths: resolving an entity class by name, calling a property getter
+ * or setter by name, and calling {@code valueOf} when decrypting a column value.
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ReflectionUtilsBenchmark {
+
+    private final Post post = new Post().setTitle("High-Performance Java Persistence");
+
+    private final String className = Post.class.getName();
+
+    private final String value = "123456";
+
+    @Benchmark
+    public Class<?> getClassUncached() throws ClassNotFoundException {
+        return Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+    }
+
+    @Benchmark
+    public Class<?> getClassCached() {
+        return ReflectionUtils.getClass(className);
+    }
+
+    @Benchmark
+    public Object invokeGetterUncached() throws ReflectiveOperationException {
+        Method getter = findMethod(post.getClass(), "get" + "Title");
+        getter.setAccessible(true);
+        return getter.invoke(post);
+    }
+
+    @Benchmark
+    public Object invokeGetterCached() {
+        return ReflectionUtils.invokeGetter(post, "title");
+    }
+
+    @Benchmark
+    public Object invokeGetterDirect() {
+        return post.getTitle();
+    }
+
+    @Benchmark
+    public Post invokeSetterUncached() throws ReflectiveOperationException {
+        Method setter = findMethod(post.getClass(), "set" + "Title", String.class);
+        setter.setAccessible(true);
+        setter.invoke(post, value);
+        return post;
+    }
+
+    @Benchmark
+    public Post invokeSetterCached() {
+        ReflectionUtils.invokeSetter(post, "title", value);
+        return post;
+    }
+
+    @Benchmark
+    public Post invokeSetterDirect() {
+        return post.setTitle(value);
+    }
+
+    @Benchmark
+    public Object valueOfUncached() throws InvocationTargetException, IllegalAccessException {
+        Method valueOf = findMethod(Long.class, "valueOf", String.class);
+        valueOf.setAccessible(true);
+        return valueOf.invoke(null, value);
+    }
+
+    @Benchmark
+    public Long valueOfCached() {
+        Function<String, Long> valueOf = ReflectionUtils.getStaticFunction(Long.class, "valueOf", String.class);
+        return valueOf.apply(value);
+    }
+
+    @Benchmark
+    public Long valueOfDirect() {
+        return Long.valueOf(value);
+    }
+
+    /**
+     * The method lookup used by {@link ReflectionUtils} before caching the class members.
+     */
+    private static Method findMethod(Class<?> targetClass, String methodName, Class<?>... parameterTypes) {
+        try {
+            return targetClass.getDeclaredMethod(methodName, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            try {
+                return targetClass.getMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException ignore) {
+            }
+            if (!targetClass.getSuperclass().equals(Object.class)) {
+                return findMethod(targetClass.getSuperclass(), methodName, parameterTypes);
+            }
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public static class Post {
+
+        private String title;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
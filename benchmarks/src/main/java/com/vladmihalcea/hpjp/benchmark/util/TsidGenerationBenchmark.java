@@ -0,0 +1,66 @@
+package com.vladmihalcea.hpjp.benchmark.util;
+
+import com.vladmihalcea.hpjp.util.TsidBlockFactory;
+import com.vladmihalcea.hpjp.util.TsidUtils;
+import io.hypersistence.tsid.TSID;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the shared {@link TsidUtils#TSID_FACTORY} with the {@link TsidBlockFactory}
+ * when 1 to 64 threads generate TSID values concurrently.
+ *
+ * @author Vlad Mihalcea
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class TsidGenerationBenchmark {
+
+    public enum TsidFactoryType {
+        SHARED_FACTORY,
+        BLOCK_FACTORY
+    }
+
+    @Param({"SHARED_FACTORY", "BLOCK_FACTORY"})
+    private TsidFactoryType tsidFactoryType;
+
+    private final TSID.Factory tsidFactory = TsidUtils.getTsidFactory(256, 1);
+
+    private final TsidBlockFactory tsidBlockFactory = new TsidBlockFactory(256, 1);
+
+    @Benchmark
+    @Threads(1)
+    public long threads1() {
+        return generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long threads4() {
+        return generate();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long threads16() {
+        return generate();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long threads64() {
+        return generate();
+    }
+
+    private long generate() {
+        return switch (tsidFactoryType) {
+            case SHARED_FACTORY -> tsidFactory.generate().toLong();
+            case BLOCK_FACTORY -> tsidBlockFactory.generate();
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.Dialect;
+
+import java.time.Instant;
+
+/**
+ * <code>ClaimStrategy</code> - Claims a batch of jobs for a {@link JobQueue} worker.
+ * <p>
+ * A job can be claimed if it's {@link JobStatus#PENDING}, or if it's {@link JobStatus#RUNNING}
+ * and its lease has expired, unless it already reached the maximum number of attempts,
+ * in which case it's left to {@link JobQueue#failExhaustedJobs()}.
+ * The claimed jobs get the {@link JobStatus#RUNNING} status, the given claim token and
+ * lease expiry timestamp, and their attempt count is incremented.
+ *
+ * @author Vlad Mihalcea
+ */
+public interface ClaimStrategy {
+
+    /**
+     * Claim up to {@code batchSize} jobs, in the current transaction.
+     *
+     * @param entityManager current {@link EntityManager}
+     * @param jobClass job entity class
+     * @param batchSize maximum number of jobs to claim
+     * @param maxAttempts maximum number of attempts of a job
+     * @param claimToken token identifying the claimed batch
+     * @param now current timestamp
+     * @param leaseExpiresAt lease expiry timestamp of the claimed jobs
+     * @return number of claimed jobs
+     */
+    int claim(
+        EntityManager entityManager,
+        Class<? extends QueueJob> jobClass,
+        int batchSize,
+        int maxAttempts,
+        String claimToken,
+        Instant now,
+        Instant leaseExpiresAt
+    );
+
+    /**
+     * Resolve the claim strategy supported by the given database {@link Dialect}.
+     *
+     * @param dialect database dialect
+     * @return {@link SkipLockedClaimStrategy} if the database supports SKIP LOCKED,
+     * or {@link ConditionalUpdateClaimStrategy} otherwise
+     */
+    static ClaimStrategy of(Dialect dialect) {
+        return dialect.supportsSkipLocked() ?
+            new SkipLockedClaimStrategy() :
+            new ConditionalUpdateClaimStrategy();
+    }
+}
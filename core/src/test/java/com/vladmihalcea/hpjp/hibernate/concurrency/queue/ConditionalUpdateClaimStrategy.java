@@ -0,0 +1,79 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+import jakarta.persistence.EntityManager;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * <code>ConditionalUpdateClaimStrategy</code> - Claims the jobs for the databases that don't support
+ * <code>SKIP LOCKED</code>. The claimable job identifiers are selected without locking them, and
+ * the jobs are claimed by an update that checks again that they are still claimable, so a job
+ * claimed by a concurrent worker in the meantime is skipped.
+ * <p>
+ * If all the selected jobs were claimed by concurrent workers, the selection is retried.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ConditionalUpdateClaimStrategy implements ClaimStrategy {
+
+    public static final int MAX_RETRIES = 16;
+
+    @Override
+    public int claim(
+            EntityManager entityManager,
+            Class<? extends QueueJob> jobClass,
+            int batchSize,
+            int maxAttempts,
+            String claimToken,
+            Instant now,
+            Instant leaseExpiresAt) {
+        String jobEntity = entityManager.getMetamodel().entity(jobClass).getName();
+        for (int i = 0; i < MAX_RETRIES; i++) {
+            List<Long> ids = entityManager.createQuery(String.format("""
+                select j.id
+                from %s j
+                where
+                    j.status = :pending or
+                    (j.status = :running and j.leaseExpiresAt < :now and j.attempts < :maxAttempts)
+                order by j.id
+                """, jobEntity), Long.class)
+            .setParameter("pending", JobStatus.PENDING)
+            .setParameter("running", JobStatus.RUNNING)
+            .setParameter("now", now)
+            .setParameter("maxAttempts", maxAttempts)
+            .setMaxResults(batchSize)
+            .getResultList();
+
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int claimCount = entityManager.createQuery(String.format("""
+                update %s j
+                set
+                    j.status = :running,
+                    j.claimToken = :claimToken,
+                    j.leaseExpiresAt = :leaseExpiresAt,
+                    j.attempts = j.attempts + 1
+                where
+                    j.id in :ids and
+                    (
+                        j.status = :pending or
+                        (j.status = :running and j.leaseExpiresAt < :now and j.attempts < :maxAttempts)
+                    )
+                """, jobEntity))
+            .setParameter("pending", JobStatus.PENDING)
+            .setParameter("running", JobStatus.RUNNING)
+            .setParameter("now", now)
+            .setParameter("maxAttempts", maxAttempts)
+            .setParameter("claimToken", claimToken)
+            .setParameter("leaseExpiresAt", leaseExpiresAt)
+            .setParameter("ids", ids)
+            .executeUpdate();
+            if (claimCount > 0) {
+                return claimCount;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,412 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <code>JobQueue</code> - Processes the jobs stored in a database table, using several
+ * concurrent workers.
+ * <p>
+ * Every {@link #poll()} call claims a batch of jobs in a short transaction, using the {@link ClaimStrategy}
+ * supported by the database, runs the jobs on the job {@link Executor}, and then marks the batch
+ * as done using a single update statement. The failed jobs are marked as pending so that they
+ * are retried, unless they reached the maximum number of attempts, in which case they are
+ * marked as failed.
+ * <p>
+ * A claimed job is leased for a limited amount of time, and, if the worker crashes before
+ * completing the job, the job is claimed again once the lease expires, unless it reached the
+ * maximum number of attempts, in which case it's marked as failed by {@link #failExhaustedJobs()}.
+ * This sweep runs periodically on its own thread, not in the claim transaction, so it doesn't
+ * lock any job the workers are about to claim. Since the jobs are
+ * completed only if they still have the claim token of their batch, a worker whose lease expired
+ * cannot complete a job that was claimed by another worker in the meantime.
+ * For this reason, a job may run more than once, so the job handler should be idempotent.
+ *
+ * @author Vlad Mihalcea
+ */
+public class JobQueue<J extends QueueJob> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobQueue.class);
+
+    public interface JobHandler<J> {
+        void handle(J job) throws Exception;
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 10;
+
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofMinutes(5);
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    public static final Duration DEFAULT_IDLE_DELAY = Duration.ofMillis(100);
+
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Class<J> jobClass;
+
+    private final String jobEntity;
+
+    private final JobHandler<J> jobHandler;
+
+    private ClaimStrategy claimStrategy;
+
+    private Executor jobExecutor = Runnable::run;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private Duration leaseDuration = DEFAULT_LEASE_DURATION;
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private Duration idleDelay = DEFAULT_IDLE_DELAY;
+
+    private Duration sweepInterval = DEFAULT_SWEEP_INTERVAL;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private Thread sweeper;
+
+    private volatile boolean running;
+
+    private final LongAdder completedJobCount = new LongAdder();
+
+    private final LongAdder failedJobCount = new LongAdder();
+
+    public JobQueue(EntityManagerFactory entityManagerFactory, Class<J> jobClass, JobHandler<J> jobHandler) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jobClass = jobClass;
+        this.jobEntity = entityManagerFactory.getMetamodel().entity(jobClass).getName();
+        this.jobHandler = jobHandler;
+        this.claimStrategy = ClaimStrategy.of(
+            entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+        );
+    }
+
+    public JobQueue<J> setClaimStrategy(ClaimStrategy claimStrategy) {
+        this.claimStrategy = claimStrategy;
+        return this;
+    }
+
+    /**
+     * Run the jobs of a claimed batch using the given {@link Executor}, like a virtual thread executor.
+     * By default, the jobs are run one after the other by the worker that claimed them.
+     *
+     * @param jobExecutor job executor
+     * @return this queue
+     */
+    public JobQueue<J> setJobExecutor(Executor jobExecutor) {
+        this.jobExecutor = jobExecutor;
+        return this;
+    }
+
+    public JobQueue<J> setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public JobQueue<J> setLeaseDuration(Duration leaseDuration) {
+        this.leaseDuration = leaseDuration;
+        return this;
+    }
+
+    public JobQueue<J> setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public JobQueue<J> setIdleDelay(Duration idleDelay) {
+        this.idleDelay = idleDelay;
+        return this;
+    }
+
+    /**
+     * Set how often the jobs whose lease expired after the maximum number of attempts are marked as failed.
+     *
+     * @param sweepInterval sweep interval
+     * @return this queue
+     */
+    public JobQueue<J> setSweepInterval(Duration sweepInterval) {
+        this.sweepInterval = sweepInterval;
+        return this;
+    }
+
+    JobQueue<J> setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public ClaimStrategy getClaimStrategy() {
+        return claimStrategy;
+    }
+
+    public long getCompletedJobCount() {
+        return completedJobCount.sum();
+    }
+
+    public long getFailedJobCount() {
+        return failedJobCount.sum();
+    }
+
+    /**
+     * Claim a batch of jobs, run them, and mark them as done, or as failed.
+     *
+     * @return the number of claimed jobs, which is 0 if there's no job to claim
+     */
+    public int poll() {
+        String claimToken = UUID.randomUUID().toString();
+        Instant now = clock.instant();
+        List<J> jobs = doInTransaction(entityManager -> {
+            int claimCount = claimStrategy.claim(
+                entityManager,
+                jobClass,
+                batchSize,
+                maxAttempts,
+                claimToken,
+                now,
+                now.plus(leaseDuration)
+            );
+            if (claimCount == 0) {
+                return List.of();
+            }
+            return entityManager.createQuery(String.format("""
+                select j
+                from %s j
+                where j.claimToken = :claimToken
+                """, jobEntity), jobClass)
+            .setParameter("claimToken", claimToken)
+            .getResultList();
+        });
+        if (jobs.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(jobs.size());
+        for (J job : jobs) {
+            results.add(CompletableFuture.supplyAsync(() -> run(job), jobExecutor));
+        }
+        List<Long> completedIds = new ArrayList<>(jobs.size());
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < jobs.size(); i++) {
+            Long id = jobs.get(i).getId();
+            if (results.get(i).join()) {
+                completedIds.add(id);
+            } else {
+                failedIds.add(id);
+            }
+        }
+
+        doInTransaction(entityManager -> {
+            if (!completedIds.isEmpty()) {
+                int updateCount = entityManager.createQuery(String.format("""
+                    update %s j
+                    set
+                        j.status = :done,
+                        j.claimToken = null,
+                        j.leaseExpiresAt = null
+                    where j.id in :ids and j.claimToken = :claimToken
+                    """, jobEntity))
+                .setParameter("done", JobStatus.DONE)
+                .setParameter("ids", completedIds)
+                .setParameter("claimToken", claimToken)
+                .executeUpdate();
+                logLostLeases(completedIds.size(), updateCount);
+            }
+            if (!failedIds.isEmpty()) {
+                int updateCount = entityManager.createQuery(String.format("""
+                    update %s j
+                    set
+                        j.status = case when j.attempts >= :maxAttempts then :failed else :pending end,
+                        j.claimToken = null,
+                        j.leaseExpiresAt = null
+                    where j.id in :ids and j.claimToken = :claimToken
+                    """, jobEntity))
+                .setParameter("maxAttempts", maxAttempts)
+                .setParameter("failed", JobStatus.FAILED)
+                .setParameter("pending", JobStatus.PENDING)
+                .setParameter("ids", failedIds)
+                .setParameter("claimToken", claimToken)
+                .executeUpdate();
+                logLostLeases(failedIds.size(), updateCount);
+            }
+            return null;
+        });
+        completedJobCount.add(completedIds.size());
+        failedJobCount.add(failedIds.size());
+        return jobs.size();
+    }
+
+    /**
+     * Mark as {@link JobStatus#FAILED} the {@link JobStatus#RUNNING} jobs whose lease has expired
+     * and which reached the maximum number of attempts. The worker running them crashed, so,
+     * unlike the jobs whose handler threw an exception, they were not marked as failed by
+     * {@link #poll()}, and the claim strategies skip them, since claiming them again would
+     * retry a job crashing its worker forever.
+     *
+     * @return number of failed jobs
+     */
+    public int failExhaustedJobs() {
+        Instant now = clock.instant();
+        int failCount = doInTransaction(entityManager -> entityManager.createQuery(String.format("""
+                update %s j
+                set
+                    j.status = :failed,
+                    j.claimToken = null,
+                    j.leaseExpiresAt = null
+                where
+                    j.status = :running and
+                    j.leaseExpiresAt < :now and
+                    j.attempts >= :maxAttempts
+                """, jobEntity))
+            .setParameter("failed", JobStatus.FAILED)
+            .setParameter("running", JobStatus.RUNNING)
+            .setParameter("now", now)
+            .setParameter("maxAttempts", maxAttempts)
+            .executeUpdate()
+        );
+        if (failCount > 0) {
+            LOGGER.warn(
+                "{} job(s) failed because their lease expired after {} attempt(s)",
+                failCount,
+                maxAttempts
+            );
+        }
+        return failCount;
+    }
+
+    /**
+     * Start the given number of workers, each one polling the queue until it's closed.
+     * When there's no job to claim, the worker waits for the idle delay before polling again.
+     * The exhausted jobs are swept by a separate thread, every sweep interval.
+     *
+     * @param workerCount number of workers
+     */
+    public synchronized void start(int workerCount) {
+        if (running) {
+            throw new IllegalStateException("The job queue is already running!");
+        }
+        running = true;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::work, String.format("job-queue-worker-%d", i));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        sweeper = new Thread(this::sweep, "job-queue-sweeper");
+        sweeper.setDaemon(true);
+        sweeper.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        List<Thread> threads = new ArrayList<>(workers);
+        if (sweeper != null) {
+            threads.add(sweeper);
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        sweeper = null;
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (poll() == 0) {
+                    Thread.sleep(idleDelay.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("The job queue worker could not poll the queue", e);
+                try {
+                    Thread.sleep(idleDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void sweep() {
+        while (running) {
+            try {
+                Thread.sleep(sweepInterval.toMillis());
+                failExhaustedJobs();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("The job queue sweeper could not fail the exhausted jobs", e);
+            }
+        }
+    }
+
+    private boolean run(J job) {
+        try {
+            jobHandler.handle(job);
+            return true;
+        } catch (Exception e) {
+            LOGGER.warn("Job [{}] failed after {} attempt(s)", job.getId(), job.getAttempts(), e);
+            return false;
+        }
+    }
+
+    private void logLostLeases(int jobCount, int updateCount) {
+        if (updateCount < jobCount) {
+            LOGGER.warn(
+                "The lease of {} job(s) expired before they were completed, so they were claimed by another worker",
+                jobCount - updateCount
+            );
+        }
+    }
+
+    private <T> T doInTransaction(Function<EntityManager, T> function) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityTransaction transaction = entityManager.getTransaction();
+        try {
+            transaction.begin();
+            T result = function.apply(entityManager);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
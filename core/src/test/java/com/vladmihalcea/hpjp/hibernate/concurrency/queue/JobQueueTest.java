@@ -0,0 +1,270 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class JobQueueTest extends AbstractTest {
+
+    public static final int JOB_COUNT = 100;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            EmailJob.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "50");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= JOB_COUNT; i++) {
+                entityManager.persist(
+                    new EmailJob()
+                        .setRecipient(String.format("reader-%d@vladmihalcea.com", i))
+                        .setId(i)
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testClaimStrategy() {
+        //HSQLDB does not support SKIP LOCKED
+        assertTrue(newQueue(job -> {}).getClaimStrategy() instanceof ConditionalUpdateClaimStrategy);
+    }
+
+    @Test
+    public void testConcurrentWorkers() throws Exception {
+        Map<Long, AtomicInteger> runCounts = new ConcurrentHashMap<>();
+        JobQueue<EmailJob> queue = newQueue(
+            job -> runCounts.computeIfAbsent(job.getId(), id -> new AtomicInteger()).incrementAndGet()
+        ).setBatchSize(7);
+
+        int workerCount = 4;
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        try {
+            List<Future<Integer>> claimCounts = new ArrayList<>();
+            for (int i = 0; i < workerCount; i++) {
+                claimCounts.add(workers.submit(() -> {
+                    int claimCount = 0;
+                    int batchCount;
+                    while ((batchCount = queue.poll()) > 0) {
+                        claimCount += batchCount;
+                    }
+                    return claimCount;
+                }));
+            }
+            int claimCount = 0;
+            for (Future<Integer> future : claimCounts) {
+                claimCount += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(JOB_COUNT, claimCount);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        assertEquals(JOB_COUNT, runCounts.size());
+        for (AtomicInteger runCount : runCounts.values()) {
+            assertEquals(1, runCount.get());
+        }
+        assertEquals(JOB_COUNT, queue.getCompletedJobCount());
+        assertEquals(JOB_COUNT, countJobs(JobStatus.DONE));
+    }
+
+    @Test
+    public void testJobExecutor() {
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        ExecutorService jobExecutor = Executors.newFixedThreadPool(4);
+        try {
+            JobQueue<EmailJob> queue = newQueue(job -> threadNames.add(Thread.currentThread().getName()))
+                .setBatchSize(20)
+                .setJobExecutor(jobExecutor);
+            while (queue.poll() > 0) {
+            }
+            assertEquals(JOB_COUNT, queue.getCompletedJobCount());
+        } finally {
+            jobExecutor.shutdownNow();
+        }
+        assertFalse(threadNames.contains(Thread.currentThread().getName()));
+        assertEquals(JOB_COUNT, countJobs(JobStatus.DONE));
+    }
+
+    @Test
+    public void testLeaseExpiry() {
+        Instant now = Instant.now();
+        //a worker claims all jobs and crashes before completing them
+        doInJPA(entityManager -> {
+            assertEquals(
+                JOB_COUNT,
+                new ConditionalUpdateClaimStrategy().claim(
+                    entityManager,
+                    EmailJob.class,
+                    JOB_COUNT,
+                    JobQueue.DEFAULT_MAX_ATTEMPTS,
+                    "crashed-worker",
+                    now,
+                    now.plus(Duration.ofMinutes(1))
+                )
+            );
+        });
+
+        JobQueue<EmailJob> queue = newQueue(job -> {}).setBatchSize(JOB_COUNT);
+        assertEquals(0, queue.poll());
+
+        queue.setClock(Clock.offset(Clock.systemUTC(), Duration.ofMinutes(2)));
+        assertEquals(JOB_COUNT, queue.poll());
+
+        doInJPA(entityManager -> {
+            for (EmailJob job : entityManager.createQuery("select j from EmailJob j", EmailJob.class).getResultList()) {
+                assertEquals(JobStatus.DONE, job.getStatus());
+                assertEquals(2, job.getAttempts());
+                assertNull(job.getClaimToken());
+                assertNull(job.getLeaseExpiresAt());
+            }
+        });
+    }
+
+    @Test
+    public void testCrashLoop() {
+        int maxAttempts = 3;
+        ClaimStrategy claimStrategy = new ConditionalUpdateClaimStrategy();
+        Instant now = Instant.now();
+        //every worker claims all jobs and crashes before completing them
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            Instant claimedAt = now.plus(Duration.ofMinutes(2L * attempt));
+            String claimToken = String.format("crashed-worker-%d", attempt);
+            doInJPA(entityManager -> {
+                assertEquals(
+                    JOB_COUNT,
+                    claimStrategy.claim(
+                        entityManager,
+                        EmailJob.class,
+                        JOB_COUNT,
+                        maxAttempts,
+                        claimToken,
+                        claimedAt,
+                        claimedAt.plus(Duration.ofMinutes(1))
+                    )
+                );
+            });
+        }
+
+        //once the last lease expires, the jobs are not claimed again, but marked as failed by the sweep
+        JobQueue<EmailJob> queue = newQueue(job -> fail("A job that crashed its worker should not run again"))
+            .setBatchSize(JOB_COUNT)
+            .setMaxAttempts(maxAttempts)
+            .setClock(Clock.fixed(now.plus(Duration.ofMinutes(2L * maxAttempts + 2)), ZoneOffset.UTC));
+        assertEquals(0, queue.poll());
+        assertEquals(JOB_COUNT, queue.failExhaustedJobs());
+        assertEquals(0, queue.failExhaustedJobs());
+
+        doInJPA(entityManager -> {
+            for (EmailJob job : entityManager.createQuery("select j from EmailJob j", EmailJob.class).getResultList()) {
+                assertEquals(JobStatus.FAILED, job.getStatus());
+                assertEquals(maxAttempts, job.getAttempts());
+                assertNull(job.getClaimToken());
+                assertNull(job.getLeaseExpiresAt());
+            }
+        });
+    }
+
+    @Test
+    public void testRetryThenFail() {
+        int maxAttempts = 3;
+        JobQueue<EmailJob> queue = newQueue(job -> {
+            if (job.getId() % 10 == 0) {
+                throw new IllegalStateException("The mail server rejected the message");
+            }
+        })
+        .setBatchSize(25)
+        .setMaxAttempts(maxAttempts);
+
+        while (queue.poll() > 0) {
+        }
+
+        int failedJobCount = JOB_COUNT / 10;
+        assertEquals(JOB_COUNT - failedJobCount, queue.getCompletedJobCount());
+        assertEquals(failedJobCount * maxAttempts, queue.getFailedJobCount());
+
+        doInJPA(entityManager -> {
+            for (EmailJob job : entityManager.createQuery("select j from EmailJob j", EmailJob.class).getResultList()) {
+                if (job.getId() % 10 == 0) {
+                    assertEquals(JobStatus.FAILED, job.getStatus());
+                    assertEquals(maxAttempts, job.getAttempts());
+                } else {
+                    assertEquals(JobStatus.DONE, job.getStatus());
+                    assertEquals(1, job.getAttempts());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testStartAndClose() throws Exception {
+        try (JobQueue<EmailJob> queue = newQueue(job -> {}).setIdleDelay(Duration.ofMillis(10))) {
+            queue.start(3);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (queue.getCompletedJobCount() < JOB_COUNT && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(JOB_COUNT, queue.getCompletedJobCount());
+        }
+        assertEquals(JOB_COUNT, countJobs(JobStatus.DONE));
+    }
+
+    private JobQueue<EmailJob> newQueue(JobQueue.JobHandler<EmailJob> jobHandler) {
+        return new JobQueue<>(entityManagerFactory(), EmailJob.class, jobHandler);
+    }
+
+    private long countJobs(JobStatus status) {
+        return doInJPA(entityManager -> {
+            return entityManager.createQuery("""
+                select count(j)
+                from EmailJob j
+                where j.status = :status
+                """, Long.class)
+            .setParameter("status", status)
+            .getSingleResult();
+        });
+    }
+
+    @Entity(name = "EmailJob")
+    @Table(name = "email_job")
+    public static class EmailJob extends QueueJob {
+
+        private String recipient;
+
+        public String getRecipient() {
+            return recipient;
+        }
+
+        public EmailJob setRecipient(String recipient) {
+            this.recipient = recipient;
+            return this;
+        }
+    }
+}
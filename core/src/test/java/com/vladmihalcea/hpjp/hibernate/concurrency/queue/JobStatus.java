@@ -0,0 +1,11 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public enum JobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
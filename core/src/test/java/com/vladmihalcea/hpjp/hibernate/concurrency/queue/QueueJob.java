@@ -0,0 +1,62 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * <code>QueueJob</code> - The base class of the jobs processed by a {@link JobQueue}.
+ * <p>
+ * A job is claimed by setting its status to {@link JobStatus#RUNNING}, its claim token
+ * to the token of the batch that claimed it, and its lease expiry timestamp.
+ * A {@link JobStatus#RUNNING} job whose lease has expired can be claimed again.
+ *
+ * @author Vlad Mihalcea
+ */
+@MappedSuperclass
+public abstract class QueueJob {
+
+    @Id
+    private Long id;
+
+    @Enumerated
+    private JobStatus status = JobStatus.PENDING;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    private int attempts;
+
+    public Long getId() {
+        return id;
+    }
+
+    public QueueJob setId(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public QueueJob setStatus(JobStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
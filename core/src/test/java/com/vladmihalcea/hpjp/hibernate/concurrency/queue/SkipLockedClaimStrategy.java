@@ -0,0 +1,71 @@
+package com.vladmihalcea.hpjp.hibernate.concurrency.queue;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
+import org.hibernate.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * <code>SkipLockedClaimStrategy</code> - Locks the claimable jobs using
+ * <code>FOR UPDATE SKIP LOCKED</code>, so concurrent workers claim disjoint batches
+ * without waiting for each other, and then claims the locked jobs with a single update.
+ *
+ * @author Vlad Mihalcea
+ */
+public class SkipLockedClaimStrategy implements ClaimStrategy {
+
+    @Override
+    public int claim(
+            EntityManager entityManager,
+            Class<? extends QueueJob> jobClass,
+            int batchSize,
+            int maxAttempts,
+            String claimToken,
+            Instant now,
+            Instant leaseExpiresAt) {
+        String jobEntity = entityManager.getMetamodel().entity(jobClass).getName();
+        List<? extends QueueJob> jobs = entityManager.createQuery(String.format("""
+            select j
+            from %s j
+            where
+                j.status = :pending or
+                (j.status = :running and j.leaseExpiresAt < :now and j.attempts < :maxAttempts)
+            order by j.id
+            """, jobEntity), jobClass)
+        .setParameter("pending", JobStatus.PENDING)
+        .setParameter("running", JobStatus.RUNNING)
+        .setParameter("now", now)
+        .setParameter("maxAttempts", maxAttempts)
+        .setMaxResults(batchSize)
+        .unwrap(Query.class)
+        .setLockOptions(
+            new LockOptions(LockMode.PESSIMISTIC_WRITE)
+                .setTimeOut(LockOptions.SKIP_LOCKED)
+                .setFollowOnLocking(false)
+        )
+        .getResultList();
+
+        if (jobs.isEmpty()) {
+            return 0;
+        }
+        int claimCount = entityManager.createQuery(String.format("""
+            update %s j
+            set
+                j.status = :running,
+                j.claimToken = :claimToken,
+                j.leaseExpiresAt = :leaseExpiresAt,
+                j.attempts = j.attempts + 1
+            where j.id in :ids
+            """, jobEntity))
+        .setParameter("running", JobStatus.RUNNING)
+        .setParameter("claimToken", claimToken)
+        .setParameter("leaseExpiresAt", leaseExpiresAt)
+        .setParameter("ids", jobs.stream().map(QueueJob::getId).toList())
+        .executeUpdate();
+        entityManager.clear();
+        return claimCount;
+    }
+}
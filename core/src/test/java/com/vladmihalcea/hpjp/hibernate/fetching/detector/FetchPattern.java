@@ -0,0 +1,31 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.detector;
+
+/**
+ * An association that was fetched with secondary queries from a given code location.
+ *
+ * @param association the fetched entity name or collection role
+ * @param callSite the first application stack frame that triggered the fetch
+ * @param sessionCount number of sampled sessions in which the pattern was detected
+ * @param fetchCount number of secondary queries executed by the sampled sessions
+ * @param maxFetchCountPerSession the largest number of secondary queries executed by a single session
+ * @param estimatedFetchCount the fetch count extrapolated to all sessions using the sample rate
+ * @param fetchNanos time spent by the sampled sessions executing the secondary queries
+ * @param estimatedFetchNanos the fetch time extrapolated to all sessions using the sample rate
+ *
+ * @author Vlad Mihalcea
+ */
+public record FetchPattern(
+    String association,
+    String callSite,
+    long sessionCount,
+    long fetchCount,
+    long maxFetchCountPerSession,
+    long estimatedFetchCount,
+    long fetchNanos,
+    long estimatedFetchNanos
+) {
+
+    public long averageFetchNanos() {
+        return fetchCount > 0 ? fetchNanos / fetchCount : 0;
+    }
+}
@@ -0,0 +1,124 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.detector;
+
+import java.util.*;
+
+/**
+ * Keeps the fetch counts and fetch times of at most {@code capacity} patterns.
+ * <p>
+ * When the aggregator is full, a new pattern replaces the one with the lowest fetch count
+ * and inherits its count, as in the Space-Saving algorithm. This way, frequent patterns
+ * cannot be pushed out by a long tail of rare ones, while memory stays bounded.
+ * The fetch time is not inherited, so it only covers the fetches recorded for the pattern itself.
+ * <p>
+ * The fetches that the sampled sessions could not attribute to a pattern are counted separately,
+ * so that the report tells when the top patterns are incomplete.
+ *
+ * @author Vlad Mihalcea
+ */
+public class FetchPatternAggregator {
+
+    private final int capacity;
+
+    private final double sampleRate;
+
+    private final Map<String, Counter> counters;
+
+    private long untrackedFetchCount;
+
+    public FetchPatternAggregator(int capacity, double sampleRate) {
+        this.capacity = capacity;
+        this.sampleRate = sampleRate;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(String association, String callSite, long fetchCount, long fetchNanos) {
+        String key = association + '@' + callSite;
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            long inheritedFetchCount = 0;
+            if (counters.size() >= capacity) {
+                Counter evicted = evictMin();
+                inheritedFetchCount = evicted.fetchCount;
+            }
+            counter = new Counter(association, callSite, inheritedFetchCount);
+            counters.put(key, counter);
+        }
+        counter.sessionCount++;
+        counter.fetchCount += fetchCount;
+        counter.fetchNanos += fetchNanos;
+        counter.maxFetchCountPerSession = Math.max(counter.maxFetchCountPerSession, fetchCount);
+    }
+
+    /**
+     * Get the patterns with the highest fetch count.
+     *
+     * @param limit max number of patterns to return
+     * @return patterns sorted by fetch count in descending order
+     */
+    public synchronized List<FetchPattern> top(int limit) {
+        return counters.values()
+            .stream()
+            .sorted(Comparator.comparingLong((Counter counter) -> counter.fetchCount).reversed())
+            .limit(limit)
+            .map(counter -> new FetchPattern(
+                counter.association,
+                counter.callSite,
+                counter.sessionCount,
+                counter.fetchCount,
+                counter.maxFetchCountPerSession,
+                Math.round(counter.fetchCount / sampleRate),
+                counter.fetchNanos,
+                Math.round(counter.fetchNanos / sampleRate)
+            ))
+            .toList();
+    }
+
+    /**
+     * Add the fetches that a sampled session could not attribute to a pattern.
+     *
+     * @param fetchCount number of untracked fetches
+     */
+    public synchronized void addUntracked(long fetchCount) {
+        untrackedFetchCount += fetchCount;
+    }
+
+    /**
+     * @return the number of fetches that the sampled sessions could not attribute to a pattern
+     */
+    public synchronized long getUntrackedFetchCount() {
+        return untrackedFetchCount;
+    }
+
+    public synchronized void clear() {
+        counters.clear();
+        untrackedFetchCount = 0;
+    }
+
+    private Counter evictMin() {
+        Iterator<Map.Entry<String, Counter>> iterator = counters.entrySet().iterator();
+        Map.Entry<String, Counter> min = iterator.next();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Counter> entry = iterator.next();
+            if (entry.getValue().fetchCount < min.getValue().fetchCount) {
+                min = entry;
+            }
+        }
+        counters.remove(min.getKey());
+        return min.getValue();
+    }
+
+    private static class Counter {
+        private final String association;
+        private final String callSite;
+        private long sessionCount;
+        private long fetchCount;
+        private long maxFetchCountPerSession;
+        private long fetchNanos;
+
+        private Counter(String association, String callSite, long fetchCount) {
+            this.association = association;
+            this.callSite = callSite;
+            this.fetchCount = fetchCount;
+        }
+    }
+}
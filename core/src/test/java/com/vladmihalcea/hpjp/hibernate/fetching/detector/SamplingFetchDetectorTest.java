@@ -0,0 +1,280 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.detector;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.*;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.StatisticsSettings;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class SamplingFetchDetectorTest extends AbstractTest {
+
+    public static final int POST_COUNT = 5;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class,
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put(
+            AvailableSettings.GENERATE_STATISTICS,
+            Boolean.TRUE.toString()
+        );
+        properties.put(
+            StatisticsSettings.STATS_BUILDER,
+            SamplingFetchStatistics.Factory.INSTANCE
+        );
+        properties.put(SamplingFetchStatistics.SAMPLE_RATE, "1");
+        //a single slot per session, so that a session fetching two patterns overflows
+        properties.put(SamplingFetchStatistics.SLOTS, "1");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= POST_COUNT; i++) {
+                Post post = new Post()
+                    .setId(i)
+                    .setTitle(String.format("High-Performance Java Persistence, part %d", i));
+                entityManager.persist(post);
+
+                for (long j = 1; j <= 2; j++) {
+                    entityManager.persist(
+                        new PostComment()
+                            .setId(i * 10 + j)
+                            .setReview(String.format("Review %d", j))
+                            .setPost(post)
+                    );
+                }
+            }
+        });
+        sessionFactory().getStatistics().clear();
+    }
+
+    @Test
+    public void testManyToOneNPlusOne() {
+        doInJPA(entityManager -> {
+            List<PostComment> comments = entityManager.createQuery("""
+                select pc
+                from PostComment pc
+                order by pc.id
+                """, PostComment.class)
+            .getResultList();
+
+            for (PostComment comment : comments) {
+                assertNotNull(comment.getPost().getTitle());
+            }
+        });
+
+        List<FetchPattern> fetchPatterns = statistics().getTopFetchPatterns(10);
+        LOGGER.info("Fetch patterns: {}", fetchPatterns);
+
+        assertEquals(1, fetchPatterns.size());
+        FetchPattern fetchPattern = fetchPatterns.get(0);
+        assertEquals(Post.class.getName(), fetchPattern.association());
+        assertTrue(fetchPattern.callSite().startsWith(getClass().getName()));
+        assertEquals(1, fetchPattern.sessionCount());
+        assertEquals(POST_COUNT, fetchPattern.fetchCount());
+        assertEquals(POST_COUNT, fetchPattern.estimatedFetchCount());
+        assertTrue(fetchPattern.fetchNanos() > 0);
+        assertEquals(fetchPattern.fetchNanos(), fetchPattern.estimatedFetchNanos());
+        assertEquals(0, statistics().getUntrackedFetchCount());
+    }
+
+    @Test
+    public void testOneToManyNPlusOne() {
+        for (int i = 0; i < 3; i++) {
+            doInJPA(entityManager -> {
+                List<Post> posts = entityManager.createQuery("""
+                    select p
+                    from Post p
+                    order by p.id
+                    """, Post.class)
+                .getResultList();
+
+                for (Post post : posts) {
+                    assertEquals(2, post.getComments().size());
+                }
+            });
+        }
+
+        List<FetchPattern> fetchPatterns = statistics().getTopFetchPatterns(10);
+        LOGGER.info("Fetch patterns: {}", fetchPatterns);
+
+        assertEquals(1, fetchPatterns.size());
+        FetchPattern fetchPattern = fetchPatterns.get(0);
+        assertEquals(Post.class.getName() + ".comments", fetchPattern.association());
+        assertEquals(3, fetchPattern.sessionCount());
+        assertEquals(3 * POST_COUNT, fetchPattern.fetchCount());
+        assertEquals(POST_COUNT, fetchPattern.maxFetchCountPerSession());
+        assertTrue(fetchPattern.averageFetchNanos() > 0);
+    }
+
+    @Test
+    public void testUntrackedFetches() {
+        doInJPA(entityManager -> {
+            List<PostComment> comments = entityManager.createQuery("""
+                select pc
+                from PostComment pc
+                order by pc.id
+                """, PostComment.class)
+            .getResultList();
+
+            for (PostComment comment : comments) {
+                assertNotNull(comment.getPost().getTitle());
+            }
+
+            List<Post> posts = entityManager.createQuery("""
+                select p
+                from Post p
+                order by p.id
+                """, Post.class)
+            .getResultList();
+
+            for (Post post : posts) {
+                assertEquals(2, post.getComments().size());
+            }
+        });
+
+        List<FetchPattern> fetchPatterns = statistics().getTopFetchPatterns(10);
+        LOGGER.info("Fetch patterns: {}, untracked fetches: {}", fetchPatterns, statistics().getUntrackedFetchCount());
+
+        //the session has a single slot, so the collection fetches are counted as untracked
+        assertEquals(1, fetchPatterns.size());
+        assertEquals(Post.class.getName(), fetchPatterns.get(0).association());
+        assertEquals(POST_COUNT, statistics().getUntrackedFetchCount());
+
+        statistics().clear();
+        assertEquals(0, statistics().getUntrackedFetchCount());
+    }
+
+    @Test
+    public void testJoinFetch() {
+        doInJPA(entityManager -> {
+            List<PostComment> comments = entityManager.createQuery("""
+                select pc
+                from PostComment pc
+                join fetch pc.post
+                order by pc.id
+                """, PostComment.class)
+            .getResultList();
+
+            for (PostComment comment : comments) {
+                assertNotNull(comment.getPost().getTitle());
+            }
+        });
+
+        assertTrue(statistics().getTopFetchPatterns(10).isEmpty());
+    }
+
+    @Test
+    public void testAggregatorCapacity() {
+        FetchPatternAggregator aggregator = new FetchPatternAggregator(2, 0.5);
+        aggregator.add("Post", "A", 10, 1000);
+        aggregator.add("Post", "B", 5, 500);
+        aggregator.add("Post", "C", 3, 300);
+
+        List<FetchPattern> fetchPatterns = aggregator.top(10);
+        assertEquals(2, fetchPatterns.size());
+        assertEquals("A", fetchPatterns.get(0).callSite());
+        assertEquals(20, fetchPatterns.get(0).estimatedFetchCount());
+        assertEquals("C", fetchPatterns.get(1).callSite());
+        assertEquals(2000, fetchPatterns.get(0).estimatedFetchNanos());
+        assertEquals(100, fetchPatterns.get(0).averageFetchNanos());
+        //C inherits the count of the evicted B pattern, but not its fetch time
+        assertEquals(8, fetchPatterns.get(1).fetchCount());
+        assertEquals(300, fetchPatterns.get(1).fetchNanos());
+    }
+
+    private SamplingFetchStatistics statistics() {
+        return (SamplingFetchStatistics) sessionFactory().getStatistics();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        @OneToMany(mappedBy = "post")
+        private List<PostComment> comments = new ArrayList<>();
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public List<PostComment> getComments() {
+            return comments;
+        }
+    }
+
+    @Entity(name = "PostComment")
+    @Table(name = "post_comment")
+    public static class PostComment {
+
+        @Id
+        private Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        private Post post;
+
+        private String review;
+
+        public Long getId() {
+            return id;
+        }
+
+        public PostComment setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public Post getPost() {
+            return post;
+        }
+
+        public PostComment setPost(Post post) {
+            this.post = post;
+            return this;
+        }
+
+        public String getReview() {
+            return review;
+        }
+
+        public PostComment setReview(String review) {
+            this.review = review;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.detector;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Detects N+1 query issues in production by sampling sessions.
+ * <p>
+ * Unlike {@link SessionStatistics} and {@link AssociationFetch.Context}, which track
+ * every loaded entity, a sampled session only counts the secondary fetches
+ * by association and call site in a fixed number of slots, so its overhead doesn't
+ * depend on how many entities it loads. When the session is closed, the patterns that were
+ * fetched at least {@link #THRESHOLD} times are added to a bounded {@link FetchPatternAggregator}.
+ * <p>
+ * The cost of a fetch is the time elapsed from the preparation of its secondary query statement
+ * until Hibernate reports the fetch, so it includes the query execution and the result set processing.
+ * The fetches of a session that has no free slot left are counted as untracked,
+ * and {@link #getUntrackedFetchCount()} tells how many fetches are missing from the top patterns.
+ *
+ * @author Vlad Mihalcea
+ */
+public class SamplingFetchStatistics extends StatisticsImpl {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SamplingFetchStatistics.class);
+
+    public static final String SAMPLE_RATE = "hpjp.fetch_detector.sample_rate";
+
+    public static final String CAPACITY = "hpjp.fetch_detector.capacity";
+
+    public static final String THRESHOLD = "hpjp.fetch_detector.threshold";
+
+    public static final String SLOTS = "hpjp.fetch_detector.slots";
+
+    public static final double DEFAULT_SAMPLE_RATE = 0.01;
+
+    public static final int DEFAULT_CAPACITY = 128;
+
+    public static final int DEFAULT_THRESHOLD = 2;
+
+    public static final int DEFAULT_SLOTS = 32;
+
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private final double sampleRate;
+
+    private final int threshold;
+
+    private final int slots;
+
+    private final FetchPatternAggregator aggregator;
+
+    private final ThreadLocal<SessionContext> sessionContext;
+
+    public SamplingFetchStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+        Map<String, Object> settings = sessionFactory.getServiceRegistry()
+            .requireService(ConfigurationService.class)
+            .getSettings();
+        Object sampleRateSetting = settings.get(SAMPLE_RATE);
+        sampleRate = sampleRateSetting != null ?
+            Double.parseDouble(sampleRateSetting.toString()) :
+            DEFAULT_SAMPLE_RATE;
+        threshold = ConfigurationHelper.getInt(THRESHOLD, settings, DEFAULT_THRESHOLD);
+        slots = ConfigurationHelper.getInt(SLOTS, settings, DEFAULT_SLOTS);
+        sessionContext = ThreadLocal.withInitial(() -> new SessionContext(slots));
+        aggregator = new FetchPatternAggregator(
+            ConfigurationHelper.getInt(CAPACITY, settings, DEFAULT_CAPACITY),
+            sampleRate
+        );
+    }
+
+    @Override
+    public void openSession() {
+        SessionContext context = sessionContext.get();
+        if (context.depth++ == 0) {
+            context.sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        }
+        super.openSession();
+    }
+
+    @Override
+    public void prepareStatement() {
+        SessionContext context = sessionContext.get();
+        if (context.sampled) {
+            context.statementStartNanos = System.nanoTime();
+        }
+        super.prepareStatement();
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        recordFetch(entityName);
+        super.fetchEntity(entityName);
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        recordFetch(role);
+        super.fetchCollection(role);
+    }
+
+    @Override
+    public void closeSession() {
+        SessionContext context = sessionContext.get();
+        if (--context.depth <= 0) {
+            if (context.sampled) {
+                for (int i = 0; i < context.size; i++) {
+                    if (context.fetchCounts[i] >= threshold) {
+                        aggregator.add(
+                            context.associations[i],
+                            context.callSites[i],
+                            context.fetchCounts[i],
+                            context.fetchNanos[i]
+                        );
+                    }
+                }
+                if (context.untrackedFetchCount > 0) {
+                    LOGGER.warn(
+                        "The session fetched more than {} patterns, so {} fetch(es) were not attributed to a pattern",
+                        slots,
+                        context.untrackedFetchCount
+                    );
+                    aggregator.addUntracked(context.untrackedFetchCount);
+                }
+            }
+            context.reset();
+        }
+        super.closeSession();
+    }
+
+    public List<FetchPattern> getTopFetchPatterns(int limit) {
+        return aggregator.top(limit);
+    }
+
+    /**
+     * @return the number of sampled fetches that are missing from the top fetch patterns
+     * because their session had no free slot left
+     */
+    public long getUntrackedFetchCount() {
+        return aggregator.getUntrackedFetchCount();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        if (aggregator != null) {
+            aggregator.clear();
+        }
+    }
+
+    private void recordFetch(String association) {
+        SessionContext context = sessionContext.get();
+        if (context.sampled) {
+            long fetchNanos = 0;
+            if (context.statementStartNanos != 0) {
+                fetchNanos = System.nanoTime() - context.statementStartNanos;
+                context.statementStartNanos = 0;
+            }
+            context.record(association, callSite(), fetchNanos);
+        }
+    }
+
+    private static String callSite() {
+        return stackWalker.walk(frames -> frames
+            .filter(frame -> !isFrameworkClass(frame.getClassName()))
+            .findFirst()
+            .map(StackWalker.StackFrame::toStackTraceElement)
+            .map(StackTraceElement::toString)
+            .orElse("unknown")
+        );
+    }
+
+    private static boolean isFrameworkClass(String className) {
+        return className.startsWith("org.hibernate.") ||
+            className.startsWith("java.") ||
+            className.startsWith("jdk.") ||
+            className.startsWith("sun.") ||
+            className.startsWith("jakarta.") ||
+            className.startsWith("net.bytebuddy.") ||
+            className.startsWith("org.springframework.") ||
+            className.startsWith(SamplingFetchStatistics.class.getName()) ||
+            className.contains("$HibernateProxy$");
+    }
+
+    /**
+     * Fixed-size fetch counters, reused by all sessions opened by the current thread.
+     */
+    private static class SessionContext {
+
+        private final String[] associations;
+
+        private final String[] callSites;
+
+        private final int[] fetchCounts;
+
+        private final long[] fetchNanos;
+
+        private int size;
+
+        private long untrackedFetchCount;
+
+        private long statementStartNanos;
+
+        private int depth;
+
+        private boolean sampled;
+
+        private SessionContext(int slots) {
+            associations = new String[slots];
+            callSites = new String[slots];
+            fetchCounts = new int[slots];
+            fetchNanos = new long[slots];
+        }
+
+        private void record(String association, String callSite, long nanos) {
+            for (int i = 0; i < size; i++) {
+                if (associations[i].equals(association) && callSites[i].equals(callSite)) {
+                    fetchCounts[i]++;
+                    fetchNanos[i] += nanos;
+                    return;
+                }
+            }
+            if (size < associations.length) {
+                associations[size] = association;
+                callSites[size] = callSite;
+                fetchCounts[size] = 1;
+                fetchNanos[size] = nanos;
+                size++;
+            } else {
+                untrackedFetchCount++;
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < size; i++) {
+                associations[i] = null;
+                callSites[i] = null;
+                fetchCounts[i] = 0;
+                fetchNanos[i] = 0;
+            }
+            size = 0;
+            untrackedFetchCount = 0;
+            statementStartNanos = 0;
+            depth = 0;
+            sampled = false;
+        }
+    }
+
+    public static class Factory implements StatisticsFactory {
+
+        public static final Factory INSTANCE = new Factory();
+
+        @Override
+        public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+            return new SamplingFetchStatistics(sessionFactory);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+
+/**
+ * <code>BinaryRowReader</code> - Reads the files written using the {@link ExportFormat#BINARY} format.
+ *
+ * @author Vlad Mihalcea
+ */
+public class BinaryRowReader implements Closeable {
+
+    private final DataInputStream input;
+
+    private final String[] columns;
+
+    private long rowCount;
+
+    private boolean ended;
+
+    public BinaryRowReader(Path file) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+        if (input.readInt() != BinaryRowWriter.MAGIC || input.readByte() != BinaryRowWriter.VERSION) {
+            input.close();
+            throw new IOException(String.format("The [%s] file is not a binary export file!", file));
+        }
+        columns = new String[input.readShort()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = readString();
+        }
+    }
+
+    public String[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * @return the next row, or {@code null} if all rows were read
+     */
+    public Object[] readRow() throws IOException {
+        if (ended) {
+            return null;
+        }
+        byte marker = input.readByte();
+        if (marker == BinaryRowWriter.END) {
+            ended = true;
+            long writtenRowCount = input.readLong();
+            if (writtenRowCount != rowCount) {
+                throw new IOException(
+                    String.format(
+                        "The file contains %d rows, but %d rows were written!",
+                        rowCount,
+                        writtenRowCount
+                    )
+                );
+            }
+            return null;
+        }
+        if (marker != BinaryRowWriter.ROW) {
+            throw new IOException(String.format("Unexpected [%d] row marker!", marker));
+        }
+        Object[] row = new Object[columns.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = readValue();
+        }
+        rowCount++;
+        return row;
+    }
+
+    private Object readValue() throws IOException {
+        byte type = input.readByte();
+        return switch (type) {
+            case BinaryRowWriter.NULL -> null;
+            case BinaryRowWriter.LONG -> input.readLong();
+            case BinaryRowWriter.INTEGER -> input.readInt();
+            case BinaryRowWriter.DOUBLE -> input.readDouble();
+            case BinaryRowWriter.STRING -> readString();
+            case BinaryRowWriter.TIMESTAMP -> {
+                Timestamp timestamp = new Timestamp(input.readLong());
+                timestamp.setNanos(input.readInt());
+                yield timestamp;
+            }
+            case BinaryRowWriter.BOOLEAN -> input.readByte() != 0;
+            case BinaryRowWriter.BIG_DECIMAL -> new BigDecimal(readString());
+            case BinaryRowWriter.BYTES -> input.readNBytes(input.readInt());
+            default -> throw new IOException(String.format("Unexpected [%d] value type!", type));
+        };
+    }
+
+    private String readString() throws IOException {
+        return new String(input.readNBytes(input.readInt()), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
@@ -0,0 +1,130 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+
+/**
+ * <code>BinaryRowWriter</code> - Writes the rows using a compact binary format, which
+ * can be read using the {@link BinaryRowReader}.
+ * <p>
+ * The file starts with a header containing the column names, every row is written as a row marker
+ * followed by the type-tagged column values, and the file ends with an end marker followed by the row count,
+ * which are written by {@link #finish()}, so a file missing them is incomplete.
+ * Numbers and timestamps are written in their binary form, so they don't have to be formatted and parsed.
+ *
+ * @author Vlad Mihalcea
+ */
+class BinaryRowWriter extends RowWriter {
+
+    static final int MAGIC = 0x48504A50;
+
+    static final byte VERSION = 1;
+
+    static final byte END = 0;
+    static final byte ROW = 1;
+
+    static final byte NULL = 0;
+    static final byte LONG = 1;
+    static final byte INTEGER = 2;
+    static final byte DOUBLE = 3;
+    static final byte STRING = 4;
+    static final byte TIMESTAMP = 5;
+    static final byte BOOLEAN = 6;
+    static final byte BIG_DECIMAL = 7;
+    static final byte BYTES = 8;
+
+    BinaryRowWriter(Path file, int bufferSize) throws IOException {
+        super(file, bufferSize);
+    }
+
+    @Override
+    public void writeHeader(String[] columns) throws IOException {
+        ensureRemaining(7);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putShort((short) columns.length);
+        for (String column : columns) {
+            writeString(column);
+        }
+    }
+
+    @Override
+    protected void doWriteRow(Object[] values) throws IOException {
+        ensureRemaining(1);
+        buffer.put(ROW);
+        for (Object value : values) {
+            writeValue(value);
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            ensureRemaining(1);
+            buffer.put(NULL);
+        } else if (value instanceof Long longValue) {
+            ensureRemaining(9);
+            buffer.put(LONG).putLong(longValue);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            ensureRemaining(5);
+            buffer.put(INTEGER).putInt(((Number) value).intValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            ensureRemaining(9);
+            buffer.put(DOUBLE).putDouble(((Number) value).doubleValue());
+        } else if (value instanceof Timestamp timestamp) {
+            ensureRemaining(13);
+            buffer.put(TIMESTAMP).putLong(timestamp.getTime()).putInt(timestamp.getNanos());
+        } else if (value instanceof Boolean booleanValue) {
+            ensureRemaining(2);
+            buffer.put(BOOLEAN).put((byte) (booleanValue ? 1 : 0));
+        } else if (value instanceof BigDecimal bigDecimal) {
+            ensureRemaining(1);
+            buffer.put(BIG_DECIMAL);
+            writeString(bigDecimal.toString());
+        } else if (value instanceof byte[] bytes) {
+            ensureRemaining(5);
+            buffer.put(BYTES).putInt(bytes.length);
+            write(bytes);
+        } else {
+            ensureRemaining(1);
+            buffer.put(STRING);
+            writeString(value.toString());
+        }
+    }
+
+    /**
+     * Write the UTF-8 byte count followed by the UTF-8 bytes, encoding the ASCII strings directly into the buffer.
+     */
+    private void writeString(String value) throws IOException {
+        int length = value.length();
+        if (ensureRemaining(4 + length)) {
+            int start = buffer.position();
+            buffer.putInt(length);
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else {
+                    ascii = false;
+                }
+            }
+            if (ascii) {
+                return;
+            }
+            buffer.position(start);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(4);
+        buffer.putInt(bytes.length);
+        write(bytes);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        ensureRemaining(9);
+        buffer.put(END).putLong(getRowCount());
+    }
+}
@@ -0,0 +1,78 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * <code>CsvRowWriter</code> - Writes the rows using the RFC 4180 CSV format.
+ * <p>
+ * The records end with a CRLF line break, the values containing a comma, a double quote,
+ * or a line break are quoted, and the <code>null</code> values are written as empty fields.
+ *
+ * @author Vlad Mihalcea
+ */
+class CsvRowWriter extends RowWriter {
+
+    private final StringBuilder field = new StringBuilder();
+
+    CsvRowWriter(Path file, int bufferSize) throws IOException {
+        super(file, bufferSize);
+    }
+
+    @Override
+    public void writeHeader(String[] columns) throws IOException {
+        writeLine(columns);
+    }
+
+    @Override
+    protected void doWriteRow(Object[] values) throws IOException {
+        writeLine(values);
+    }
+
+    private void writeLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            Object value = values[i];
+            if (value != null) {
+                writeField(value.toString());
+            }
+        }
+        writeByte('\r');
+        writeByte('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        if (needsQuoting(value)) {
+            field.setLength(0);
+            field.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    field.append('"');
+                }
+                field.append(c);
+            }
+            field.append('"');
+            writeText(field);
+        } else {
+            writeText(value);
+        }
+    }
+
+    private boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeByte(char c) throws IOException {
+        ensureRemaining(1);
+        buffer.put((byte) c);
+    }
+}
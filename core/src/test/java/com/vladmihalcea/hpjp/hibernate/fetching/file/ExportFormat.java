@@ -0,0 +1,36 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * <code>ExportFormat</code> - The file formats supported by the {@link ResultSetExporter}.
+ *
+ * @author Vlad Mihalcea
+ */
+public enum ExportFormat {
+    CSV("csv") {
+        @Override
+        public RowWriter newWriter(Path file, int bufferSize) throws IOException {
+            return new CsvRowWriter(file, bufferSize);
+        }
+    },
+    BINARY("bin") {
+        @Override
+        public RowWriter newWriter(Path file, int bufferSize) throws IOException {
+            return new BinaryRowWriter(file, bufferSize);
+        }
+    };
+
+    private final String fileExtension;
+
+    ExportFormat(String fileExtension) {
+        this.fileExtension = fileExtension;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public abstract RowWriter newWriter(Path file, int bufferSize) throws IOException;
+}
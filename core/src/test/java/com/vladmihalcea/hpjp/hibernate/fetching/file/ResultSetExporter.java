@@ -0,0 +1,288 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <code>ResultSetExporter</code> - Exports the result of a SQL or JPQL query to a file, on any database.
+ * <p>
+ * The query result is read using a forward-only, read-only cursor and the configured fetch size, and every row
+ * is written to the file as soon as it's read, so the export uses a bounded amount of memory. On PostgreSQL,
+ * the fetch size is used only if auto-commit is disabled, which is why the SQL exports run in a transaction.
+ * On MySQL, the fetch size must be {@link Integer#MIN_VALUE} to stream the result set.
+ * <p>
+ * If the export fails, the partially written file is deleted.
+ * <p>
+ * A SQL query can also be exported by id ranges, each range being exported to its own file, in parallel
+ * if an {@link Executor} is provided.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ResultSetExporter {
+
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+
+    private ExportFormat format = ExportFormat.CSV;
+
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private boolean header = true;
+
+    private Executor partitionExecutor;
+
+    public ResultSetExporter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public ResultSetExporter setFormat(ExportFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    public ResultSetExporter setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public ResultSetExporter setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Write the column names before the rows. The {@link ExportFormat#BINARY} files
+     * always have a header, as the reader needs the column count.
+     *
+     * @param header whether the CSV files start with the column names
+     * @return this exporter
+     */
+    public ResultSetExporter setHeader(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    /**
+     * Export the partitions in parallel, using the given {@link Executor}. Every partition uses
+     * its own database connection, so the connection pool should allow as many connections
+     * as the executor threads.
+     *
+     * @param partitionExecutor executor exporting the partitions
+     * @return this exporter
+     */
+    public ResultSetExporter setPartitionExecutor(Executor partitionExecutor) {
+        this.partitionExecutor = partitionExecutor;
+        return this;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Export the result of the given SQL query.
+     *
+     * @param sql SQL query
+     * @param file output file
+     * @param parameters SQL query parameters
+     * @return the number of exported rows
+     */
+    public long export(String sql, Path file, Object... parameters) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    sql,
+                    ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                long rowCount;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    rowCount = write(resultSet, file);
+                }
+                connection.commit();
+                return rowCount;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    /**
+     * Export the result of the given JPQL query, which should select scalar values, like
+     * <code>select p.id as id, p.title as title from Post p</code>, as entities would be
+     * kept in the Persistence Context until the export is done. The column names are the
+     * select item aliases.
+     *
+     * @param entityManager current {@link EntityManager}
+     * @param jpql JPQL query
+     * @param file output file
+     * @return the number of exported rows
+     */
+    @SuppressWarnings("unchecked")
+    public long export(EntityManager entityManager, String jpql, Path file) {
+        Query<Tuple> query = entityManager.createQuery(jpql, Tuple.class)
+            .unwrap(Query.class)
+            .setFetchSize(fetchSize)
+            .setReadOnly(true)
+            .setCacheMode(CacheMode.IGNORE);
+        try (ScrollableResults<Tuple> results = query.scroll(ScrollMode.FORWARD_ONLY);
+             RowWriter writer = format.newWriter(file, bufferSize)) {
+            Object[] row = null;
+            while (results.next()) {
+                Tuple tuple = results.get();
+                if (row == null) {
+                    List<TupleElement<?>> elements = tuple.getElements();
+                    row = new Object[elements.size()];
+                    if (writesHeader()) {
+                        String[] columns = new String[elements.size()];
+                        for (int i = 0; i < columns.length; i++) {
+                            String alias = elements.get(i).getAlias();
+                            columns[i] = alias != null ? alias : "column" + (i + 1);
+                        }
+                        writer.writeHeader(columns);
+                    }
+                }
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = tuple.get(i);
+                }
+                writer.writeRow(row);
+            }
+            if (row == null && format == ExportFormat.BINARY) {
+                writer.writeHeader(new String[0]);
+            }
+            writer.finish();
+            return writer.getRowCount();
+        } catch (IOException e) {
+            deletePartialFile(file, e);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deletePartialFile(file, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Export the result of the given SQL query by splitting the <code>[minId, maxId]</code> interval
+     * into ranges, each range being exported to its own file. The query must take the range bounds
+     * as its first two parameters, like <code>select * from post where id &gt;= ? and id &lt; ?</code>,
+     * the lower bound being inclusive and the upper bound being exclusive.
+     *
+     * @param sql SQL query filtering by an id range
+     * @param minId minimum id
+     * @param maxId maximum id
+     * @param partitionCount number of ranges
+     * @param directory output directory
+     * @param fileName output file name, which gets the partition number and the format extension as suffix
+     * @return the files and the number of exported rows
+     */
+    public ExportResult exportPartitioned(
+            String sql,
+            long minId,
+            long maxId,
+            int partitionCount,
+            Path directory,
+            String fileName) {
+        long idCount = maxId - minId + 1;
+        long rangeSize = Math.max(1, (idCount + partitionCount - 1) / partitionCount);
+
+        List<Path> files = new ArrayList<>(partitionCount);
+        List<CompletableFuture<Long>> rowCounts = new ArrayList<>(partitionCount);
+        int partition = 1;
+        for (long lowerBound = minId; lowerBound <= maxId; lowerBound += rangeSize, partition++) {
+            Path file = directory.resolve(
+                String.format("%s-%d.%s", fileName, partition, format.getFileExtension())
+            );
+            long rangeStart = lowerBound;
+            long rangeEnd = Math.min(lowerBound + rangeSize, maxId + 1);
+            files.add(file);
+            if (partitionExecutor == null) {
+                rowCounts.add(CompletableFuture.completedFuture(export(sql, file, rangeStart, rangeEnd)));
+            } else {
+                rowCounts.add(
+                    CompletableFuture.supplyAsync(() -> export(sql, file, rangeStart, rangeEnd), partitionExecutor)
+                );
+            }
+        }
+
+        long rowCount = 0;
+        for (CompletableFuture<Long> partitionRowCount : rowCounts) {
+            rowCount += partitionRowCount.join();
+        }
+        return new ExportResult(files, rowCount);
+    }
+
+    long write(ResultSet resultSet, Path file) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        try (RowWriter writer = format.newWriter(file, bufferSize)) {
+            if (writesHeader()) {
+                String[] columns = new String[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    columns[i] = metaData.getColumnLabel(i + 1);
+                }
+                writer.writeHeader(columns);
+            }
+            Object[] row = new Object[columnCount];
+            while (resultSet.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                writer.writeRow(row);
+            }
+            writer.finish();
+            return writer.getRowCount();
+        } catch (IOException e) {
+            deletePartialFile(file, e);
+            throw new UncheckedIOException(e);
+        } catch (SQLException | RuntimeException e) {
+            deletePartialFile(file, e);
+            throw e;
+        }
+    }
+
+    private void deletePartialFile(Path file, Exception cause) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private boolean writesHeader() {
+        return header || format == ExportFormat.BINARY;
+    }
+
+    public record ExportResult(List<Path> files, long rowCount) {
+    }
+}
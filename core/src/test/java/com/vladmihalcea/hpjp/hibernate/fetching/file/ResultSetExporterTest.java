@@ -0,0 +1,265 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import com.vladmihalcea.hpjp.hibernate.fetching.file.PostgreSQLCopyQueryResultSetToFileTest.Post;
+import com.vladmihalcea.hpjp.hibernate.fetching.file.PostgreSQLCopyQueryResultSetToFileTest.PostComment;
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class ResultSetExporterTest extends AbstractTest {
+
+    public static final int POST_COUNT = 100;
+
+    public static final String[] REVIEWS = new String[] {
+        "Excellent book to understand Java Persistence",
+        "Must-read for Java developers",
+        "Five Stars"
+    };
+
+    private Path outputFolder;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class,
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "100");
+        properties.setProperty(AvailableSettings.ORDER_INSERTS, Boolean.TRUE.toString());
+    }
+
+    @Override
+    public void afterInit() {
+        doInJPA(entityManager -> {
+            long commentId = 1;
+            for (long id = 1; id <= POST_COUNT; id++) {
+                Post post = new Post()
+                    .setId(id)
+                    .setTitle(
+                        id == 1 ?
+                            "\"High-Performance Java Persistence\", 2nd edition" :
+                            String.format("High-Performance Java Persistence - page %d", id)
+                    );
+                for (String review : REVIEWS) {
+                    post.addComment(
+                        new PostComment()
+                            .setId(commentId++)
+                            .setReview(review)
+                    );
+                }
+                entityManager.persist(post);
+            }
+        });
+        try {
+            outputFolder = Files.createTempDirectory("result-set-export");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        try (var files = Files.list(outputFolder)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+            Files.delete(outputFolder);
+        } catch (IOException e) {
+            LOGGER.warn("The export folder could not be deleted", e);
+        }
+        super.destroy();
+    }
+
+    @Test
+    public void testCsvExport() throws IOException {
+        Path file = outputFolder.resolve("post_and_comments.csv");
+        long rowCount = new ResultSetExporter(dataSource())
+            .setFetchSize(50)
+            .setBufferSize(1024)
+            .export("""
+                SELECT p.id AS post_id, p.title AS post_title, pc.id AS comment_id, pc.review AS comment_review
+                FROM post p
+                INNER JOIN post_comment pc ON pc.post_id = p.id
+                ORDER BY pc.id
+                """, file);
+
+        assertEquals(POST_COUNT * REVIEWS.length, rowCount);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(rowCount + 1, lines.size());
+        assertEquals("POST_ID,POST_TITLE,COMMENT_ID,COMMENT_REVIEW", lines.get(0));
+        assertEquals(
+            "1,\"\"\"High-Performance Java Persistence\"\", 2nd edition\",1,Excellent book to understand Java Persistence",
+            lines.get(1)
+        );
+        assertEquals(
+            "100,High-Performance Java Persistence - page 100,300,Five Stars",
+            lines.get(lines.size() - 1)
+        );
+        String csv = Files.readString(file);
+        assertTrue(csv.startsWith("POST_ID,POST_TITLE,COMMENT_ID,COMMENT_REVIEW\r\n"));
+        assertTrue(csv.endsWith("Five Stars\r\n"));
+    }
+
+    @Test
+    public void testBinaryExport() throws IOException {
+        Path file = outputFolder.resolve("post.bin");
+        long rowCount = new ResultSetExporter(dataSource())
+            .setFormat(ExportFormat.BINARY)
+            .setBufferSize(256)
+            .export("""
+                SELECT p.id, p.title
+                FROM post p
+                WHERE p.id <= ?
+                ORDER BY p.id
+                """, file, 10);
+
+        assertEquals(10, rowCount);
+        try (BinaryRowReader reader = new BinaryRowReader(file)) {
+            assertArrayEquals(new String[]{"ID", "TITLE"}, reader.getColumns());
+            Object[] row = reader.readRow();
+            assertEquals(1L, row[0]);
+            assertEquals("\"High-Performance Java Persistence\", 2nd edition", row[1]);
+            long id = 1;
+            while ((row = reader.readRow()) != null) {
+                assertEquals(++id, row[0]);
+                assertEquals(String.format("High-Performance Java Persistence - page %d", id), row[1]);
+            }
+            assertEquals(10, id);
+        }
+    }
+
+    @Test
+    public void testFailedExportDeletesPartialFile() {
+        Path file = outputFolder.resolve("post_failed.bin");
+        ResultSetExporter exporter = new ResultSetExporter(dataSource())
+            .setFormat(ExportFormat.BINARY)
+            .setBufferSize(64);
+
+        doInJDBC(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT p.id, p.title
+                FROM post p
+                ORDER BY p.id
+                """);
+                 ResultSet resultSet = statement.executeQuery()) {
+                try {
+                    exporter.write(failingResultSet(resultSet, 10), file);
+                    fail("The export should have failed");
+                } catch (SQLException expected) {
+                    LOGGER.info("The export failed", expected);
+                }
+            }
+        });
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testUnfinishedBinaryFileIsIncomplete() throws IOException {
+        Path file = outputFolder.resolve("post_unfinished.bin");
+        try (RowWriter writer = ExportFormat.BINARY.newWriter(file, 64)) {
+            writer.writeHeader(new String[]{"ID"});
+            writer.writeRow(new Object[]{1L});
+        }
+
+        try (BinaryRowReader reader = new BinaryRowReader(file)) {
+            assertEquals(1L, reader.readRow()[0]);
+            reader.readRow();
+            fail("The file should be incomplete");
+        } catch (EOFException expected) {
+            LOGGER.info("The file is incomplete", expected);
+        }
+    }
+
+    @Test
+    public void testJpqlExport() throws IOException {
+        Path file = outputFolder.resolve("post_jpql.csv");
+        long rowCount = doInJPA(entityManager -> {
+            return new ResultSetExporter(dataSource())
+                .export(entityManager, """
+                    select p.id as id, p.title as title, count(pc.id) as comments
+                    from PostComment pc
+                    join pc.post p
+                    group by p.id, p.title
+                    order by p.id
+                    """, file);
+        });
+
+        assertEquals(POST_COUNT, rowCount);
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("id,title,comments", lines.get(0));
+        assertEquals("2,High-Performance Java Persistence - page 2,3", lines.get(2));
+    }
+
+    @Test
+    public void testPartitionedExport() throws IOException {
+        ExecutorService partitionExecutor = Executors.newFixedThreadPool(4);
+        ResultSetExporter.ExportResult result;
+        try {
+            result = new ResultSetExporter(dataSource())
+                .setFormat(ExportFormat.BINARY)
+                .setPartitionExecutor(partitionExecutor)
+                .exportPartitioned("""
+                    SELECT pc.id, pc.post_id, pc.review
+                    FROM post_comment pc
+                    WHERE pc.id >= ? AND pc.id < ?
+                    """, 1, POST_COUNT * REVIEWS.length, 4, outputFolder, "post_comment");
+        } finally {
+            partitionExecutor.shutdownNow();
+        }
+
+        assertEquals(POST_COUNT * REVIEWS.length, result.rowCount());
+        assertEquals(4, result.files().size());
+        assertEquals(outputFolder.resolve("post_comment-1.bin"), result.files().get(0));
+
+        Set<Long> commentIds = new HashSet<>();
+        for (Path file : result.files()) {
+            try (BinaryRowReader reader = new BinaryRowReader(file)) {
+                Object[] row;
+                while ((row = reader.readRow()) != null) {
+                    assertTrue(commentIds.add((Long) row[0]));
+                }
+            }
+        }
+        assertEquals(POST_COUNT * REVIEWS.length, commentIds.size());
+    }
+
+    private ResultSet failingResultSet(ResultSet resultSet, int failingRow) {
+        return (ResultSet) Proxy.newProxyInstance(
+            getClass().getClassLoader(),
+            new Class<?>[]{ResultSet.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("next") && resultSet.getRow() + 1 == failingRow) {
+                    throw new SQLException("The connection was lost");
+                }
+                try {
+                    return method.invoke(resultSet, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        );
+    }
+}
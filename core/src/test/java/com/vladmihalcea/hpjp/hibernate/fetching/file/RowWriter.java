@@ -0,0 +1,122 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <code>RowWriter</code> - Writes the rows of a query result to a file, using a fixed-size
+ * direct {@link ByteBuffer} that is written to the {@link FileChannel} every time it gets full.
+ * <p>
+ * Since a row is written as soon as it's read from the JDBC {@link java.sql.ResultSet}, the memory used
+ * by the export is bounded by the buffer size, no matter how many rows are exported.
+ * <p>
+ * The {@link #finish()} method must be called once all rows were written successfully, before closing the writer,
+ * so that a file whose export failed is not mistaken for a complete one.
+ *
+ * @author Vlad Mihalcea
+ */
+public abstract class RowWriter implements Closeable {
+
+    private final FileChannel channel;
+
+    protected final ByteBuffer buffer;
+
+    private long rowCount;
+
+    protected RowWriter(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        );
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    public abstract void writeHeader(String[] columns) throws IOException;
+
+    public final void writeRow(Object[] values) throws IOException {
+        doWriteRow(values);
+        rowCount++;
+    }
+
+    protected abstract void doWriteRow(Object[] values) throws IOException;
+
+    /**
+     * Mark the file as complete, after all rows were written.
+     */
+    public void finish() throws IOException {
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Make sure the buffer can take the given number of bytes, by writing its content to the file if necessary.
+     *
+     * @param byteCount number of bytes to be put into the buffer
+     * @return whether the bytes fit into the buffer, which is not the case if they are larger than the buffer
+     */
+    protected boolean ensureRemaining(int byteCount) throws IOException {
+        if (buffer.remaining() < byteCount) {
+            flush();
+        }
+        return buffer.remaining() >= byteCount;
+    }
+
+    protected void write(byte[] bytes) throws IOException {
+        if (ensureRemaining(bytes.length)) {
+            buffer.put(bytes);
+        } else {
+            ByteBuffer source = ByteBuffer.wrap(bytes);
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Write the given text as UTF-8, copying the ASCII characters directly into the buffer,
+     * without creating an intermediary byte array.
+     */
+    protected void writeText(CharSequence text) throws IOException {
+        int length = text.length();
+        if (ensureRemaining(length)) {
+            int start = buffer.position();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= 0x80) {
+                    buffer.position(start);
+                    write(text.toString().getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                buffer.put((byte) c);
+            }
+        } else {
+            write(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    protected void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
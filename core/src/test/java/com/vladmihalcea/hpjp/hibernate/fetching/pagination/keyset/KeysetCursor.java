@@ -0,0 +1,153 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <code>KeysetCursor</code> - The sort key values of the record a keyset page starts after.
+ * <p>
+ * The cursor is encoded as an opaque URL-safe Base64 token, so that it can be passed to the client and back.
+ * Every value is written along with its type, and only the basic types used as sort keys are supported,
+ * so decoding a token doesn't instantiate arbitrary classes.
+ *
+ * @author Vlad Mihalcea
+ */
+public record KeysetCursor(List<Object> values) {
+
+    private static final byte VERSION = 1;
+
+    private static final byte LONG = 'J';
+    private static final byte INTEGER = 'I';
+    private static final byte STRING = 'S';
+    private static final byte BIG_DECIMAL = 'B';
+    private static final byte TIMESTAMP = 'T';
+    private static final byte DATE = 'D';
+    private static final byte LOCAL_DATE_TIME = 'L';
+    private static final byte LOCAL_DATE = 'd';
+    private static final byte OFFSET_DATE_TIME = 'O';
+    private static final byte INSTANT = 'N';
+    private static final byte UUID_TYPE = 'U';
+
+    public KeysetCursor {
+        values = List.copyOf(values);
+    }
+
+    public static KeysetCursor of(Object... values) {
+        return new KeysetCursor(List.of(values));
+    }
+
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(VERSION);
+            output.writeByte(values.size());
+            for (Object value : values) {
+                write(output, value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    public static KeysetCursor decode(String token) {
+        try (DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (input.readByte() != VERSION) {
+                throw new IllegalArgumentException("The keyset cursor version is not supported!");
+            }
+            int size = input.readUnsignedByte();
+            List<Object> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(read(input));
+            }
+            if (input.read() != -1) {
+                throw new IllegalArgumentException("The keyset cursor has trailing bytes!");
+            }
+            return new KeysetCursor(values);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException(String.format("The [%s] keyset cursor is invalid!", token), e);
+        }
+    }
+
+    private static void write(DataOutputStream output, Object value) throws IOException {
+        if (value instanceof Long longValue) {
+            output.writeByte(LONG);
+            output.writeLong(longValue);
+        } else if (value instanceof Integer intValue) {
+            output.writeByte(INTEGER);
+            output.writeInt(intValue);
+        } else if (value instanceof String stringValue) {
+            output.writeByte(STRING);
+            output.writeUTF(stringValue);
+        } else if (value instanceof BigDecimal bigDecimal) {
+            output.writeByte(BIG_DECIMAL);
+            output.writeUTF(bigDecimal.toString());
+        } else if (value instanceof Timestamp timestamp) {
+            output.writeByte(TIMESTAMP);
+            output.writeLong(timestamp.getTime());
+            output.writeInt(timestamp.getNanos());
+        } else if (value instanceof Date date) {
+            output.writeByte(DATE);
+            output.writeLong(date.getTime());
+        } else if (value instanceof LocalDateTime localDateTime) {
+            output.writeByte(LOCAL_DATE_TIME);
+            output.writeUTF(localDateTime.toString());
+        } else if (value instanceof LocalDate localDate) {
+            output.writeByte(LOCAL_DATE);
+            output.writeLong(localDate.toEpochDay());
+        } else if (value instanceof OffsetDateTime offsetDateTime) {
+            output.writeByte(OFFSET_DATE_TIME);
+            output.writeUTF(offsetDateTime.toString());
+        } else if (value instanceof Instant instant) {
+            output.writeByte(INSTANT);
+            output.writeLong(instant.getEpochSecond());
+            output.writeInt(instant.getNano());
+        } else if (value instanceof UUID uuid) {
+            output.writeByte(UUID_TYPE);
+            output.writeLong(uuid.getMostSignificantBits());
+            output.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            throw new IllegalArgumentException(
+                String.format(
+                    "The [%s] value cannot be used as a keyset cursor value!",
+                    value
+                )
+            );
+        }
+    }
+
+    private static Object read(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        return switch (type) {
+            case LONG -> input.readLong();
+            case INTEGER -> input.readInt();
+            case STRING -> input.readUTF();
+            case BIG_DECIMAL -> new BigDecimal(input.readUTF());
+            case TIMESTAMP -> {
+                Timestamp timestamp = new Timestamp(input.readLong());
+                timestamp.setNanos(input.readInt());
+                yield timestamp;
+            }
+            case DATE -> new Date(input.readLong());
+            case LOCAL_DATE_TIME -> LocalDateTime.parse(input.readUTF());
+            case LOCAL_DATE -> LocalDate.ofEpochDay(input.readLong());
+            case OFFSET_DATE_TIME -> OffsetDateTime.parse(input.readUTF());
+            case INSTANT -> Instant.ofEpochSecond(input.readLong(), input.readInt());
+            case UUID_TYPE -> new UUID(input.readLong(), input.readLong());
+            default -> throw new IllegalArgumentException(
+                String.format("The [%c] keyset cursor value type is not supported!", (char) type)
+            );
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset;
+
+import java.util.List;
+
+/**
+ * <code>KeysetPage</code> - A page of records fetched by the {@link KeysetPaginator}, along with
+ * the opaque cursors that allow scrolling to the previous and the next pages.
+ *
+ * @param content page records, in the sort order
+ * @param previousCursor cursor of the previous page, or {@code null} if this is the first page
+ * @param nextCursor cursor of the next page, or {@code null} if this is the last page
+ * @author Vlad Mihalcea
+ */
+public record KeysetPage<T>(List<T> content, String previousCursor, String nextCursor) {
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,226 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset;
+
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.Post;
+import com.vladmihalcea.hpjp.hibernate.fetching.pagination.PostComment;
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class KeysetPaginationTest extends AbstractTest {
+
+    public static final int POST_COUNT = 50;
+
+    public static final int PAGE_SIZE = 10;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            PostComment.class,
+        };
+    }
+
+    @Override
+    protected boolean cacheBootstrap() {
+        return true;
+    }
+
+    @Override
+    public void afterInit() {
+        doInJPA(entityManager -> {
+            LocalDateTime timestamp = LocalDateTime.of(
+                2018, 10, 9, 12, 0, 0, 0
+            );
+
+            //every two posts share the same creation timestamp, so the id breaks the tie
+            LongStream.rangeClosed(1, POST_COUNT).forEach(postId -> {
+                entityManager.persist(
+                    new Post()
+                        .setId(postId)
+                        .setTitle(
+                            String.format("High-Performance Java Persistence - Chapter %d", postId)
+                        )
+                        .setCreatedOn(
+                            Timestamp.valueOf(timestamp.plusMinutes((postId + 1) / 2))
+                        )
+                );
+            });
+        });
+    }
+
+    private final KeysetPaginator<Post> paginator = new KeysetPaginator<>(
+        Post.class,
+        "p",
+        new KeysetSort()
+            .asc("createdOn")
+            .asc("id")
+    );
+
+    @Test
+    public void testScrollForwardAndBackward() {
+        List<KeysetPage<Post>> pages = new ArrayList<>();
+        doInJPA(entityManager -> {
+            KeysetPage<Post> page = paginator.first(entityManager, PAGE_SIZE);
+            assertFalse(page.hasPrevious());
+            pages.add(page);
+            while (page.hasNext()) {
+                page = paginator.next(entityManager, page.nextCursor(), PAGE_SIZE);
+                assertTrue(page.hasPrevious());
+                pages.add(page);
+            }
+        });
+
+        assertEquals(POST_COUNT / PAGE_SIZE, pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertEquals(postIds(i * PAGE_SIZE + 1, PAGE_SIZE), ids(pages.get(i)));
+        }
+
+        doInJPA(entityManager -> {
+            KeysetPage<Post> page = pages.get(pages.size() - 1);
+            for (int i = pages.size() - 2; i >= 0; i--) {
+                page = paginator.previous(entityManager, page.previousCursor(), PAGE_SIZE);
+                assertEquals(ids(pages.get(i)), ids(page));
+                assertTrue(page.hasNext());
+            }
+            assertFalse(page.hasPrevious());
+        });
+    }
+
+    @Test
+    public void testLastPage() {
+        doInJPA(entityManager -> {
+            KeysetPage<Post> lastPage = paginator.last(entityManager, 7);
+            assertEquals(postIds(POST_COUNT - 6, 7), ids(lastPage));
+            assertTrue(lastPage.hasPrevious());
+            assertFalse(lastPage.hasNext());
+
+            KeysetPage<Post> previousPage = paginator.previous(entityManager, lastPage.previousCursor(), 7);
+            assertEquals(postIds(POST_COUNT - 13, 7), ids(previousPage));
+        });
+    }
+
+    @Test
+    public void testDescendingSortWithFilter() {
+        KeysetPaginator<Post> latestPosts = new KeysetPaginator<>(
+            Post.class,
+            "p",
+            new KeysetSort()
+                .desc("createdOn")
+                .desc("id")
+        )
+        .setFilter("p.title like :titlePattern")
+        .setParameter("titlePattern", "%Chapter 1%");
+
+        doInJPA(entityManager -> {
+            KeysetPage<Post> firstPage = latestPosts.first(entityManager, 5);
+            assertEquals(List.of(19L, 18L, 17L, 16L, 15L), ids(firstPage));
+
+            KeysetPage<Post> secondPage = latestPosts.next(entityManager, firstPage.nextCursor(), 5);
+            assertEquals(List.of(14L, 13L, 12L, 11L, 10L), ids(secondPage));
+
+            KeysetPage<Post> thirdPage = latestPosts.next(entityManager, secondPage.nextCursor(), 5);
+            assertEquals(List.of(1L), ids(thirdPage));
+            assertFalse(thirdPage.hasNext());
+        });
+    }
+
+    @Test
+    public void testJpqlPredicate() {
+        KeysetSort sort = new KeysetSort()
+            .asc("createdOn")
+            .asc("id");
+
+        assertEquals(
+            "p.createdOn >= :keyset0 and (p.createdOn > :keyset0 or (p.createdOn = :keyset0 and p.id > :keyset1))",
+            sort.jpqlPredicate("p", false)
+        );
+
+        doInJPA(entityManager -> {
+            Post post = entityManager.find(Post.class, 20L);
+
+            List<Post> posts = sort.bind(
+                entityManager.createQuery(
+                    String.format("""
+                        select p
+                        from Post p
+                        where %s
+                        order by %s
+                        """,
+                        sort.jpqlPredicate("p", false),
+                        sort.jpqlOrderBy("p", false)
+                    ), Post.class),
+                KeysetCursor.of(post.getCreatedOn(), post.getId())
+            )
+            .setMaxResults(PAGE_SIZE)
+            .getResultList();
+
+            assertEquals(postIds(21, PAGE_SIZE), posts.stream().map(Post::getId).toList());
+        });
+    }
+
+    @Test
+    public void testCriteriaPredicate() {
+        KeysetSort sort = new KeysetSort()
+            .asc("createdOn")
+            .asc("id");
+
+        doInJPA(entityManager -> {
+            Post post = entityManager.find(Post.class, 20L);
+
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Post> query = builder.createQuery(Post.class);
+            Root<Post> root = query.from(Post.class);
+            query
+                .where(sort.predicate(builder, root, KeysetCursor.of(post.getCreatedOn(), post.getId()), true))
+                .orderBy(sort.orderBy(builder, root, true));
+
+            List<Post> posts = entityManager.createQuery(query)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+
+            assertEquals(
+                List.of(19L, 18L, 17L, 16L, 15L, 14L, 13L, 12L, 11L, 10L),
+                posts.stream().map(Post::getId).toList()
+            );
+        });
+    }
+
+    @Test
+    public void testCursorEncoding() {
+        Timestamp timestamp = Timestamp.valueOf(LocalDateTime.of(2018, 10, 9, 12, 0, 0, 123456789));
+        UUID uuid = UUID.randomUUID();
+        KeysetCursor cursor = KeysetCursor.of(timestamp, 42L, "Chapter 1", uuid);
+
+        KeysetCursor decodedCursor = KeysetCursor.decode(cursor.encode());
+        assertEquals(cursor, decodedCursor);
+        assertEquals(123456789, ((Timestamp) decodedCursor.values().get(0)).getNanos());
+
+        try {
+            KeysetCursor.decode("not-a-cursor");
+            fail("Should have thrown IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private List<Long> ids(KeysetPage<Post> page) {
+        return page.content().stream().map(Post::getId).toList();
+    }
+
+    private List<Long> postIds(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count).boxed().toList();
+    }
+}
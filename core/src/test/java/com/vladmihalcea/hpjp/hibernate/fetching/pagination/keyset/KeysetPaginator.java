@@ -0,0 +1,167 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.*;
+
+/**
+ * <code>KeysetPaginator</code> - Fetches the pages of an entity query using keyset pagination,
+ * also known as the seek method.
+ * <p>
+ * Unlike offset pagination, which needs to scan and discard all the records of the previous pages,
+ * a keyset page starts right after the sort key values of the last record that was read, so the cost of
+ * fetching a page does not depend on how deep the page is, provided that there's an index on the sort keys.
+ * <p>
+ * The query fetches one more record than the page size, to find out if there is a page after the current one,
+ * in the scrolling direction. When scrolling backward, the sort order is reversed, and the fetched records
+ * are then put back in the sort order.
+ * <p>
+ * The page queries are JPQL queries, as Hibernate caches the plan of a JPQL query by its text,
+ * while a Criteria API query is translated again on every execution. For this reason, the filter
+ * is a JPQL condition using the entity alias given to the paginator.
+ *
+ * @author Vlad Mihalcea
+ */
+public class KeysetPaginator<T> {
+
+    private final Class<T> entityClass;
+
+    private final String alias;
+
+    private final KeysetSort sort;
+
+    private String filter;
+
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    private final String[] queries = new String[4];
+
+    public KeysetPaginator(Class<T> entityClass, String alias, KeysetSort sort) {
+        if (sort.size() == 0) {
+            throw new IllegalArgumentException("The keyset sort has no keys!");
+        }
+        this.entityClass = entityClass;
+        this.alias = alias;
+        this.sort = sort;
+    }
+
+    /**
+     * Restrict the paginated records using the given JPQL condition, like <code>p.title like :title</code>.
+     *
+     * @param filter JPQL condition
+     * @return this paginator
+     */
+    public KeysetPaginator<T> setFilter(String filter) {
+        this.filter = filter;
+        Arrays.fill(queries, null);
+        return this;
+    }
+
+    public KeysetPaginator<T> setParameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    public KeysetPage<T> first(EntityManager entityManager, int pageSize) {
+        return fetch(entityManager, null, pageSize, false);
+    }
+
+    public KeysetPage<T> last(EntityManager entityManager, int pageSize) {
+        return fetch(entityManager, null, pageSize, true);
+    }
+
+    /**
+     * Fetch the page that follows the given cursor.
+     *
+     * @param entityManager current {@link EntityManager}
+     * @param cursor the {@link KeysetPage#nextCursor()} value of the current page
+     * @param pageSize page size
+     * @return next page
+     */
+    public KeysetPage<T> next(EntityManager entityManager, String cursor, int pageSize) {
+        return fetch(entityManager, KeysetCursor.decode(cursor), pageSize, false);
+    }
+
+    /**
+     * Fetch the page that precedes the given cursor.
+     *
+     * @param entityManager current {@link EntityManager}
+     * @param cursor the {@link KeysetPage#previousCursor()} value of the current page
+     * @param pageSize page size
+     * @return previous page
+     */
+    public KeysetPage<T> previous(EntityManager entityManager, String cursor, int pageSize) {
+        return fetch(entityManager, KeysetCursor.decode(cursor), pageSize, true);
+    }
+
+    private KeysetPage<T> fetch(EntityManager entityManager, KeysetCursor cursor, int pageSize, boolean backward) {
+        TypedQuery<Object[]> query = entityManager.createQuery(query(cursor != null, backward), Object[].class);
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            query.setParameter(parameter.getKey(), parameter.getValue());
+        }
+        if (cursor != null) {
+            sort.bind(query, cursor);
+        }
+        List<Object[]> rows = query
+            .setMaxResults(pageSize + 1)
+            .getResultList();
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        if (backward) {
+            rows = new ArrayList<>(rows);
+            Collections.reverse(rows);
+        }
+
+        List<T> content = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            content.add(entityClass.cast(row[0]));
+        }
+        if (rows.isEmpty()) {
+            return new KeysetPage<>(content, null, null);
+        }
+        boolean hasPrevious = backward ? hasMore : cursor != null;
+        boolean hasNext = backward ? cursor != null : hasMore;
+        return new KeysetPage<>(
+            content,
+            hasPrevious ? cursor(rows.get(0)) : null,
+            hasNext ? cursor(rows.get(rows.size() - 1)) : null
+        );
+    }
+
+    /**
+     * Build the page query, which selects the entity along with its sort key values.
+     */
+    private String query(boolean seek, boolean backward) {
+        int index = (seek ? 2 : 0) + (backward ? 1 : 0);
+        String query = queries[index];
+        if (query == null) {
+            StringBuilder jpql = new StringBuilder("select ").append(alias);
+            for (KeysetSort.Key key : sort.getKeys()) {
+                jpql.append(", ").append(alias).append('.').append(key.attribute());
+            }
+            jpql.append(" from ").append(entityClass.getName()).append(' ').append(alias);
+            List<String> conditions = new ArrayList<>(2);
+            if (filter != null) {
+                conditions.add("(" + filter + ")");
+            }
+            if (seek) {
+                conditions.add(sort.jpqlPredicate(alias, backward));
+            }
+            if (!conditions.isEmpty()) {
+                jpql.append(" where ").append(String.join(" and ", conditions));
+            }
+            jpql.append(" order by ").append(sort.jpqlOrderBy(alias, backward));
+            query = jpql.toString();
+            queries[index] = query;
+        }
+        return query;
+    }
+
+    private String cursor(Object[] row) {
+        return new KeysetCursor(Arrays.asList(row).subList(1, row.length)).encode();
+    }
+}
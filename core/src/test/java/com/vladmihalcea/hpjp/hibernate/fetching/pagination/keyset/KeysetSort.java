@@ -0,0 +1,191 @@
+package com.vladmihalcea.hpjp.hibernate.fetching.pagination.keyset;
+
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <code>KeysetSort</code> - The sort specification of a keyset pagination query.
+ * <p>
+ * The sort keys are entity attribute paths, like <code>createdOn</code> or <code>author.name</code>, and
+ * the last key must be unique, like the entity identifier, so that the sort order is deterministic.
+ * The sort keys must not be nullable.
+ * <p>
+ * For the keys <code>(a, b, c)</code> sorted ascending, the predicate that seeks past the cursor values is:
+ * <pre>
+ * a &gt;= :a and (a &gt; :a or (a = :a and (b &gt; :b or (b = :b and c &gt; :c))))
+ * </pre>
+ * which is equivalent to the <code>(a, b, c) &gt; (:a, :b, :c)</code> row value comparison, but it also
+ * works when the keys are sorted in different directions, and the leading range condition
+ * allows the database to use an index range scan on the <code>(a, b, c)</code> columns.
+ *
+ * @author Vlad Mihalcea
+ */
+public class KeysetSort {
+
+    public static final String PARAMETER_PREFIX = "keyset";
+
+    public record Key(String attribute, boolean ascending) {
+    }
+
+    private final List<Key> keys = new ArrayList<>();
+
+    public KeysetSort asc(String attribute) {
+        keys.add(new Key(attribute, true));
+        return this;
+    }
+
+    public KeysetSort desc(String attribute) {
+        keys.add(new Key(attribute, false));
+        return this;
+    }
+
+    public List<Key> getKeys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Build the Criteria API sort order.
+     *
+     * @param builder Criteria builder
+     * @param root query root
+     * @param reversed whether the sort direction of every key is reversed, for scrolling backward
+     * @return sort order
+     */
+    public List<Order> orderBy(CriteriaBuilder builder, Path<?> root, boolean reversed) {
+        List<Order> orders = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            Path<?> path = path(root, key.attribute());
+            orders.add(key.ascending() != reversed ? builder.asc(path) : builder.desc(path));
+        }
+        return orders;
+    }
+
+    /**
+     * Build the Criteria API predicate matching the records that follow the cursor in the sort order.
+     *
+     * @param builder Criteria builder
+     * @param root query root
+     * @param cursor cursor pointing to the last record that was read
+     * @param reversed whether the records that precede the cursor are matched, for scrolling backward
+     * @return seek predicate
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate predicate(CriteriaBuilder builder, Path<?> root, KeysetCursor cursor, boolean reversed) {
+        checkCursor(cursor);
+        Predicate predicate = null;
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            Key key = keys.get(i);
+            Expression path = path(root, key.attribute());
+            Comparable value = (Comparable) cursor.values().get(i);
+            Predicate seek = key.ascending() != reversed ?
+                builder.greaterThan(path, value) :
+                builder.lessThan(path, value);
+            predicate = predicate == null ?
+                seek :
+                builder.or(seek, builder.and(builder.equal(path, value), predicate));
+        }
+        Key first = keys.get(0);
+        Expression path = path(root, first.attribute());
+        Comparable value = (Comparable) cursor.values().get(0);
+        Predicate range = first.ascending() != reversed ?
+            builder.greaterThanOrEqualTo(path, value) :
+            builder.lessThanOrEqualTo(path, value);
+        return builder.and(range, predicate);
+    }
+
+    /**
+     * Build the JPQL <code>ORDER BY</code> clause content, like <code>p.createdOn asc, p.id asc</code>.
+     *
+     * @param alias entity alias
+     * @param reversed whether the sort direction of every key is reversed, for scrolling backward
+     * @return JPQL sort order
+     */
+    public String jpqlOrderBy(String alias, boolean reversed) {
+        StringBuilder orderBy = new StringBuilder();
+        for (Key key : keys) {
+            if (!orderBy.isEmpty()) {
+                orderBy.append(", ");
+            }
+            orderBy.append(alias).append('.').append(key.attribute())
+                .append(key.ascending() != reversed ? " asc" : " desc");
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * Build the JPQL predicate matching the records that follow the cursor in the sort order.
+     * The cursor values are bound to the <code>:keyset0</code>, <code>:keyset1</code>, ... parameters
+     * by the {@link #bind(Query, KeysetCursor)} method.
+     *
+     * @param alias entity alias
+     * @param reversed whether the records that precede the cursor are matched, for scrolling backward
+     * @return JPQL seek predicate
+     */
+    public String jpqlPredicate(String alias, boolean reversed) {
+        String predicate = null;
+        for (int i = keys.size() - 1; i >= 0; i--) {
+            Key key = keys.get(i);
+            String path = alias + "." + key.attribute();
+            String parameter = ":" + PARAMETER_PREFIX + i;
+            String seek = path + (key.ascending() != reversed ? " > " : " < ") + parameter;
+            predicate = predicate == null ?
+                seek :
+                String.format("(%s or (%s = %s and %s))", seek, path, parameter, predicate);
+        }
+        Key first = keys.get(0);
+        return String.format(
+            "%s.%s %s :%s0 and %s",
+            alias,
+            first.attribute(),
+            first.ascending() != reversed ? ">=" : "<=",
+            PARAMETER_PREFIX,
+            predicate
+        );
+    }
+
+    /**
+     * Bind the cursor values to the parameters of the {@link #jpqlPredicate(String, boolean)} predicate.
+     *
+     * @param query JPQL query
+     * @param cursor cursor pointing to the last record that was read
+     * @return the given query
+     */
+    public <Q extends Query> Q bind(Q query, KeysetCursor cursor) {
+        checkCursor(cursor);
+        for (int i = 0; i < keys.size(); i++) {
+            query.setParameter(PARAMETER_PREFIX + i, cursor.values().get(i));
+        }
+        return query;
+    }
+
+    static Path<?> path(Path<?> root, String attribute) {
+        Path<?> path = root;
+        for (String name : attribute.split("\\.")) {
+            path = path.get(name);
+        }
+        return path;
+    }
+
+    private void checkCursor(KeysetCursor cursor) {
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("The keyset sort has no keys!");
+        }
+        if (cursor.values().size() != keys.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "The cursor has %d values, but the keyset sort has %d keys!",
+                    cursor.values().size(),
+                    keys.size()
+                )
+            );
+        }
+    }
+}
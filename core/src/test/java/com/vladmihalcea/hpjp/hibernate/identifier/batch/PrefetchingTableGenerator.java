@@ -0,0 +1,254 @@
+package com.vladmihalcea.hpjp.hibernate.identifier.batch;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <code>PrefetchingTableGenerator</code> - A pooled {@link TableGenerator} that allocates the next block
+ * of identifiers in the background, before the current block runs out.
+ * <p>
+ * The threads take the identifiers from the current block using an atomic increment, so
+ * there's no lock on the hot path. When the remaining values of the current block drop to the
+ * prefetch threshold, the next block is fetched by a background thread, in its own transaction,
+ * using a connection from the {@link ConnectionProvider}. Once the current block runs out, the threads
+ * switch to the prefetched block, and only wait if the background fetch has not completed yet.
+ * <p>
+ * Like the <code>pooled-lo</code> optimizer, every fetch moves the table value by the increment size,
+ * so the values of a block are never handed out again, even if the generator is shut down mid-block.
+ * The unused values of the current and the prefetched blocks only leave a gap in the identifier sequence.
+ * If the background fetch fails, the next thread that needs a new block retries it.
+ * <p>
+ * The background fetch does not use the Session connection, so this generator
+ * does not support multitenancy or JTA transactions.
+ *
+ * @author Vlad Mihalcea
+ */
+public class PrefetchingTableGenerator extends TableGenerator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrefetchingTableGenerator.class);
+
+    public static final String PREFETCH_THRESHOLD_PARAM = "prefetch_threshold";
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "table-generator-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>(new Block(0, 0, 0));
+
+    private ConnectionProvider connectionProvider;
+
+    private boolean storeLastUsedValue;
+
+    private int prefetchThreshold;
+
+    private Class<?> identifierClass;
+
+    private String selectQuery;
+
+    private String insertQuery;
+
+    private String updateQuery;
+
+    private final AtomicLong fetchCount = new AtomicLong();
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, parameters, serviceRegistry);
+        connectionProvider = serviceRegistry.getService(ConnectionProvider.class);
+        storeLastUsedValue = serviceRegistry.getService(ConfigurationService.class).getSetting(
+            AvailableSettings.TABLE_GENERATOR_STORE_LAST_USED,
+            StandardConverters.BOOLEAN,
+            true
+        );
+        prefetchThreshold = ConfigurationHelper.getInt(
+            PREFETCH_THRESHOLD_PARAM,
+            parameters,
+            Math.max(1, getIncrementSize() / 2)
+        );
+        identifierClass = type.getReturnedClass();
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        super.initialize(context);
+        //reuse the dialect-specific SQL statements built by the TableGenerator
+        String[] sqlStatements = getAllSqlForTests();
+        selectQuery = sqlStatements[0];
+        insertQuery = sqlStatements[1];
+        updateQuery = sqlStatements[2];
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object obj) {
+        while (true) {
+            Block block = currentBlock.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                if (value == block.prefetchValue) {
+                    prefetch(block);
+                }
+                return toIdentifier(value);
+            }
+            Block nextBlock = awaitNextBlock(block);
+            currentBlock.compareAndSet(block, nextBlock);
+        }
+    }
+
+    /**
+     * @return the number of blocks fetched from the table
+     */
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    private CompletableFuture<Block> prefetch(Block block) {
+        CompletableFuture<Block> nextBlock = block.nextBlock.get();
+        if (nextBlock != null) {
+            return nextBlock;
+        }
+        CompletableFuture<Block> fetch = new CompletableFuture<>();
+        if (!block.nextBlock.compareAndSet(null, fetch)) {
+            return block.nextBlock.get();
+        }
+        try {
+            PREFETCH_EXECUTOR.execute(() -> complete(fetch));
+        } catch (RejectedExecutionException e) {
+            complete(fetch);
+        }
+        return fetch;
+    }
+
+    private Block awaitNextBlock(Block block) {
+        CompletableFuture<Block> nextBlock = prefetch(block);
+        try {
+            return nextBlock.join();
+        } catch (CompletionException e) {
+            //let the next thread retry the fetch
+            block.nextBlock.compareAndSet(nextBlock, null);
+            throw new HibernateException("Could not fetch the next identifier block", e.getCause());
+        }
+    }
+
+    private void complete(CompletableFuture<Block> fetch) {
+        try {
+            fetch.complete(fetchBlock());
+        } catch (Throwable e) {
+            fetch.completeExceptionally(e);
+        }
+    }
+
+    private Block fetchBlock() throws SQLException {
+        Connection connection = connectionProvider.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            long tableValue;
+            int rowCount;
+            do {
+                tableValue = selectTableValue(connection);
+                try (PreparedStatement statement = connection.prepareStatement(updateQuery)) {
+                    statement.setLong(1, tableValue + getIncrementSize());
+                    statement.setLong(2, tableValue);
+                    statement.setString(3, getSegmentValue());
+                    rowCount = statement.executeUpdate();
+                }
+            } while (rowCount == 0);
+            connection.commit();
+            fetchCount.incrementAndGet();
+
+            long start = storeLastUsedValue ? tableValue + 1 : tableValue;
+            LOGGER.debug(
+                "Fetched the [{}, {}) identifier block of the [{}] segment",
+                start,
+                start + getIncrementSize(),
+                getSegmentValue()
+            );
+            return new Block(start, start + getIncrementSize(), prefetchThreshold);
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+            connectionProvider.closeConnection(connection);
+        }
+    }
+
+    private long selectTableValue(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(selectQuery)) {
+            statement.setString(1, getSegmentValue());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getLong(1);
+                }
+            }
+        }
+        long initialValue = storeLastUsedValue ? getInitialValue() - 1 : getInitialValue();
+        try (PreparedStatement statement = connection.prepareStatement(insertQuery)) {
+            statement.setString(1, getSegmentValue());
+            statement.setLong(2, initialValue);
+            statement.executeUpdate();
+        }
+        return initialValue;
+    }
+
+    private Object toIdentifier(long value) {
+        if (identifierClass == Long.class) {
+            return value;
+        } else if (identifierClass == Integer.class) {
+            return Math.toIntExact(value);
+        } else if (identifierClass == Short.class) {
+            return (short) Math.toIntExact(value);
+        } else if (identifierClass == BigInteger.class) {
+            return BigInteger.valueOf(value);
+        } else if (identifierClass == BigDecimal.class) {
+            return BigDecimal.valueOf(value);
+        }
+        throw new HibernateException("Unsupported identifier type: " + identifierClass);
+    }
+
+    private static class Block {
+
+        private final long end;
+
+        private final long prefetchValue;
+
+        private final AtomicLong next;
+
+        private final AtomicReference<CompletableFuture<Block>> nextBlock = new AtomicReference<>();
+
+        private Block(long start, long end, int prefetchThreshold) {
+            this.end = end;
+            this.prefetchValue = Math.max(start, end - prefetchThreshold);
+            this.next = new AtomicLong(start);
+        }
+    }
+}
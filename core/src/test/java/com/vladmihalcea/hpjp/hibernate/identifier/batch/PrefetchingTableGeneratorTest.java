@@ -0,0 +1,135 @@
+package com.vladmihalcea.hpjp.hibernate.identifier.batch;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class PrefetchingTableGeneratorTest extends AbstractTest {
+
+    private boolean restarted;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        if (restarted) {
+            properties.put("hibernate.hbm2ddl.auto", "none");
+        }
+    }
+
+    @Test
+    public void testConcurrentInserts() throws Exception {
+        int threadCount = 8;
+        int insertCount = 100;
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            workers.add(() -> {
+                for (int j = 0; j < insertCount; j++) {
+                    Post post = doInJPA(entityManager -> {
+                        Post _post = new Post();
+                        entityManager.persist(_post);
+                        return _post;
+                    });
+                    assertTrue(ids.add(post.getId()));
+                }
+                return null;
+            });
+        }
+        ExecutorService workerExecutor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (Future<Void> future : workerExecutor.invokeAll(workers)) {
+                future.get();
+            }
+        } finally {
+            workerExecutor.shutdown();
+        }
+
+        assertEquals(threadCount * insertCount, ids.size());
+        doInJPA(entityManager -> {
+            assertEquals(
+                Long.valueOf(threadCount * insertCount),
+                entityManager.createQuery("select count(p) from Post p", Long.class).getSingleResult()
+            );
+        });
+
+        PrefetchingTableGenerator generator = generator(entityManagerFactory().unwrap(SessionFactory.class));
+        LOGGER.info("Fetched {} identifier blocks", generator.getFetchCount());
+        assertTrue(generator.getFetchCount() >= threadCount * insertCount / 10);
+    }
+
+    @Test
+    public void testShutdownMidBlock() {
+        List<Long> ids = new ArrayList<>();
+        doInJPA(entityManager -> {
+            for (int i = 0; i < 7; i++) {
+                Post post = new Post();
+                entityManager.persist(post);
+                ids.add(post.getId());
+            }
+        });
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), ids);
+
+        //the first block is not used up, and the next one might be prefetched already
+        restarted = true;
+        EntityManagerFactory restartedEntityManagerFactory = newEntityManagerFactory();
+        try {
+            EntityManager entityManager = restartedEntityManagerFactory.createEntityManager();
+            entityManager.getTransaction().begin();
+            Post post = new Post();
+            entityManager.persist(post);
+            entityManager.getTransaction().commit();
+            entityManager.close();
+
+            LOGGER.info("After restart, the generator continues from {}", post.getId());
+            assertTrue("The restarted generator skips the unused values", post.getId() > 10);
+        } finally {
+            restartedEntityManagerFactory.close();
+        }
+    }
+
+    private PrefetchingTableGenerator generator(SessionFactory sessionFactory) {
+        return (PrefetchingTableGenerator) sessionFactory.unwrap(org.hibernate.engine.spi.SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(Post.class)
+            .getIdentifierGenerator();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @GenericGenerator(
+            name = "table",
+            strategy = "com.vladmihalcea.hpjp.hibernate.identifier.batch.PrefetchingTableGenerator",
+            parameters = {
+                @org.hibernate.annotations.Parameter(name = "table_name", value = "sequence_table"),
+                @org.hibernate.annotations.Parameter(name = "increment_size", value = "10"),
+                @org.hibernate.annotations.Parameter(name = "prefetch_threshold", value = "5"),
+            }
+        )
+        @GeneratedValue(generator = "table")
+        private Long id;
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
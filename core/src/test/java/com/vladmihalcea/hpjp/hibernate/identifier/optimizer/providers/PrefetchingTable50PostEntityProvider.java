@@ -0,0 +1,33 @@
+package com.vladmihalcea.hpjp.hibernate.identifier.optimizer.providers;
+
+import org.hibernate.annotations.GenericGenerator;
+
+import jakarta.persistence.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class PrefetchingTable50PostEntityProvider extends PostEntityProvider<PrefetchingTable50PostEntityProvider.Post> {
+
+    public PrefetchingTable50PostEntityProvider() {
+        super(Post.class);
+    }
+
+    @Override
+    public Post newPost() {
+        return new Post();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @GenericGenerator(name = "table", strategy = "com.vladmihalcea.hpjp.hibernate.identifier.batch.PrefetchingTableGenerator", parameters = {
+                @org.hibernate.annotations.Parameter(name = "table_name", value = "sequence_table"),
+                @org.hibernate.annotations.Parameter(name = "increment_size", value = "50"),
+        })
+        @GeneratedValue(generator = "table")
+        private Long id;
+    }
+}
@@ -0,0 +1,35 @@
+package com.vladmihalcea.hpjp.hibernate.identifier.optimizer.providers;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.GenericGenerator;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class TsidPostEntityProvider extends PostEntityProvider<TsidPostEntityProvider.Post> {
+
+    public TsidPostEntityProvider() {
+        super(Post.class);
+    }
+
+    @Override
+    public Post newPost() {
+        return new Post();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @GenericGenerator(
+            name = "tsid",
+            strategy = "com.vladmihalcea.hpjp.hibernate.identifier.tsid.TsidBlockGenerator"
+        )
+        @GeneratedValue(generator = "tsid")
+        private Long id;
+    }
+}
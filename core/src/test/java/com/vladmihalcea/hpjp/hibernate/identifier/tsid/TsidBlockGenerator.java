@@ -0,0 +1,24 @@
+package com.vladmihalcea.hpjp.hibernate.identifier.tsid;
+
+import com.vladmihalcea.hpjp.util.TsidBlockFactory;
+import com.vladmihalcea.hpjp.util.TsidUtils;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.StandardGenerator;
+
+/**
+ * <code>TsidBlockGenerator</code> - Generates {@link Long} TSID identifiers
+ * using the {@link TsidUtils#TSID_BLOCK_FACTORY}, so the inserting threads
+ * don't compete for the same TSID factory.
+ *
+ * @author Vlad Mihalcea
+ */
+public class TsidBlockGenerator implements IdentifierGenerator, StandardGenerator {
+
+    private final TsidBlockFactory tsidBlockFactory = TsidUtils.TSID_BLOCK_FACTORY;
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object obj) {
+        return tsidBlockFactory.generate();
+    }
+}
@@ -0,0 +1,53 @@
+package com.vladmihalcea.hpjp.hibernate.identifier.tsid;
+
+import com.vladmihalcea.hpjp.hibernate.identifier.optimizer.providers.TsidPostEntityProvider;
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import com.vladmihalcea.hpjp.util.TsidBlockFactory;
+import io.hypersistence.tsid.TSID;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class TsidBlockGeneratorTest extends AbstractTest {
+
+    private final TsidPostEntityProvider entityProvider = new TsidPostEntityProvider();
+
+    @Override
+    protected Class<?>[] entities() {
+        return entityProvider.entities();
+    }
+
+    @Test
+    public void test() {
+        //The shared factory can hand out ids from a block reserved up to the max block age before the test started
+        long startMillis = System.currentTimeMillis() - TsidBlockFactory.DEFAULT_MAX_BLOCK_AGE_MILLIS;
+
+        doInJPA(entityManager -> {
+            for (int i = 0; i < 10; i++) {
+                entityManager.persist(entityProvider.newPost());
+            }
+        });
+
+        doInJPA(entityManager -> {
+            List<Long> ids = entityManager.createQuery("""
+                select p.id
+                from Post p
+                order by p.id
+                """, Long.class)
+            .getResultList();
+
+            assertEquals(10, ids.size());
+            for (Long id : ids) {
+                long tsidMillis = TSID.from(id).getUnixMilliseconds();
+                LOGGER.info("Post id: {}, TSID time: {}", id, tsidMillis);
+                assertTrue(tsidMillis >= startMillis);
+            }
+        });
+    }
+}
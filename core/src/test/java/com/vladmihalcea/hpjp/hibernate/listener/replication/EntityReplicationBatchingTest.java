@@ -0,0 +1,329 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import com.vladmihalcea.hpjp.util.transaction.JPATransactionVoidFunction;
+import jakarta.persistence.*;
+import org.hibernate.integrator.spi.Integrator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Replicates the <code>Post</code> entities to the <code>old_post</code> table, like the
+ * <code>EntityReplicationTest</code> does, using every {@link ReplicationMode}.
+ * <p>
+ * Unlike the <code>EntityReplicationTest</code> mapping, the <code>old_post</code> table has no foreign key
+ * to the <code>post</code> table, since the batched and the outbox modes delete the replica rows only after
+ * the source rows were deleted.
+ *
+ * @author Vlad Mihalcea
+ */
+@RunWith(Parameterized.class)
+public class EntityReplicationBatchingTest extends AbstractTest {
+
+    public static final ReplicationTable POST_REPLICATION = new ReplicationTable(
+        Post.class.getName(),
+        "post",
+        "old_post",
+        "id",
+        Map.of(
+            "title", "title",
+            "createdOn", "created_on",
+            "version", "version"
+        )
+    );
+
+    private final ReplicationMode mode;
+
+    private final ReplicationEventListener listener;
+
+    public EntityReplicationBatchingTest(ReplicationMode mode) {
+        this.mode = mode;
+        this.listener = new ReplicationEventListener(mode, List.of(POST_REPLICATION));
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.stream(ReplicationMode.values()).map(mode -> new Object[]{mode}).toList();
+    }
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class,
+            OldPost.class,
+            ReplicationOutboxEntry.class,
+        };
+    }
+
+    @Override
+    protected Integrator integrator() {
+        return new ReplicationIntegrator(listener);
+    }
+
+    @Test
+    public void testReplication() {
+        ReplicationOutboxWorker worker = new ReplicationOutboxWorker(dataSource(), List.of(POST_REPLICATION));
+
+        doInJPA(entityManager -> {
+            for (long id = 1; id <= 3; id++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(id)
+                        .setTitle(String.format("High-Performance Java Persistence, part %d", id))
+                        .setCreatedOn(LocalDate.of(2016, 10, (int) id))
+                );
+            }
+        });
+        replicate(worker);
+        assertReplicaMatchesSource();
+
+        doInJPA(entityManager -> {
+            Post post1 = entityManager.find(Post.class, 1L);
+            post1.setTitle("High-Performance Java Persistence, 1st part");
+            entityManager.flush();
+            post1.setTitle("High-Performance Java Persistence, first part");
+
+            entityManager.remove(entityManager.getReference(Post.class, 2L));
+
+            entityManager.persist(
+                new Post()
+                    .setId(4L)
+                    .setTitle("High-Performance Java Persistence, part 4")
+                    .setCreatedOn(LocalDate.of(2016, 10, 4))
+            );
+            entityManager.flush();
+            entityManager.remove(entityManager.find(Post.class, 4L));
+        });
+        if (mode == ReplicationMode.OUTBOX) {
+            assertEquals(2, worker.getPendingCount());
+        }
+        replicate(worker);
+        assertReplicaMatchesSource();
+
+        assertEquals(List.of(1L, 3L), replicaIds());
+        assertEquals(0, listener.getBufferedTransactionCount());
+    }
+
+    @Test
+    public void testRollback() {
+        try {
+            doInJPA((JPATransactionVoidFunction) entityManager -> {
+                entityManager.persist(
+                    new Post()
+                        .setId(1L)
+                        .setTitle("High-Performance Java Persistence")
+                        .setCreatedOn(LocalDate.of(2016, 10, 12))
+                );
+                entityManager.flush();
+                throw new IllegalStateException("Rollback the transaction");
+            });
+            fail("The transaction should have been rolled back");
+        } catch (IllegalStateException expected) {
+            LOGGER.info("The transaction was rolled back", expected);
+        }
+
+        assertTrue(replicaIds().isEmpty());
+        assertEquals(
+            0L,
+            doInJDBC(connection -> {
+                try (ResultSet resultSet = connection.createStatement().executeQuery(ReplicationOutboxWorker.COUNT_SQL)) {
+                    resultSet.next();
+                    return resultSet.getLong(1);
+                }
+            }).longValue()
+        );
+        assertEquals(0, listener.getBufferedTransactionCount());
+    }
+
+    @Test
+    public void testOutboxLag() {
+        assumeTrue(mode == ReplicationMode.OUTBOX);
+
+        Instant committedOn = LocalDateTime.of(2016, 10, 12, 12, 0).toInstant(ZoneOffset.UTC);
+        listener.setClock(Clock.fixed(committedOn, ZoneOffset.UTC));
+        ReplicationOutboxWorker worker = new ReplicationOutboxWorker(dataSource(), List.of(POST_REPLICATION))
+            .setBatchSize(2)
+            .setClock(Clock.fixed(committedOn.plusSeconds(5), ZoneOffset.UTC));
+
+        doInJPA(entityManager -> {
+            for (long id = 1; id <= 5; id++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(id)
+                        .setTitle(String.format("High-Performance Java Persistence, part %d", id))
+                        .setCreatedOn(LocalDate.of(2016, 10, (int) id))
+                );
+            }
+        });
+        assertTrue(replicaIds().isEmpty());
+        assertEquals(5, worker.getPendingCount());
+
+        assertEquals(2, worker.poll());
+        assertEquals(3, worker.getPendingCount());
+        assertEquals(List.of(1L, 2L), replicaIds());
+
+        replicate(worker);
+        assertReplicaMatchesSource();
+        assertEquals(0, worker.getPendingCount());
+        assertEquals(5, worker.getReplicatedCount());
+        assertEquals(3, worker.getBatchCount());
+        assertEquals(Duration.ofSeconds(5), worker.getLastLag());
+        assertEquals(Duration.ofSeconds(5), worker.getMaxLag());
+    }
+
+    @Test
+    public void testOutboxWorker() throws InterruptedException {
+        assumeTrue(mode == ReplicationMode.OUTBOX);
+
+        try (ReplicationOutboxWorker worker = new ReplicationOutboxWorker(dataSource(), List.of(POST_REPLICATION))
+                .setIdleDelay(Duration.ofMillis(10))) {
+            worker.start();
+
+            doInJPA(entityManager -> {
+                for (long id = 1; id <= 10; id++) {
+                    entityManager.persist(
+                        new Post()
+                            .setId(id)
+                            .setTitle(String.format("High-Performance Java Persistence, part %d", id))
+                            .setCreatedOn(LocalDate.of(2016, 10, (int) id))
+                    );
+                }
+            });
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (worker.getReplicatedCount() < 10 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(10, worker.getReplicatedCount());
+            LOGGER.info("Replication lag: {}, max lag: {}", worker.getLastLag(), worker.getMaxLag());
+        }
+        assertReplicaMatchesSource();
+    }
+
+    private void replicate(ReplicationOutboxWorker worker) {
+        if (mode == ReplicationMode.OUTBOX) {
+            while (worker.poll() > 0) {
+            }
+        }
+    }
+
+    private void assertReplicaMatchesSource() {
+        assertEquals(rows("post"), rows("old_post"));
+    }
+
+    private List<Long> replicaIds() {
+        return rows("old_post").stream().map(row -> ((Number) row.get(0)).longValue()).toList();
+    }
+
+    private List<List<Object>> rows(String table) {
+        return doInJDBC(connection -> {
+            List<List<Object>> rows = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format("SELECT id, title, created_on, version FROM %s ORDER BY id", table));
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(
+                        Arrays.asList(
+                            resultSet.getLong(1),
+                            resultSet.getString(2),
+                            resultSet.getObject(3, LocalDate.class),
+                            resultSet.getShort(4)
+                        )
+                    );
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        @Column(name = "created_on")
+        private LocalDate createdOn = LocalDate.now();
+
+        @Version
+        private short version;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public LocalDate getCreatedOn() {
+            return createdOn;
+        }
+
+        public Post setCreatedOn(LocalDate createdOn) {
+            this.createdOn = createdOn;
+            return this;
+        }
+
+        public short getVersion() {
+            return version;
+        }
+    }
+
+    @Entity(name = "OldPost")
+    @Table(name = "old_post")
+    public static class OldPost {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        @Column(name = "created_on")
+        private LocalDate createdOn;
+
+        private short version;
+    }
+
+    @Entity(name = "ReplicationOutboxEntry")
+    @Table(name = ReplicationOutboxWorker.TABLE_NAME)
+    public static class ReplicationOutboxEntry {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(name = "entity_name")
+        private String entityName;
+
+        private String operation;
+
+        @Column(name = "entity_id")
+        private Long entityId;
+
+        @Column(name = "created_on")
+        private LocalDateTime createdOn;
+    }
+}
@@ -0,0 +1,54 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * <code>ReplicationBuffer</code> - Collects the entity changes of the current transaction, and writes them
+ * right before the transaction is committed, after the Persistence Context was flushed.
+ * <p>
+ * Several changes of the same entity are merged, so that only the net effect of the transaction
+ * is written. If the transaction is rolled back, the buffered changes are discarded.
+ *
+ * @author Vlad Mihalcea
+ */
+class ReplicationBuffer implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+    private record Key(String entityName, Object id) {
+    }
+
+    private final ReplicationEventListener listener;
+
+    private final Map<Key, ReplicationChange> changes = new LinkedHashMap<>();
+
+    ReplicationBuffer(ReplicationEventListener listener) {
+        this.listener = listener;
+    }
+
+    void add(ReplicationChange change) {
+        changes.compute(
+            new Key(change.table().entityName(), change.id()),
+            (key, previous) -> previous != null ? previous.merge(change) : change
+        );
+    }
+
+    @Override
+    public void doBeforeTransactionCompletion(SessionImplementor session) {
+        listener.removeBuffer(session);
+        if (!changes.isEmpty()) {
+            listener.write(session, List.copyOf(changes.values()));
+        }
+    }
+
+    @Override
+    public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+        listener.removeBuffer(session);
+    }
+}
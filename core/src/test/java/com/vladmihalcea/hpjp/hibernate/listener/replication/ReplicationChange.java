@@ -0,0 +1,40 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+/**
+ * <code>ReplicationChange</code> - An entity change to be replicated, along with the
+ * replicated column values, in the order of the {@link ReplicationTable} columns.
+ *
+ * @author Vlad Mihalcea
+ */
+public record ReplicationChange(
+        ReplicationTable table,
+        Operation operation,
+        Object id,
+        Object[] values) {
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * Merge the change with a later change of the same entity, so that only the net effect of the
+     * transaction is replicated. An entity inserted and then deleted is not replicated at all,
+     * in which case this method returns <code>null</code>.
+     *
+     * @param next later change of the same entity
+     * @return the merged change, or <code>null</code> if there's nothing to replicate
+     */
+    ReplicationChange merge(ReplicationChange next) {
+        return switch (operation) {
+            case INSERT -> next.operation() == Operation.DELETE ?
+                null :
+                new ReplicationChange(table, Operation.INSERT, id, next.values());
+            case UPDATE -> next;
+            case DELETE -> next.operation() == Operation.DELETE ?
+                this :
+                new ReplicationChange(table, Operation.UPDATE, id, next.values());
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import com.vladmihalcea.hpjp.hibernate.listener.replication.ReplicationChange.Operation;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <code>ReplicationEventListener</code> - Replicates the inserted, updated, and deleted entities
+ * to their replica tables, using the given {@link ReplicationMode}.
+ * <p>
+ * In the {@link ReplicationMode#SYNCHRONOUS} mode, every entity change executes its own statement
+ * while the Persistence Context is flushed, like the listeners of the <code>EntityReplicationTest</code> do.
+ * In the {@link ReplicationMode#BATCHED} and {@link ReplicationMode#OUTBOX} modes, the changes are collected
+ * by a {@link ReplicationBuffer}, which is bound to the current transaction, and written using
+ * JDBC batching right before the transaction is committed.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ReplicationEventListener implements
+        PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final ReplicationMode mode;
+
+    private final Map<String, ReplicationTable> tablesByEntityName;
+
+    private final Map<SharedSessionContractImplementor, ReplicationBuffer> buffers = new ConcurrentHashMap<>();
+
+    private Clock clock = Clock.systemUTC();
+
+    public ReplicationEventListener(ReplicationMode mode, Collection<ReplicationTable> tables) {
+        this.mode = mode;
+        this.tablesByEntityName = tables.stream().collect(
+            Collectors.toUnmodifiableMap(ReplicationTable::entityName, Function.identity())
+        );
+    }
+
+    public ReplicationMode getMode() {
+        return mode;
+    }
+
+    ReplicationEventListener setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        ReplicationTable table = tablesByEntityName.get(event.getPersister().getEntityName());
+        if (table != null) {
+            replicate(
+                event.getSession(),
+                new ReplicationChange(
+                    table,
+                    Operation.INSERT,
+                    event.getId(),
+                    table.values(event.getPersister(), event.getState())
+                )
+            );
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        ReplicationTable table = tablesByEntityName.get(event.getPersister().getEntityName());
+        if (table != null) {
+            replicate(
+                event.getSession(),
+                new ReplicationChange(
+                    table,
+                    Operation.UPDATE,
+                    event.getId(),
+                    table.values(event.getPersister(), event.getState())
+                )
+            );
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        ReplicationTable table = tablesByEntityName.get(event.getPersister().getEntityName());
+        if (table != null) {
+            replicate(
+                event.getSession(),
+                new ReplicationChange(table, Operation.DELETE, event.getId(), new Object[0])
+            );
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * @return the number of transactions whose changes were not written yet
+     */
+    public int getBufferedTransactionCount() {
+        return buffers.size();
+    }
+
+    void write(SessionImplementor session, List<ReplicationChange> changes) {
+        session.doWork(connection -> {
+            if (mode == ReplicationMode.OUTBOX) {
+                ReplicationWriter.appendToOutbox(connection, changes, clock.instant());
+            } else {
+                ReplicationWriter.write(connection, changes);
+            }
+        });
+    }
+
+    void removeBuffer(SharedSessionContractImplementor session) {
+        buffers.remove(session);
+    }
+
+    private void replicate(EventSource session, ReplicationChange change) {
+        if (mode == ReplicationMode.SYNCHRONOUS) {
+            write(session, List.of(change));
+            return;
+        }
+        buffers.computeIfAbsent(session, key -> {
+            ReplicationBuffer buffer = new ReplicationBuffer(this);
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) buffer);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) buffer);
+            return buffer;
+        }).add(change);
+    }
+}
@@ -0,0 +1,44 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * <code>ReplicationIntegrator</code> - Registers the {@link ReplicationEventListener}
+ * for the insert, update, and delete events.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ReplicationIntegrator implements Integrator {
+
+    private final ReplicationEventListener listener;
+
+    public ReplicationIntegrator(ReplicationEventListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void integrate(
+            Metadata metadata,
+            SessionFactoryImplementor sessionFactory,
+            SessionFactoryServiceRegistry serviceRegistry) {
+
+        final EventListenerRegistry eventListenerRegistry =
+                serviceRegistry.getService(EventListenerRegistry.class);
+
+        eventListenerRegistry.appendListeners(EventType.POST_INSERT, listener);
+        eventListenerRegistry.appendListeners(EventType.POST_UPDATE, listener);
+        eventListenerRegistry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    @Override
+    public void disintegrate(
+            SessionFactoryImplementor sessionFactory,
+            SessionFactoryServiceRegistry serviceRegistry) {
+
+    }
+}
@@ -0,0 +1,25 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+/**
+ * <code>ReplicationMode</code> - How the entity changes are written to the replica tables.
+ *
+ * @author Vlad Mihalcea
+ */
+public enum ReplicationMode {
+    /**
+     * Every entity change is written to the replica table as soon as the entity is flushed,
+     * using its own statement.
+     */
+    SYNCHRONOUS,
+    /**
+     * The entity changes are buffered until the transaction is committed, and, right before the commit,
+     * they are written to the replica tables using one JDBC batch per statement.
+     */
+    BATCHED,
+    /**
+     * The entity changes are buffered until the transaction is committed, and, right before the commit,
+     * they are appended to the outbox table using one JDBC batch. The replica tables are updated
+     * asynchronously by the {@link ReplicationOutboxWorker}.
+     */
+    OUTBOX
+}
@@ -0,0 +1,286 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * <code>ReplicationOutboxWorker</code> - Replicates the entity changes recorded in the
+ * <code>replication_outbox</code> table by the {@link ReplicationMode#OUTBOX} mode.
+ * <p>
+ * Every {@link #poll()} call reads the oldest outbox entries, up to the batch size, and, in the same transaction,
+ * deletes the replica rows of all the changed entities, copies the current source table rows to the replica
+ * tables, and deletes the processed outbox entries, all using JDBC batching. Since the replica rows
+ * are rebuilt from the current source rows, several changes of the same entity are replicated only once,
+ * and replicating a change twice has no side effect.
+ * <p>
+ * The replication lag is the time elapsed since the oldest change of the last replicated batch was committed.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ReplicationOutboxWorker implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationOutboxWorker.class);
+
+    public static final String TABLE_NAME = "replication_outbox";
+
+    static final String INSERT_SQL = """
+        INSERT INTO replication_outbox (entity_name, operation, entity_id, created_on)
+        VALUES (?, ?, ?, ?)
+        """;
+
+    static final String SELECT_SQL = """
+        SELECT id, entity_name, entity_id, created_on
+        FROM replication_outbox
+        ORDER BY id
+        """;
+
+    static final String DELETE_SQL = "DELETE FROM replication_outbox WHERE id = ?";
+
+    static final String COUNT_SQL = "SELECT COUNT(*) FROM replication_outbox";
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    public static final Duration DEFAULT_IDLE_DELAY = Duration.ofMillis(100);
+
+    private final DataSource dataSource;
+
+    private final Map<String, ReplicationTable> tablesByEntityName;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private Duration idleDelay = DEFAULT_IDLE_DELAY;
+
+    private Clock clock = Clock.systemUTC();
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private final LongAdder replicatedCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    private final AtomicReference<Duration> lastLag = new AtomicReference<>(Duration.ZERO);
+
+    private final AtomicReference<Duration> maxLag = new AtomicReference<>(Duration.ZERO);
+
+    public ReplicationOutboxWorker(DataSource dataSource, Collection<ReplicationTable> tables) {
+        this.dataSource = dataSource;
+        this.tablesByEntityName = tables.stream().collect(
+            Collectors.toUnmodifiableMap(ReplicationTable::entityName, Function.identity())
+        );
+    }
+
+    public ReplicationOutboxWorker setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    public ReplicationOutboxWorker setIdleDelay(Duration idleDelay) {
+        this.idleDelay = idleDelay;
+        return this;
+    }
+
+    ReplicationOutboxWorker setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * @return the number of outbox entries replicated so far
+     */
+    public long getReplicatedCount() {
+        return replicatedCount.sum();
+    }
+
+    /**
+     * @return the number of non-empty batches replicated so far
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public Duration getLastLag() {
+        return lastLag.get();
+    }
+
+    public Duration getMaxLag() {
+        return maxLag.get();
+    }
+
+    /**
+     * @return the number of outbox entries waiting to be replicated
+     */
+    public long getPendingCount() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(COUNT_SQL)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    /**
+     * Replicate the oldest batch of outbox entries.
+     *
+     * @return the number of replicated outbox entries, which is 0 if the outbox is empty
+     */
+    public int poll() {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int entryCount = replicate(connection);
+                connection.commit();
+                return entryCount;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e);
+        }
+    }
+
+    /**
+     * Start the worker thread, which polls the outbox until the worker is closed.
+     * When the outbox is empty, the worker waits for the idle delay before polling again.
+     */
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("The replication worker is already running!");
+        }
+        running = true;
+        worker = new Thread(this::work, "replication-outbox-worker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    private int replicate(Connection connection) throws SQLException {
+        List<Long> entryIds = new ArrayList<>();
+        Map<ReplicationTable, Set<Object>> entityIdsByTable = new LinkedHashMap<>();
+        Instant oldestCreatedOn = null;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+            statement.setMaxRows(batchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    entryIds.add(resultSet.getLong(1));
+                    String entityName = resultSet.getString(2);
+                    ReplicationTable table = tablesByEntityName.get(entityName);
+                    if (table == null) {
+                        throw new IllegalStateException(
+                            String.format("The [%s] entity is not replicated", entityName)
+                        );
+                    }
+                    entityIdsByTable.computeIfAbsent(table, key -> new LinkedHashSet<>()).add(resultSet.getObject(3));
+                    if (oldestCreatedOn == null) {
+                        oldestCreatedOn = resultSet.getTimestamp(4).toInstant();
+                    }
+                }
+            }
+        }
+        if (entryIds.isEmpty()) {
+            return 0;
+        }
+
+        for (Map.Entry<ReplicationTable, Set<Object>> entry : entityIdsByTable.entrySet()) {
+            replicate(connection, entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            for (Long entryId : entryIds) {
+                statement.setLong(1, entryId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+
+        Duration lag = Duration.between(oldestCreatedOn, clock.instant());
+        lastLag.set(lag);
+        maxLag.accumulateAndGet(lag, (previous, current) -> current.compareTo(previous) > 0 ? current : previous);
+        replicatedCount.add(entryIds.size());
+        batchCount.increment();
+        return entryIds.size();
+    }
+
+    private void replicate(Connection connection, ReplicationTable table, List<Object> ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(table.deleteSql())) {
+            for (Object id : ids) {
+                statement.setObject(1, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        int columnCount = table.columns().length + 1;
+        try (PreparedStatement selectStatement = connection.prepareStatement(table.selectSourceSql(ids.size()));
+             PreparedStatement insertStatement = connection.prepareStatement(table.insertSql())) {
+            for (int i = 0; i < ids.size(); i++) {
+                selectStatement.setObject(i + 1, ids.get(i));
+            }
+            boolean hasRows = false;
+            try (ResultSet resultSet = selectStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    for (int i = 1; i <= columnCount; i++) {
+                        insertStatement.setObject(i, resultSet.getObject(i));
+                    }
+                    insertStatement.addBatch();
+                    hasRows = true;
+                }
+            }
+            if (hasRows) {
+                insertStatement.executeBatch();
+            }
+        }
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (poll() == 0) {
+                    Thread.sleep(idleDelay.toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.error("The replication worker could not poll the outbox", e);
+                try {
+                    Thread.sleep(idleDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
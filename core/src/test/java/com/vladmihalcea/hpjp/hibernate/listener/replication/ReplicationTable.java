@@ -0,0 +1,96 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <code>ReplicationTable</code> - Describes how an entity is replicated: the table the entity is mapped to,
+ * the replica table, and the replicated columns along with the entity properties they take their values from.
+ * The source and the replica tables use the same column names.
+ *
+ * @author Vlad Mihalcea
+ */
+public record ReplicationTable(
+        String entityName,
+        String sourceTable,
+        String replicaTable,
+        String idColumn,
+        Map<String, String> columnsByProperty) {
+
+    public ReplicationTable {
+        columnsByProperty = Collections.unmodifiableMap(new LinkedHashMap<>(columnsByProperty));
+    }
+
+    public String[] columns() {
+        return columnsByProperty.values().toArray(new String[0]);
+    }
+
+    public String insertSql() {
+        String[] columns = columns();
+        return String.format(
+            "INSERT INTO %s (%s, %s) VALUES (?%s)",
+            replicaTable,
+            idColumn,
+            String.join(", ", columns),
+            ", ?".repeat(columns.length)
+        );
+    }
+
+    public String updateSql() {
+        return String.format(
+            "UPDATE %s SET %s WHERE %s = ?",
+            replicaTable,
+            Arrays.stream(columns()).map(column -> column + " = ?").collect(Collectors.joining(", ")),
+            idColumn
+        );
+    }
+
+    public String deleteSql() {
+        return String.format("DELETE FROM %s WHERE %s = ?", replicaTable, idColumn);
+    }
+
+    /**
+     * The SQL query loading the current values of the source table rows.
+     *
+     * @param idCount number of identifiers
+     * @return source table query
+     */
+    public String selectSourceSql(int idCount) {
+        return String.format(
+            "SELECT %s, %s FROM %s WHERE %s IN (%s)",
+            idColumn,
+            String.join(", ", columns()),
+            sourceTable,
+            idColumn,
+            String.join(", ", Collections.nCopies(idCount, "?"))
+        );
+    }
+
+    /**
+     * Extract the replicated column values from the entity state.
+     *
+     * @param persister entity persister
+     * @param state entity state
+     * @return replicated column values
+     */
+    public Object[] values(EntityPersister persister, Object[] state) {
+        String[] propertyNames = persister.getPropertyNames();
+        Object[] values = new Object[columnsByProperty.size()];
+        int i = 0;
+        for (String property : columnsByProperty.keySet()) {
+            int propertyIndex = Arrays.asList(propertyNames).indexOf(property);
+            if (propertyIndex < 0) {
+                throw new IllegalArgumentException(
+                    String.format("The [%s] entity has no [%s] property", entityName, property)
+                );
+            }
+            values[i++] = state[propertyIndex];
+        }
+        return values;
+    }
+}
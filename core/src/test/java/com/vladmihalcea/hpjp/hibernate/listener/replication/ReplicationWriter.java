@@ -0,0 +1,93 @@
+package com.vladmihalcea.hpjp.hibernate.listener.replication;
+
+import com.vladmihalcea.hpjp.hibernate.listener.replication.ReplicationChange.Operation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <code>ReplicationWriter</code> - Writes the entity changes to the replica tables,
+ * or to the outbox table, using JDBC batching.
+ * <p>
+ * The changes are grouped by statement, so a transaction changing any number of entities
+ * executes at most one batch per replica table and operation. The deletes are executed first,
+ * so that a deleted entity can be inserted again with the same identifier.
+ *
+ * @author Vlad Mihalcea
+ */
+final class ReplicationWriter {
+
+    private ReplicationWriter() {
+        throw new UnsupportedOperationException("ReplicationWriter is not instantiable!");
+    }
+
+    static void write(Connection connection, Collection<ReplicationChange> changes) throws SQLException {
+        for (Operation operation : new Operation[]{Operation.DELETE, Operation.INSERT, Operation.UPDATE}) {
+            Map<ReplicationTable, List<ReplicationChange>> changesByTable = new LinkedHashMap<>();
+            for (ReplicationChange change : changes) {
+                if (change.operation() == operation) {
+                    changesByTable.computeIfAbsent(change.table(), table -> new ArrayList<>()).add(change);
+                }
+            }
+            for (Map.Entry<ReplicationTable, List<ReplicationChange>> entry : changesByTable.entrySet()) {
+                write(connection, entry.getKey(), operation, entry.getValue());
+            }
+        }
+    }
+
+    static void appendToOutbox(
+            Connection connection,
+            Collection<ReplicationChange> changes,
+            Instant createdOn) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(ReplicationOutboxWorker.INSERT_SQL)) {
+            Timestamp timestamp = Timestamp.from(createdOn);
+            for (ReplicationChange change : changes) {
+                int index = 0;
+                statement.setString(++index, change.table().entityName());
+                statement.setString(++index, change.operation().name());
+                statement.setObject(++index, change.id());
+                statement.setTimestamp(++index, timestamp);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void write(
+            Connection connection,
+            ReplicationTable table,
+            Operation operation,
+            List<ReplicationChange> changes) throws SQLException {
+        String sql = switch (operation) {
+            case INSERT -> table.insertSql();
+            case UPDATE -> table.updateSql();
+            case DELETE -> table.deleteSql();
+        };
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (ReplicationChange change : changes) {
+                int index = 0;
+                if (operation == Operation.INSERT) {
+                    statement.setObject(++index, change.id());
+                }
+                if (operation != Operation.DELETE) {
+                    for (Object value : change.values()) {
+                        statement.setObject(++index, value);
+                    }
+                }
+                if (operation != Operation.INSERT) {
+                    statement.setObject(++index, change.id());
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+}
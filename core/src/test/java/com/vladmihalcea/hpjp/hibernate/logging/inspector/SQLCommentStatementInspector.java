@@ -4,24 +4,137 @@ import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * <code>SQLCommentStatementInspector</code> - Removes the <code>/* ... *&#47;</code> comments,
+ * and the whitespace following them, from the SQL statements executed by Hibernate.
+ * <p>
+ * Hibernate executes the same SQL strings over and over, so the stripped statements are cached
+ * by their original SQL string. The cache is bounded, and, once it's full, the statements that
+ * are not cached are stripped every time. On a cache miss, the comments are removed with a single
+ * scan that skips the quoted literals and identifiers.
+ *
  * @author Vlad Mihalcea
  */
 public class SQLCommentStatementInspector implements StatementInspector {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SQLCommentStatementInspector.class);
 
-    private static final Pattern SQL_COMMENT_PATTERN = Pattern.compile("\\/\\*.*?\\*\\/\\s*");
+    public static final int DEFAULT_MAX_CACHE_SIZE = 1024;
+
+    private final Map<String, String> statementCache = new ConcurrentHashMap<>();
+
+    private final int maxCacheSize;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public SQLCommentStatementInspector() {
+        this(DEFAULT_MAX_CACHE_SIZE);
+    }
+
+    public SQLCommentStatementInspector(int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
 
     @Override
     public String inspect(String sql) {
-        LOGGER.debug(
-            "Executing SQL query: {}",
-            sql
-        );
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(
+                "Executing SQL query: {}",
+                sql
+            );
+        }
+
+        String strippedSql = statementCache.get(sql);
+        if (strippedSql != null) {
+            hitCount.increment();
+            return strippedSql;
+        }
+        missCount.increment();
+        strippedSql = stripComments(sql);
+        if (statementCache.size() < maxCacheSize) {
+            statementCache.putIfAbsent(sql, strippedSql);
+        }
+        return strippedSql;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int getCacheSize() {
+        return statementCache.size();
+    }
+
+    /**
+     * Remove the block comments, and the whitespace following them, from the given SQL statement.
+     * The comment markers found in quoted literals or identifiers are left untouched, and so is
+     * an unterminated comment.
+     *
+     * @param sql SQL statement
+     * @return the SQL statement without comments, or the same instance if it has no comment
+     */
+    public static String stripComments(String sql) {
+        int commentStart = sql.indexOf("/*");
+        if (commentStart < 0) {
+            return sql;
+        }
+        int length = sql.length();
+        StringBuilder builder = null;
+        int copyFrom = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int commentEnd = sql.indexOf("*/", i + 2);
+                if (commentEnd < 0) {
+                    break;
+                }
+                if (builder == null) {
+                    builder = new StringBuilder(length);
+                }
+                builder.append(sql, copyFrom, i);
+                i = commentEnd + 2;
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                copyFrom = i;
+            } else {
+                i++;
+            }
+        }
+        if (builder == null) {
+            return sql;
+        }
+        return builder.append(sql, copyFrom, length).toString();
+    }
 
-        return SQL_COMMENT_PATTERN.matcher(sql).replaceAll("");
+    /**
+     * @return the index following the closing quote, where a doubled quote is an escaped quote
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        int i = start + 1;
+        while (i < length) {
+            if (sql.charAt(i++) == quote) {
+                if (i < length && sql.charAt(i) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return length;
     }
 }
@@ -0,0 +1,62 @@
+package com.vladmihalcea.hpjp.hibernate.logging.inspector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class SQLCommentStatementInspectorTest {
+
+    @Test
+    public void testStripComments() {
+        assertEquals(
+            "select b.id from book b where b.title = ?",
+            SQLCommentStatementInspector.stripComments("/* select b from Book b where b.title = :title */ select b.id from book b where b.title = ?")
+        );
+        assertEquals(
+            "insert into book (author,title,id) values (?,?,?)",
+            SQLCommentStatementInspector.stripComments("/* insert for com.vladmihalcea.hpjp.Book */insert into book (author,title,id) values (?,?,?)")
+        );
+        assertEquals(
+            "select 1 from book where id = 1",
+            SQLCommentStatementInspector.stripComments("select /* hint */ 1 from book where /*\n multi-line\n */ id = 1")
+        );
+        assertEquals(
+            "select '/* text */', \"a/*b\" from book",
+            SQLCommentStatementInspector.stripComments("select '/* text */', \"a/*b\" from book")
+        );
+        assertEquals(
+            "select 'it''s /* text */' from book",
+            SQLCommentStatementInspector.stripComments("select 'it''s /* text */' /* comment */from book")
+        );
+        assertEquals(
+            "select 1 /* unterminated",
+            SQLCommentStatementInspector.stripComments("select 1 /* unterminated")
+        );
+
+        String sql = "select b.id from book b";
+        assertSame(sql, SQLCommentStatementInspector.stripComments(sql));
+    }
+
+    @Test
+    public void testStatementCache() {
+        SQLCommentStatementInspector statementInspector = new SQLCommentStatementInspector(2);
+
+        String sql1 = "/* load Book */ select b.id from book b where b.id = ?";
+        String sql2 = "/* update Book */ update book set title = ? where id = ?";
+        String sql3 = "/* delete Book */ delete from book where id = ?";
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("select b.id from book b where b.id = ?", statementInspector.inspect(sql1));
+            assertEquals("update book set title = ? where id = ?", statementInspector.inspect(sql2));
+            assertEquals("delete from book where id = ?", statementInspector.inspect(sql3));
+        }
+
+        assertEquals(2, statementInspector.getCacheSize());
+        assertEquals(4, statementInspector.getHitCount());
+        assertEquals(5, statementInspector.getMissCount());
+    }
+}
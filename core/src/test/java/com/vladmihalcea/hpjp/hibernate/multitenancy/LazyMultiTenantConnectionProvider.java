@@ -0,0 +1,435 @@
+package com.vladmihalcea.hpjp.hibernate.multitenancy;
+
+import com.vladmihalcea.hpjp.hibernate.statistics.StripedRecorder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * <code>LazyMultiTenantConnectionProvider</code> - Creates the tenant connection pool when
+ * a tenant connection is requested for the first time, instead of registering every tenant upfront.
+ * <p>
+ * When the number of tenant pools exceeds the max tenant pool count, the least recently used
+ * tenant pools that have no connection in use are closed. A closed tenant is created again
+ * on its next connection request.
+ * <p>
+ * The tenant {@link DataSource} factory provides the non-pooled {@link DataSource} of a tenant, and
+ * the provider wraps it in a Hikari pool that keeps no idle connection upfront. The number of physical
+ * connections across all tenants, whether they are in use or idle, is limited by a global connection budget.
+ * If the budget is exhausted, the idle connections of the least recently used tenant pool are closed,
+ * and a connection request waits at most the acquisition timeout for a connection. The time spent
+ * waiting for a connection is recorded per tenant.
+ * <p>
+ * Resolving a tenant that already has a pool is lock-free, as it only takes
+ * a {@link ConcurrentHashMap#get(Object)} call and a CAS on the tenant lease count.
+ *
+ * @author Vlad Mihalcea
+ */
+public class LazyMultiTenantConnectionProvider implements MultiTenantConnectionProvider<String> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyMultiTenantConnectionProvider.class);
+
+    private static final int CLOSED = -1;
+
+    /**
+     * The minimum idle timeout that Hikari accepts, so that idle connections are closed as early as possible.
+     */
+    public static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * The minimum connection timeout that Hikari accepts.
+     */
+    public static final long MIN_ACQUISITION_TIMEOUT_MILLIS = 250;
+
+    private final Map<String, TenantPool> tenantPools = new ConcurrentHashMap<>();
+
+    private final Function<String, DataSource> tenantDataSourceFactory;
+
+    private final String defaultTenantIdentifier;
+
+    private final int maxTenantPools;
+
+    private final int maxConnections;
+
+    private final Semaphore connectionBudget;
+
+    private final long acquisitionTimeoutMillis;
+
+    private volatile boolean closed;
+
+    public LazyMultiTenantConnectionProvider(
+            Function<String, DataSource> tenantDataSourceFactory,
+            String defaultTenantIdentifier,
+            int maxTenantPools,
+            int maxConnections,
+            long acquisitionTimeoutMillis) {
+        this.tenantDataSourceFactory = tenantDataSourceFactory;
+        this.defaultTenantIdentifier = defaultTenantIdentifier;
+        this.maxTenantPools = maxTenantPools;
+        this.maxConnections = maxConnections;
+        this.connectionBudget = new Semaphore(maxConnections);
+        this.acquisitionTimeoutMillis = Math.max(acquisitionTimeoutMillis, MIN_ACQUISITION_TIMEOUT_MILLIS);
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return getConnection(defaultTenantIdentifier);
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        releaseConnection(defaultTenantIdentifier, connection);
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        long startNanos = System.nanoTime();
+        TenantPool tenantPool = leaseTenantPool(tenantIdentifier);
+        try {
+            if (connectionBudget.availablePermits() == 0 && tenantPool.idleConnections() == 0) {
+                reclaimIdleConnections(tenantIdentifier);
+            }
+            Connection connection = tenantPool.dataSource.getConnection();
+            tenantPool.acquisitionWaitNanos.record(System.nanoTime() - startNanos);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            tenantPool.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        TenantPool tenantPool = tenantPools.get(tenantIdentifier);
+        try {
+            connection.close();
+        } finally {
+            if (tenantPool != null) {
+                tenantPool.release();
+                if (closed) {
+                    evict(tenantIdentifier, tenantPool);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return MultiTenantConnectionProvider.class.isAssignableFrom(unwrapType) ||
+            LazyMultiTenantConnectionProvider.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (isUnwrappableAs(unwrapType)) {
+            return (T) this;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    /**
+     * @return the number of tenants that currently have a pool
+     */
+    public int getTenantPoolCount() {
+        return tenantPools.size();
+    }
+
+    public boolean hasTenantPool(String tenantIdentifier) {
+        return tenantPools.containsKey(tenantIdentifier);
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return the number of connections in use across all tenants
+     */
+    public int getActiveConnections() {
+        int activeConnections = 0;
+        for (TenantPool tenantPool : tenantPools.values()) {
+            activeConnections += Math.max(0, tenantPool.leases.get());
+        }
+        return activeConnections;
+    }
+
+    /**
+     * @return the number of physical connections, in use or idle, across all tenants
+     */
+    public int getOpenConnections() {
+        return maxConnections - connectionBudget.availablePermits();
+    }
+
+    /**
+     * Take a snapshot of the tenant metrics, resetting the connection acquisition wait times.
+     *
+     * @return the metrics of every tenant that has a pool
+     */
+    public List<TenantMetrics> tenantMetrics() {
+        List<TenantMetrics> tenantMetrics = new ArrayList<>(tenantPools.size());
+        tenantPools.forEach((tenantIdentifier, tenantPool) -> tenantMetrics.add(
+            new TenantMetrics(
+                tenantIdentifier,
+                Math.max(0, tenantPool.leases.get()),
+                tenantPool.acquisitionWaitNanos.snapshot()
+            )
+        ));
+        return tenantMetrics;
+    }
+
+    /**
+     * Close the pools of the tenants that have no connection in use
+     * and have not requested a connection for the given idle time.
+     *
+     * @param idleMillis idle time after which a tenant pool can be closed
+     */
+    public void evictIdleTenants(long idleMillis) {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        long nowNanos = System.nanoTime();
+        tenantPools.forEach((tenantIdentifier, tenantPool) -> {
+            if (nowNanos - tenantPool.lastAccessNanos >= idleNanos) {
+                evict(tenantIdentifier, tenantPool);
+            }
+        });
+    }
+
+    /**
+     * Close all tenant pools. The pools that have connections in use are closed
+     * when their last connection is released.
+     */
+    public void close() {
+        closed = true;
+        tenantPools.forEach(this::evict);
+    }
+
+    private TenantPool leaseTenantPool(String tenantIdentifier) throws SQLException {
+        while (true) {
+            if (closed) {
+                throw new SQLException("The multi-tenant connection provider is closed");
+            }
+            TenantPool tenantPool = tenantPools.get(tenantIdentifier);
+            if (tenantPool == null) {
+                tenantPool = tenantPools.computeIfAbsent(tenantIdentifier, this::newTenantPool);
+                if (tenantPools.size() > maxTenantPools) {
+                    evictLeastRecentlyUsedTenants(tenantIdentifier);
+                }
+            }
+            if (tenantPool.lease()) {
+                return tenantPool;
+            }
+            tenantPools.remove(tenantIdentifier, tenantPool);
+        }
+    }
+
+    /**
+     * The tenant pool opens its physical connections through the connection budget, so they count
+     * against the global limit until the pool closes them. The pool keeps no idle connection upfront,
+     * closes the idle ones as early as Hikari allows, and skips the initial connection check,
+     * as the budget might be exhausted when the tenant pool is created.
+     */
+    private TenantPool newTenantPool(String tenantIdentifier) {
+        LOGGER.debug("Creating the connection pool for tenant [{}]", tenantIdentifier);
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(tenantIdentifier);
+        hikariConfig.setDataSource(new BudgetDataSource(tenantDataSourceFactory.apply(tenantIdentifier)));
+        hikariConfig.setMaximumPoolSize(maxConnections);
+        hikariConfig.setMinimumIdle(0);
+        hikariConfig.setIdleTimeout(IDLE_TIMEOUT_MILLIS);
+        hikariConfig.setConnectionTimeout(acquisitionTimeoutMillis);
+        hikariConfig.setInitializationFailTimeout(-1);
+        return new TenantPool(new HikariDataSource(hikariConfig));
+    }
+
+    /**
+     * Close the idle connections of the least recently used tenant pool that has any,
+     * so that the requesting tenant pool can open a new physical connection.
+     * The connections in use of that pool are closed once they are released.
+     */
+    private void reclaimIdleConnections(String currentTenantIdentifier) {
+        TenantPool lruTenantPool = null;
+        for (Map.Entry<String, TenantPool> entry : tenantPools.entrySet()) {
+            TenantPool tenantPool = entry.getValue();
+            if (entry.getKey().equals(currentTenantIdentifier) || tenantPool.idleConnections() == 0) {
+                continue;
+            }
+            if (lruTenantPool == null || tenantPool.lastAccessNanos - lruTenantPool.lastAccessNanos < 0) {
+                lruTenantPool = tenantPool;
+            }
+        }
+        if (lruTenantPool != null) {
+            lruTenantPool.softEvictConnections();
+        }
+    }
+
+    /**
+     * Evicting a tenant requires scanning all the tenant pools,
+     * but this only happens when a new tenant pool is created.
+     */
+    private void evictLeastRecentlyUsedTenants(String currentTenantIdentifier) {
+        while (tenantPools.size() > maxTenantPools) {
+            String lruTenantIdentifier = null;
+            TenantPool lruTenantPool = null;
+            for (Map.Entry<String, TenantPool> entry : tenantPools.entrySet()) {
+                TenantPool tenantPool = entry.getValue();
+                if (entry.getKey().equals(currentTenantIdentifier) || tenantPool.leases.get() != 0) {
+                    continue;
+                }
+                if (lruTenantPool == null || tenantPool.lastAccessNanos - lruTenantPool.lastAccessNanos < 0) {
+                    lruTenantIdentifier = entry.getKey();
+                    lruTenantPool = tenantPool;
+                }
+            }
+            if (lruTenantPool == null || !evict(lruTenantIdentifier, lruTenantPool)) {
+                return;
+            }
+        }
+    }
+
+    private boolean evict(String tenantIdentifier, TenantPool tenantPool) {
+        if (!tenantPool.leases.compareAndSet(0, CLOSED)) {
+            return false;
+        }
+        tenantPools.remove(tenantIdentifier, tenantPool);
+        LOGGER.debug("Closing the connection pool for tenant [{}]", tenantIdentifier);
+        tenantPool.close();
+        return true;
+    }
+
+    public record TenantMetrics(
+        String tenantIdentifier,
+        int activeConnections,
+        StripedRecorder.Snapshot acquisitionWaitNanos) {
+    }
+
+    /**
+     * Acquires a budget permit for every physical connection, and releases it when the connection is closed.
+     */
+    private class BudgetDataSource extends DelegatingDataSource {
+
+        private BudgetDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return budgetConnection(null, null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return budgetConnection(username, password);
+        }
+
+        private Connection budgetConnection(String username, String password) throws SQLException {
+            if (!connectionBudget.tryAcquire()) {
+                throw new SQLTransientConnectionException(
+                    String.format("All %d connections are open", maxConnections)
+                );
+            }
+            Connection connection;
+            try {
+                connection = username == null ?
+                    obtainTargetDataSource().getConnection() :
+                    obtainTargetDataSource().getConnection(username, password);
+            } catch (SQLException | RuntimeException e) {
+                connectionBudget.release();
+                throw e;
+            }
+            AtomicBoolean connectionClosed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[]{Connection.class},
+                (proxy, method, args) -> {
+                    String methodName = method.getName();
+                    if (("close".equals(methodName) || "abort".equals(methodName)) &&
+                        connectionClosed.compareAndSet(false, true)) {
+                        connectionBudget.release();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            );
+        }
+    }
+
+    private static class TenantPool {
+
+        private final HikariDataSource dataSource;
+
+        /**
+         * Number of connections in use, or {@link #CLOSED} once the pool is evicted.
+         */
+        private final AtomicInteger leases = new AtomicInteger();
+
+        private final StripedRecorder acquisitionWaitNanos = new StripedRecorder();
+
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private TenantPool(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        int idleConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            return pool != null ? pool.getIdleConnections() : 0;
+        }
+
+        void softEvictConnections() {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                pool.softEvictConnections();
+            }
+        }
+
+        boolean lease() {
+            int current;
+            do {
+                current = leases.get();
+                if (current == CLOSED) {
+                    return false;
+                }
+            } while (!leases.compareAndSet(current, current + 1));
+            lastAccessNanos = System.nanoTime();
+            return true;
+        }
+
+        void release() {
+            leases.decrementAndGet();
+        }
+
+        void close() {
+            leases.set(CLOSED);
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.vladmihalcea.hpjp.hibernate.multitenancy;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.cfg.AvailableSettings;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class LazyMultiTenantConnectionProviderTest extends AbstractTest {
+
+    private final LazyMultiTenantConnectionProvider connectionProvider = new LazyMultiTenantConnectionProvider(
+        this::tenantDataSource,
+        TenantContext.DEFAULT_TENANT_IDENTIFIER,
+        3,
+        2,
+        100
+    );
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.setProperty(AvailableSettings.HBM2DDL_AUTO, "none");
+        properties.setProperty(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, TenantContext.TenantIdentifierResolver.class.getName());
+        properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, connectionProvider);
+    }
+
+    @Override
+    protected void afterDestroy() {
+        TenantContext.reset();
+        connectionProvider.close();
+    }
+
+    private DataSource tenantDataSource(String tenantIdentifier) {
+        JDBCDataSource dataSource = new JDBCDataSource();
+        dataSource.setUrl(String.format("jdbc:hsqldb:mem:tenant_%s", tenantIdentifier));
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("create table if not exists post (id bigint not null, title varchar(255), primary key (id))");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+
+    @Test
+    public void testLazyTenantPools() {
+        assertFalse(connectionProvider.hasTenantPool("europe"));
+
+        TenantContext.setTenant("europe");
+        doInJPA(entityManager -> {
+            entityManager.persist(
+                new Post()
+                    .setId(1L)
+                    .setTitle("High-Performance Java Persistence")
+            );
+        });
+        assertTrue(connectionProvider.hasTenantPool("europe"));
+        assertFalse(connectionProvider.hasTenantPool("asia"));
+
+        TenantContext.setTenant("asia");
+        doInJPA(entityManager -> {
+            assertNull(entityManager.find(Post.class, 1L));
+        });
+
+        TenantContext.setTenant("europe");
+        doInJPA(entityManager -> {
+            assertEquals(
+                "High-Performance Java Persistence",
+                entityManager.find(Post.class, 1L).getTitle()
+            );
+        });
+        assertEquals(0, connectionProvider.getActiveConnections());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws SQLException {
+        useTenant("t1");
+        useTenant("t2");
+        useTenant("t3");
+        useTenant("t1");
+        assertEquals(3, connectionProvider.getTenantPoolCount());
+
+        useTenant("t4");
+        assertEquals(3, connectionProvider.getTenantPoolCount());
+        assertFalse(connectionProvider.hasTenantPool("t2"));
+        assertTrue(connectionProvider.hasTenantPool("t1"));
+        assertTrue(connectionProvider.hasTenantPool("t3"));
+        assertTrue(connectionProvider.hasTenantPool("t4"));
+
+        Connection connection = connectionProvider.getConnection("t3");
+        try {
+            useTenant("t5");
+            assertTrue("A tenant with a connection in use is not evicted", connectionProvider.hasTenantPool("t3"));
+            assertFalse(connectionProvider.hasTenantPool("t1"));
+        } finally {
+            connectionProvider.releaseConnection("t3", connection);
+        }
+
+        connectionProvider.evictIdleTenants(0);
+        assertEquals(0, connectionProvider.getTenantPoolCount());
+        useTenant("t2");
+        assertEquals(1, connectionProvider.getTenantPoolCount());
+    }
+
+    @Test
+    public void testGlobalConnectionBudget() throws SQLException {
+        Connection europeConnection = connectionProvider.getConnection("europe");
+        Connection asiaConnection = connectionProvider.getConnection("asia");
+        try {
+            assertEquals(2, connectionProvider.getActiveConnections());
+            try {
+                connectionProvider.getConnection("africa");
+                fail("Should have thrown SQLTransientConnectionException");
+            } catch (SQLTransientConnectionException expected) {
+                LOGGER.info("Connection budget exhausted: {}", expected.getMessage());
+            }
+        } finally {
+            connectionProvider.releaseConnection("asia", asiaConnection);
+        }
+        Connection africaConnection = connectionProvider.getConnection("africa");
+        connectionProvider.releaseConnection("africa", africaConnection);
+        connectionProvider.releaseConnection("europe", europeConnection);
+        assertEquals(0, connectionProvider.getActiveConnections());
+
+        List<LazyMultiTenantConnectionProvider.TenantMetrics> tenantMetrics = connectionProvider.tenantMetrics();
+        for (LazyMultiTenantConnectionProvider.TenantMetrics metrics : tenantMetrics) {
+            LOGGER.info(
+                "Tenant [{}] acquired {} connections, with a mean wait of {} μs and a max wait of {} μs",
+                metrics.tenantIdentifier(),
+                metrics.acquisitionWaitNanos().count(),
+                (long) metrics.acquisitionWaitNanos().mean() / 1000,
+                metrics.acquisitionWaitNanos().max() / 1000
+            );
+        }
+        LazyMultiTenantConnectionProvider.TenantMetrics africaMetrics = tenantMetrics.stream()
+            .filter(metrics -> metrics.tenantIdentifier().equals("africa"))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(1, africaMetrics.acquisitionWaitNanos().count());
+        assertEquals(0, africaMetrics.activeConnections());
+    }
+
+    @Test
+    public void testIdleConnectionsCountTowardsBudget() throws SQLException {
+        useTenant("europe");
+        useTenant("asia");
+        assertEquals(0, connectionProvider.getActiveConnections());
+        assertEquals(2, connectionProvider.getOpenConnections());
+
+        //the idle connection of the least recently used tenant is closed to open the new one
+        Connection africaConnection = connectionProvider.getConnection("africa");
+        try {
+            assertEquals(1, connectionProvider.getActiveConnections());
+            assertTrue(connectionProvider.getOpenConnections() <= connectionProvider.getMaxConnections());
+        } finally {
+            connectionProvider.releaseConnection("africa", africaConnection);
+        }
+        assertTrue(connectionProvider.getOpenConnections() <= connectionProvider.getMaxConnections());
+    }
+
+    @Test
+    public void testCloseWithConnectionsInUse() throws SQLException {
+        useTenant("asia");
+        Connection europeConnection = connectionProvider.getConnection("europe");
+        connectionProvider.close();
+        assertFalse(connectionProvider.hasTenantPool("asia"));
+        assertTrue("A tenant with a connection in use is not closed", connectionProvider.hasTenantPool("europe"));
+        assertFalse(europeConnection.isClosed());
+
+        connectionProvider.releaseConnection("europe", europeConnection);
+        assertEquals(0, connectionProvider.getTenantPoolCount());
+        assertEquals(0, connectionProvider.getOpenConnections());
+        try {
+            connectionProvider.getConnection("europe");
+            fail("Should have thrown SQLException");
+        } catch (SQLException expected) {
+            LOGGER.info("Provider closed: {}", expected.getMessage());
+        }
+    }
+
+    private void useTenant(String tenantIdentifier) throws SQLException {
+        Connection connection = connectionProvider.getConnection(tenantIdentifier);
+        connectionProvider.releaseConnection(tenantIdentifier, connection);
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
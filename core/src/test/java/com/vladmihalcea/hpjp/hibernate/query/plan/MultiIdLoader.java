@@ -0,0 +1,307 @@
+package com.vladmihalcea.hpjp.hibernate.query.plan;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import jakarta.persistence.metamodel.EntityType;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.AvailableHints;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <code>MultiIdLoader</code> - Loads the entities matching a list of identifiers, using a strategy
+ * that depends on the number of identifiers.
+ * <ul>
+ * <li>{@link Strategy#PADDED_IN} - small lists use a single IN query whose parameter list is padded
+ * to the next power of two, so there's only a handful of distinct statements.</li>
+ * <li>{@link Strategy#CHUNKED_IN} - medium lists are split into chunks of a fixed size, the last chunk
+ * being padded, so all chunk queries share the same statement. The chunks are executed one after the other
+ * in the current {@link EntityManager}, or in parallel if a chunk {@link Executor} is provided.</li>
+ * <li>{@link Strategy#ARRAY} - large lists are bound as a single array parameter, using the Hibernate
+ * multi-load support for the databases whose {@link Dialect} prefers arrays for multi-valued parameters.
+ * For the other databases, large lists are loaded using the {@link Strategy#CHUNKED_IN} strategy.</li>
+ * </ul>
+ * The loaded entities are returned in the order of the given identifiers, and the identifiers
+ * that have no matching entity are skipped.
+ * <p>
+ * For every strategy, the loader counts how many times a statement was reused, as this is what allows
+ * Hibernate, the JDBC Driver, and the database to reuse the statement plan.
+ *
+ * @author Vlad Mihalcea
+ */
+public class MultiIdLoader<T, ID> {
+
+    public enum Strategy {
+        PADDED_IN,
+        CHUNKED_IN,
+        ARRAY
+    }
+
+    public static final int DEFAULT_PADDED_IN_MAX_SIZE = 128;
+
+    public static final int DEFAULT_CHUNK_SIZE = 512;
+
+    public static final int DEFAULT_CHUNKED_IN_MAX_SIZE = 8192;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Class<T> entityClass;
+
+    private final String selectByIdsQuery;
+
+    private final boolean arraySupported;
+
+    private final Map<Strategy, StatementStatistics> statementStatistics = new EnumMap<>(Strategy.class);
+
+    private int paddedInMaxSize = DEFAULT_PADDED_IN_MAX_SIZE;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    private int chunkedInMaxSize = DEFAULT_CHUNKED_IN_MAX_SIZE;
+
+    private Executor chunkExecutor;
+
+    public MultiIdLoader(EntityManagerFactory entityManagerFactory, Class<T> entityClass) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.entityClass = entityClass;
+        EntityType<T> entityType = entityManagerFactory.getMetamodel().entity(entityClass);
+        this.selectByIdsQuery = String.format(
+            "select e from %s e where e.%s in :ids",
+            entityType.getName(),
+            entityType.getId(entityType.getIdType().getJavaType()).getName()
+        );
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect();
+        this.arraySupported = dialect.useArrayForMultiValuedParameters();
+        for (Strategy strategy : Strategy.values()) {
+            statementStatistics.put(strategy, new StatementStatistics());
+        }
+    }
+
+    public MultiIdLoader<T, ID> setPaddedInMaxSize(int paddedInMaxSize) {
+        this.paddedInMaxSize = paddedInMaxSize;
+        return this;
+    }
+
+    public MultiIdLoader<T, ID> setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public MultiIdLoader<T, ID> setChunkedInMaxSize(int chunkedInMaxSize) {
+        this.chunkedInMaxSize = chunkedInMaxSize;
+        return this;
+    }
+
+    /**
+     * Execute the chunk queries in parallel, each one using its own {@link EntityManager}.
+     * Because the chunks are not loaded by the current {@link EntityManager}, the
+     * {@link Strategy#CHUNKED_IN} strategy returns read-only detached entities.
+     *
+     * @param chunkExecutor executor running the chunk queries
+     * @return this loader
+     */
+    public MultiIdLoader<T, ID> setChunkExecutor(Executor chunkExecutor) {
+        this.chunkExecutor = chunkExecutor;
+        return this;
+    }
+
+    /**
+     * Resolve the strategy used to load the given number of identifiers.
+     *
+     * @param idCount number of distinct identifiers
+     * @return loading strategy
+     */
+    public Strategy strategy(int idCount) {
+        if (idCount <= paddedInMaxSize) {
+            return Strategy.PADDED_IN;
+        }
+        if (idCount <= chunkedInMaxSize || !arraySupported) {
+            return Strategy.CHUNKED_IN;
+        }
+        return Strategy.ARRAY;
+    }
+
+    public List<T> load(EntityManager entityManager, Collection<ID> ids) {
+        List<ID> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Collection<T> entities = switch (strategy(distinctIds.size())) {
+            case PADDED_IN -> loadPaddedIn(entityManager, distinctIds);
+            case CHUNKED_IN -> loadChunkedIn(entityManager, distinctIds);
+            case ARRAY -> loadArray(entityManager, distinctIds);
+        };
+        return sort(entities, distinctIds);
+    }
+
+    /**
+     * @return the statement statistics of every strategy that was used at least once
+     */
+    public List<StrategyMetrics> metrics() {
+        List<StrategyMetrics> metrics = new ArrayList<>();
+        for (Map.Entry<Strategy, StatementStatistics> entry : statementStatistics.entrySet()) {
+            StatementStatistics statistics = entry.getValue();
+            long hitCount = statistics.hitCount.sum();
+            long missCount = statistics.missCount.sum();
+            if (hitCount + missCount > 0) {
+                metrics.add(
+                    new StrategyMetrics(
+                        entry.getKey(),
+                        statistics.loadCount.sum(),
+                        hitCount,
+                        missCount
+                    )
+                );
+            }
+        }
+        return metrics;
+    }
+
+    private List<T> loadPaddedIn(EntityManager entityManager, List<ID> ids) {
+        StatementStatistics statistics = statementStatistics.get(Strategy.PADDED_IN);
+        statistics.loadCount.increment();
+        return selectByIds(entityManager, pad(ids, paddedSize(ids.size())), statistics);
+    }
+
+    private List<T> loadChunkedIn(EntityManager entityManager, List<ID> ids) {
+        StatementStatistics statistics = statementStatistics.get(Strategy.CHUNKED_IN);
+        statistics.loadCount.increment();
+        List<List<ID>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            chunks.add(pad(ids.subList(i, Math.min(i + chunkSize, ids.size())), chunkSize));
+        }
+        List<T> entities = new ArrayList<>(ids.size());
+        if (chunkExecutor == null) {
+            for (List<ID> chunk : chunks) {
+                entities.addAll(selectByIds(entityManager, chunk, statistics));
+            }
+        } else {
+            List<CompletableFuture<List<T>>> futures = new ArrayList<>(chunks.size());
+            for (List<ID> chunk : chunks) {
+                futures.add(
+                    CompletableFuture.supplyAsync(() -> {
+                        EntityManager chunkEntityManager = entityManagerFactory.createEntityManager();
+                        try {
+                            return selectByIds(chunkEntityManager, chunk, statistics, true);
+                        } finally {
+                            chunkEntityManager.close();
+                        }
+                    }, chunkExecutor)
+                );
+            }
+            for (CompletableFuture<List<T>> future : futures) {
+                entities.addAll(future.join());
+            }
+        }
+        return entities;
+    }
+
+    private List<T> loadArray(EntityManager entityManager, List<ID> ids) {
+        StatementStatistics statistics = statementStatistics.get(Strategy.ARRAY);
+        statistics.loadCount.increment();
+        //the multi-load binds all identifiers using a single array parameter
+        statistics.record(1);
+        return entityManager.unwrap(Session.class)
+            .byMultipleIds(entityClass)
+            .enableOrderedReturn(false)
+            .multiLoad(ids);
+    }
+
+    private List<T> selectByIds(EntityManager entityManager, List<ID> ids, StatementStatistics statistics) {
+        return selectByIds(entityManager, ids, statistics, false);
+    }
+
+    private List<T> selectByIds(EntityManager entityManager, List<ID> ids, StatementStatistics statistics, boolean readOnly) {
+        statistics.record(ids.size());
+        return entityManager.createQuery(selectByIdsQuery, entityClass)
+            .setParameter("ids", ids)
+            .setHint(AvailableHints.HINT_READ_ONLY, readOnly)
+            .getResultList();
+    }
+
+    private int paddedSize(int idCount) {
+        int paddedSize = Integer.highestOneBit(idCount);
+        if (paddedSize < idCount) {
+            paddedSize <<= 1;
+        }
+        return Math.min(paddedSize, paddedInMaxSize);
+    }
+
+    /**
+     * Pad the identifiers by repeating the last one, so that the IN query has the given number of parameters.
+     */
+    private List<ID> pad(List<ID> ids, int size) {
+        if (ids.size() >= size) {
+            return ids;
+        }
+        List<ID> paddedIds = new ArrayList<>(size);
+        paddedIds.addAll(ids);
+        ID lastId = ids.get(ids.size() - 1);
+        while (paddedIds.size() < size) {
+            paddedIds.add(lastId);
+        }
+        return paddedIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> sort(Collection<T> entities, List<ID> ids) {
+        PersistenceUnitUtil persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        Map<ID, T> entityMap = new HashMap<>(entities.size());
+        for (T entity : entities) {
+            if (entity != null) {
+                entityMap.put((ID) persistenceUnitUtil.getIdentifier(entity), entity);
+            }
+        }
+        List<T> sortedEntities = new ArrayList<>(entityMap.size());
+        for (ID id : ids) {
+            T entity = entityMap.get(id);
+            if (entity != null) {
+                sortedEntities.add(entity);
+            }
+        }
+        return sortedEntities;
+    }
+
+    public record StrategyMetrics(Strategy strategy, long loadCount, long statementHitCount, long statementMissCount) {
+
+        /**
+         * @return the ratio of statements that were executed before, with the same number of parameters
+         */
+        public double statementHitRatio() {
+            long statementCount = statementHitCount + statementMissCount;
+            return statementCount == 0 ? 0 : (double) statementHitCount / statementCount;
+        }
+    }
+
+    /**
+     * Tracks the distinct statements by their parameter count, since, for a given strategy,
+     * the parameter count is what makes the SQL statements different.
+     */
+    private static class StatementStatistics {
+
+        private final Set<Integer> parameterCounts = ConcurrentHashMap.newKeySet();
+
+        private final LongAdder loadCount = new LongAdder();
+
+        private final LongAdder hitCount = new LongAdder();
+
+        private final LongAdder missCount = new LongAdder();
+
+        private void record(int parameterCount) {
+            if (parameterCounts.add(parameterCount)) {
+                missCount.increment();
+            } else {
+                hitCount.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.vladmihalcea.hpjp.hibernate.query.plan;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class MultiIdLoaderTest extends AbstractTest {
+
+    public static final int POST_COUNT = 2000;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "100");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= POST_COUNT; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("Post no. %d", i))
+                );
+            }
+        });
+    }
+
+    private MultiIdLoader<Post, Long> newLoader() {
+        return new MultiIdLoader<Post, Long>(entityManagerFactory(), Post.class)
+            .setPaddedInMaxSize(16)
+            .setChunkSize(64)
+            .setChunkedInMaxSize(512);
+    }
+
+    @Test
+    public void testStrategyBySize() {
+        MultiIdLoader<Post, Long> loader = newLoader();
+
+        doInJPA(entityManager -> {
+            List<Post> posts = loader.load(entityManager, List.of(7L, 3L, 7L, POST_COUNT + 1L, 5L));
+            assertEquals(List.of(7L, 3L, 5L), posts.stream().map(Post::getId).toList());
+            assertEquals(MultiIdLoader.Strategy.PADDED_IN, loader.strategy(3));
+
+            List<Long> ids = ids(300);
+            assertEquals(MultiIdLoader.Strategy.CHUNKED_IN, loader.strategy(ids.size()));
+            assertEquals(ids, loader.load(entityManager, ids).stream().map(Post::getId).toList());
+
+            ids = ids(POST_COUNT);
+            assertEquals(MultiIdLoader.Strategy.ARRAY, loader.strategy(ids.size()));
+            posts = loader.load(entityManager, ids);
+            assertEquals(ids, posts.stream().map(Post::getId).toList());
+            assertTrue(entityManager.contains(posts.get(0)));
+        });
+
+        for (MultiIdLoader.StrategyMetrics metrics : loader.metrics()) {
+            LOGGER.info(
+                "Strategy [{}] executed {} loads, with a statement hit ratio of {}",
+                metrics.strategy(),
+                metrics.loadCount(),
+                metrics.statementHitRatio()
+            );
+            assertEquals(1, metrics.loadCount());
+        }
+        assertEquals(3, loader.metrics().size());
+    }
+
+    @Test
+    public void testStatementHitRatio() {
+        MultiIdLoader<Post, Long> loader = newLoader();
+
+        doInJPA(entityManager -> {
+            for (int i = 1; i <= 400; i++) {
+                assertEquals(i, loader.load(entityManager, ids(i)).size());
+            }
+        });
+
+        for (MultiIdLoader.StrategyMetrics metrics : loader.metrics()) {
+            LOGGER.info(
+                "Strategy [{}] executed {} loads, with {} distinct statements and a statement hit ratio of {}",
+                metrics.strategy(),
+                metrics.loadCount(),
+                metrics.statementMissCount(),
+                metrics.statementHitRatio()
+            );
+            switch (metrics.strategy()) {
+                case PADDED_IN -> {
+                    assertEquals(16, metrics.loadCount());
+                    //1, 2, 4, 8, and 16 parameters
+                    assertEquals(5, metrics.statementMissCount());
+                }
+                case CHUNKED_IN -> {
+                    assertEquals(384, metrics.loadCount());
+                    assertEquals(1, metrics.statementMissCount());
+                }
+                default -> fail("Unexpected strategy: " + metrics.strategy());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelChunks() {
+        ExecutorService chunkExecutor = Executors.newFixedThreadPool(4);
+        try {
+            MultiIdLoader<Post, Long> loader = newLoader().setChunkExecutor(chunkExecutor);
+            List<Long> ids = new ArrayList<>(ids(500));
+            Collections.reverse(ids);
+
+            doInJPA(entityManager -> {
+                List<Post> posts = loader.load(entityManager, ids);
+                assertEquals(ids, posts.stream().map(Post::getId).toList());
+                assertFalse(entityManager.contains(posts.get(0)));
+            });
+        } finally {
+            chunkExecutor.shutdown();
+        }
+    }
+
+    private List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().toList();
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
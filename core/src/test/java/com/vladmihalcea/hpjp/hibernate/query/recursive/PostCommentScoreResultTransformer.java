@@ -1,39 +1,33 @@
 package com.vladmihalcea.hpjp.hibernate.query.recursive;
 
+import com.vladmihalcea.hpjp.util.TopKTreeAssembler;
 import org.hibernate.transform.ResultTransformer;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Vlad Mihalcea
  */
 public class PostCommentScoreResultTransformer implements ResultTransformer {
 
-    private Map<Long, PostCommentScore> postCommentScoreMap = new HashMap<>();
-
-    private List<PostCommentScore> roots = new ArrayList<>();
+    private final TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(
+        PostCommentScore.NODE_HANDLER
+    );
 
     @Override
     public Object transformTuple(Object[] tuple, String[] aliases) {
         PostCommentScore commentScore = (PostCommentScore) tuple[0];
-        Long parentId = commentScore.getParentId();
-        if (parentId == null) {
-            roots.add(commentScore);
-        } else {
-            PostCommentScore parent = postCommentScoreMap.get(parentId);
-            if (parent != null) {
-                parent.addChild(commentScore);
-            }
-        }
-        postCommentScoreMap.putIfAbsent(commentScore.getId(), commentScore);
+        treeAssembler.add(
+            commentScore.getId(),
+            commentScore.getParentId(),
+            commentScore.getScore(),
+            commentScore
+        );
         return commentScore;
     }
 
     @Override
     public List transformList(List collection) {
-        return roots;
+        return treeAssembler.topRoots(Integer.MAX_VALUE);
     }
 }
@@ -1,9 +1,10 @@
 package com.vladmihalcea.hpjp.hibernate.query.recursive.complex;
 
 import com.vladmihalcea.hpjp.hibernate.query.recursive.PostCommentScore;
+import com.vladmihalcea.hpjp.util.TopKTreeAssembler;
 import org.junit.Ignore;
 
-import java.util.*;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -12,6 +13,10 @@ import java.util.concurrent.TimeUnit;
 @Ignore
 public class PostCommentScoreFetchAllPerformanceTest extends AbstractPostCommentScorePerformanceTest {
 
+    private final TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(
+        PostCommentScore.NODE_HANDLER
+    );
+
     public PostCommentScoreFetchAllPerformanceTest(int postCount, int commentCount) {
         super(postCount, commentCount);
     }
@@ -32,42 +37,37 @@ public class PostCommentScoreFetchAllPerformanceTest extends AbstractPostComment
             .setParameter("postId", postId)
             .getResultList();
 
-            Map<Long, PostCommentScore> postCommentScoreMap = new HashMap<>();
+            treeAssembler.clear();
 
+            //Only the first vote of every comment is scored, and the votes are ordered by comment
+            Long previousCommentId = null;
             for(PostCommentVote postCommentVote : postCommentVotes) {
                 PostComment postComment = postCommentVote.getComment();
                 PostComment parent = postComment.getParent();
-                PostCommentScore postCommentScore = postCommentScoreMap.get(postComment.getId());
-                if(postCommentScore == null) {
-                    postCommentScore = new PostCommentScore();
-                    postCommentScore.setId(postComment.getId());
-                    postCommentScore.setReview(postComment.getReview());
-                    postCommentScore.setCreatedOn(postComment.getCreatedOn());
-                    postCommentScore.setParentId(parent != null ? parent.getId() : null);
-                    postCommentScore.setScore(postCommentScore.getScore() + (postCommentVote.isUp() ? 1 : -1));
-                    postCommentScoreMap.put(postComment.getId(), postCommentScore);
-                }
-            }
-
-            List<PostCommentScore> roots = new ArrayList<>();
-
-            for(PostCommentScore postCommentScore : postCommentScoreMap.values()) {
-                Long parentId = postCommentScore.getParentId();
-                if(parentId == null) {
-                    roots.add(postCommentScore);
-                } else {
-                    PostCommentScore parent = postCommentScoreMap.get(parentId);
-                    parent.addChild(postCommentScore);
-                }
+                boolean firstVote = !postComment.getId().equals(previousCommentId);
+                treeAssembler.add(
+                    postComment.getId(),
+                    parent != null ? parent.getId() : TopKTreeAssembler.NO_PARENT,
+                    firstVote ? (postCommentVote.isUp() ? 1 : -1) : 0,
+                    postComment,
+                    PostCommentScoreFetchAllPerformanceTest::postCommentScore
+                );
+                previousCommentId = postComment.getId();
             }
 
-            roots.sort(Comparator.comparing(PostCommentScore::getTotalScore).reversed());
-
-            if(roots.size() > rank) {
-                roots = roots.subList(0, rank);
-            }
+            List<PostCommentScore> roots = treeAssembler.topRoots(rank);
             timer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             return  roots;
         });
     }
+
+    private static PostCommentScore postCommentScore(PostComment postComment) {
+        PostComment parent = postComment.getParent();
+        PostCommentScore postCommentScore = new PostCommentScore();
+        postCommentScore.setId(postComment.getId());
+        postCommentScore.setReview(postComment.getReview());
+        postCommentScore.setCreatedOn(postComment.getCreatedOn());
+        postCommentScore.setParentId(parent != null ? parent.getId() : null);
+        return postCommentScore;
+    }
 }
@@ -1,14 +1,11 @@
 package com.vladmihalcea.hpjp.hibernate.query.recursive.complex;
 
 import com.vladmihalcea.hpjp.hibernate.query.recursive.PostCommentScore;
+import com.vladmihalcea.hpjp.util.TopKTreeAssembler;
 import org.junit.Ignore;
 
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * @author Vlad Mihalcea
@@ -35,25 +32,21 @@ public class PostCommentScoreFetchProjectionPerformanceTest extends AbstractPost
             .setParameter("postId", postId)
             .getResultList();
 
-            Map<Long, List<PostCommentScore>> postCommentScoreMap = postCommentScores.stream().collect(Collectors.groupingBy(PostCommentScore::getId));
-
-            List<PostCommentScore> roots = new ArrayList<>();
+            TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(
+                PostCommentScore.NODE_HANDLER,
+                postCommentScores.size()
+            );
 
             for(PostCommentScore postCommentScore : postCommentScores) {
-                Long parentId = postCommentScore.getParentId();
-                if(parentId == null) {
-                    roots.add(postCommentScore);
-                } else {
-                    PostCommentScore parent = postCommentScoreMap.get(parentId).get(0);
-                    parent.addChild(postCommentScore);
-                }
+                treeAssembler.add(
+                    postCommentScore.getId(),
+                    postCommentScore.getParentId(),
+                    postCommentScore.getScore(),
+                    postCommentScore
+                );
             }
 
-            roots.sort(Comparator.comparing(PostCommentScore::getTotalScore).reversed());
-
-            if(roots.size() > rank) {
-                roots = roots.subList(0, rank);
-            }
+            List<PostCommentScore> roots = treeAssembler.topRoots(rank);
             timer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             return  roots;
         });
@@ -0,0 +1,269 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unlike {@link TransactionStatistics}, which generates a report on every transaction,
+ * this {@link org.hibernate.stat.Statistics} implementation only updates striped counters
+ * when a transaction ends. The counters are aggregated by a background thread into a
+ * {@link TransactionStatisticsSnapshot} that can be pulled via {@link #getSnapshot()} or JMX.
+ * <p>
+ * A transaction is only recorded if it acquired a database connection, and all its metrics are recorded
+ * together, so every per-transaction average has the same transaction count as its denominator.
+ * <p>
+ * The flush time is only recorded if the {@link FlushTimeSessionEventListener} is registered
+ * via the {@code hibernate.session.events.auto} configuration property.
+ *
+ * @author Vlad Mihalcea
+ */
+public class AggregatedTransactionStatistics extends StatisticsImpl {
+
+    public static final String SNAPSHOT_INTERVAL_MILLIS = "hpjp.statistics.snapshot_interval_millis";
+
+    public static final String JMX_ENABLED = "hpjp.statistics.jmx_enabled";
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL_MILLIS = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AggregatedTransactionStatistics.class);
+
+    private static final ThreadLocal<TransactionContext> transactionContext = ThreadLocal.withInitial(TransactionContext::new);
+
+    private final StripedRecorder transactionTimeRecorder = new StripedRecorder();
+
+    private final StripedRecorder connectionCountRecorder = new StripedRecorder();
+
+    private final StripedRecorder statementCountRecorder = new StripedRecorder();
+
+    private final StripedRecorder flushTimeRecorder = new StripedRecorder();
+
+    private final AtomicReference<TransactionStatisticsSnapshot> snapshot = new AtomicReference<>(TransactionStatisticsSnapshot.EMPTY);
+
+    private final ScheduledExecutorService snapshotExecutor;
+
+    private final ObjectName objectName;
+
+    public AggregatedTransactionStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+        Map<String, Object> settings = sessionFactory.getServiceRegistry()
+            .requireService(ConfigurationService.class)
+            .getSettings();
+
+        long snapshotIntervalMillis = ConfigurationHelper.getLong(
+            SNAPSHOT_INTERVAL_MILLIS, settings, DEFAULT_SNAPSHOT_INTERVAL_MILLIS
+        );
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "transaction-statistics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleAtFixedRate(
+            this::snapshot, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS
+        );
+
+        boolean jmxEnabled = ConfigurationHelper.getBoolean(JMX_ENABLED, settings, false);
+        objectName = jmxEnabled ? registerMBean(sessionFactory.getUuid()) : null;
+
+        sessionFactory.addObserver(new SessionFactoryObserver() {
+            @Override
+            public void sessionFactoryClosed(SessionFactory factory) {
+                close();
+            }
+        });
+    }
+
+    @Override
+    public void connect() {
+        TransactionContext context = transactionContext.get();
+        context.connectionCount++;
+        if (context.startNanos == 0) {
+            context.startNanos = System.nanoTime();
+        }
+        super.connect();
+    }
+
+    @Override
+    public void prepareStatement() {
+        transactionContext.get().statementCount++;
+        super.prepareStatement();
+    }
+
+    @Override
+    public void endTransaction(boolean success) {
+        TransactionContext context = transactionContext.get();
+        try {
+            if (context.startNanos != 0) {
+                transactionTimeRecorder.record(System.nanoTime() - context.startNanos);
+                connectionCountRecorder.record(context.connectionCount);
+                statementCountRecorder.record(context.statementCount);
+                flushTimeRecorder.record(context.flushNanos);
+            }
+        } finally {
+            context.reset();
+        }
+        super.endTransaction(success);
+    }
+
+    /**
+     * Get the latest snapshot taken by the background thread.
+     *
+     * @return latest snapshot
+     */
+    public TransactionStatisticsSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Aggregate the metrics recorded since the previous snapshot and publish the result.
+     *
+     * @return the new snapshot
+     */
+    public TransactionStatisticsSnapshot snapshot() {
+        TransactionStatisticsSnapshot newSnapshot = new TransactionStatisticsSnapshot(
+            System.currentTimeMillis(),
+            transactionTimeRecorder.snapshot(),
+            connectionCountRecorder.snapshot(),
+            statementCountRecorder.snapshot(),
+            flushTimeRecorder.snapshot()
+        );
+        snapshot.set(newSnapshot);
+        return newSnapshot;
+    }
+
+    static void flushStart() {
+        transactionContext.get().flushStartNanos = System.nanoTime();
+    }
+
+    static void flushEnd() {
+        TransactionContext context = transactionContext.get();
+        if (context.flushStartNanos != 0) {
+            context.flushNanos += System.nanoTime() - context.flushStartNanos;
+            context.flushStartNanos = 0;
+        }
+    }
+
+    private ObjectName registerMBean(String sessionFactoryUuid) {
+        try {
+            ObjectName name = new ObjectName(
+                String.format(
+                    "com.vladmihalcea.hpjp:type=TransactionStatistics,name=%s",
+                    sessionFactoryUuid
+                )
+            );
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new SnapshotMXBean(), name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void close() {
+        snapshotExecutor.shutdownNow();
+        if (objectName != null) {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            try {
+                mBeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                LOGGER.error("Could not unregister MBean {}", objectName, e);
+            }
+        }
+    }
+
+    /**
+     * The per-transaction counters are reused across transactions,
+     * so that recording a transaction doesn't allocate any object.
+     */
+    private static class TransactionContext {
+        private long startNanos;
+        private long connectionCount;
+        private long statementCount;
+        private long flushStartNanos;
+        private long flushNanos;
+
+        private void reset() {
+            startNanos = 0;
+            connectionCount = 0;
+            statementCount = 0;
+            flushStartNanos = 0;
+            flushNanos = 0;
+        }
+    }
+
+    private class SnapshotMXBean implements AggregatedTransactionStatisticsMXBean {
+
+        @Override
+        public long getSnapshotTimestamp() {
+            return getSnapshot().timestamp();
+        }
+
+        @Override
+        public long getTransactionCount() {
+            return getSnapshot().transactionCount();
+        }
+
+        @Override
+        public double getTransactionTimeMeanMillis() {
+            return toMillis(getSnapshot().transactionTimeNanos().mean());
+        }
+
+        @Override
+        public double getTransactionTime99thPercentileMillis() {
+            return toMillis(getSnapshot().transactionTimeNanos().percentile(0.99));
+        }
+
+        @Override
+        public double getTransactionTimeMaxMillis() {
+            return toMillis(getSnapshot().transactionTimeNanos().max());
+        }
+
+        @Override
+        public double getConnectionCountMean() {
+            return getSnapshot().connectionCount().mean();
+        }
+
+        @Override
+        public long getConnectionCountMax() {
+            return getSnapshot().connectionCount().max();
+        }
+
+        @Override
+        public double getStatementCountMean() {
+            return getSnapshot().statementCount().mean();
+        }
+
+        @Override
+        public long getStatementCountMax() {
+            return getSnapshot().statementCount().max();
+        }
+
+        @Override
+        public double getFlushTimeMeanMillis() {
+            return toMillis(getSnapshot().flushTimeNanos().mean());
+        }
+
+        @Override
+        public double getFlushTimeMaxMillis() {
+            return toMillis(getSnapshot().flushTimeNanos().max());
+        }
+
+        private double toMillis(double nanos) {
+            return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class AggregatedTransactionStatisticsFactory implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(
+            SessionFactoryImplementor sessionFactory) {
+        return new AggregatedTransactionStatistics(sessionFactory);
+    }
+}
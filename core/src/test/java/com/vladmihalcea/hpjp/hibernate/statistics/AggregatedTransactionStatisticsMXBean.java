@@ -0,0 +1,31 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+/**
+ * Exposes the latest {@link TransactionStatisticsSnapshot} via JMX.
+ *
+ * @author Vlad Mihalcea
+ */
+public interface AggregatedTransactionStatisticsMXBean {
+
+    long getSnapshotTimestamp();
+
+    long getTransactionCount();
+
+    double getTransactionTimeMeanMillis();
+
+    double getTransactionTime99thPercentileMillis();
+
+    double getTransactionTimeMaxMillis();
+
+    double getConnectionCountMean();
+
+    long getConnectionCountMax();
+
+    double getStatementCountMean();
+
+    long getStatementCountMax();
+
+    double getFlushTimeMeanMillis();
+
+    double getFlushTimeMaxMillis();
+}
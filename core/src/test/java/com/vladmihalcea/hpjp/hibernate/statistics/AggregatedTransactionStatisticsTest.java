@@ -0,0 +1,160 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import jakarta.persistence.*;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.StatisticsSettings;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class AggregatedTransactionStatisticsTest extends AbstractTest {
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class[] {
+            Post.class
+        };
+    }
+
+    protected void additionalProperties(Properties properties) {
+        properties.put(
+            AvailableSettings.GENERATE_STATISTICS,
+            Boolean.TRUE.toString()
+        );
+        properties.put(
+            StatisticsSettings.STATS_BUILDER,
+            AggregatedTransactionStatisticsFactory.class.getName()
+        );
+        properties.put(
+            AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+            FlushTimeSessionEventListener.class.getName()
+        );
+        //The test takes the snapshots explicitly
+        properties.put(
+            AggregatedTransactionStatistics.SNAPSHOT_INTERVAL_MILLIS,
+            String.valueOf(Long.MAX_VALUE / 2)
+        );
+        properties.put(
+            AggregatedTransactionStatistics.JMX_ENABLED,
+            Boolean.TRUE.toString()
+        );
+    }
+
+    @Test
+    public void test() throws Exception {
+        AggregatedTransactionStatistics statistics = (AggregatedTransactionStatistics)
+            sessionFactory().getStatistics();
+        statistics.snapshot();
+
+        int iterations = 5;
+
+        for (long i = 1; i <= iterations; i++) {
+            final long currentIteration = i;
+            doInJPA(entityManager -> {
+                Post post = new Post();
+                post.setTitle(
+                    String.format(
+                        "High-Performance Java Persistence, Part %d", currentIteration
+                    )
+                );
+                entityManager.persist(post);
+
+                Number postCount = entityManager.createQuery(
+                    "select count(p) from Post p", Number.class)
+                    .getSingleResult();
+
+                assertEquals(currentIteration, postCount.longValue());
+            });
+        }
+
+        TransactionStatisticsSnapshot snapshot = statistics.snapshot();
+        LOGGER.info(
+            "Transactions: {}, mean time: {} ns, mean connections: {}, mean statements: {}, mean flush time: {} ns",
+            snapshot.transactionCount(),
+            snapshot.transactionTimeNanos().mean(),
+            snapshot.connectionCount().mean(),
+            snapshot.statementCount().mean(),
+            snapshot.flushTimeNanos().mean()
+        );
+
+        assertEquals(iterations, snapshot.transactionCount());
+        assertEquals(iterations, snapshot.connectionCount().count());
+        assertEquals(iterations, snapshot.statementCount().count());
+        assertEquals(iterations, snapshot.flushTimeNanos().count());
+        assertTrue(snapshot.connectionCount().mean() >= 1);
+        //The INSERT and the SELECT statements
+        assertTrue(snapshot.statementCount().mean() >= 2);
+        assertTrue(snapshot.flushTimeNanos().max() > 0);
+        assertTrue(snapshot.transactionTimeNanos().percentile(0.99) <= snapshot.transactionTimeNanos().max());
+        assertEquals(snapshot, statistics.getSnapshot());
+
+        assertEquals(0, statistics.snapshot().transactionCount());
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> objectNames = mBeanServer.queryNames(
+            new ObjectName("com.vladmihalcea.hpjp:type=TransactionStatistics,*"), null
+        );
+        assertEquals(1, objectNames.size());
+        assertEquals(
+            0L,
+            mBeanServer.getAttribute(objectNames.iterator().next(), "TransactionCount")
+        );
+    }
+
+    @Test
+    public void testStripedRecorder() {
+        StripedRecorder recorder = new StripedRecorder();
+        for (long i = 1; i <= 100; i++) {
+            recorder.record(i);
+        }
+        StripedRecorder.Snapshot snapshot = recorder.snapshot();
+
+        assertEquals(100, snapshot.count());
+        assertEquals(5050, snapshot.sum());
+        assertEquals(100, snapshot.max());
+        assertEquals(50.5, snapshot.mean(), 0.001);
+        assertEquals(63, snapshot.percentile(0.5));
+        assertEquals(100, snapshot.percentile(0.99));
+
+        assertEquals(0, recorder.snapshot().count());
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        @GeneratedValue
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Measures the flush time for {@link AggregatedTransactionStatistics}.
+ *
+ * @author Vlad Mihalcea
+ */
+public class FlushTimeSessionEventListener extends BaseSessionEventListener {
+
+    @Override
+    public void flushStart() {
+        AggregatedTransactionStatistics.flushStart();
+    }
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections) {
+        AggregatedTransactionStatistics.flushEnd();
+    }
+}
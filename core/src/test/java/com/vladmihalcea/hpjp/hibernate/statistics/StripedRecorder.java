@@ -0,0 +1,118 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records {@code long} values using striped {@link LongAdder} counters,
+ * so concurrent writers don't contend on a single memory location and
+ * recording a value doesn't allocate any object.
+ * <p>
+ * Values are grouped in power-of-two buckets, which is enough to estimate percentiles
+ * with a relative error of at most 2x, without having to store every recorded value.
+ *
+ * @author Vlad Mihalcea
+ */
+public class StripedRecorder {
+
+    public static final int BUCKET_COUNT = Long.SIZE;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+
+    public StripedRecorder() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+        buckets[bucket(value)].increment();
+    }
+
+    /**
+     * Take a snapshot of the values recorded since the previous snapshot and reset the counters.
+     * Values recorded while the snapshot is being taken may end up in either interval.
+     *
+     * @return snapshot of the recorded values
+     */
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = buckets[i].sumThenReset();
+        }
+        return new Snapshot(
+            count.sumThenReset(),
+            sum.sumThenReset(),
+            max.getThenReset(),
+            bucketCounts
+        );
+    }
+
+    /**
+     * Take a snapshot of all the values recorded so far, without resetting the counters.
+     *
+     * @return snapshot of the recorded values
+     */
+    public Snapshot peek() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = buckets[i].sum();
+        }
+        return new Snapshot(
+            count.sum(),
+            sum.sum(),
+            max.get(),
+            bucketCounts
+        );
+    }
+
+    static int bucket(long value) {
+        return Long.SIZE - 1 - Long.numberOfLeadingZeros(value | 1);
+    }
+
+    static long bucketUpperBound(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+    }
+
+    public record Snapshot(long count, long sum, long max, long[] buckets) {
+
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, new long[BUCKET_COUNT]);
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Estimate the given percentile using the upper bound of the bucket it falls in.
+         *
+         * @param percentile percentile between 0 and 1
+         * @return estimated percentile value, never greater than the recorded max
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.vladmihalcea.hpjp.hibernate.statistics;
+
+/**
+ * Aggregated transaction metrics recorded between two consecutive snapshots.
+ *
+ * @author Vlad Mihalcea
+ */
+public record TransactionStatisticsSnapshot(
+    long timestamp,
+    StripedRecorder.Snapshot transactionTimeNanos,
+    StripedRecorder.Snapshot connectionCount,
+    StripedRecorder.Snapshot statementCount,
+    StripedRecorder.Snapshot flushTimeNanos
+) {
+    public static final TransactionStatisticsSnapshot EMPTY = new TransactionStatisticsSnapshot(
+        0,
+        StripedRecorder.Snapshot.EMPTY,
+        StripedRecorder.Snapshot.EMPTY,
+        StripedRecorder.Snapshot.EMPTY,
+        StripedRecorder.Snapshot.EMPTY
+    );
+
+    public long transactionCount() {
+        return transactionTimeNanos.count();
+    }
+}
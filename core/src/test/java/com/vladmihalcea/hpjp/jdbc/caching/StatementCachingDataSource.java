@@ -0,0 +1,377 @@
+package com.vladmihalcea.hpjp.jdbc.caching;
+
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * <code>StatementCachingDataSource</code> - A {@link DataSource} wrapper that caches the
+ * {@link PreparedStatement} objects of every physical connection, for the JDBC Drivers that,
+ * like HSQLDB, don't provide a statement cache.
+ * <p>
+ * When a cached statement is closed, it's returned to the cache of its connection instead of being closed,
+ * and the next {@link Connection#prepareStatement} call using the same SQL and options reuses it.
+ * When the cache is full, the least recently used statement is closed. The cache is bound to the physical
+ * connection, so the wrapper should be placed underneath the connection pool.
+ * <p>
+ * A statement is closed for good, instead of being cached, if:
+ * <ul>
+ * <li>any of its calls failed, as the statement might have been invalidated,
+ * for instance, because the table it uses was altered,</li>
+ * <li>its settings, like the fetch size or the query timeout, were changed,</li>
+ * <li>the same SQL statement was prepared while another instance was in use.</li>
+ * </ul>
+ *
+ * @author Vlad Mihalcea
+ */
+public class StatementCachingDataSource implements DataSource {
+
+    private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(StatementCachingDataSource.class);
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final Set<String> STATEMENT_SETTERS = Set.of(
+        "setMaxFieldSize",
+        "setMaxRows",
+        "setLargeMaxRows",
+        "setEscapeProcessing",
+        "setQueryTimeout",
+        "setCursorName",
+        "setFetchDirection",
+        "setFetchSize",
+        "setPoolable",
+        "closeOnCompletion"
+    );
+
+    private final DataSource dataSource;
+
+    private final int cacheSize;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public StatementCachingDataSource(DataSource dataSource) {
+        this(dataSource, DEFAULT_CACHE_SIZE);
+    }
+
+    public StatementCachingDataSource(DataSource dataSource, int cacheSize) {
+        this.dataSource = dataSource;
+        this.cacheSize = cacheSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return cachingConnection(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return cachingConnection(dataSource.getConnection(username, password));
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    private Connection cachingConnection(Connection connection) {
+        ConnectionHandler connectionHandler = new ConnectionHandler(connection);
+        connectionHandler.proxy = (Connection) Proxy.newProxyInstance(
+            StatementCachingDataSource.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            connectionHandler
+        );
+        return connectionHandler.proxy;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Could not close the cached statement", e);
+        }
+    }
+
+    /**
+     * The SQL statement and the options used to prepare it.
+     */
+    private record StatementKey(String sql, List<Object> options) {
+
+        static StatementKey of(Object[] args) {
+            List<Object> options = new ArrayList<>(args.length - 1);
+            for (int i = 1; i < args.length; i++) {
+                Object option = args[i];
+                if (option instanceof int[] columnIndexes) {
+                    option = Arrays.stream(columnIndexes).boxed().toList();
+                } else if (option instanceof String[] columnNames) {
+                    option = List.of(columnNames);
+                }
+                options.add(option);
+            }
+            return new StatementKey((String) args[0], options);
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private final Map<StatementKey, PreparedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                if (size() > cacheSize) {
+                    evictionCount.increment();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private Connection proxy;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    if (cacheSize > 0) {
+                        return prepareStatement(args);
+                    }
+                    break;
+                case "close":
+                case "abort":
+                    clearCache();
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementCachingConnection[" + connection + "]";
+            }
+            return StatementCachingDataSource.invoke(connection, method, args);
+        }
+
+        private synchronized PreparedStatement prepareStatement(Object[] args) throws SQLException {
+            StatementKey key = StatementKey.of(args);
+            PreparedStatement statement = statementCache.remove(key);
+            if (statement != null && !statement.isClosed()) {
+                hitCount.increment();
+            } else {
+                missCount.increment();
+                statement = prepare(key, args);
+            }
+            return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCachingDataSource.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new StatementHandler(this, key, statement)
+            );
+        }
+
+        private PreparedStatement prepare(StatementKey key, Object[] args) throws SQLException {
+            String sql = key.sql();
+            return switch (args.length) {
+                case 1 -> connection.prepareStatement(sql);
+                case 2 -> {
+                    Object option = args[1];
+                    if (option instanceof int[] columnIndexes) {
+                        yield connection.prepareStatement(sql, columnIndexes);
+                    } else if (option instanceof String[] columnNames) {
+                        yield connection.prepareStatement(sql, columnNames);
+                    }
+                    yield connection.prepareStatement(sql, (Integer) option);
+                }
+                case 3 -> connection.prepareStatement(sql, (Integer) args[1], (Integer) args[2]);
+                default -> connection.prepareStatement(sql, (Integer) args[1], (Integer) args[2], (Integer) args[3]);
+            };
+        }
+
+        /**
+         * Put the statement back into the cache, unless another instance of the same statement is cached already.
+         */
+        private synchronized void release(StatementKey key, PreparedStatement statement) {
+            if (statementCache.putIfAbsent(key, statement) != null) {
+                closeQuietly(statement);
+            }
+        }
+
+        private synchronized void clearCache() {
+            for (PreparedStatement statement : statementCache.values()) {
+                closeQuietly(statement);
+            }
+            statementCache.clear();
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final ConnectionHandler connectionHandler;
+
+        private final StatementKey key;
+
+        private final PreparedStatement statement;
+
+        private boolean closed;
+
+        private boolean reusable = true;
+
+        private StatementHandler(ConnectionHandler connectionHandler, StatementKey key, PreparedStatement statement) {
+            this.connectionHandler = connectionHandler;
+            this.key = key;
+            this.statement = statement;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+            switch (methodName) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    checkOpen();
+                    return connectionHandler.proxy;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "StatementCachingPreparedStatement[" + statement + "]";
+            }
+            checkOpen();
+            if (STATEMENT_SETTERS.contains(methodName)) {
+                reusable = false;
+            }
+            try {
+                return StatementCachingDataSource.invoke(statement, method, args);
+            } catch (SQLException e) {
+                reusable = false;
+                throw e;
+            }
+        }
+
+        private void checkOpen() throws SQLException {
+            if (closed) {
+                throw new SQLException("The statement is closed");
+            }
+        }
+
+        private void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (reusable && !statement.isClosed()) {
+                try {
+                    ResultSet resultSet = statement.getResultSet();
+                    if (resultSet != null) {
+                        resultSet.close();
+                    }
+                    statement.clearParameters();
+                    statement.clearBatch();
+                    statement.clearWarnings();
+                    connectionHandler.release(key, statement);
+                    return;
+                } catch (SQLException e) {
+                    LOGGER.debug("Could not reset the statement, so it will not be cached", e);
+                }
+            }
+            statement.close();
+        }
+    }
+}
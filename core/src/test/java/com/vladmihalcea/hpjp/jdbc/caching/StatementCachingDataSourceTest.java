@@ -0,0 +1,188 @@
+package com.vladmihalcea.hpjp.jdbc.caching;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import com.vladmihalcea.hpjp.util.DataSourceProxyType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class StatementCachingDataSourceTest extends AbstractTest {
+
+    public static final String SELECT_POST_TITLE = "select title from post where id = ?";
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected DataSourceProxyType dataSourceProxyType() {
+        return DataSourceProxyType.STATEMENT_CACHE;
+    }
+
+    @Override
+    protected boolean connectionPooling() {
+        return true;
+    }
+
+    @Override
+    protected int connectionPoolSize() {
+        return 1;
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= 10; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("High-Performance Java Persistence, part %d", i))
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testHibernateStatementReuse() throws SQLException {
+        StatementCachingDataSource statementCache = dataSource().unwrap(StatementCachingDataSource.class);
+        long missCount = statementCache.getMissCount();
+
+        for (long i = 1; i <= 10; i++) {
+            final long id = i;
+            doInJPA(entityManager -> {
+                Post post = entityManager.createQuery("""
+                    select p
+                    from Post p
+                    where p.id = :id
+                    """, Post.class)
+                .setParameter("id", id)
+                .getSingleResult();
+
+                assertEquals(String.format("High-Performance Java Persistence, part %d", id), post.getTitle());
+            });
+        }
+
+        LOGGER.info(
+            "Statement cache hits: {}, misses: {}, evictions: {}",
+            statementCache.getHitCount(),
+            statementCache.getMissCount(),
+            statementCache.getEvictionCount()
+        );
+        assertEquals(missCount + 1, statementCache.getMissCount());
+        assertTrue(statementCache.getHitCount() >= 9);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws SQLException {
+        StatementCachingDataSource statementCache = new StatementCachingDataSource(dataSourceProvider().dataSource(), 2);
+
+        try (Connection connection = statementCache.getConnection()) {
+            selectTitle(connection, "select title from post where id = ?");
+            selectTitle(connection, "select title from post where id = ? and 1 = 1");
+            selectTitle(connection, "select title from post where id = ?");
+            selectTitle(connection, "select title from post where id = ? and 2 = 2");
+            assertEquals(1, statementCache.getEvictionCount());
+
+            selectTitle(connection, "select title from post where id = ?");
+            assertEquals(2, statementCache.getHitCount());
+            selectTitle(connection, "select title from post where id = ? and 1 = 1");
+            assertEquals(2, statementCache.getHitCount());
+            assertEquals(4, statementCache.getMissCount());
+            assertEquals(2, statementCache.getEvictionCount());
+        }
+    }
+
+    @Test
+    public void testClosedAndInvalidStatementsAreNotReused() throws SQLException {
+        StatementCachingDataSource statementCache = new StatementCachingDataSource(dataSourceProvider().dataSource());
+
+        try (Connection connection = statementCache.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(SELECT_POST_TITLE);
+            PreparedStatement concurrentStatement = connection.prepareStatement(SELECT_POST_TITLE);
+            assertNotSame(statement.unwrap(PreparedStatement.class), concurrentStatement.unwrap(PreparedStatement.class));
+            assertSame(connection, statement.getConnection());
+            statement.close();
+            concurrentStatement.close();
+            assertTrue(statement.isClosed());
+            try {
+                statement.executeQuery();
+                fail("Should have thrown SQLException");
+            } catch (SQLException expected) {
+                assertEquals("The statement is closed", expected.getMessage());
+            }
+            assertEquals(0, statementCache.getHitCount());
+
+            selectTitle(connection, SELECT_POST_TITLE);
+            assertEquals(1, statementCache.getHitCount());
+
+            try (PreparedStatement invalidStatement = connection.prepareStatement("select title from post where id = cast(? as integer)")) {
+                invalidStatement.setString(1, "not a number");
+                invalidStatement.executeQuery();
+                fail("Should have thrown SQLException");
+            } catch (SQLException expected) {
+                LOGGER.info("The failed statement is not cached: {}", expected.getMessage());
+            }
+
+            try (PreparedStatement fetchSizeStatement = connection.prepareStatement(SELECT_POST_TITLE)) {
+                assertEquals(2, statementCache.getHitCount());
+                fetchSizeStatement.setFetchSize(100);
+            }
+
+            selectTitle(connection, "select title from post where id = cast(? as integer)");
+            selectTitle(connection, SELECT_POST_TITLE);
+            assertEquals(2, statementCache.getHitCount());
+        }
+    }
+
+    private String selectTitle(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, 1L);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                assertTrue(resultSet.next());
+                return resultSet.getString(1);
+            }
+        }
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
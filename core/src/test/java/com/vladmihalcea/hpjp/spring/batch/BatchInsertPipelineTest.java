@@ -0,0 +1,155 @@
+package com.vladmihalcea.hpjp.spring.batch;
+
+import com.vladmihalcea.hpjp.spring.batch.service.BatchInsertPipeline;
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchInsertPipelineTest {
+
+    @Test
+    public void testBoundedInFlightBatches() {
+        int maxInFlightBatches = 3;
+        AtomicInteger runningBatches = new AtomicInteger();
+        AtomicInteger maxRunningBatches = new AtomicInteger();
+        ConcurrentHashMap.KeySetView<Long, Boolean> writtenIds = ConcurrentHashMap.newKeySet();
+
+        try (BatchInsertPipeline<Long> pipeline = new BatchInsertPipeline<>(
+            batch -> {
+                maxRunningBatches.accumulateAndGet(runningBatches.incrementAndGet(), Math::max);
+                sleep(1);
+                writtenIds.addAll(batch);
+                runningBatches.decrementAndGet();
+            },
+            new BatchInsertPipeline.Settings()
+                .setBatchSize(10)
+                .setMinBatchSize(10)
+                .setMaxBatchSize(10)
+                .setWorkerCount(8)
+                .setMaxInFlightBatches(maxInFlightBatches)
+        )) {
+            BatchInsertPipeline.Report report = pipeline.process(ids(1000));
+
+            assertEquals(1000, report.elementCount());
+            assertEquals(100, report.batchCount());
+            assertEquals(1000, writtenIds.size());
+            assertTrue(maxRunningBatches.get() <= maxInFlightBatches);
+            assertTrue(report.throughput() > 0);
+        }
+    }
+
+    @Test
+    public void testRetryTransientFailure() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try (BatchInsertPipeline<Long> pipeline = new BatchInsertPipeline<>(
+            batch -> {
+                if (batch.contains(42L) && attempts.incrementAndGet() < 3) {
+                    throw new TransientDataAccessResourceException("Connection reset");
+                }
+            },
+            new BatchInsertPipeline.Settings()
+                .setWorkerCount(2)
+                .setRetryBackoffMillis(1)
+        )) {
+            BatchInsertPipeline.Report report = pipeline.process(ids(500));
+
+            assertEquals(500, report.elementCount());
+            assertEquals(2, report.retryCount());
+        }
+    }
+
+    @Test
+    public void testFailFastOnPermanentFailure() {
+        AtomicInteger writtenBatches = new AtomicInteger();
+
+        try (BatchInsertPipeline<Long> pipeline = new BatchInsertPipeline<>(
+            batch -> {
+                if (batch.contains(150L)) {
+                    throw new DataIntegrityViolationException("Duplicate key");
+                }
+                writtenBatches.incrementAndGet();
+            },
+            new BatchInsertPipeline.Settings()
+                .setWorkerCount(1)
+                .setMaxInFlightBatches(1)
+        )) {
+            try {
+                pipeline.process(ids(10_000));
+                fail("Should have thrown DataAccessException");
+            } catch (DataAccessException e) {
+                assertTrue(e.getCause() instanceof DataIntegrityViolationException);
+            }
+            assertEquals(1, writtenBatches.get());
+        }
+    }
+
+    @Test
+    public void testFailOnError() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        try (BatchInsertPipeline<Long> pipeline = new BatchInsertPipeline<>(
+            batch -> {
+                if (batch.contains(150L)) {
+                    attempts.incrementAndGet();
+                    throw new NoClassDefFoundError("com/vladmihalcea/hpjp/spring/batch/domain/Post");
+                }
+            },
+            new BatchInsertPipeline.Settings()
+                .setWorkerCount(1)
+                .setMaxInFlightBatches(1)
+                .setRetryCondition(e -> true)
+        )) {
+            try {
+                pipeline.process(ids(10_000));
+                fail("Should have thrown DataAccessException");
+            } catch (DataAccessException e) {
+                assertTrue(e.getCause() instanceof NoClassDefFoundError);
+            }
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void testAdaptiveBatchSize() {
+        try (BatchInsertPipeline<Long> pipeline = new BatchInsertPipeline<>(
+            batch -> sleep(batch.size() / 10),
+            new BatchInsertPipeline.Settings()
+                .setBatchSize(100)
+                .setMinBatchSize(10)
+                .setMaxBatchSize(1000)
+                .setTargetBatchLatencyMillis(2)
+                .setWorkerCount(1)
+        )) {
+            BatchInsertPipeline.Report report = pipeline.process(ids(2000));
+
+            assertEquals(2000, report.elementCount());
+            assertTrue(report.batchSize() < 100);
+        }
+    }
+
+    private List<Long> ids(int count) {
+        return LongStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+
+    private void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.vladmihalcea.hpjp.spring.batch;
 import com.vladmihalcea.hpjp.spring.batch.config.SpringBatchConfiguration;
 import com.vladmihalcea.hpjp.spring.batch.domain.Post;
 import com.vladmihalcea.hpjp.spring.batch.domain.PostStatus;
+import com.vladmihalcea.hpjp.spring.batch.service.BatchInsertPipeline;
 import com.vladmihalcea.hpjp.spring.batch.service.ForumService;
 import com.vladmihalcea.hpjp.spring.common.AbstractSpringTest;
 import org.junit.Ignore;
@@ -54,7 +55,8 @@ public class SpringBatchTest extends AbstractSpringTest {
             )
             .toList();
 
-        forumService.createPosts(posts);
+        BatchInsertPipeline.Report report = forumService.createPosts(posts);
+        assertEquals(POST_COUNT, report.elementCount());
 
         LongStream.rangeClosed(1, 1000).boxed().forEach(id -> assertNotNull(forumService.findById(id)));
 
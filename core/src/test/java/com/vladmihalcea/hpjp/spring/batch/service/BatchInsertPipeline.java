@@ -0,0 +1,458 @@
+package com.vladmihalcea.hpjp.spring.batch.service;
+
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * <code>BatchInsertPipeline</code> - Writes a large number of elements in batches, using multiple worker threads.
+ * <p>
+ * At most {@link Settings#getMaxInFlightBatches()} batches are queued or running at any given time,
+ * so the producer blocks instead of materializing all the batches upfront. A batch that fails with
+ * a transient error is retried with an exponential backoff, and a batch that cannot be written
+ * stops the pipeline and fails the whole import instead of being just logged. An {@link Error} thrown
+ * by a batch is never retried, and it fails the import too.
+ * <p>
+ * The batch size is adjusted after every batch, so that a batch takes about
+ * {@link Settings#getTargetBatchLatencyMillis()} milliseconds to be written.
+ *
+ * @param <T> element type
+ * @author Vlad Mihalcea
+ */
+public class BatchInsertPipeline<T> implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchInsertPipeline.class);
+
+    private final Consumer<List<T>> batchWriter;
+
+    private final Settings settings;
+
+    private final ExecutorService executorService;
+
+    private final AtomicInteger batchSize;
+
+    public BatchInsertPipeline(Consumer<List<T>> batchWriter, Settings settings) {
+        if (settings.getMinBatchSize() < 1 ||
+            settings.getMinBatchSize() > settings.getBatchSize() ||
+            settings.getBatchSize() > settings.getMaxBatchSize()) {
+            throw new IllegalArgumentException(
+                "The batch size must be between the min and the max batch size, which must be positive!"
+            );
+        }
+        this.batchWriter = batchWriter;
+        this.settings = settings;
+        this.executorService = executorService(settings);
+        this.batchSize = new AtomicInteger(settings.getBatchSize());
+    }
+
+    /**
+     * Write all elements in batches, blocking until all of them are written.
+     *
+     * @param elements elements to write
+     * @return the execution report
+     * @throws DataAccessException if a batch could not be written
+     */
+    public Report process(Iterable<T> elements) {
+        return process(elements.iterator());
+    }
+
+    /**
+     * Write all elements in batches, blocking until all of them are written.
+     *
+     * @param elements elements to write
+     * @return the execution report
+     * @throws DataAccessException if a batch could not be written
+     */
+    public Report process(Iterator<T> elements) {
+        Execution execution = new Execution();
+        try {
+            while (elements.hasNext() && !execution.isFailed()) {
+                execution.inFlightBatches.acquire();
+                if (execution.isFailed()) {
+                    execution.inFlightBatches.release();
+                    break;
+                }
+                int currentBatchSize = batchSize.get();
+                List<T> batch = new ArrayList<>(currentBatchSize);
+                while (batch.size() < currentBatchSize && elements.hasNext()) {
+                    batch.add(elements.next());
+                }
+                try {
+                    executorService.execute(() -> {
+                        try {
+                            write(batch, execution);
+                        } finally {
+                            execution.inFlightBatches.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    execution.inFlightBatches.release();
+                    execution.fail(e);
+                }
+            }
+            execution.inFlightBatches.acquire(settings.getMaxInFlightBatches());
+            execution.inFlightBatches.release(settings.getMaxInFlightBatches());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            execution.fail(e);
+        }
+
+        Report report = execution.report();
+        Throwable failure = execution.failure.get();
+        if (failure != null) {
+            DataAccessException exception = new DataAccessException(
+                String.format("The batch insert failed after writing %d elements", report.elementCount()),
+                failure
+            );
+            execution.suppressedFailures.forEach(exception::addSuppressed);
+            throw exception;
+        }
+        return report;
+    }
+
+    /**
+     * @return the batch size the next batch is going to use
+     */
+    public int getBatchSize() {
+        return batchSize.get();
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                executorService.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
+
+    private void write(List<T> batch, Execution execution) {
+        for (int attempt = 0; ; attempt++) {
+            if (execution.isFailed()) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                batchWriter.accept(batch);
+                long latencyNanos = System.nanoTime() - startNanos;
+                execution.completed(batch.size(), latencyNanos);
+                tune(batch.size(), latencyNanos);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= settings.getMaxRetries() || !settings.getRetryCondition().test(e)) {
+                    LOGGER.error("Batch of {} elements failed after {} attempt(s)", batch.size(), attempt + 1, e);
+                    execution.fail(e);
+                    return;
+                }
+                long backoffMillis = backoffMillis(attempt);
+                LOGGER.warn(
+                    "Batch of {} elements failed, retrying in {} ms, attempt {} of {}",
+                    batch.size(),
+                    backoffMillis,
+                    attempt + 1,
+                    settings.getMaxRetries(),
+                    e
+                );
+                execution.retryCount.increment();
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    execution.fail(e);
+                    return;
+                }
+            } catch (Error e) {
+                LOGGER.error("Batch of {} elements failed with an error", batch.size(), e);
+                execution.fail(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The backoff doubles after every attempt and uses a random jitter,
+     * so that the failed batches are not retried all at once.
+     */
+    private long backoffMillis(int attempt) {
+        long maxBackoffMillis = Math.min(
+            settings.getMaxRetryBackoffMillis(),
+            settings.getRetryBackoffMillis() << Math.min(attempt, 20)
+        );
+        return maxBackoffMillis / 2 + ThreadLocalRandom.current().nextLong(maxBackoffMillis / 2 + 1);
+    }
+
+    /**
+     * Move the batch size halfway towards the size that would match the target latency,
+     * based on the per-element latency of the last batch.
+     */
+    private void tune(int size, long latencyNanos) {
+        long targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(settings.getTargetBatchLatencyMillis());
+        if (targetLatencyNanos <= 0) {
+            return;
+        }
+        long idealBatchSize = targetLatencyNanos * size / Math.max(1, latencyNanos);
+        int currentBatchSize = batchSize.get();
+        long nextBatchSize = (currentBatchSize + idealBatchSize) / 2;
+        nextBatchSize = Math.max(settings.getMinBatchSize(), Math.min(settings.getMaxBatchSize(), nextBatchSize));
+        batchSize.compareAndSet(currentBatchSize, (int) nextBatchSize);
+    }
+
+    private static ExecutorService executorService(Settings settings) {
+        if (settings.isVirtualThreads()) {
+            try {
+                return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                LOGGER.warn("Virtual threads are not supported by this JVM, using platform threads instead");
+            }
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(settings.getWorkerCount(), runnable -> {
+            Thread thread = new Thread(runnable, "batch-insert-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private class Execution {
+
+        private final long startNanos = System.nanoTime();
+
+        private final Semaphore inFlightBatches = new Semaphore(settings.getMaxInFlightBatches());
+
+        private final LongAdder elementCount = new LongAdder();
+
+        private final LongAdder batchCount = new LongAdder();
+
+        private final LongAdder retryCount = new LongAdder();
+
+        private final LongAdder batchLatencyNanos = new LongAdder();
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private final Queue<Throwable> suppressedFailures = new ConcurrentLinkedQueue<>();
+
+        boolean isFailed() {
+            return failure.get() != null;
+        }
+
+        void fail(Throwable e) {
+            if (!failure.compareAndSet(null, e)) {
+                suppressedFailures.add(e);
+            }
+        }
+
+        void completed(int size, long latencyNanos) {
+            elementCount.add(size);
+            batchCount.increment();
+            batchLatencyNanos.add(latencyNanos);
+        }
+
+        Report report() {
+            return new Report(
+                elementCount.sum(),
+                batchCount.sum(),
+                retryCount.sum(),
+                batchLatencyNanos.sum(),
+                System.nanoTime() - startNanos,
+                batchSize.get()
+            );
+        }
+    }
+
+    /**
+     * @param elementCount       number of elements written
+     * @param batchCount         number of batches written
+     * @param retryCount         number of batch retries
+     * @param batchLatencyNanos  time spent writing the batches, summed over all workers
+     * @param elapsedNanos       wall-clock time of the whole import
+     * @param batchSize          batch size at the end of the import
+     */
+    public record Report(
+        long elementCount,
+        long batchCount,
+        long retryCount,
+        long batchLatencyNanos,
+        long elapsedNanos,
+        int batchSize) {
+
+        public double throughput() {
+            return elapsedNanos > 0 ? elementCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        }
+
+        public double meanBatchLatencyMillis() {
+            return batchCount > 0 ? batchLatencyNanos / (double) TimeUnit.MILLISECONDS.toNanos(1) / batchCount : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Wrote %d elements in %d batches and %d ms, at %.0f elements/s, " +
+                "with %d retries, a mean batch latency of %.2f ms and a final batch size of %d",
+                elementCount,
+                batchCount,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                throughput(),
+                retryCount,
+                meanBatchLatencyMillis(),
+                batchSize
+            );
+        }
+    }
+
+    public static class Settings {
+
+        private int batchSize = 100;
+
+        private int minBatchSize = 10;
+
+        private int maxBatchSize = 1000;
+
+        private long targetBatchLatencyMillis = 250;
+
+        private int workerCount = Runtime.getRuntime().availableProcessors();
+
+        private int maxInFlightBatches;
+
+        private boolean virtualThreads;
+
+        private int maxRetries = 3;
+
+        private long retryBackoffMillis = 50;
+
+        private long maxRetryBackoffMillis = 2000;
+
+        private Predicate<Throwable> retryCondition = e ->
+            e instanceof TransientDataAccessException ||
+            e instanceof RecoverableDataAccessException ||
+            e instanceof CannotCreateTransactionException ||
+            e instanceof TransactionSystemException;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public Settings setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public int getMinBatchSize() {
+            return minBatchSize;
+        }
+
+        public Settings setMinBatchSize(int minBatchSize) {
+            this.minBatchSize = minBatchSize;
+            return this;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public Settings setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        public long getTargetBatchLatencyMillis() {
+            return targetBatchLatencyMillis;
+        }
+
+        /**
+         * @param targetBatchLatencyMillis target batch latency, or <code>0</code> to use a fixed batch size
+         */
+        public Settings setTargetBatchLatencyMillis(long targetBatchLatencyMillis) {
+            this.targetBatchLatencyMillis = targetBatchLatencyMillis;
+            return this;
+        }
+
+        public int getWorkerCount() {
+            return workerCount;
+        }
+
+        public Settings setWorkerCount(int workerCount) {
+            this.workerCount = workerCount;
+            return this;
+        }
+
+        public int getMaxInFlightBatches() {
+            return maxInFlightBatches > 0 ? maxInFlightBatches : 2 * workerCount;
+        }
+
+        /**
+         * @param maxInFlightBatches max number of queued or running batches,
+         *                           or <code>0</code> to use twice the worker count
+         */
+        public Settings setMaxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        /**
+         * @param virtualThreads use a virtual thread per batch, if the JVM supports it,
+         *                       in which case the max in-flight batches limit the concurrency
+         */
+        public Settings setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public Settings setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public long getRetryBackoffMillis() {
+            return retryBackoffMillis;
+        }
+
+        public Settings setRetryBackoffMillis(long retryBackoffMillis) {
+            this.retryBackoffMillis = retryBackoffMillis;
+            return this;
+        }
+
+        public long getMaxRetryBackoffMillis() {
+            return maxRetryBackoffMillis;
+        }
+
+        public Settings setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+            this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+            return this;
+        }
+
+        public Predicate<Throwable> getRetryCondition() {
+            return retryCondition;
+        }
+
+        public Settings setRetryCondition(Predicate<Throwable> retryCondition) {
+            this.retryCondition = retryCondition;
+            return this;
+        }
+    }
+}
@@ -2,13 +2,12 @@ package com.vladmihalcea.hpjp.spring.batch.service;
 
 import com.vladmihalcea.hpjp.spring.batch.domain.Post;
 import com.vladmihalcea.hpjp.spring.batch.repository.PostRepository;
-import com.vladmihalcea.hpjp.util.CollectionUtils;
 import io.hypersistence.utils.spring.annotation.Retry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,27 +15,21 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.net.SocketTimeoutException;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 /**
  * @author Vlad Mihalcea
  */
 @Service
-public class ForumService {
+public class ForumService implements DisposableBean {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ForumService.class);
 
-    private static final ExecutorService executorService = Executors.newFixedThreadPool(
-        Runtime.getRuntime().availableProcessors()
-    );
-
     private final PostRepository postRepository;
 
     private final TransactionTemplate transactionTemplate;
 
-    private final int batchProcessingSize;
+    private final BatchInsertPipeline<Post> batchInsertPipeline;
 
     public ForumService(
         @Autowired PostRepository postRepository,
@@ -44,28 +37,29 @@ public class ForumService {
         @Autowired int batchProcessingSize) {
         this.postRepository = postRepository;
         this.transactionTemplate = transactionTemplate;
-        this.batchProcessingSize = batchProcessingSize;
+        this.batchInsertPipeline = new BatchInsertPipeline<>(
+            postBatch -> transactionTemplate.execute((status) -> postRepository.persistAll(postBatch)),
+            new BatchInsertPipeline.Settings()
+                .setBatchSize(batchProcessingSize)
+                .setMinBatchSize(batchProcessingSize)
+                .setMaxBatchSize(10 * batchProcessingSize)
+        );
     }
 
     @Transactional(propagation = Propagation.NEVER)
-    public void createPosts(List<Post> posts) {
-        CollectionUtils.spitInBatches(posts, batchProcessingSize)
-            .map(postBatch -> executorService.submit(() -> {
-                try {
-                    transactionTemplate.execute((status) -> postRepository.persistAll(postBatch));
-                } catch (TransactionException e) {
-                    LOGGER.error("Batch transaction failure", e);
-                }
-            }))
-            .forEach(future -> {
-                try {
-                    future.get();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                    LOGGER.error("Batch execution failure", e);
-                }
-            });
+    public BatchInsertPipeline.Report createPosts(List<Post> posts) {
+        BatchInsertPipeline.Report report = batchInsertPipeline.process(posts);
+        LOGGER.info("{}", report);
+        return report;
+    }
+
+    @Transactional(propagation = Propagation.NEVER)
+    public BatchInsertPipeline.Report createPosts(Stream<Post> posts) {
+        try (posts) {
+            BatchInsertPipeline.Report report = batchInsertPipeline.process(posts.iterator());
+            LOGGER.info("{}", report);
+            return report;
+        }
     }
 
     @Transactional(readOnly = true)
@@ -83,4 +77,9 @@ public class ForumService {
     public Post findById(Long id) {
         return postRepository.findById(id).orElse(null);
     }
+
+    @Override
+    public void destroy() {
+        batchInsertPipeline.close();
+    }
 }
@@ -0,0 +1,250 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch;
+
+import com.vladmihalcea.hpjp.hibernate.logging.validator.sql.SQLStatementCountValidator;
+import com.vladmihalcea.hpjp.spring.common.AbstractSpringTest;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.config.SpringDataJPAPageCountConfiguration;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.domain.Post;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.domain.PostComment;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.CountMode;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.PageCountCache;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.repository.PostRepository;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.*;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.time.*;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+@ContextConfiguration(classes = SpringDataJPAPageCountConfiguration.class)
+public class SpringDataJPAPageCountTest extends AbstractSpringTest {
+
+    public static final int POST_COUNT = 1_000;
+
+    public static final int PAGE_SIZE = 25;
+
+    public static final String TITLE_PATTERN = "High-Performance Java Persistence %";
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PageCountCache pageCountCache;
+
+    private final AtomicReference<Instant> now = new AtomicReference<>(
+        LocalDateTime.of(2024, 10, 12, 12, 0).toInstant(ZoneOffset.UTC)
+    );
+
+    private long initialHitCount;
+
+    private long initialMissCount;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class[]{
+            PostComment.class,
+            Post.class
+        };
+    }
+
+    @Override
+    public void afterInit() {
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            LocalDateTime timestamp = LocalDate.now().atStartOfDay().plusHours(12);
+
+            LongStream.rangeClosed(1, POST_COUNT).forEach(postId -> postRepository.persist(
+                new Post()
+                    .setId(postId)
+                    .setTitle(String.format("High-Performance Java Persistence - Chapter %d", postId))
+                    .setCreatedOn(timestamp.plusMinutes(postId))
+            ));
+
+            return null;
+        });
+
+        pageCountCache.clear();
+        initialHitCount = pageCountCache.getHitCount();
+        initialMissCount = pageCountCache.getMissCount();
+        pageCountCache
+            .setTtl(Duration.ofMinutes(1))
+            .setClock(new Clock() {
+                @Override
+                public ZoneId getZone() {
+                    return ZoneOffset.UTC;
+                }
+
+                @Override
+                public Clock withZone(ZoneId zone) {
+                    return this;
+                }
+
+                @Override
+                public Instant instant() {
+                    return now.get();
+                }
+            });
+    }
+
+    @Test
+    public void testExactCount() {
+        for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+            SQLStatementCountValidator.reset();
+            Page<Post> posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(pageNumber), CountMode.EXACT);
+            SQLStatementCountValidator.assertSelectCount(2);
+
+            assertEquals(PAGE_SIZE, posts.getNumberOfElements());
+            assertEquals(POST_COUNT, posts.getTotalElements());
+        }
+    }
+
+    @Test
+    public void testCachedCount() {
+        SQLStatementCountValidator.reset();
+        Page<Post> posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(0), CountMode.CACHED);
+        SQLStatementCountValidator.assertSelectCount(2);
+        assertEquals(POST_COUNT, posts.getTotalElements());
+
+        for (int pageNumber = 1; pageNumber < 10; pageNumber++) {
+            SQLStatementCountValidator.reset();
+            posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(pageNumber), CountMode.CACHED);
+            SQLStatementCountValidator.assertSelectCount(1);
+
+            assertEquals(pageNumber, posts.getNumber());
+            assertEquals(POST_COUNT, posts.getTotalElements());
+            assertEquals(POST_COUNT / PAGE_SIZE, posts.getTotalPages());
+        }
+
+        SQLStatementCountValidator.reset();
+        postRepository.findAllByTitleLike("High-Performance Java Persistence - Chapter 1%", pageRequest(0), CountMode.CACHED);
+        SQLStatementCountValidator.assertSelectCount(2);
+
+        assertEquals(2, pageCountCache.getMissCount() - initialMissCount);
+        assertEquals(9, pageCountCache.getHitCount() - initialHitCount);
+    }
+
+    @Test
+    public void testCachedCountExpires() {
+        postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(0), CountMode.CACHED);
+
+        transactionTemplate.execute((TransactionCallback<Void>) transactionStatus -> {
+            postRepository.persist(
+                new Post()
+                    .setId(POST_COUNT + 1L)
+                    .setTitle("High-Performance Java Persistence - Appendix")
+            );
+            return null;
+        });
+
+        SQLStatementCountValidator.reset();
+        Page<Post> posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(1), CountMode.CACHED);
+        SQLStatementCountValidator.assertSelectCount(1);
+        assertEquals(POST_COUNT, posts.getTotalElements());
+
+        now.set(now.get().plus(Duration.ofMinutes(1)));
+
+        SQLStatementCountValidator.reset();
+        posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(1), CountMode.CACHED);
+        SQLStatementCountValidator.assertSelectCount(2);
+        assertEquals(POST_COUNT + 1, posts.getTotalElements());
+    }
+
+    @Test
+    public void testPartialPageSkipsCount() {
+        int pageSize = 30;
+        Pageable lastPage = PageRequest.of(POST_COUNT / pageSize, pageSize, Sort.by("createdOn", "id"));
+
+        SQLStatementCountValidator.reset();
+        Page<Post> posts = postRepository.findAllByTitleLike(TITLE_PATTERN, lastPage, CountMode.EXACT);
+        SQLStatementCountValidator.assertSelectCount(1);
+
+        assertEquals(POST_COUNT % pageSize, posts.getNumberOfElements());
+        assertEquals(POST_COUNT, posts.getTotalElements());
+        assertTrue(posts.isLast());
+        assertEquals(initialMissCount, pageCountCache.getMissCount());
+    }
+
+    @Test
+    public void testEstimatedCountFallsBackToExactCount() {
+        SQLStatementCountValidator.reset();
+        Page<Post> posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(3), CountMode.ESTIMATED);
+        SQLStatementCountValidator.assertSelectCount(2);
+        assertEquals(POST_COUNT, posts.getTotalElements());
+
+        SQLStatementCountValidator.reset();
+        posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(4), CountMode.ESTIMATED);
+        SQLStatementCountValidator.assertSelectCount(1);
+        assertEquals(POST_COUNT, posts.getTotalElements());
+    }
+
+    @Test
+    public void testCachedAndEstimatedCountsAreCachedSeparately() {
+        SQLStatementCountValidator.reset();
+        Page<Post> posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(0), CountMode.CACHED);
+        SQLStatementCountValidator.assertSelectCount(2);
+        assertEquals(POST_COUNT, posts.getTotalElements());
+
+        SQLStatementCountValidator.reset();
+        posts = postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(1), CountMode.ESTIMATED);
+        SQLStatementCountValidator.assertSelectCount(2);
+        assertEquals(POST_COUNT, posts.getTotalElements());
+
+        SQLStatementCountValidator.reset();
+        postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(2), CountMode.CACHED);
+        postRepository.findAllByTitleLike(TITLE_PATTERN, pageRequest(3), CountMode.ESTIMATED);
+        SQLStatementCountValidator.assertSelectCount(2);
+
+        assertEquals(2, pageCountCache.size());
+        assertEquals(2, pageCountCache.getMissCount() - initialMissCount);
+        assertEquals(2, pageCountCache.getHitCount() - initialHitCount);
+
+        pageCountCache.evict(PostRepository.FIND_ALL_BY_TITLE_LIKE);
+        assertEquals(0, pageCountCache.size());
+    }
+
+    @Test
+    public void testSliceAndWindow() {
+        int pageNumber = 10;
+
+        SQLStatementCountValidator.reset();
+        Slice<Post> slice = postRepository.findSliceByTitleLike(TITLE_PATTERN, pageRequest(pageNumber));
+        SQLStatementCountValidator.assertSelectCount(1);
+        assertTrue(slice.hasNext());
+
+        Post previousPost = postRepository.findAllByTitleLike(
+            TITLE_PATTERN,
+            PageRequest.of(pageNumber * PAGE_SIZE - 1, 1, Sort.by("createdOn", "id")),
+            CountMode.CACHED
+        ).getContent().get(0);
+
+        SQLStatementCountValidator.reset();
+        Window<Post> window = postRepository.findWindowByTitleLike(
+            TITLE_PATTERN,
+            PageRequest.of(0, PAGE_SIZE, Sort.by("createdOn", "id")),
+            ScrollPosition.forward(
+                Map.of(
+                    "createdOn", previousPost.getCreatedOn(),
+                    "id", previousPost.getId()
+                )
+            )
+        );
+        SQLStatementCountValidator.assertSelectCount(1);
+        assertTrue(window.hasNext());
+
+        assertEquals(
+            slice.getContent().stream().map(Post::getId).toList(),
+            window.getContent().stream().map(Post::getId).toList()
+        );
+    }
+
+    private Pageable pageRequest(int pageNumber) {
+        return PageRequest.of(pageNumber, PAGE_SIZE, Sort.by("createdOn", "id"));
+    }
+}
@@ -0,0 +1,19 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch.config;
+
+import com.vladmihalcea.hpjp.util.providers.Database;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Runs the pagination mappings on HSQLDB, so that the page count tests
+ * and benchmarks don't require a PostgreSQL server.
+ *
+ * @author Vlad Mihalcea
+ */
+public class SpringDataJPAPageCountConfiguration extends SpringDataJPAJoinFetchPaginationConfiguration {
+
+    @Bean
+    @Override
+    public Database database() {
+        return Database.HSQLDB;
+    }
+}
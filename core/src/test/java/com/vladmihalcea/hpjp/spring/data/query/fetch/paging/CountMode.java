@@ -0,0 +1,25 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch.paging;
+
+/**
+ * <code>CountMode</code> - How the total number of records of a {@link org.springframework.data.domain.Page}
+ * is resolved, when it cannot be derived from the page content.
+ *
+ * @author Vlad Mihalcea
+ */
+public enum CountMode {
+    /**
+     * Every page request runs the count query, like the Spring Data <code>Page</code> query methods do.
+     */
+    EXACT,
+    /**
+     * The count query result is cached for the given query and parameters, so the following
+     * page requests reuse it until it expires.
+     */
+    CACHED,
+    /**
+     * The database query planner estimates the number of records, and, if the estimate is large enough
+     * for an approximate total to be acceptable, the estimate is cached instead of the exact count.
+     * Otherwise, or if the database cannot provide an estimate, the exact count is cached.
+     */
+    ESTIMATED
+}
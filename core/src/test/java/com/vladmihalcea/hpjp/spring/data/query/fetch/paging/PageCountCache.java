@@ -0,0 +1,119 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch.paging;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <code>PageCountCache</code> - Caches the total number of records matched by a query, for the given
+ * query parameters, so that navigating through the pages of the same result set runs the
+ * count query only once.
+ * <p>
+ * The cached count expires after the configured time-to-live, so the inserted or deleted records are
+ * eventually reflected by the page total. Once the cache reaches its maximum size, the expired
+ * entries are evicted, and, if none expired, the new counts are not cached.
+ *
+ * @author Vlad Mihalcea
+ */
+@Component
+public class PageCountCache {
+
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private Duration ttl = DEFAULT_TTL;
+
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    private Clock clock = Clock.systemUTC();
+
+    public PageCountCache setTtl(Duration ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
+    public PageCountCache setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public PageCountCache setClock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Get the cached count of the given query and parameters, or resolve it using the
+     * count supplier if it's not cached or if it expired.
+     *
+     * @param query query identifier
+     * @param parameters query parameter values
+     * @param countSupplier resolves the count
+     * @return the total number of records
+     */
+    public long getCount(String query, List<?> parameters, LongSupplier countSupplier) {
+        Key key = new Key(query, Arrays.asList(parameters.toArray()));
+        Instant now = clock.instant();
+        Entry entry = cache.get(key);
+        if (entry != null && entry.expiresAt().isAfter(now)) {
+            hitCount.increment();
+            return entry.count();
+        }
+        missCount.increment();
+        long count = countSupplier.getAsLong();
+        if (cache.size() >= maxSize) {
+            cache.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+        }
+        if (cache.size() < maxSize || entry != null) {
+            cache.put(key, new Entry(count, now.plus(ttl)));
+        }
+        return count;
+    }
+
+    /**
+     * Evict the cached counts of the given query, for all parameter values, after
+     * records were inserted or deleted and the page totals must reflect it right away.
+     *
+     * @param query query identifier
+     */
+    public void evict(String query) {
+        cache.keySet().removeIf(key -> key.query().equals(query));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private record Key(String query, List<Object> parameters) {
+    }
+
+    private record Entry(long count, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch.paging;
+
+import com.vladmihalcea.hpjp.util.providers.Database;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <code>RowCountEstimator</code> - Estimates the number of records a SQL query returns, using
+ * the execution plan of the query, so that the records don't have to be counted.
+ * <p>
+ * On PostgreSQL, the estimate is the <code>Plan Rows</code> value of the top plan node, which
+ * is based on the table statistics, so it's only as accurate as the last <code>ANALYZE</code>.
+ * The other databases don't provide an estimate.
+ *
+ * @author Vlad Mihalcea
+ */
+@Component
+public class RowCountEstimator {
+
+    private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
+    private final Database database;
+
+    public RowCountEstimator(Database database) {
+        this.database = database;
+    }
+
+    public boolean isSupported() {
+        return database == Database.POSTGRESQL;
+    }
+
+    /**
+     * Estimate the number of records of the given SQL query.
+     *
+     * @param connection current connection
+     * @param sql SQL query
+     * @param parameters positional parameter values
+     * @return the estimated number of records, or an empty value if the database cannot estimate it
+     */
+    public OptionalLong estimate(Connection connection, String sql, Object... parameters) throws SQLException {
+        if (!isSupported()) {
+            return OptionalLong.empty();
+        }
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    Matcher matcher = PLAN_ROWS_PATTERN.matcher(resultSet.getString(1));
+                    if (matcher.find()) {
+                        return OptionalLong.of(Long.parseLong(matcher.group(1)));
+                    }
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+}
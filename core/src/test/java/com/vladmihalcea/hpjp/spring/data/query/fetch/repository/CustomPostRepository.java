@@ -0,0 +1,27 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch.repository;
+
+import com.vladmihalcea.hpjp.spring.data.query.fetch.domain.Post;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.CountMode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public interface CustomPostRepository {
+
+    String FIND_ALL_BY_TITLE_LIKE = "findAllByTitleLike";
+
+    /**
+     * Fetch the page of posts matching the title pattern, like {@link PostRepository#findAllByTitleLike}
+     * and {@link PostRepository#findAllByTitleLikeQuery} do, but resolve the page total using the
+     * given {@link CountMode}. When the page is smaller than the page size, the total is derived from
+     * the page offset and content, so no count is needed at all.
+     *
+     * @param titlePattern title pattern
+     * @param pageable page request
+     * @param countMode how the page total is resolved
+     * @return page of posts
+     */
+    Page<Post> findAllByTitleLike(String titlePattern, Pageable pageable, CountMode countMode);
+}
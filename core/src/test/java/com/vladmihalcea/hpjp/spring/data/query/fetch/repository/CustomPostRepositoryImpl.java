@@ -0,0 +1,116 @@
+package com.vladmihalcea.hpjp.spring.data.query.fetch.repository;
+
+import com.vladmihalcea.hpjp.spring.data.query.fetch.domain.Post;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.CountMode;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.PageCountCache;
+import com.vladmihalcea.hpjp.spring.data.query.fetch.paging.RowCountEstimator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class CustomPostRepositoryImpl implements CustomPostRepository {
+
+    public static final long DEFAULT_ESTIMATE_THRESHOLD = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PageCountCache pageCountCache;
+
+    private final RowCountEstimator rowCountEstimator;
+
+    private long estimateThreshold = DEFAULT_ESTIMATE_THRESHOLD;
+
+    public CustomPostRepositoryImpl(PageCountCache pageCountCache, RowCountEstimator rowCountEstimator) {
+        this.pageCountCache = pageCountCache;
+        this.rowCountEstimator = rowCountEstimator;
+    }
+
+    /**
+     * Below this number of estimated records, the exact count is used, since the page total should
+     * be accurate for small result sets, and counting them is cheap anyway.
+     *
+     * @param estimateThreshold minimum estimated number of records
+     */
+    public void setEstimateThreshold(long estimateThreshold) {
+        this.estimateThreshold = estimateThreshold;
+    }
+
+    @Override
+    public Page<Post> findAllByTitleLike(String titlePattern, Pageable pageable, CountMode countMode) {
+        TypedQuery<Post> query = entityManager.createQuery(
+            QueryUtils.applySorting("""
+                select p
+                from Post p
+                where p.title like :titlePattern
+                """,
+                pageable.getSort(),
+                "p"
+            ),
+            Post.class
+        )
+        .setParameter("titlePattern", titlePattern);
+        if (pageable.isPaged()) {
+            query
+                .setFirstResult(Math.toIntExact(pageable.getOffset()))
+                .setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(
+            query.getResultList(),
+            pageable,
+            () -> switch (countMode) {
+                case EXACT -> countByTitleLike(titlePattern);
+                //the count mode is part of the cache key, so an estimate is never served as an exact count
+                case CACHED -> pageCountCache.getCount(
+                    FIND_ALL_BY_TITLE_LIKE,
+                    List.of(countMode, titlePattern),
+                    () -> countByTitleLike(titlePattern)
+                );
+                case ESTIMATED -> pageCountCache.getCount(
+                    FIND_ALL_BY_TITLE_LIKE,
+                    List.of(countMode, titlePattern),
+                    () -> estimateByTitleLike(titlePattern)
+                );
+            }
+        );
+    }
+
+    private long countByTitleLike(String titlePattern) {
+        return entityManager.createQuery("""
+            select count(p)
+            from Post p
+            where p.title like :titlePattern
+            """, Long.class)
+        .setParameter("titlePattern", titlePattern)
+        .getSingleResult();
+    }
+
+    private long estimateByTitleLike(String titlePattern) {
+        OptionalLong estimate = entityManager.unwrap(Session.class).doReturningWork(
+            connection -> rowCountEstimator.estimate(
+                connection,
+                """
+                SELECT p.id
+                FROM post p
+                WHERE p.title LIKE ?
+                """,
+                titlePattern
+            )
+        );
+        return estimate.isPresent() && estimate.getAsLong() >= estimateThreshold ?
+            estimate.getAsLong() :
+            countByTitleLike(titlePattern);
+    }
+}
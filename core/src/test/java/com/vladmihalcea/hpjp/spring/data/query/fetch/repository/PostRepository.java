@@ -6,6 +6,9 @@ import jakarta.persistence.QueryHint;
 import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
@@ -19,7 +22,7 @@ import java.util.stream.Stream;
  * @author Vlad Mihalcea
  */
 @Repository
-public interface PostRepository extends BaseJpaRepository<Post, Long> {
+public interface PostRepository extends BaseJpaRepository<Post, Long>, CustomPostRepository {
 
     Page<Post> findAllByTitleLike(@Param("titlePattern") String titlePattern, Pageable pageRequest);
 
@@ -31,6 +34,14 @@ public interface PostRepository extends BaseJpaRepository<Post, Long> {
     )
     Page<Post> findAllByTitleLikeQuery(@Param("titlePattern") String titlePattern, Pageable pageRequest);
 
+    Slice<Post> findSliceByTitleLike(@Param("titlePattern") String titlePattern, Pageable pageRequest);
+
+    Window<Post> findWindowByTitleLike(
+        @Param("titlePattern") String titlePattern,
+        Pageable pageRequest,
+        ScrollPosition position
+    );
+
     @Query(value = """
         SELECT p.id, p.title, p.created_on
         FROM post p
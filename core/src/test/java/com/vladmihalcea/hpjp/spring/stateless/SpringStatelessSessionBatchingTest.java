@@ -11,6 +11,8 @@ import org.springframework.test.context.ContextConfiguration;
 import java.util.List;
 import java.util.stream.LongStream;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * @author Vlad Mihalcea
  */
@@ -55,5 +57,22 @@ public class SpringStatelessSessionBatchingTest extends AbstractSpringTest {
                 }
             });
     }
-}
 
+    @Test
+    public void testBulkWrite() {
+        long postCount = forumService.bulkCreatePosts(
+            LongStream.rangeClosed(1, POST_COUNT)
+                .mapToObj(postId -> new Post()
+                    .setTitle(
+                        String.format("High-Performance Java Persistence - Page %d",
+                            postId
+                        )
+                    )
+                    .setCreatedBy("Vlad Mihalcea")
+                    .setUpdatedBy("Vlad Mihalcea")
+                )
+        );
+
+        assertEquals(POST_COUNT, postCount);
+    }
+}
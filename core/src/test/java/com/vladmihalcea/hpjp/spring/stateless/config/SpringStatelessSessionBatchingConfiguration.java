@@ -4,6 +4,8 @@ import com.vladmihalcea.hpjp.util.DataSourceProxyType;
 import com.vladmihalcea.hpjp.util.logging.InlineQueryLogEntryCreator;
 import com.vladmihalcea.hpjp.util.providers.DataSourceProvider;
 import com.vladmihalcea.hpjp.util.providers.Database;
+import com.vladmihalcea.hpjp.util.providers.MySQLDataSourceProvider;
+import com.vladmihalcea.hpjp.util.providers.PostgreSQLDataSourceProvider;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import io.hypersistence.utils.spring.repository.BaseJpaRepositoryImpl;
@@ -69,9 +71,19 @@ public class SpringStatelessSessionBatchingConfiguration {
         return Database.MYSQL;
     }
 
+    /**
+     * The JDBC drivers that support it rewrite the batched INSERT statements
+     * into multi-row INSERT statements, saving database roundtrips.
+     */
     @Bean
     public DataSourceProvider dataSourceProvider() {
-        return database().dataSourceProvider();
+        DataSourceProvider dataSourceProvider = database().dataSourceProvider();
+        if (dataSourceProvider instanceof MySQLDataSourceProvider mySQLDataSourceProvider) {
+            mySQLDataSourceProvider.setRewriteBatchedStatements(true);
+        } else if (dataSourceProvider instanceof PostgreSQLDataSourceProvider postgreSQLDataSourceProvider) {
+            postgreSQLDataSourceProvider.setReWriteBatchedInserts(true);
+        }
+        return dataSourceProvider;
     }
 
     public DataSource poolingDataSource() {
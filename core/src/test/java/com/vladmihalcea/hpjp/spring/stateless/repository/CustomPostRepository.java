@@ -1,10 +1,30 @@
 package com.vladmihalcea.hpjp.spring.stateless.repository;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author Vlad Mihalcea
  */
 public interface CustomPostRepository<T> {
     <S extends T> List<S> persistAll(Iterable<S> entities);
+
+    /**
+     * Insert all entities, flushing the JDBC batch after every {@code batchProcessingSize} entities.
+     * The entities are neither collected nor returned, so the memory footprint does not depend on the entity count.
+     *
+     * @param entities entities to insert
+     * @return the number of inserted entities
+     */
+    long bulkPersist(Stream<? extends T> entities);
+
+    /**
+     * Insert all entities, flushing the JDBC batch after every {@code flushInterval} entities.
+     *
+     * @param entities      entities to insert
+     * @param flushInterval number of entities after which the pending statements are flushed
+     * @return the number of inserted entities
+     */
+    long bulkPersist(Iterator<? extends T> entities, int flushInterval);
 }
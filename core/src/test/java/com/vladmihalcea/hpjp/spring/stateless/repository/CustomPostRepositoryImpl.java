@@ -9,8 +9,10 @@ import org.hibernate.StatelessSession;
 import org.hibernate.StatelessSessionBuilder;
 import org.hibernate.resource.jdbc.spi.JdbcSessionOwner;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
@@ -35,13 +37,7 @@ public class CustomPostRepositoryImpl implements CustomPostRepository<Post> {
 
     @Override
     public <S extends Post> List<S> persistAll(Iterable<S> entities) {
-        final StatelessSession statelessSession = statelessSessionBuilder
-            .connection(
-                entityManager
-                    .unwrap(Session.class)
-                    .doReturningWork(connection -> connection)
-            )
-            .openStatelessSession();
+        final StatelessSession statelessSession = openStatelessSession();
         try {
             statelessSession.setJdbcBatchSize(batchProcessingSize);
             statelessSession.beginTransaction();
@@ -59,4 +55,48 @@ public class CustomPostRepositoryImpl implements CustomPostRepository<Post> {
             statelessSession.close();
         }
     }
+
+    @Override
+    public long bulkPersist(Stream<? extends Post> entities) {
+        try (entities) {
+            return bulkPersist(entities.iterator(), batchProcessingSize);
+        }
+    }
+
+    @Override
+    public long bulkPersist(Iterator<? extends Post> entities, int flushInterval) {
+        if (flushInterval <= 0) {
+            throw new IllegalArgumentException("The flush interval must be positive!");
+        }
+        final StatelessSession statelessSession = openStatelessSession();
+        try {
+            statelessSession.setJdbcBatchSize(batchProcessingSize);
+            statelessSession.beginTransaction();
+
+            JdbcSessionOwner jdbcSessionOwner = ((JdbcSessionOwner) statelessSession);
+            long count = 0;
+            while (entities.hasNext()) {
+                statelessSession.insert(BatchInsertPost.valueOf(entities.next()));
+                if (++count % flushInterval == 0) {
+                    jdbcSessionOwner.flushBeforeTransactionCompletion();
+                }
+            }
+            jdbcSessionOwner.flushBeforeTransactionCompletion();
+            return count;
+        } catch (Exception e) {
+            throw new HibernateException(e);
+        } finally {
+            statelessSession.close();
+        }
+    }
+
+    private StatelessSession openStatelessSession() {
+        return statelessSessionBuilder
+            .connection(
+                entityManager
+                    .unwrap(Session.class)
+                    .doReturningWork(connection -> connection)
+            )
+            .openStatelessSession();
+    }
 }
@@ -16,6 +16,7 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 /**
  * @author Vlad Mihalcea
@@ -66,6 +67,13 @@ public class ForumService {
             });
     }
 
+    @Transactional(propagation = Propagation.NEVER)
+    public long bulkCreatePosts(Stream<Post> posts) {
+        Long postCount = transactionTemplate.execute((status) -> postRepository.bulkPersist(posts));
+        LOGGER.info("Inserted {} posts", postCount);
+        return postCount;
+    }
+
     public List<Post> findByIds(List<Long> ids) {
         return postRepository.findAllById(ids);
     }
@@ -1,8 +1,6 @@
 package com.vladmihalcea.hpjp.spring.transaction.readonly.config.stats;
 
-import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.Slf4jReporter;
-import com.codahale.metrics.Timer;
+import com.vladmihalcea.hpjp.hibernate.statistics.TransactionStatisticsSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,27 +13,22 @@ public class SpringTransactionStatisticsReport {
 
     public static Logger LOGGER = LoggerFactory.getLogger(SpringTransactionStatisticsReport.class);
 
-    private MetricRegistry metricRegistry = new MetricRegistry();
-
-    private Slf4jReporter logReporter = Slf4jReporter
-        .forRegistry(metricRegistry)
-        .outputTo(LOGGER)
-        .build();
-
-    private Timer transactionTimer = metricRegistry.
-        timer("transactionTimer");
-
-    private Timer fxRateTimer = metricRegistry.timer("fxRateTimer");
-
-    public void transactionTime(long nanos) {
-        transactionTimer.update(nanos, TimeUnit.NANOSECONDS);
-    }
-
-    public void fxRateTime(long nanos) {
-        fxRateTimer.update(nanos, TimeUnit.NANOSECONDS);
+    public static void generate(TransactionStatisticsSnapshot snapshot) {
+        if (snapshot.transactionCount() == 0) {
+            return;
+        }
+        LOGGER.info(
+            "Transactions: {}, mean time: {} ms, p99 time: {} ms, max time: {} ms, mean connections: {}, mean statements: {}",
+            snapshot.transactionCount(),
+            toMillis(snapshot.transactionTimeNanos().mean()),
+            toMillis(snapshot.transactionTimeNanos().percentile(0.99)),
+            toMillis(snapshot.transactionTimeNanos().max()),
+            snapshot.connectionCount().mean(),
+            snapshot.statementCount().mean()
+        );
     }
 
-    public void generate() {
-        logReporter.report();
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
     }
 }
@@ -1,6 +1,5 @@
 package com.vladmihalcea.hpjp.spring.transaction.readonly.service;
 
-import com.vladmihalcea.hpjp.spring.transaction.readonly.config.stats.SpringTransactionStatistics;
 import com.vladmihalcea.hpjp.spring.transaction.readonly.domain.Product;
 import com.vladmihalcea.hpjp.spring.transaction.readonly.repository.ProductRepository;
 import com.vladmihalcea.hpjp.spring.transaction.readonly.service.fxrate.FxCurrency;
@@ -0,0 +1,148 @@
+package com.vladmihalcea.hpjp.spring.transaction.replica;
+
+import com.vladmihalcea.hpjp.spring.transaction.routing.DataSourceType;
+import com.vladmihalcea.hpjp.spring.transaction.routing.ReplicaDataSource;
+import com.vladmihalcea.hpjp.spring.transaction.routing.TransactionRoutingDataSource;
+import com.vladmihalcea.hpjp.util.providers.Database;
+import com.vladmihalcea.hpjp.util.spring.config.jpa.AbstractJPAConfiguration;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.IntStream;
+
+/**
+ * Uses one in-memory HSQLDB database as the primary and three other ones as replicas.
+ * Every database stores its own name in the {@code data_source_info} table,
+ * so that a query can tell which database served it.
+ *
+ * @author Vlad Mihalcea
+ */
+@Configuration
+public class ReplicaRoutingConfiguration extends AbstractJPAConfiguration {
+
+    public static final int REPLICA_COUNT = 3;
+
+    public ReplicaRoutingConfiguration() {
+        super(Database.HSQLDB);
+    }
+
+    @Bean
+    public DataSource primaryDataSource() {
+        return hsqldbDataSource("primary");
+    }
+
+    /*
+     * Every replica pool is a bean of its own, so Spring closes it when the context is closed,
+     * which would not happen if the pools were only referenced by the replicaDataSources list.
+     */
+    @Bean
+    public DataSource replica1DataSource() {
+        return hsqldbDataSource("replica1");
+    }
+
+    @Bean
+    public DataSource replica2DataSource() {
+        return hsqldbDataSource("replica2");
+    }
+
+    @Bean
+    public DataSource replica3DataSource() {
+        return hsqldbDataSource("replica3");
+    }
+
+    @Bean
+    public List<ReplicaDataSource> replicaDataSources() {
+        List<DataSource> replicas = List.of(
+            replica1DataSource(),
+            replica2DataSource(),
+            replica3DataSource()
+        );
+        return IntStream.range(0, REPLICA_COUNT)
+            .mapToObj(i -> new ReplicaDataSource("replica" + (i + 1), new SwitchableDataSource(replicas.get(i)))
+                .setEjectionMillis(60_000)
+            )
+            .toList();
+    }
+
+    @Bean
+    public TransactionRoutingDataSource actualDataSource() {
+        TransactionRoutingDataSource routingDataSource = new TransactionRoutingDataSource();
+        routingDataSource.setTargetDataSources(
+            Map.of(DataSourceType.READ_WRITE, primaryDataSource())
+        );
+        routingDataSource.setReplicaDataSources(replicaDataSources());
+        return routingDataSource;
+    }
+
+    @Override
+    protected Properties additionalProperties() {
+        Properties properties = super.additionalProperties();
+        properties.setProperty(
+            "hibernate.connection.provider_disables_autocommit",
+            Boolean.TRUE.toString()
+        );
+        return properties;
+    }
+
+    @Override
+    protected String databaseType() {
+        return Database.HSQLDB.name().toLowerCase();
+    }
+
+    private DataSource hsqldbDataSource(String name) {
+        JDBCDataSource dataSource = new JDBCDataSource();
+        dataSource.setUrl("jdbc:hsqldb:mem:" + name);
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("drop table data_source_info if exists");
+            statement.executeUpdate("create table data_source_info (name varchar(50))");
+            statement.executeUpdate("insert into data_source_info (name) values ('" + name + "')");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(name);
+        hikariConfig.setMaximumPoolSize(4);
+        hikariConfig.setAutoCommit(false);
+        hikariConfig.setDataSource(dataSource);
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * Simulates a replica outage.
+     */
+    public static class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        public SwitchableDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        public void setDown(boolean down) {
+            this.down = down;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLTransientConnectionException("The replica is down");
+            }
+            return super.getConnection();
+        }
+    }
+}
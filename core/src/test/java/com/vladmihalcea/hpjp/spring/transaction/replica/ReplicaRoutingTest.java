@@ -0,0 +1,127 @@
+package com.vladmihalcea.hpjp.spring.transaction.replica;
+
+import com.vladmihalcea.hpjp.spring.common.AbstractSpringTest;
+import com.vladmihalcea.hpjp.spring.transaction.routing.ReplicaDataSource;
+import com.vladmihalcea.hpjp.spring.transaction.routing.TransactionRoutingDataSource;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+@ContextConfiguration(classes = ReplicaRoutingConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ReplicaRoutingTest extends AbstractSpringTest {
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TransactionRoutingDataSource routingDataSource;
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class[]{};
+    }
+
+    @Test
+    public void testReadWriteTransactionUsesPrimary() {
+        assertEquals("primary", transactionTemplate.execute(status -> dataSourceName()));
+    }
+
+    @Test
+    public void testReadOnlyTransactionsAreBalanced() {
+        TransactionTemplate readOnlyTemplate = readOnlyTemplate(TransactionDefinition.PROPAGATION_REQUIRED);
+
+        Map<String, Integer> replicaUsage = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            replicaUsage.merge(readOnlyTemplate.execute(status -> dataSourceName()), 1, Integer::sum);
+        }
+
+        assertEquals(Set.of("replica1", "replica2", "replica3"), replicaUsage.keySet());
+        for (ReplicaDataSource replica : routingDataSource.getReplicaDataSources()) {
+            assertEquals(0, replica.getOutstandingConnections());
+        }
+    }
+
+    @Test
+    public void testLeastOutstandingConnections() {
+        TransactionTemplate outerTemplate = readOnlyTemplate(TransactionDefinition.PROPAGATION_REQUIRED);
+        TransactionTemplate innerTemplate = readOnlyTemplate(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Set<String> replicaNames = outerTemplate.execute(outerStatus -> {
+            String outerReplica = dataSourceName();
+            return innerTemplate.execute(middleStatus -> {
+                String middleReplica = dataSourceName();
+                return innerTemplate.execute(innerStatus -> Set.of(outerReplica, middleReplica, dataSourceName()));
+            });
+        });
+
+        assertEquals(Set.of("replica1", "replica2", "replica3"), replicaNames);
+    }
+
+    @Test
+    public void testFailedReplicaIsEjected() {
+        ReplicaDataSource replica1 = routingDataSource.getReplicaDataSources().get(0);
+        ((ReplicaRoutingConfiguration.SwitchableDataSource) replica1.getTargetDataSource()).setDown(true);
+
+        TransactionTemplate readOnlyTemplate = readOnlyTemplate(TransactionDefinition.PROPAGATION_REQUIRED);
+        Set<String> replicaNames = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            replicaNames.add(readOnlyTemplate.execute(status -> dataSourceName()));
+        }
+
+        assertTrue(replica1.isEjected());
+        assertEquals(Set.of("replica2", "replica3"), replicaNames);
+    }
+
+    @Test
+    public void testSlowReplicaIsEjected() {
+        ReplicaDataSource replica1 = routingDataSource.getReplicaDataSources().get(0);
+        //every statement is slower than the threshold
+        replica1.setSlowQueryThresholdMillis(0);
+
+        TransactionTemplate readOnlyTemplate = readOnlyTemplate(TransactionDefinition.PROPAGATION_REQUIRED);
+        List<String> replicaNames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            replicaNames.add(readOnlyTemplate.execute(status -> dataSourceName()));
+        }
+
+        assertTrue(replica1.isEjected());
+        assertEquals(1, Collections.frequency(replicaNames, "replica1"));
+        assertEquals(Set.of("replica2", "replica3"), new HashSet<>(replicaNames.subList(3, replicaNames.size())));
+    }
+
+    @Test
+    public void testFallbackToPrimary() {
+        for (ReplicaDataSource replica : routingDataSource.getReplicaDataSources()) {
+            ((ReplicaRoutingConfiguration.SwitchableDataSource) replica.getTargetDataSource()).setDown(true);
+        }
+
+        TransactionTemplate readOnlyTemplate = readOnlyTemplate(TransactionDefinition.PROPAGATION_REQUIRED);
+        assertEquals("primary", readOnlyTemplate.execute(status -> dataSourceName()));
+        assertEquals("primary", readOnlyTemplate.execute(status -> dataSourceName()));
+    }
+
+    private TransactionTemplate readOnlyTemplate(int propagationBehavior) {
+        TransactionTemplate readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        readOnlyTemplate.setPropagationBehavior(propagationBehavior);
+        return readOnlyTemplate;
+    }
+
+    private String dataSourceName() {
+        return (String) entityManager
+            .createNativeQuery("select name from data_source_info")
+            .getSingleResult();
+    }
+}
@@ -0,0 +1,227 @@
+package com.vladmihalcea.hpjp.spring.transaction.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <code>ReplicaDataSource</code> - Wraps a replica {@link DataSource} and tracks its health,
+ * so that the {@link TransactionRoutingDataSource} can balance the read-only transactions.
+ * <p>
+ * It counts the outstanding connections, until they are closed, and it computes an
+ * exponentially weighted moving average of the connection acquisition time, and another one
+ * of the statement execution time. A replica failing to provide a connection, providing it
+ * slower than the slow connection threshold, or whose statements take longer than the
+ * slow query threshold on average, is ejected for the given ejection time.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ReplicaDataSource extends DelegatingDataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaDataSource.class);
+
+    private final String name;
+
+    private final AtomicInteger outstandingConnections = new AtomicInteger();
+
+    private volatile long connectionLatencyNanos;
+
+    private volatile long queryLatencyNanos;
+
+    private volatile long ejectedUntilNanos;
+
+    private long ejectionNanos = TimeUnit.SECONDS.toNanos(30);
+
+    private long slowConnectionThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+
+    private long slowQueryThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+
+    public ReplicaDataSource(String name, DataSource targetDataSource) {
+        super(targetDataSource);
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOutstandingConnections() {
+        return outstandingConnections.get();
+    }
+
+    public long getConnectionLatencyNanos() {
+        return connectionLatencyNanos;
+    }
+
+    public long getQueryLatencyNanos() {
+        return queryLatencyNanos;
+    }
+
+    /**
+     * @return the average time it takes to get a connection and execute a statement
+     */
+    public long getLatencyNanos() {
+        return connectionLatencyNanos + queryLatencyNanos;
+    }
+
+    public boolean isEjected() {
+        return isEjected(System.nanoTime());
+    }
+
+    boolean isEjected(long nowNanos) {
+        long ejectedUntil = ejectedUntilNanos;
+        return ejectedUntil != 0 && ejectedUntil - nowNanos > 0;
+    }
+
+    public ReplicaDataSource setEjectionMillis(long ejectionMillis) {
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMillis);
+        return this;
+    }
+
+    public ReplicaDataSource setSlowConnectionThresholdMillis(long slowConnectionThresholdMillis) {
+        this.slowConnectionThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowConnectionThresholdMillis);
+        return this;
+    }
+
+    public ReplicaDataSource setSlowQueryThresholdMillis(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+        return this;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackConnection(username, password);
+    }
+
+    private Connection trackConnection(String username, String password) throws SQLException {
+        long startNanos = System.nanoTime();
+        Connection connection;
+        try {
+            connection = username == null ?
+                obtainTargetDataSource().getConnection() :
+                obtainTargetDataSource().getConnection(username, password);
+        } catch (SQLException | RuntimeException e) {
+            eject("it failed to provide a connection");
+            throw e;
+        }
+        long latencyNanos = System.nanoTime() - startNanos;
+        connectionLatencyNanos = movingAverage(connectionLatencyNanos, latencyNanos);
+        if (latencyNanos > slowConnectionThresholdNanos) {
+            eject(String.format("it took %d ms to provide a connection", TimeUnit.NANOSECONDS.toMillis(latencyNanos)));
+        }
+        outstandingConnections.incrementAndGet();
+        return trackClose(connection);
+    }
+
+    /**
+     * The average is reset when the replica is ejected, so that, once the ejection
+     * time elapses, the replica is judged by its new statements only.
+     */
+    private void recordQueryLatency(long latencyNanos) {
+        long averageLatencyNanos = movingAverage(queryLatencyNanos, latencyNanos);
+        if (averageLatencyNanos > slowQueryThresholdNanos) {
+            queryLatencyNanos = 0;
+            eject(
+                String.format(
+                    "its statements took %d ms on average",
+                    TimeUnit.NANOSECONDS.toMillis(averageLatencyNanos)
+                )
+            );
+        } else {
+            queryLatencyNanos = averageLatencyNanos;
+        }
+    }
+
+    private static long movingAverage(long averageNanos, long latencyNanos) {
+        return averageNanos == 0 ?
+            latencyNanos :
+            averageNanos + ((latencyNanos - averageNanos) >> 3);
+    }
+
+    private void eject(String reason) {
+        ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+        LOGGER.warn(
+            "Replica [{}] is ejected for {} ms because {}",
+            name,
+            TimeUnit.NANOSECONDS.toMillis(ejectionNanos),
+            reason
+        );
+    }
+
+    private Connection trackClose(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class[]{Connection.class},
+            (proxy, method, args) -> {
+                String methodName = method.getName();
+                if ("close".equals(methodName) && closed.compareAndSet(false, true)) {
+                    outstandingConnections.decrementAndGet();
+                }
+                Object result = invoke(connection, method, args);
+                return switch (methodName) {
+                    case "createStatement", "prepareStatement", "prepareCall" ->
+                        trackExecute((Statement) result, method.getReturnType(), (Connection) proxy);
+                    default -> result;
+                };
+            }
+        );
+    }
+
+    private Statement trackExecute(Statement statement, Class<?> statementInterface, Connection connection) {
+        return (Statement) Proxy.newProxyInstance(
+            Statement.class.getClassLoader(),
+            new Class[]{statementInterface},
+            (proxy, method, args) -> {
+                String methodName = method.getName();
+                if ("getConnection".equals(methodName)) {
+                    return connection;
+                }
+                if (!methodName.startsWith("execute")) {
+                    return invoke(statement, method, args);
+                }
+                long startNanos = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    recordQueryLatency(System.nanoTime() - startNanos);
+                }
+            }
+        );
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReplicaDataSource{" +
+            "name='" + name + '\'' +
+            ", outstandingConnections=" + outstandingConnections +
+            ", connectionLatencyNanos=" + connectionLatencyNanos +
+            ", queryLatencyNanos=" + queryLatencyNanos +
+            ", ejected=" + isEjected() +
+            '}';
+    }
+}
@@ -1,14 +1,55 @@
 package com.vladmihalcea.hpjp.spring.transaction.routing;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
+ * By default, the read-only transactions are routed to the {@link DataSourceType#READ_ONLY} target,
+ * and the read-write ones to the {@link DataSourceType#READ_WRITE} target.
+ * <p>
+ * When replicas are configured, the read-only transactions are balanced over the healthy replicas,
+ * according to the {@link ReplicaSelectionStrategy}. If a replica fails to provide a connection,
+ * the next best replica is tried, and, if no replica is healthy, the {@link DataSourceType#READ_WRITE}
+ * primary is used.
+ *
  * @author Vlad Mihalcea
  */
 public class TransactionRoutingDataSource extends AbstractRoutingDataSource {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionRoutingDataSource.class);
+
+    public enum ReplicaSelectionStrategy {
+        LEAST_OUTSTANDING_CONNECTIONS,
+        LOWEST_LATENCY
+    }
+
+    private List<ReplicaDataSource> replicaDataSources = List.of();
+
+    private ReplicaSelectionStrategy replicaSelectionStrategy = ReplicaSelectionStrategy.LEAST_OUTSTANDING_CONNECTIONS;
+
+    private final AtomicInteger replicaSequence = new AtomicInteger();
+
+    public void setReplicaDataSources(List<ReplicaDataSource> replicaDataSources) {
+        this.replicaDataSources = List.copyOf(replicaDataSources);
+    }
+
+    public List<ReplicaDataSource> getReplicaDataSources() {
+        return replicaDataSources;
+    }
+
+    public void setReplicaSelectionStrategy(ReplicaSelectionStrategy replicaSelectionStrategy) {
+        this.replicaSelectionStrategy = replicaSelectionStrategy;
+    }
+
     @Nullable
     @Override
     protected Object determineCurrentLookupKey() {
@@ -16,4 +57,78 @@ public class TransactionRoutingDataSource extends AbstractRoutingDataSource {
             DataSourceType.READ_ONLY :
             DataSourceType.READ_WRITE;
     }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return isReplicaRouted() ? replicaConnection(null, null) : super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return isReplicaRouted() ? replicaConnection(username, password) : super.getConnection(username, password);
+    }
+
+    private boolean isReplicaRouted() {
+        return !replicaDataSources.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private Connection replicaConnection(String username, String password) throws SQLException {
+        int replicaCount = replicaDataSources.size();
+        boolean[] tried = new boolean[replicaCount];
+        for (int attempt = 0; attempt < replicaCount; attempt++) {
+            int replicaIndex = selectReplica(tried);
+            if (replicaIndex < 0) {
+                break;
+            }
+            tried[replicaIndex] = true;
+            ReplicaDataSource replica = replicaDataSources.get(replicaIndex);
+            try {
+                return username == null ?
+                    replica.getConnection() :
+                    replica.getConnection(username, password);
+            } catch (SQLException e) {
+                LOGGER.warn("Replica [{}] failed to provide a connection", replica.getName(), e);
+            }
+        }
+        LOGGER.warn("No healthy replica is available, so the read-only transaction uses the primary");
+        DataSource primary = getResolvedDataSources().get(DataSourceType.READ_WRITE);
+        if (primary == null) {
+            throw new IllegalStateException("The READ_WRITE target DataSource is not configured!");
+        }
+        return username == null ? primary.getConnection() : primary.getConnection(username, password);
+    }
+
+    /**
+     * Pick the best healthy replica that was not tried yet. The scan starts from a rotating offset,
+     * so that equally loaded replicas are used in a round-robin fashion.
+     */
+    private int selectReplica(boolean[] tried) {
+        int replicaCount = replicaDataSources.size();
+        int offset = Math.floorMod(replicaSequence.getAndIncrement(), replicaCount);
+        long nowNanos = System.nanoTime();
+        int bestIndex = -1;
+        ReplicaDataSource best = null;
+        for (int i = 0; i < replicaCount; i++) {
+            int index = (offset + i) % replicaCount;
+            ReplicaDataSource replica = replicaDataSources.get(index);
+            if (tried[index] || replica.isEjected(nowNanos)) {
+                continue;
+            }
+            if (best == null || isBetter(replica, best)) {
+                best = replica;
+                bestIndex = index;
+            }
+        }
+        return bestIndex;
+    }
+
+    private boolean isBetter(ReplicaDataSource replica, ReplicaDataSource other) {
+        return switch (replicaSelectionStrategy) {
+            case LEAST_OUTSTANDING_CONNECTIONS ->
+                replica.getOutstandingConnections() < other.getOutstandingConnections();
+            case LOWEST_LATENCY -> replica.getLatencyNanos() != other.getLatencyNanos() ?
+                replica.getLatencyNanos() < other.getLatencyNanos() :
+                replica.getOutstandingConnections() < other.getOutstandingConnections();
+        };
+    }
 }
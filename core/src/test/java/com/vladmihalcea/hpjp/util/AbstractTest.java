@@ -89,17 +89,134 @@ public abstract class AbstractTest {
 
     private List<Closeable> closeables = new ArrayList<>();
 
+    private boolean cachedBootstrap;
+
+    private boolean resolvingBootstrapCacheKey;
+
     @Before
     public void init() {
         beforeInit();
-        if (nativeHibernateSessionFactoryBootstrap()) {
-            sf = newSessionFactory();
-        } else {
-            emf = newEntityManagerFactory();
+        if (!initFromBootstrapCache()) {
+            if (nativeHibernateSessionFactoryBootstrap()) {
+                sf = newSessionFactory();
+            } else {
+                emf = newEntityManagerFactory();
+            }
         }
         afterInit();
     }
 
+    /**
+     * Reuse the factory built by a previous test that used the same mappings and settings,
+     * instead of building a new one. The reused factory is reset by truncating the mapped tables,
+     * not by recreating the schema, so the sequences are not reset.
+     * <p>
+     * Only the tests that don't assert the generated identifier values, and that don't customize the
+     * bootstrap by overriding {@link #newEntityManagerFactory()}, {@link #persistenceUnitInfo(String)}, or
+     * {@link #additionalMetadata(MetadataBuilder)}, should opt in. The tests using an {@link Interceptor},
+     * an {@link Integrator}, additional types, or non-basic property values are never cached.
+     *
+     * @return whether the test reuses a cached factory
+     */
+    protected boolean cacheBootstrap() {
+        return false;
+    }
+
+    private boolean initFromBootstrapCache() {
+        if (!cacheBootstrap()) {
+            return false;
+        }
+        String key = bootstrapCacheKey();
+        if (key == null) {
+            LOGGER.debug("The [{}] test bootstrap cannot be cached", getClass().getName());
+            return false;
+        }
+        BootstrapCache.Entry entry = BootstrapCache.get(key);
+        if (entry != null) {
+            closeResources();
+            dataSource = entry.dataSource();
+            BootstrapCache.reset(entry);
+            if (nativeHibernateSessionFactoryBootstrap()) {
+                sf = (SessionFactory) entry.entityManagerFactory();
+            } else {
+                emf = entry.entityManagerFactory();
+            }
+        } else {
+            long startNanos = System.nanoTime();
+            EntityManagerFactory entityManagerFactory;
+            if (nativeHibernateSessionFactoryBootstrap()) {
+                sf = newSessionFactory();
+                entityManagerFactory = sf;
+            } else {
+                emf = newEntityManagerFactory();
+                entityManagerFactory = emf;
+            }
+            BootstrapCache.put(
+                key,
+                new BootstrapCache.Entry(
+                    entityManagerFactory,
+                    dataSource(),
+                    new ArrayList<>(closeables),
+                    System.nanoTime() - startNanos
+                )
+            );
+            closeables.clear();
+        }
+        cachedBootstrap = true;
+        return true;
+    }
+
+    /**
+     * The cache key is made of the mappings, the effective settings, and the database connection settings.
+     * The settings are resolved without the {@link DataSource}, which is described by its provider
+     * and proxy settings instead, so a cache hit doesn't create a new {@link DataSource}.
+     *
+     * @return the bootstrap cache key, or {@code null} if the bootstrap cannot be cached
+     */
+    private String bootstrapCacheKey() {
+        if (interceptor() != null || integrator() != null || additionalTypes() != null) {
+            return null;
+        }
+        Properties properties;
+        resolvingBootstrapCacheKey = true;
+        try {
+            properties = properties();
+        } finally {
+            resolvingBootstrapCacheKey = false;
+        }
+        Map<String, String> settings = new TreeMap<>();
+        for (Map.Entry<Object, Object> property : properties.entrySet()) {
+            String name = String.valueOf(property.getKey());
+            Object value = property.getValue();
+            if (AvailableSettings.DATASOURCE.equals(name)) {
+                continue;
+            }
+            if (value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Enum) {
+                settings.put(name, value.toString());
+            } else if (value instanceof Class<?> valueClass) {
+                settings.put(name, valueClass.getName());
+            } else {
+                return null;
+            }
+        }
+        DataSourceProvider dataSourceProvider = dataSourceProvider();
+        return String.join(
+            "|",
+            String.valueOf(nativeHibernateSessionFactoryBootstrap()),
+            String.valueOf(entityClassNames()),
+            Arrays.toString(packages()),
+            Arrays.toString(resources()),
+            String.valueOf(settings),
+            dataSourceProvider.getClass().getName(),
+            dataSourceProvider.url(),
+            dataSourceProvider.username(),
+            String.valueOf(proxyDataSource()),
+            String.valueOf(dataSourceProxyType()),
+            String.valueOf(connectionPooling()),
+            String.valueOf(connectionPoolSize())
+        );
+    }
+
     protected void beforeInit() {
 
     }
@@ -110,7 +227,9 @@ public abstract class AbstractTest {
 
     @After
     public void destroy() {
-        if (nativeHibernateSessionFactoryBootstrap()) {
+        if (cachedBootstrap) {
+            cachedBootstrap = false;
+        } else if (nativeHibernateSessionFactoryBootstrap()) {
             if (sf != null) {
                 sf.close();
             }
@@ -119,6 +238,11 @@ public abstract class AbstractTest {
                 emf.close();
             }
         }
+        closeResources();
+        afterDestroy();
+    }
+
+    private void closeResources() {
         for (Closeable closeable : closeables) {
             try {
                 closeable.close();
@@ -127,7 +251,6 @@ public abstract class AbstractTest {
             }
         }
         closeables.clear();
-        afterDestroy();
     }
 
     protected void afterDestroy() {
@@ -317,9 +440,11 @@ public abstract class AbstractTest {
         properties.put("hibernate.hbm2ddl.auto", "create-drop");
         properties.put("hibernate.dialect", dataSourceProvider().hibernateDialect());
         //data source settings
-        DataSource dataSource = dataSource();
-        if (dataSource != null) {
-            properties.put("hibernate.connection.datasource", dataSource);
+        if (!resolvingBootstrapCacheKey) {
+            DataSource dataSource = dataSource();
+            if (dataSource != null) {
+                properties.put("hibernate.connection.datasource", dataSource);
+            }
         }
         properties.put("hibernate.generate_statistics", Boolean.TRUE.toString());
 
@@ -0,0 +1,146 @@
+package com.vladmihalcea.hpjp.util;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * <code>BatchSpliterator</code> - Groups the elements of an {@link Iterator} into batches,
+ * pulling the elements lazily, one batch at a time.
+ * <p>
+ * A batch is closed when it reaches the max element count or when the next element would
+ * exceed the max byte size, so a batch always contains at least one element.
+ * <p>
+ * Like {@link Spliterators#spliteratorUnknownSize(Iterator, int)}, {@link #trySplit()} moves an
+ * increasing number of batches into an array-based {@link Spliterator}, so that a parallel stream
+ * can process the batches concurrently while the source iterator is only accessed by one thread at a time.
+ * A split holds at most {@link #MAX_SPLIT_ELEMENT_COUNT} elements, or a single batch if the batch is larger,
+ * so the elements buffered by the splits stay bounded, no matter the batch size.
+ *
+ * @param <T> element type
+ * @author Vlad Mihalcea
+ */
+public class BatchSpliterator<T> implements Spliterator<List<T>> {
+
+    static final int MAX_SPLIT_ELEMENT_COUNT = 1 << 12;
+
+    private final Iterator<T> iterator;
+
+    private final int maxBatchSize;
+
+    private final long maxBatchBytes;
+
+    private final ToLongFunction<? super T> byteSizeFunction;
+
+    private final int maxSplitBatchCount;
+
+    private T pendingElement;
+
+    private long pendingElementBytes;
+
+    private boolean hasPendingElement;
+
+    private int splitBatchCount;
+
+    public BatchSpliterator(Iterator<T> iterator, int maxBatchSize) {
+        this(iterator, maxBatchSize, Long.MAX_VALUE, element -> 0);
+    }
+
+    public BatchSpliterator(
+            Iterator<T> iterator,
+            int maxBatchSize,
+            long maxBatchBytes,
+            ToLongFunction<? super T> byteSizeFunction) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive!");
+        }
+        if (maxBatchBytes <= 0) {
+            throw new IllegalArgumentException("The batch byte size must be positive!");
+        }
+        this.iterator = iterator;
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchBytes = maxBatchBytes;
+        this.byteSizeFunction = byteSizeFunction;
+        this.maxSplitBatchCount = Math.max(1, MAX_SPLIT_ELEMENT_COUNT / maxBatchSize);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super List<T>> action) {
+        List<T> batch = nextBatch();
+        if (batch == null) {
+            return false;
+        }
+        action.accept(batch);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super List<T>> action) {
+        List<T> batch;
+        while ((batch = nextBatch()) != null) {
+            action.accept(batch);
+        }
+    }
+
+    @Override
+    public Spliterator<List<T>> trySplit() {
+        if (!hasNext()) {
+            return null;
+        }
+        int batchCount = Math.min(splitBatchCount + 1, maxSplitBatchCount);
+        Object[] batches = new Object[batchCount];
+        int index = 0;
+        int elementCount = 0;
+        List<T> batch;
+        while (index < batchCount && elementCount < MAX_SPLIT_ELEMENT_COUNT && (batch = nextBatch()) != null) {
+            batches[index++] = batch;
+            elementCount += batch.size();
+        }
+        splitBatchCount = index;
+        return Spliterators.spliterator(batches, 0, index, characteristics());
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private boolean hasNext() {
+        return hasPendingElement || iterator.hasNext();
+    }
+
+    private List<T> nextBatch() {
+        if (!hasNext()) {
+            return null;
+        }
+        List<T> batch = new ArrayList<>(Math.min(maxBatchSize, 1024));
+        long batchBytes = 0;
+        while (batch.size() < maxBatchSize && hasNext()) {
+            T element;
+            long elementBytes;
+            if (hasPendingElement) {
+                element = pendingElement;
+                elementBytes = pendingElementBytes;
+                pendingElement = null;
+                hasPendingElement = false;
+            } else {
+                element = iterator.next();
+                elementBytes = byteSizeFunction.applyAsLong(element);
+            }
+            if (!batch.isEmpty() && batchBytes + elementBytes > maxBatchBytes) {
+                pendingElement = element;
+                pendingElementBytes = elementBytes;
+                hasPendingElement = true;
+                break;
+            }
+            batch.add(element);
+            batchBytes += elementBytes;
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,152 @@
+package com.vladmihalcea.hpjp.util;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.hibernate.tool.schema.spi.SchemaManagementException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <code>BootstrapCache</code> - Keeps the {@link EntityManagerFactory} objects built by the tests that
+ * opted in using {@link AbstractTest#cacheBootstrap()}, so that the tests using the same mappings and
+ * settings reuse the same factory instead of building a new one.
+ * <p>
+ * Instead of dropping and recreating the schema, a cached factory is reset by truncating the mapped tables,
+ * evicting the second-level cache, and clearing the statistics. If the schema no longer matches the mappings,
+ * e.g., because another test recreated the same tables in the meantime, the schema is recreated instead.
+ * <p>
+ * The cached factories are shared by all the test classes that opted in, and they are closed when the JVM
+ * shuts down. The number of reused factories and the bootstrap time they saved is logged at that moment.
+ * <p>
+ * The saved time is estimated using the fastest bootstrap seen so far, since the first bootstrap
+ * of the JVM also pays for the class loading and the JIT warm-up, which a reuse doesn't save.
+ *
+ * @author Vlad Mihalcea
+ */
+public final class BootstrapCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BootstrapCache.class);
+
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private static final LongAdder BUILD_COUNT = new LongAdder();
+
+    private static final LongAdder REUSE_COUNT = new LongAdder();
+
+    private static final LongAdder BOOTSTRAP_NANOS = new LongAdder();
+
+    private static final LongAdder SAVED_NANOS = new LongAdder();
+
+    private static final AtomicLong MIN_BOOTSTRAP_NANOS = new AtomicLong(Long.MAX_VALUE);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(BootstrapCache::close, "bootstrap-cache-shutdown"));
+    }
+
+    private BootstrapCache() {
+        throw new UnsupportedOperationException("BootstrapCache is not instantiable!");
+    }
+
+    /**
+     * The cached factory, along with the {@link DataSource} it uses,
+     * and the resources to be closed along with the factory, like the connection pool.
+     */
+    record Entry(
+        EntityManagerFactory entityManagerFactory,
+        DataSource dataSource,
+        List<Closeable> closeables,
+        long bootstrapNanos) {
+    }
+
+    public record Summary(long buildCount, long reuseCount, long bootstrapMillis, long savedMillis) {
+    }
+
+    static Entry get(String key) {
+        return ENTRIES.get(key);
+    }
+
+    static void put(String key, Entry entry) {
+        BUILD_COUNT.increment();
+        BOOTSTRAP_NANOS.add(entry.bootstrapNanos());
+        MIN_BOOTSTRAP_NANOS.accumulateAndGet(entry.bootstrapNanos(), Math::min);
+        Entry previous = ENTRIES.putIfAbsent(key, entry);
+        if (previous != null) {
+            close(previous);
+        }
+    }
+
+    /**
+     * Reset the cached factory, so that the test gets an empty database, as if the factory was just built.
+     *
+     * @param entry cached entry
+     */
+    static void reset(Entry entry) {
+        long startNanos = System.nanoTime();
+        SessionFactory sessionFactory = entry.entityManagerFactory().unwrap(SessionFactory.class);
+        SchemaManager schemaManager = sessionFactory.getSchemaManager();
+        try {
+            schemaManager.validateMappedObjects();
+            schemaManager.truncateMappedObjects();
+        } catch (SchemaManagementException e) {
+            LOGGER.warn("The schema of the cached factory is not valid anymore, so it's recreated: {}", e.getMessage());
+            schemaManager.exportMappedObjects(true);
+        }
+        sessionFactory.getCache().evictAllRegions();
+        sessionFactory.getStatistics().clear();
+        REUSE_COUNT.increment();
+        long bootstrapNanos = Math.min(entry.bootstrapNanos(), MIN_BOOTSTRAP_NANOS.get());
+        SAVED_NANOS.add(Math.max(0, bootstrapNanos - (System.nanoTime() - startNanos)));
+    }
+
+    public static Summary summary() {
+        return new Summary(
+            BUILD_COUNT.sum(),
+            REUSE_COUNT.sum(),
+            TimeUnit.NANOSECONDS.toMillis(BOOTSTRAP_NANOS.sum()),
+            TimeUnit.NANOSECONDS.toMillis(SAVED_NANOS.sum())
+        );
+    }
+
+    private static void close() {
+        for (Entry entry : ENTRIES.values()) {
+            close(entry);
+        }
+        ENTRIES.clear();
+        Summary summary = summary();
+        if (summary.buildCount() > 0) {
+            LOGGER.info(
+                "The bootstrap cache built {} factories in {} ms, and reused them {} times, saving {} ms",
+                summary.buildCount(),
+                summary.bootstrapMillis(),
+                summary.reuseCount(),
+                summary.savedMillis()
+            );
+        }
+    }
+
+    private static void close(Entry entry) {
+        try {
+            entry.entityManagerFactory().close();
+        } catch (RuntimeException e) {
+            LOGGER.warn("The cached factory could not be closed", e);
+        }
+        for (Closeable closeable : entry.closeables()) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOGGER.warn("The cached factory resource could not be closed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.vladmihalcea.hpjp.util;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.stat.Statistics;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class BootstrapCacheTest extends AbstractTest {
+
+    private static final AtomicReference<EntityManagerFactory> previousFactory = new AtomicReference<>();
+
+    private static final AtomicReference<DataSource> previousDataSource = new AtomicReference<>();
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected boolean cacheBootstrap() {
+        return true;
+    }
+
+    @Override
+    protected void afterInit() {
+        //fails with a constraint violation if the data of the previous test was not truncated
+        doInJPA(entityManager -> {
+            entityManager.persist(
+                new Post()
+                    .setId(1L)
+                    .setTitle("High-Performance Java Persistence")
+            );
+        });
+    }
+
+    @Test
+    public void testAlteredSchema() {
+        assertFactoryReused();
+
+        //another test recreates the table with a different structure
+        doInJDBC(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("drop table post");
+                statement.executeUpdate("create table post (id bigint not null, primary key (id))");
+            }
+        });
+    }
+
+    @Test
+    public void testFirstTest() {
+        assertFactoryReused();
+    }
+
+    @Test
+    public void testSecondTest() {
+        assertFactoryReused();
+    }
+
+    @Test
+    public void testThirdTestClass() {
+        assertFactoryReused();
+
+        SameMappings sameMappings = new SameMappings();
+        sameMappings.init();
+        try {
+            assertSame(entityManagerFactory(), sameMappings.entityManagerFactory());
+            assertSame(dataSource(), sameMappings.dataSource());
+        } finally {
+            sameMappings.destroy();
+        }
+        assertTrue(entityManagerFactory().isOpen());
+    }
+
+    private void assertFactoryReused() {
+        EntityManagerFactory entityManagerFactory = entityManagerFactory();
+        EntityManagerFactory previous = previousFactory.getAndSet(entityManagerFactory);
+        DataSource previousSource = previousDataSource.getAndSet(dataSource());
+        if (previous != null) {
+            assertSame(previous, entityManagerFactory);
+            //a cache hit reuses the cached DataSource instead of creating a new one
+            assertSame(previousSource, dataSource());
+            assertTrue(BootstrapCache.summary().reuseCount() > 0);
+        }
+        assertTrue(entityManagerFactory.isOpen());
+
+        Statistics statistics = sessionFactory().getStatistics();
+        assertEquals(1, statistics.getEntityInsertCount());
+
+        doInJPA(entityManager -> {
+            assertEquals(
+                1L,
+                entityManager.createQuery("select count(p) from Post p", Long.class).getSingleResult().longValue()
+            );
+        });
+    }
+
+    /**
+     * Another test class using the same mappings and settings.
+     */
+    public static class SameMappings extends AbstractTest {
+
+        @Override
+        protected Class<?>[] entities() {
+            return new Class<?>[]{
+                Post.class
+            };
+        }
+
+        @Override
+        protected boolean cacheBootstrap() {
+            return true;
+        }
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
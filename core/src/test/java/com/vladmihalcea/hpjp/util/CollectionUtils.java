@@ -1,8 +1,17 @@
 package com.vladmihalcea.hpjp.util;
 
+import com.vladmihalcea.hpjp.util.exception.DataAccessException;
+import org.hibernate.ScrollableResults;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <code>CollectionUtils</code> - Collection utilities holder.
@@ -39,4 +48,148 @@ public final class CollectionUtils {
                 )
             );
     }
+
+    /**
+     * Split an element iterator into batches, pulling the elements lazily.
+     *
+     * @param elements  elements to split in batches
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(Iterator<T> elements, int batchSize) {
+        return StreamSupport.stream(new BatchSpliterator<>(elements, batchSize), false);
+    }
+
+    /**
+     * Split an element iterator into batches bounded by both the element count and the byte size,
+     * pulling the elements lazily.
+     *
+     * @param elements         elements to split in batches
+     * @param batchSize        max number of elements in a batch
+     * @param maxBatchBytes    max number of bytes in a batch, unless the batch has a single element
+     * @param byteSizeFunction function estimating the byte size of an element
+     * @param <T>              class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(
+            Iterator<T> elements,
+            int batchSize,
+            long maxBatchBytes,
+            ToLongFunction<? super T> byteSizeFunction) {
+        return StreamSupport.stream(
+            new BatchSpliterator<>(elements, batchSize, maxBatchBytes, byteSizeFunction),
+            false
+        );
+    }
+
+    /**
+     * Split an element iterable into batches, pulling the elements lazily.
+     *
+     * @param elements  elements to split in batches
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(Iterable<T> elements, int batchSize) {
+        return spitInBatches(elements.iterator(), batchSize);
+    }
+
+    /**
+     * Split an element stream into batches, pulling the elements lazily.
+     * Closing the returned Stream closes the source Stream.
+     *
+     * @param elements  elements to split in batches
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(Stream<T> elements, int batchSize) {
+        return spitInBatches(elements.iterator(), batchSize).onClose(elements::close);
+    }
+
+    /**
+     * Split Hibernate scrollable results into batches, fetching the rows lazily.
+     * Closing the returned Stream closes the ScrollableResults.
+     *
+     * @param scrollableResults results to split in batches
+     * @param batchSize         max number of elements in a batch
+     * @param <T>               class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(ScrollableResults<T> scrollableResults, int batchSize) {
+        Iterator<T> iterator = new Iterator<>() {
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    hasNext = scrollableResults.next();
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                return scrollableResults.get();
+            }
+        };
+        return spitInBatches(iterator, batchSize).onClose(scrollableResults::close);
+    }
+
+    /**
+     * Split a JDBC ResultSet into batches, fetching the rows lazily.
+     * Closing the returned Stream does not close the ResultSet, which is owned by the caller.
+     *
+     * @param resultSet results to split in batches
+     * @param rowMapper function mapping the current row
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(ResultSet resultSet, RowMapper<T> rowMapper, int batchSize) {
+        Iterator<T> iterator = new Iterator<>() {
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        hasNext = resultSet.next();
+                    } catch (SQLException e) {
+                        throw new DataAccessException(e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                hasNext = null;
+                try {
+                    return rowMapper.map(resultSet);
+                } catch (SQLException e) {
+                    throw new DataAccessException(e);
+                }
+            }
+        };
+        return spitInBatches(iterator, batchSize);
+    }
+
+    /**
+     * Maps the current row of a JDBC ResultSet.
+     *
+     * @param <T> class type
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
 }
@@ -0,0 +1,134 @@
+package com.vladmihalcea.hpjp.util;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class CollectionUtilsTest {
+
+    @Test
+    public void testSplitList() {
+        List<List<Integer>> batches = CollectionUtils.spitInBatches(
+            IntStream.range(0, 10).boxed().toList(), 4
+        ).toList();
+
+        assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), batches);
+    }
+
+    @Test
+    public void testSplitStreamLazily() {
+        AtomicInteger pulledElements = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        Stream<Integer> elements = IntStream.iterate(0, i -> i + 1)
+            .boxed()
+            .peek(i -> pulledElements.incrementAndGet())
+            .onClose(() -> closed.set(true));
+
+        try (Stream<List<Integer>> batches = CollectionUtils.spitInBatches(elements, 100)) {
+            List<List<Integer>> firstBatches = batches.limit(3).toList();
+            assertEquals(3, firstBatches.size());
+            assertEquals(List.of(200, 201), firstBatches.get(2).subList(0, 2));
+        }
+        assertEquals(300, pulledElements.get());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testSplitByByteSize() {
+        List<String> elements = List.of("aaaa", "bbbb", "cccc", "dddddddddddd", "e", "f");
+
+        List<List<String>> batches = CollectionUtils.spitInBatches(
+            elements.iterator(),
+            10,
+            8,
+            element -> element.getBytes(StandardCharsets.UTF_8).length
+        ).toList();
+
+        assertEquals(
+            List.of(
+                List.of("aaaa", "bbbb"),
+                List.of("cccc"),
+                List.of("dddddddddddd"),
+                List.of("e", "f")
+            ),
+            batches
+        );
+    }
+
+    @Test
+    public void testSplitInParallel() {
+        int elementCount = 100_000;
+
+        List<List<Integer>> batches = CollectionUtils.spitInBatches(
+            (Iterable<Integer>) IntStream.range(0, elementCount).boxed()::iterator,
+            100
+        )
+        .parallel()
+        .collect(Collectors.toList());
+
+        assertEquals(elementCount / 100, batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            assertEquals(100, batches.get(i).size());
+            assertEquals(i * 100, batches.get(i).get(0).intValue());
+        }
+    }
+
+    @Test
+    public void testSplitElementCountIsBounded() {
+        for (int batchSize : new int[]{10, 1000, 10_000}) {
+            BatchSpliterator<Integer> spliterator = new BatchSpliterator<>(
+                IntStream.range(0, 100_000).iterator(),
+                batchSize
+            );
+            int splitElementCount = 0;
+            Spliterator<List<Integer>> split;
+            while ((split = spliterator.trySplit()) != null) {
+                AtomicInteger elementCount = new AtomicInteger();
+                split.forEachRemaining(batch -> elementCount.addAndGet(batch.size()));
+                assertTrue(elementCount.get() <= Math.max(BatchSpliterator.MAX_SPLIT_ELEMENT_COUNT, batchSize));
+                splitElementCount += elementCount.get();
+            }
+            assertEquals(100_000, splitElementCount);
+        }
+    }
+
+    @Test
+    public void testSplitResultSet() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:hsqldb:mem:collection_utils", "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("create table post (id bigint primary key)");
+            for (int i = 1; i <= 25; i++) {
+                statement.executeUpdate("insert into post (id) values (" + i + ")");
+            }
+            try (ResultSet resultSet = statement.executeQuery("select id from post order by id")) {
+                List<Integer> batchSizes = CollectionUtils.spitInBatches(
+                    resultSet,
+                    rs -> rs.getLong(1),
+                    10
+                )
+                .map(List::size)
+                .toList();
+
+                assertEquals(List.of(10, 10, 5), batchSizes);
+            }
+        }
+    }
+}
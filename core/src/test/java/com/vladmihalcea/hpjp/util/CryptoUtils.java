@@ -1,84 +1,248 @@
 package com.vladmihalcea.hpjp.util;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.function.Function;
 
 /**
+ * <code>CryptoUtils</code> - Encrypts and decrypts column values using AES.
+ * <p>
+ * The AES key is derived only once, and every thread reuses its own initialized
+ * {@link Cipher} instances, so that encrypting or decrypting a value no longer
+ * requires a provider lookup and a SHA-256 key derivation.
+ * <p>
+ * The {@link #encrypt(Object)} and {@link #decrypt(String)} methods use the deterministic
+ * AES/ECB mode, which allows querying by the encrypted value. The {@link #encryptAuthenticated(Object)}
+ * and {@link #decryptAuthenticated(String)} methods use AES/GCM with a random IV, which also
+ * detects if the encrypted value was tampered with.
+ *
  * @author  Vlad Mihalcea
  */
 public final class CryptoUtils {
 
-    private static String ENCODING = "UTF-8";
+    private static final String ECB_TRANSFORMATION = "AES/ECB/PKCS5PADDING";
 
-    private static byte[] ENCRYPT_KEY_BYTES = new byte[] {
+    private static final String GCM_TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final int GCM_IV_LENGTH = 12;
+
+    private static final int GCM_TAG_BITS = 128;
+
+    private static final byte[] ENCRYPT_KEY_BYTES = new byte[] {
         48, -126, 1, 34, 48, 13, 6, 9, 42, -122, 72, -122, -9, 13, 1, 1, 1, 5, 0, 3, -126, 1, 15, 0, 48, -126, 1, 10, 2, -126, 1, 1, 0, -33, 58, -60, -67, 82, -114, 43, -3, -15, 74, -69, -14, 123, -51, 29, -33, -106, -94, -115, -57, 52, -124, 106, -56, 55, 0, -98, -56, -124, -106, -122, 101, 117, -49, 96, 126, 4, -3, -91, -31, -100, -42, 10, 103, -93, -128, -82, 34, 63, 33, 48, -69, 45, 121, 33, 99, -50, 18, -119, -102, -24, 122, -103, 107, 124, -16, 34, 83, -30, -51, -54, -38, -50, -82, 86, 101, -9, -72, 28, 42, 66, 14, 76, -107, -91, -53, -30, 21, 80, 109, -1, -41, -61, -69, 39, 87, -17, 35, 48, 51, -58, -91, -109, 29, -18, -54, 104, -30, -114, -120, -10, 11, -47, 35, -112, -121, 54, 20, -47, 127, 39, 76, -86, 1, -71, 64, -56, -49, -113, 65, 120, -67, 59, 126, 25, -71, -24, -63, -33, 36, -44, 110, -14, 46, -120, 73, 55, -86, -110, 98, -71, -124, -67, 17, -37, -122, 68, -36, 116, -65, -32, 8, 104, -17, -65, 96, 85, -16, -7, 24, 19, -91, 38, 111, 91, -17, 39, -9, 89, -95, -54, -38, -20, 113, 82, 64, -24, -114, 8, 72, -96, -79, 116, -12, 63, 61, 59, 119, 28, -98, 86, -55, -99, 12, 123, 17, -29, -35, 3, -118, -120, -87, 4, 123, -46, -28, 15, -54, -26, -81, -47, 40, 28, 109, 98, 78, 16, 113, -11, -59, 82, 34, 41, 69, 54, 16, -24, 89, -95, -40, 58, 32, 72, 124, 13, 21, -34, 24, -33, -66, 89, 74, 21, 38, 118, 27, 2, 3, 1, 0, 1
     };
 
+    private static final SecretKeySpec ENCRYPTION_KEY = deriveEncryptionKey();
+
+    private static final ThreadLocal<Cipher> ENCRYPT_CIPHER = ThreadLocal.withInitial(
+        () -> initCipher(ECB_TRANSFORMATION, Cipher.ENCRYPT_MODE)
+    );
+
+    private static final ThreadLocal<Cipher> DECRYPT_CIPHER = ThreadLocal.withInitial(
+        () -> initCipher(ECB_TRANSFORMATION, Cipher.DECRYPT_MODE)
+    );
+
+    private static final ThreadLocal<Cipher> GCM_CIPHER = ThreadLocal.withInitial(
+        () -> getCipher(GCM_TRANSFORMATION)
+    );
+
+    private static final ThreadLocal<SecureRandom> IV_RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    /**
+     * Prevent any instantiation.
+     */
+    private CryptoUtils() {
+        throw new UnsupportedOperationException("The " + getClass() + " is not instantiable!");
+    }
+
     public static SecretKeySpec getEncryptionKey() {
-        MessageDigest sha;
+        return ENCRYPTION_KEY;
+    }
+
+    public static String encrypt(Object message) {
+        return encrypt(ENCRYPT_CIPHER.get(), message);
+    }
+
+    public static String decrypt(String message) {
+        return decrypt(DECRYPT_CIPHER.get(), message);
+    }
+
+    public static <T> T decrypt(String message, Class<T> clazz) {
+        return valueOf(decrypt(message), clazz);
+    }
+
+    /**
+     * Encrypt the given values using the same {@link Cipher} instance.
+     *
+     * @param messages values to encrypt
+     * @return the encrypted values, in the same order
+     */
+    public static String[] encryptAll(Object[] messages) {
+        Cipher cipher = ENCRYPT_CIPHER.get();
+        String[] encryptedMessages = new String[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            encryptedMessages[i] = encrypt(cipher, messages[i]);
+        }
+        return encryptedMessages;
+    }
+
+    /**
+     * Decrypt the given values using the same {@link Cipher} instance.
+     *
+     * @param messages values to decrypt
+     * @return the decrypted values, in the same order
+     */
+    public static String[] decryptAll(String[] messages) {
+        Cipher cipher = DECRYPT_CIPHER.get();
+        String[] decryptedMessages = new String[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            decryptedMessages[i] = decrypt(cipher, messages[i]);
+        }
+        return decryptedMessages;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T[] decryptAll(String[] messages, Class<T> clazz) {
+        Cipher cipher = DECRYPT_CIPHER.get();
+        T[] decryptedValues = (T[]) Array.newInstance(clazz, messages.length);
+        for (int i = 0; i < messages.length; i++) {
+            decryptedValues[i] = valueOf(decrypt(cipher, messages[i]), clazz);
+        }
+        return decryptedValues;
+    }
+
+    /**
+     * Encrypt the given value using AES/GCM. The random IV is prepended to the cipher text,
+     * so encrypting the same value twice yields different results.
+     *
+     * @param message value to encrypt
+     * @return the Base64-encoded IV and cipher text
+     */
+    public static String encryptAuthenticated(Object message) {
+        byte[] messageBytes = toBytes(message);
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        IV_RANDOM.get().nextBytes(iv);
         try {
-            sha = MessageDigest.getInstance("SHA-256");
-            byte[] key = sha.digest(ENCRYPT_KEY_BYTES);
-            key = Arrays.copyOf(key, 16);
-            return new SecretKeySpec(key, "AES");
-        } catch (Exception e) {
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, ENCRYPTION_KEY, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            ByteBuffer buffer = ByteBuffer.allocate(GCM_IV_LENGTH + cipher.getOutputSize(messageBytes.length));
+            buffer.put(iv);
+            cipher.doFinal(ByteBuffer.wrap(messageBytes), buffer);
+            return Base64.getEncoder().encodeToString(buffer.array());
+        } catch (GeneralSecurityException e) {
             throw new IllegalStateException(e);
         }
     }
 
-    public static String encrypt(Object message) {
-        if(message == null) {
-            throw new IllegalArgumentException("Only not-null values can be encrypted!");
+    /**
+     * Decrypt a value encrypted by {@link #encryptAuthenticated(Object)}.
+     *
+     * @param message Base64-encoded IV and cipher text
+     * @return the decrypted value
+     * @throws IllegalArgumentException if the value was tampered with
+     */
+    public static String decryptAuthenticated(String message) {
+        byte[] messageBytes = Base64.getDecoder().decode(message);
+        if (messageBytes.length < GCM_IV_LENGTH) {
+            throw new IllegalArgumentException("The encrypted value is too short!");
         }
         try {
-            Cipher cipher = getCipher();
-            cipher.init(Cipher.ENCRYPT_MODE, getEncryptionKey());
-            String messageValue = (message instanceof String) ?
-                (String) message :
-                String.valueOf(message);
+            Cipher cipher = GCM_CIPHER.get();
+            cipher.init(
+                Cipher.DECRYPT_MODE,
+                ENCRYPTION_KEY,
+                new GCMParameterSpec(GCM_TAG_BITS, messageBytes, 0, GCM_IV_LENGTH)
+            );
+            return new String(
+                cipher.doFinal(messageBytes, GCM_IV_LENGTH, messageBytes.length - GCM_IV_LENGTH),
+                StandardCharsets.UTF_8
+            );
+        } catch (AEADBadTagException e) {
+            throw new IllegalArgumentException("The encrypted value failed the authentication check!", e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static <T> T decryptAuthenticated(String message, Class<T> clazz) {
+        return valueOf(decryptAuthenticated(message), clazz);
+    }
+
+    private static String encrypt(Cipher cipher, Object message) {
+        try {
             return Base64.getEncoder().encodeToString(
-                cipher.doFinal(messageValue.getBytes(ENCODING))
+                cipher.doFinal(toBytes(message))
             );
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        } catch (GeneralSecurityException e) {
+            ENCRYPT_CIPHER.remove();
+            throw new IllegalStateException(e);
         }
     }
 
-    public static String decrypt(String message) {
+    private static String decrypt(Cipher cipher, String message) {
         try {
-            Cipher cipher = getCipher();
-            cipher.init(Cipher.DECRYPT_MODE, getEncryptionKey());
-            return new String(cipher.doFinal(Base64.getDecoder().decode(message)));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return new String(
+                cipher.doFinal(Base64.getDecoder().decode(message)),
+                StandardCharsets.UTF_8
+            );
+        } catch (GeneralSecurityException e) {
+            DECRYPT_CIPHER.remove();
+            throw new IllegalStateException(e);
         }
     }
 
-    public static <T> T decrypt(String message, Class<T> clazz) {
+    private static byte[] toBytes(Object message) {
+        if(message == null) {
+            throw new IllegalArgumentException("Only not-null values can be encrypted!");
+        }
+        String messageValue = (message instanceof String) ?
+            (String) message :
+            String.valueOf(message);
+        return messageValue.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T valueOf(String value, Class<T> clazz) {
+        if (String.class.equals(clazz)) {
+            return (T) value;
+        }
+        Function<String, T> valueOf = ReflectionUtils.getStaticFunction(clazz, "valueOf", String.class);
+        return valueOf.apply(value);
+    }
+
+    private static SecretKeySpec deriveEncryptionKey() {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] key = sha.digest(ENCRYPT_KEY_BYTES);
+            key = Arrays.copyOf(key, 16);
+            return new SecretKeySpec(key, "AES");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Cipher initCipher(String transformation, int mode) {
+        Cipher cipher = getCipher(transformation);
         try {
-            Cipher cipher = getCipher();
-            cipher.init(Cipher.DECRYPT_MODE, getEncryptionKey());
-            String decryptedValue = new String(cipher.doFinal(Base64.getDecoder().decode(message)));
-            if (String.class.equals(clazz)) {
-                return (T) decryptedValue;
-            } else {
-                return ReflectionUtils.invokeStaticMethod(
-                    ReflectionUtils.getMethodOrNull(clazz, "valueOf", String.class),
-                    decryptedValue
-                );
-            }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            cipher.init(mode, ENCRYPTION_KEY);
+        } catch (InvalidKeyException e) {
+            throw new IllegalStateException(e);
         }
+        return cipher;
     }
 
-    private static Cipher getCipher() {
+    private static Cipher getCipher(String transformation) {
         try {
-            return Cipher.getInstance("AES/ECB/PKCS5PADDING");
-        } catch (Exception e) {
+            return Cipher.getInstance(transformation);
+        } catch (GeneralSecurityException e) {
             throw new IllegalStateException(e);
         }
     }
@@ -9,11 +9,12 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Base64;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.LongStream;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * @author  Vlad Mihalcea
@@ -51,6 +52,41 @@ public final class CryptoUtilsTest {
     private int encryptCallCount = 0;
     private int decryptCallCount = 0;
 
+    @Test
+    public void testEncryptDecrypt() {
+        String encryptedValue = CryptoUtils.encrypt(123L);
+        assertEquals(encryptedValue, CryptoUtils.encrypt("123"));
+        assertEquals(Long.valueOf(123), CryptoUtils.decrypt(encryptedValue, Long.class));
+        assertEquals("Crème brûlée", CryptoUtils.decrypt(CryptoUtils.encrypt("Crème brûlée")));
+    }
+
+    @Test
+    public void testBatchEncryptDecrypt() {
+        Long[] values = LongStream.rangeClosed(1, 100).boxed().toArray(Long[]::new);
+        String[] encryptedValues = CryptoUtils.encryptAll(values);
+        assertEquals(values.length, encryptedValues.length);
+        assertEquals(CryptoUtils.encrypt(values[42]), encryptedValues[42]);
+        assertArrayEquals(values, CryptoUtils.decryptAll(encryptedValues, Long.class));
+        assertEquals("43", CryptoUtils.decryptAll(encryptedValues)[42]);
+    }
+
+    @Test
+    public void testAuthenticatedEncryptDecrypt() {
+        String encryptedValue = CryptoUtils.encryptAuthenticated("vlad@acme.com");
+        assertNotEquals(encryptedValue, CryptoUtils.encryptAuthenticated("vlad@acme.com"));
+        assertEquals("vlad@acme.com", CryptoUtils.decryptAuthenticated(encryptedValue));
+        assertEquals(Long.valueOf(7), CryptoUtils.decryptAuthenticated(CryptoUtils.encryptAuthenticated(7L), Long.class));
+
+        byte[] tamperedBytes = Base64.getDecoder().decode(encryptedValue);
+        tamperedBytes[tamperedBytes.length - 1] ^= 1;
+        try {
+            CryptoUtils.decryptAuthenticated(Base64.getEncoder().encodeToString(tamperedBytes));
+            fail("Should have thrown IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("The encrypted value failed the authentication check!", expected.getMessage());
+        }
+    }
+
     @Test
     public void testPerformance() {
         if(!AbstractTest.ENABLE_LONG_RUNNING_TESTS) {
@@ -1,7 +1,9 @@
 package com.vladmihalcea.hpjp.util;
 
 import com.p6spy.engine.spy.P6DataSource;
+import com.vladmihalcea.hpjp.jdbc.caching.StatementCachingDataSource;
 import com.vladmihalcea.hpjp.util.logging.InlineQueryLogEntryCreator;
+import com.vladmihalcea.hpjp.util.metrics.StatementMetricsDataSource;
 import net.ttddyy.dsproxy.listener.ChainListener;
 import net.ttddyy.dsproxy.listener.DataSourceQueryCountListener;
 import net.ttddyy.dsproxy.listener.logging.SLF4JQueryLoggingListener;
@@ -33,6 +35,18 @@ public enum DataSourceProxyType {
         public DataSource dataSource(DataSource dataSource) {
             return new P6DataSource(dataSource);
         }
+    },
+    STATEMENT_CACHE {
+        @Override
+        public DataSource dataSource(DataSource dataSource) {
+            return DATA_SOURCE_PROXY.dataSource(new StatementCachingDataSource(dataSource));
+        }
+    },
+    METRICS {
+        @Override
+        public DataSource dataSource(DataSource dataSource) {
+            return new StatementMetricsDataSource(dataSource);
+        }
     };
 
     public abstract DataSource dataSource(DataSource dataSource);
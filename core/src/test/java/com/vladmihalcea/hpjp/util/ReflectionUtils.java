@@ -2,6 +2,7 @@ package com.vladmihalcea.hpjp.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.invoke.*;
 import java.lang.reflect.*;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -9,14 +10,22 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 /**
  * <code>ReflectionUtils</code> - Reflection utilities holder.
+ * <p>
+ * The fields, methods, and property accessors are resolved once per class and cached in a
+ * {@link ClassValue}, so repeated lookups no longer walk the class hierarchy. The classes
+ * loaded by name are cached too, unless they are resolved by a different class loader.
+ * <p>
+ * The {@link #getGetterFunction(Class, String)}, {@link #getSetterFunction(Class, String, Class)},
+ * and {@link #getStaticFunction(Class, String, Class)} methods generate the accessors with the
+ * {@link LambdaMetafactory}, so calling them costs about the same as a direct method call.
  *
  * @author Vlad Mihalcea
  */
@@ -26,6 +35,15 @@ public final class ReflectionUtils {
 
     private static final String SETTER_PREFIX = "set";
 
+    private static final ClassValue<MemberCache> MEMBER_CACHE = new ClassValue<>() {
+        @Override
+        protected MemberCache computeValue(Class<?> type) {
+            return new MemberCache();
+        }
+    };
+
+    private static final Map<String, Class<?>> CLASS_CACHE = new ConcurrentHashMap<>();
+
     /**
      * Prevent any instantiation.
      */
@@ -111,27 +129,13 @@ public final class ReflectionUtils {
      * @return the {@link Field} matching the given name
      */
     public static Field getField(Class targetClass, String fieldName) {
-        Field field = null;
-
-        try {
-            field = targetClass.getDeclaredField(fieldName);
-        } catch (NoSuchFieldException e) {
-            try {
-                field = targetClass.getField(fieldName);
-            } catch (NoSuchFieldException ignore) {
-            }
-
-            if (!targetClass.getSuperclass().equals(Object.class)) {
-                return getField(targetClass.getSuperclass(), fieldName);
-            } else {
-                throw handleException(e);
-            }
-        } finally {
-            if (field != null) {
-                field.setAccessible(true);
-            }
+        Field field = memberCache(targetClass).get(
+            new FieldKey(fieldName),
+            key -> findField(targetClass, fieldName)
+        );
+        if (field == null) {
+            throw handleException(new NoSuchFieldException(fieldName));
         }
-
         return field;
     }
 
@@ -144,11 +148,10 @@ public final class ReflectionUtils {
      * @return the {@link Field} matching the given name or {@code null}
      */
     public static Field getFieldOrNull(Class targetClass, String fieldName) {
-        try {
-            return getField(targetClass, fieldName);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return memberCache(targetClass).get(
+            new FieldKey(fieldName),
+            key -> findField(targetClass, fieldName)
+        );
     }
 
     /**
@@ -247,20 +250,13 @@ public final class ReflectionUtils {
      */
     @SuppressWarnings("unchecked")
     public static Method getMethod(Class targetClass, String methodName, Class... parameterTypes) {
-        try {
-            return targetClass.getDeclaredMethod(methodName, parameterTypes);
-        } catch (NoSuchMethodException e) {
-            try {
-                return targetClass.getMethod(methodName, parameterTypes);
-            } catch (NoSuchMethodException ignore) {
-            }
-
-            if (!targetClass.getSuperclass().equals(Object.class)) {
-                return getMethod(targetClass.getSuperclass(), methodName, parameterTypes);
-            } else {
-                throw handleException(e);
-            }
+        Method method = getMethodOrNull(targetClass, methodName, parameterTypes);
+        if (method == null) {
+            throw handleException(
+                new NoSuchMethodException(targetClass.getName() + "." + methodName + Arrays.toString(parameterTypes))
+            );
         }
+        return method;
     }
 
     /**
@@ -273,11 +269,10 @@ public final class ReflectionUtils {
      * @return return {@link Method} matching the provided signature or {@code null}
      */
     public static Method getMethodOrNull(Class targetClass, String methodName, Class... parameterTypes) {
-        try {
-            return getMethod(targetClass, methodName, parameterTypes);
-        } catch (RuntimeException e) {
-            return null;
-        }
+        return memberCache(targetClass).get(
+            new MethodKey(methodName, parameterTypes),
+            key -> findMethod(targetClass, methodName, parameterTypes)
+        );
     }
 
     /**
@@ -325,10 +320,14 @@ public final class ReflectionUtils {
      * @return the setter {@link Method} matching the provided signature
      */
     public static Method getSetter(Object target, String propertyName, Class<?> parameterType) {
-        String setterMethodName = SETTER_PREFIX + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
-        Method setter = getMethod(target, setterMethodName, parameterType);
-        setter.setAccessible(true);
-        return setter;
+        return memberCache(target.getClass()).get(
+            new SetterKey(propertyName, parameterType),
+            key -> {
+                Method setter = getMethod(target, propertyMethodName(SETTER_PREFIX, propertyName), parameterType);
+                setter.setAccessible(true);
+                return setter;
+            }
+        );
     }
 
     /**
@@ -358,10 +357,26 @@ public final class ReflectionUtils {
      * @return the getter {@link Method} matching the provided name
      */
     public static Method getGetter(Object target, String propertyName) {
-        String getterMethodName = GETTER_PREFIX + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
-        Method getter = getMethod(target, getterMethodName);
-        getter.setAccessible(true);
-        return getter;
+        return getGetter(target.getClass(), propertyName);
+    }
+
+    /**
+     * Get the property getter {@link Method} with the given name belonging to
+     * the provided Java {@link Class}.
+     *
+     * @param targetClass  target {@link Class}
+     * @param propertyName property name
+     * @return the getter {@link Method} matching the provided name
+     */
+    public static Method getGetter(Class<?> targetClass, String propertyName) {
+        return memberCache(targetClass).get(
+            new GetterKey(propertyName),
+            key -> {
+                Method getter = getMethod(targetClass, propertyMethodName(GETTER_PREFIX, propertyName));
+                getter.setAccessible(true);
+                return getter;
+            }
+        );
     }
 
     /**
@@ -424,15 +439,10 @@ public final class ReflectionUtils {
      * @param <T>          return value object type
      * @return the value return by the getter invocation
      */
+    @SuppressWarnings("unchecked")
     public static <T> T invokeGetter(Object target, String propertyName) {
-        Method setter = getGetter(target, propertyName);
-        try {
-            return (T) setter.invoke(target);
-        } catch (IllegalAccessException e) {
-            throw handleException(e);
-        } catch (InvocationTargetException e) {
-            throw handleException(e);
-        }
+        Function<Object, Object> getter = getGetterFunction((Class<Object>) target.getClass(), propertyName);
+        return (T) getter.apply(target);
     }
 
     /**
@@ -444,14 +454,7 @@ public final class ReflectionUtils {
      * @param parameter    parameter passed to the setter call
      */
     public static void invokeSetter(Object target, String propertyName, Object parameter) {
-        Method setter = getSetter(target, propertyName, parameter.getClass());
-        try {
-            setter.invoke(target, parameter);
-        } catch (IllegalAccessException e) {
-            throw handleException(e);
-        } catch (InvocationTargetException e) {
-            throw handleException(e);
-        }
+        setterFunction(target, propertyName, parameter.getClass()).accept(target, parameter);
     }
 
     /**
@@ -463,14 +466,7 @@ public final class ReflectionUtils {
      * @param parameter    {@link boolean} parameter passed to the setter call
      */
     public static void invokeSetter(Object target, String propertyName, boolean parameter) {
-        Method setter = getSetter(target, propertyName, boolean.class);
-        try {
-            setter.invoke(target, parameter);
-        } catch (IllegalAccessException e) {
-            throw handleException(e);
-        } catch (InvocationTargetException e) {
-            throw handleException(e);
-        }
+        setterFunction(target, propertyName, boolean.class).accept(target, parameter);
     }
 
     /**
@@ -482,14 +478,7 @@ public final class ReflectionUtils {
      * @param parameter    {@link int} parameter passed to the setter call
      */
     public static void invokeSetter(Object target, String propertyName, int parameter) {
-        Method setter = getSetter(target, propertyName, int.class);
-        try {
-            setter.invoke(target, parameter);
-        } catch (IllegalAccessException e) {
-            throw handleException(e);
-        } catch (InvocationTargetException e) {
-            throw handleException(e);
-        }
+        setterFunction(target, propertyName, int.class).accept(target, parameter);
     }
 
     /**
@@ -522,11 +511,20 @@ public final class ReflectionUtils {
      */
     @SuppressWarnings("unchecked")
     public static <T> Class<T> getClass(String className) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Class<?> clazz = CLASS_CACHE.get(className);
+        if (clazz != null && clazz.getClassLoader() == classLoader) {
+            return (Class<T>) clazz;
+        }
         try {
-            return (Class<T>) Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+            clazz = Class.forName(className, false, classLoader);
         } catch (ClassNotFoundException e) {
             throw handleException(e);
         }
+        if (clazz.getClassLoader() == classLoader && classLoader == ReflectionUtils.class.getClassLoader()) {
+            CLASS_CACHE.putIfAbsent(className, clazz);
+        }
+        return (Class<T>) clazz;
     }
 
     /**
@@ -696,6 +694,252 @@ public final class ReflectionUtils {
         return classes;
     }
 
+    /**
+     * Get a {@link Function} calling the property getter with the given name,
+     * which is generated once per class and property.
+     *
+     * @param targetClass  target {@link Class}
+     * @param propertyName property name
+     * @param <T>          target type
+     * @param <R>          property type
+     * @return the property getter {@link Function}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> Function<T, R> getGetterFunction(Class<T> targetClass, String propertyName) {
+        return memberCache(targetClass).get(
+            new GetterFunctionKey(propertyName),
+            key -> {
+                Method getter = getGetter(targetClass, propertyName);
+                return generateFunction(
+                    Function.class,
+                    "apply",
+                    MethodType.methodType(Object.class, Object.class),
+                    MethodType.methodType(getWrapperClass(getter.getReturnType()), getter.getDeclaringClass()),
+                    getter
+                );
+            }
+        );
+    }
+
+    /**
+     * Get a {@link BiConsumer} calling the property setter with the given name and parameter type,
+     * which is generated once per class and property.
+     *
+     * @param targetClass   target {@link Class}
+     * @param propertyName  property name
+     * @param parameterType setter property type
+     * @param <T>           target type
+     * @param <V>           property type
+     * @return the property setter {@link BiConsumer}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, V> BiConsumer<T, V> getSetterFunction(Class<T> targetClass, String propertyName, Class<?> parameterType) {
+        return memberCache(targetClass).get(
+            new SetterFunctionKey(propertyName, parameterType),
+            key -> {
+                Method setter = getMethod(targetClass, propertyMethodName(SETTER_PREFIX, propertyName), parameterType);
+                return generateFunction(
+                    BiConsumer.class,
+                    "accept",
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    MethodType.methodType(void.class, setter.getDeclaringClass(), getWrapperClass(parameterType)),
+                    setter
+                );
+            }
+        );
+    }
+
+    /**
+     * Get a {@link Function} calling the {@code static} method with the given name and parameter type,
+     * like {@code Long.valueOf(String)}, which is generated once per class and method.
+     *
+     * @param targetClass   target {@link Class}
+     * @param methodName    method name
+     * @param parameterType method parameter type
+     * @param <T>           parameter type
+     * @param <R>           return type
+     * @return the {@code static} method {@link Function}
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> Function<T, R> getStaticFunction(Class<?> targetClass, String methodName, Class<T> parameterType) {
+        return memberCache(targetClass).get(
+            new StaticFunctionKey(methodName, parameterType),
+            key -> {
+                Method method = getMethod(targetClass, methodName, parameterType);
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    throw new IllegalArgumentException("The " + method + " method is not static!");
+                }
+                return generateFunction(
+                    Function.class,
+                    "apply",
+                    MethodType.methodType(Object.class, Object.class),
+                    MethodType.methodType(getWrapperClass(method.getReturnType()), getWrapperClass(parameterType)),
+                    method
+                );
+            }
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> setterFunction(Object target, String propertyName, Class<?> parameterType) {
+        return getSetterFunction((Class<Object>) target.getClass(), propertyName, parameterType);
+    }
+
+    private static MemberCache memberCache(Class<?> targetClass) {
+        return MEMBER_CACHE.get(targetClass);
+    }
+
+    private static String propertyMethodName(String prefix, String propertyName) {
+        return prefix + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+    }
+
+    /**
+     * Find the field declared by the given class or its super classes, or the public field
+     * the given class inherits from an interface.
+     */
+    private static Field findField(Class<?> targetClass, String fieldName) {
+        for (Class<?> clazz = targetClass; clazz != null && !clazz.equals(Object.class); clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                if (field.getName().equals(fieldName)) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        try {
+            Field field = targetClass.getField(fieldName);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Find the method declared by the given class, or the public method it inherits,
+     * and continue with the super class, unless it is {@link Object}.
+     */
+    private static Method findMethod(Class<?> targetClass, String methodName, Class<?>[] parameterTypes) {
+        for (Class<?> clazz = targetClass; clazz != null; clazz = clazz.getSuperclass()) {
+            try {
+                return clazz.getDeclaredMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException ignore) {
+            }
+            try {
+                return clazz.getMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException ignore) {
+            }
+            if (Object.class.equals(clazz.getSuperclass())) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generate a functional interface implementation calling the given method. If the lambda cannot
+     * be generated, e.g. because the method is not accessible, the method is called through a {@link MethodHandle}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <F> F generateFunction(
+            Class<F> functionalInterface,
+            String interfaceMethodName,
+            MethodType interfaceMethodType,
+            MethodType instantiatedMethodType,
+            Method method) {
+        MethodHandles.Lookup lookup = functionLookup(method);
+        try {
+            if (lookup != null && lookup.hasFullPrivilegeAccess()) {
+                try {
+                    CallSite callSite = LambdaMetafactory.metafactory(
+                        lookup,
+                        interfaceMethodName,
+                        MethodType.methodType(functionalInterface),
+                        interfaceMethodType,
+                        lookup.unreflect(method),
+                        instantiatedMethodType
+                    );
+                    return (F) callSite.getTarget().invoke();
+                } catch (LambdaConversionException | IllegalAccessException ignore) {
+                }
+            }
+            method.setAccessible(true);
+            MethodHandle methodHandle = MethodHandles.lookup().unreflect(method)
+                .asType(interfaceMethodType.changeReturnType(
+                    interfaceMethodType.returnType() == void.class ? void.class : Object.class
+                ));
+            return (F) MethodHandleProxies.asInterfaceInstance(functionalInterface, methodHandle);
+        } catch (IllegalAccessException e) {
+            throw handleException(e);
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Could not generate the " + functionalInterface.getSimpleName() + " for " + method, e);
+        }
+    }
+
+    private static MethodHandles.Lookup functionLookup(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        try {
+            return MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+        } catch (IllegalAccessException | SecurityException e) {
+            return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers()) ?
+                MethodHandles.lookup() :
+                null;
+        }
+    }
+
+    /**
+     * Caches the members resolved for a given class. The missing members are cached too,
+     * so that the {@code OrNull} lookups don't walk the class hierarchy every time.
+     */
+    private static class MemberCache {
+
+        private static final Object MISSING = new Object();
+
+        private final Map<Object, Object> members = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        <T> T get(Object key, Function<Object, ?> resolver) {
+            Object member = members.get(key);
+            if (member == null) {
+                Object resolvedMember = resolver.apply(key);
+                member = members.computeIfAbsent(key, k -> resolvedMember != null ? resolvedMember : MISSING);
+            }
+            return member == MISSING ? null : (T) member;
+        }
+    }
+
+    private record FieldKey(String name) {
+    }
+
+    private record GetterKey(String propertyName) {
+    }
+
+    private record SetterKey(String propertyName, Class<?> parameterType) {
+    }
+
+    private record GetterFunctionKey(String propertyName) {
+    }
+
+    private record SetterFunctionKey(String propertyName, Class<?> parameterType) {
+    }
+
+    private record StaticFunctionKey(String methodName, Class<?> parameterType) {
+    }
+
+    private record MethodKey(String name, Class<?>[] parameterTypes) {
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof MethodKey other &&
+                name.equals(other.name) && Arrays.equals(parameterTypes, other.parameterTypes));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+    }
+
     /**
      * Handle the {@link NoSuchFieldException} by rethrowing it as an {@link IllegalArgumentException}.
      *
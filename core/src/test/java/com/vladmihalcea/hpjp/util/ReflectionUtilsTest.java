@@ -0,0 +1,113 @@
+package com.vladmihalcea.hpjp.util;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class ReflectionUtilsTest {
+
+    @Test
+    public void testMemberCache() {
+        Field field = ReflectionUtils.getField(Post.class, "title");
+        assertSame(field, ReflectionUtils.getField(Post.class, "title"));
+        assertEquals(ReflectionUtils.getField(BaseEntity.class, "id"), ReflectionUtils.getField(Post.class, "id"));
+
+        assertNull(ReflectionUtils.getFieldOrNull(Post.class, "missing"));
+        assertNull(ReflectionUtils.getFieldOrNull(Post.class, "missing"));
+        try {
+            ReflectionUtils.getField(Post.class, "missing");
+            fail("Should have thrown IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getCause() instanceof NoSuchFieldException);
+        }
+
+        Method method = ReflectionUtils.getMethod(Post.class, "setTitle", String.class);
+        assertSame(method, ReflectionUtils.getMethod(Post.class, "setTitle", String.class));
+        assertEquals("getId", ReflectionUtils.getMethod(Post.class, "getId").getName());
+        assertNull(ReflectionUtils.getMethodOrNull(Post.class, "setTitle", Long.class));
+
+        assertSame(Post.class, ReflectionUtils.getClass(Post.class.getName()));
+        assertSame(Post.class, ReflectionUtils.getClass(Post.class.getName()));
+    }
+
+    @Test
+    public void testPropertyAccessors() {
+        Post post = new Post();
+        ReflectionUtils.invokeSetter(post, "title", "High-Performance Java Persistence");
+        ReflectionUtils.invokeSetter(post, "published", true);
+        ReflectionUtils.invokeSetter(post, "likes", 5);
+        ReflectionUtils.setFieldValue(post, "id", 1L);
+
+        assertEquals("High-Performance Java Persistence", ReflectionUtils.invokeGetter(post, "title"));
+        assertEquals(Boolean.TRUE, ReflectionUtils.invokeGetter(post, "published"));
+        assertEquals(Integer.valueOf(5), ReflectionUtils.invokeGetter(post, "likes"));
+        assertEquals(Long.valueOf(1), ReflectionUtils.invokeGetter(post, "id"));
+        assertEquals(Long.valueOf(1), ReflectionUtils.getFieldValue(post, "id"));
+
+        Function<Post, String> titleGetter = ReflectionUtils.getGetterFunction(Post.class, "title");
+        assertSame(titleGetter, ReflectionUtils.getGetterFunction(Post.class, "title"));
+        BiConsumer<Post, Integer> likesSetter = ReflectionUtils.getSetterFunction(Post.class, "likes", int.class);
+        likesSetter.accept(post, 7);
+        assertEquals(7, post.getLikes());
+        assertEquals("High-Performance Java Persistence", titleGetter.apply(post));
+    }
+
+    @Test
+    public void testStaticFunction() {
+        Function<String, Long> valueOf = ReflectionUtils.getStaticFunction(Long.class, "valueOf", String.class);
+        assertEquals(Long.valueOf(123), valueOf.apply("123"));
+        Function<String, Integer> parseInt = ReflectionUtils.getStaticFunction(Integer.class, "parseInt", String.class);
+        assertEquals(Integer.valueOf(42), parseInt.apply("42"));
+    }
+
+    public static class BaseEntity {
+
+        private Long id;
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    public static class Post extends BaseEntity {
+
+        private String title;
+
+        private boolean published;
+
+        private int likes;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        private boolean getPublished() {
+            return published;
+        }
+
+        private void setPublished(boolean published) {
+            this.published = published;
+        }
+
+        public int getLikes() {
+            return likes;
+        }
+
+        public void setLikes(int likes) {
+            this.likes = likes;
+        }
+    }
+}
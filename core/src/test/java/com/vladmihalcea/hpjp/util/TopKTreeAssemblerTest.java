@@ -0,0 +1,115 @@
+package com.vladmihalcea.hpjp.util;
+
+import com.vladmihalcea.hpjp.hibernate.query.recursive.PostCommentScore;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class TopKTreeAssemblerTest {
+
+    @Test
+    public void testChildrenBeforeParents() {
+        TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(PostCommentScore.NODE_HANDLER);
+
+        treeAssembler.add(4, 3L, 10, postCommentScore(4, 3L));
+        treeAssembler.add(3, 1L, 1, postCommentScore(3, 1L));
+        treeAssembler.add(5, 2L, 2, postCommentScore(5, 2L));
+        treeAssembler.add(1, null, 1, postCommentScore(1, null));
+        treeAssembler.add(2, null, 5, postCommentScore(2, null));
+        treeAssembler.add(7, 6L, 100, postCommentScore(7, 6L));
+
+        List<PostCommentScore> roots = treeAssembler.topRoots(10);
+        assertEquals(2, roots.size());
+
+        assertEquals(1L, roots.get(0).getId().longValue());
+        assertEquals(12, roots.get(0).getTotalScore());
+        assertEquals(3L, roots.get(0).getChildren().get(0).getId().longValue());
+
+        assertEquals(2L, roots.get(1).getId().longValue());
+        assertEquals(7, roots.get(1).getTotalScore());
+    }
+
+    @Test
+    public void testVoteAggregation() {
+        TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(PostCommentScore.NODE_HANDLER);
+
+        treeAssembler.add(1, TopKTreeAssembler.NO_PARENT, 1, 1L, TopKTreeAssemblerTest::postCommentScore);
+        treeAssembler.add(2, 1, 1, 2L, TopKTreeAssemblerTest::postCommentScore);
+        treeAssembler.add(2, 1, 1, 2L, TopKTreeAssemblerTest::postCommentScore);
+        treeAssembler.add(2, 1, -1, 2L, TopKTreeAssemblerTest::postCommentScore);
+
+        List<PostCommentScore> roots = treeAssembler.topRoots(1);
+        assertEquals(1, roots.size());
+        assertEquals(2, roots.get(0).getTotalScore());
+        assertEquals(1, roots.get(0).getChildren().size());
+        assertEquals(1, roots.get(0).getChildren().get(0).getScore());
+    }
+
+    @Test
+    public void testTopRootsMatchFullSort() {
+        Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            int nodeCount = 1 + random.nextInt(5_000);
+            int rank = 1 + random.nextInt(10);
+
+            long[] parentIds = new long[nodeCount];
+            long[] scores = new long[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                parentIds[i] = i == 0 || random.nextInt(10) == 0 ? TopKTreeAssembler.NO_PARENT : random.nextInt(i);
+                scores[i] = random.nextInt(21) - 10;
+            }
+
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < nodeCount; i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, random);
+
+            TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(PostCommentScore.NODE_HANDLER);
+            List<PostCommentScore> expectedRoots = new ArrayList<>();
+            Map<Long, PostCommentScore> expectedMap = new HashMap<>();
+            for (int i : order) {
+                Long parentId = parentIds[i] == TopKTreeAssembler.NO_PARENT ? null : parentIds[i];
+                treeAssembler.add(i, parentId, scores[i], postCommentScore(i, parentId));
+
+                PostCommentScore expected = postCommentScore(i, parentId);
+                expected.setScore(scores[i]);
+                expectedMap.put((long) i, expected);
+                if (parentId == null) {
+                    expectedRoots.add(expected);
+                }
+            }
+            for (PostCommentScore expected : expectedMap.values()) {
+                if (expected.getParentId() != null) {
+                    expectedMap.get(expected.getParentId()).addChild(expected);
+                }
+            }
+            expectedRoots.sort(Comparator.comparing(PostCommentScore::getTotalScore).reversed());
+
+            List<PostCommentScore> roots = treeAssembler.topRoots(rank);
+            assertEquals(Math.min(rank, expectedRoots.size()), roots.size());
+            for (int i = 0; i < roots.size(); i++) {
+                assertEquals(expectedRoots.get(i).getTotalScore(), roots.get(i).getTotalScore());
+                assertTrue(i == 0 || roots.get(i - 1).getTotalScore() >= roots.get(i).getTotalScore());
+            }
+        }
+    }
+
+    private static PostCommentScore postCommentScore(long id) {
+        return postCommentScore(id, null);
+    }
+
+    private static PostCommentScore postCommentScore(long id, Long parentId) {
+        PostCommentScore postCommentScore = new PostCommentScore();
+        postCommentScore.setId(id);
+        postCommentScore.setParentId(parentId);
+        postCommentScore.setCreatedOn(new Date(id));
+        return postCommentScore;
+    }
+}
@@ -0,0 +1,181 @@
+package com.vladmihalcea.hpjp.util;
+
+import io.hypersistence.tsid.TSID;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * <code>TsidBlockFactory</code> - Generates TSID values without sharing a factory between threads.
+ * <p>
+ * A TSID has 42 time bits, followed by the node bits and the counter bits. This factory treats
+ * the time and counter bits as a logical clock, and every thread reserves a block of consecutive
+ * logical clock values with a single CAS. The values of a block are then generated by the owning
+ * thread without any synchronization, so the generated values are monotonic for each thread and
+ * unique for the current node. The node bits make the values unique across the cluster nodes.
+ * <p>
+ * The logical clock never goes below the current time, and, if the counter bits are exhausted within
+ * the same millisecond, it moves to the next millisecond, like the {@link TSID.Factory} does.
+ * A block that's older than the max block age is discarded, so a thread that generates values
+ * rarely does not use stale timestamps.
+ *
+ * @author Vlad Mihalcea
+ */
+public class TsidBlockFactory {
+
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    public static final long DEFAULT_MAX_BLOCK_AGE_MILLIS = 100;
+
+    private static final int RANDOM_BITS = 22;
+
+    private final int counterBits;
+
+    private final long counterMask;
+
+    private final long nodeValue;
+
+    private final int blockSize;
+
+    private long maxBlockAgeMillis = DEFAULT_MAX_BLOCK_AGE_MILLIS;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final AtomicLong nextLogicalTime = new AtomicLong();
+
+    private final ThreadLocal<Block> threadBlock = ThreadLocal.withInitial(Block::new);
+
+    private final LongAdder generatedCount = new LongAdder();
+
+    private final LongAdder blockCount = new LongAdder();
+
+    private final LongAdder blockContentionCount = new LongAdder();
+
+    private long lastMetricsNanos = System.nanoTime();
+
+    private long lastMetricsGeneratedCount;
+
+    public TsidBlockFactory(int nodeCount, int node) {
+        this(nodeCount, node, DEFAULT_BLOCK_SIZE);
+    }
+
+    public TsidBlockFactory(int nodeCount, int node, int blockSize) {
+        int nodeBits = TsidUtils.getNodeBits(nodeCount);
+        if (nodeBits < 0 || nodeBits > 20) {
+            throw new IllegalArgumentException("The node count must be between 1 and 2^20!");
+        }
+        if (node < 0 || node >= (1 << nodeBits)) {
+            throw new IllegalArgumentException(
+                String.format("The node must be between 0 and %d!", (1 << nodeBits) - 1)
+            );
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("The block size must be positive!");
+        }
+        this.counterBits = RANDOM_BITS - nodeBits;
+        this.counterMask = (1L << counterBits) - 1;
+        this.nodeValue = (long) node << counterBits;
+        this.blockSize = blockSize;
+    }
+
+    public TsidBlockFactory setMaxBlockAgeMillis(long maxBlockAgeMillis) {
+        this.maxBlockAgeMillis = maxBlockAgeMillis;
+        return this;
+    }
+
+    TsidBlockFactory setClock(LongSupplier clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Generate the next TSID value of the current thread.
+     *
+     * @return TSID value
+     */
+    public long generate() {
+        Block block = threadBlock.get();
+        long nowMillis = clock.getAsLong();
+        if (block.next == block.end || nowMillis - block.reservedAtMillis > maxBlockAgeMillis) {
+            reserve(block, nowMillis);
+        }
+        long logicalTime = block.next++;
+        return ((logicalTime >>> counterBits) << RANDOM_BITS) | nodeValue | (logicalTime & counterMask);
+    }
+
+    public TSID generateTsid() {
+        return TSID.from(generate());
+    }
+
+    private void reserve(Block block, long nowMillis) {
+        long minLogicalTime = (nowMillis - TSID.TSID_EPOCH) << counterBits;
+        while (true) {
+            long logicalTime = nextLogicalTime.get();
+            long start = Math.max(logicalTime, minLogicalTime);
+            if (nextLogicalTime.compareAndSet(logicalTime, start + blockSize)) {
+                generatedCount.add(block.next - block.start);
+                block.start = start;
+                block.next = start;
+                block.end = start + blockSize;
+                block.reservedAtMillis = nowMillis;
+                blockCount.increment();
+                return;
+            }
+            blockContentionCount.increment();
+        }
+    }
+
+    /**
+     * Get the generation metrics. The generation rate is computed
+     * since the previous call, or since the factory was created.
+     * <p>
+     * The generated values are counted when a thread reserves a new block, so that
+     * {@link #generate()} doesn't update a shared counter. Therefore, the values generated
+     * from the current block of every thread are not counted yet.
+     *
+     * @return generation metrics
+     */
+    public synchronized Metrics metrics() {
+        long nowNanos = System.nanoTime();
+        long generated = generatedCount.sum();
+        double generationRate = (generated - lastMetricsGeneratedCount) * 1_000_000_000d /
+            Math.max(1, nowNanos - lastMetricsNanos);
+        lastMetricsNanos = nowNanos;
+        lastMetricsGeneratedCount = generated;
+        return new Metrics(
+            generated,
+            blockCount.sum(),
+            blockContentionCount.sum(),
+            generationRate
+        );
+    }
+
+    /**
+     * @param generatedCount       number of generated values
+     * @param blockCount           number of reserved blocks
+     * @param blockContentionCount number of block reservations retried because another thread reserved a block
+     * @param generationRate       generated values per second
+     */
+    public record Metrics(
+        long generatedCount,
+        long blockCount,
+        long blockContentionCount,
+        double generationRate) {
+    }
+
+    private static class Block {
+
+        private long start;
+
+        private long next;
+
+        private long end;
+
+        private long reservedAtMillis;
+    }
+}
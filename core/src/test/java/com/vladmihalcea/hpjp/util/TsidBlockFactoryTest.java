@@ -0,0 +1,117 @@
+package com.vladmihalcea.hpjp.util;
+
+import io.hypersistence.tsid.TSID;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class TsidBlockFactoryTest {
+
+    protected final Logger LOGGER = LoggerFactory.getLogger(getClass());
+
+    @Test
+    public void testConcurrency() throws InterruptedException {
+        int threadCount = 16;
+        int iterationCount = 100_000;
+        int nodeCount = 2;
+
+        TsidBlockFactory[] nodeFactories = new TsidBlockFactory[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeFactories[i] = new TsidBlockFactory(nodeCount, i);
+        }
+
+        Set<Long> tsids = ConcurrentHashMap.newKeySet();
+        AtomicLong collisionCount = new AtomicLong();
+        AtomicLong nonMonotonicCount = new AtomicLong();
+        CountDownLatch endLatch = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            TsidBlockFactory tsidFactory = nodeFactories[i % nodeCount];
+            new Thread(() -> {
+                long previousTsid = Long.MIN_VALUE;
+                for (int j = 0; j < iterationCount; j++) {
+                    long tsid = tsidFactory.generate();
+                    if (!tsids.add(tsid)) {
+                        collisionCount.incrementAndGet();
+                    }
+                    if (tsid <= previousTsid) {
+                        nonMonotonicCount.incrementAndGet();
+                    }
+                    previousTsid = tsid;
+                }
+                endLatch.countDown();
+            }).start();
+        }
+        endLatch.await();
+
+        assertEquals(0, collisionCount.get());
+        assertEquals(0, nonMonotonicCount.get());
+        assertEquals(threadCount * iterationCount, tsids.size());
+
+        long generatedCount = 0;
+        for (TsidBlockFactory tsidFactory : nodeFactories) {
+            TsidBlockFactory.Metrics metrics = tsidFactory.metrics();
+            LOGGER.info(
+                "Generated {} TSIDs from {} blocks, with {} contended block reservations, at {} TSIDs/s",
+                metrics.generatedCount(),
+                metrics.blockCount(),
+                metrics.blockContentionCount(),
+                (long) metrics.generationRate()
+            );
+            assertTrue(metrics.blockCount() >= metrics.generatedCount() / tsidFactory.getBlockSize());
+            generatedCount += metrics.generatedCount();
+        }
+        assertTrue(generatedCount <= threadCount * iterationCount);
+        assertTrue(generatedCount > threadCount * (iterationCount - TsidBlockFactory.DEFAULT_BLOCK_SIZE));
+    }
+
+    @Test
+    public void testLayout() {
+        long nowMillis = System.currentTimeMillis();
+        TsidBlockFactory tsidFactory = new TsidBlockFactory(256, 5, 4)
+            .setClock(() -> nowMillis);
+
+        //with 8 node bits, there are 14 counter bits per millisecond
+        long counterCount = 1L << 14;
+        long previousTsid = 0;
+        for (long i = 0; i < counterCount + 1; i++) {
+            TSID tsid = tsidFactory.generateTsid();
+            assertTrue(tsid.toLong() > previousTsid);
+            assertEquals(5, (tsid.toLong() >>> 14) & 0xFF);
+            if (i < counterCount) {
+                assertEquals(nowMillis, tsid.getUnixMilliseconds());
+                assertEquals(i, tsid.toLong() & (counterCount - 1));
+            } else {
+                assertEquals("The counter overflow moves to the next millisecond", nowMillis + 1, tsid.getUnixMilliseconds());
+                assertEquals(0, tsid.toLong() & (counterCount - 1));
+            }
+            previousTsid = tsid.toLong();
+        }
+    }
+
+    @Test
+    public void testMaxBlockAge() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        TsidBlockFactory tsidFactory = new TsidBlockFactory(256, 0, 100)
+            .setClock(clock::get)
+            .setMaxBlockAgeMillis(10);
+
+        long startMillis = clock.get();
+        assertEquals(startMillis, TSID.from(tsidFactory.generate()).getUnixMilliseconds());
+        clock.addAndGet(5);
+        assertEquals(startMillis, TSID.from(tsidFactory.generate()).getUnixMilliseconds());
+        clock.addAndGet(10);
+        assertEquals(startMillis + 15, TSID.from(tsidFactory.generate()).getUnixMilliseconds());
+        assertEquals(2, tsidFactory.metrics().blockCount());
+    }
+}
@@ -2,6 +2,8 @@ package com.vladmihalcea.hpjp.util;
 
 import io.hypersistence.tsid.TSID;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * <code>TsidUtils</code> - Tsid utilities holder.
  *
@@ -10,9 +12,13 @@ import io.hypersistence.tsid.TSID;
 public class TsidUtils {
     public static final String TSID_NODE_COUNT_PROPERTY = "tsid.node.count";
     public static final String TSID_NODE_COUNT_ENV = "TSID_NODE_COUNT";
+    public static final String TSID_NODE_PROPERTY = "tsid.node";
+    public static final String TSID_NODE_ENV = "TSID_NODE";
 
     public static TSID.Factory TSID_FACTORY;
 
+    public static TsidBlockFactory TSID_BLOCK_FACTORY;
+
     static {
         String nodeCountSetting = System.getProperty(
             TSID_NODE_COUNT_PROPERTY
@@ -28,6 +34,21 @@ public class TsidUtils {
             256;
 
         TSID_FACTORY = getTsidFactory(nodeCount);
+
+        String nodeSetting = System.getProperty(
+            TSID_NODE_PROPERTY
+        );
+        if (nodeSetting == null) {
+            nodeSetting = System.getenv(
+                TSID_NODE_ENV
+            );
+        }
+
+        int node = nodeSetting != null ?
+            Integer.parseInt(nodeSetting) :
+            ThreadLocalRandom.current().nextInt(nodeCount);
+
+        TSID_BLOCK_FACTORY = new TsidBlockFactory(nodeCount, node);
     }
 
     private TsidUtils() {
@@ -38,8 +59,12 @@ public class TsidUtils {
         return TSID_FACTORY.generate();
     }
 
+    public static int getNodeBits(int nodeCount) {
+        return (int) (Math.log(nodeCount) / Math.log(2));
+    }
+
     public static TSID.Factory getTsidFactory(int nodeCount) {
-        int nodeBits = (int) (Math.log(nodeCount) / Math.log(2));
+        int nodeBits = getNodeBits(nodeCount);
 
         return TSID.Factory.builder()
             .withRandomFunction(TSID.Factory.THREAD_LOCAL_RANDOM_FUNCTION)
@@ -48,7 +73,7 @@ public class TsidUtils {
     }
 
     public static TSID.Factory getTsidFactory(int nodeCount, int nodeId) {
-        int nodeBits = (int) (Math.log(nodeCount) / Math.log(2));
+        int nodeBits = getNodeBits(nodeCount);
 
         return TSID.Factory.builder()
             .withRandomFunction(TSID.Factory.THREAD_LOCAL_RANDOM_FUNCTION)
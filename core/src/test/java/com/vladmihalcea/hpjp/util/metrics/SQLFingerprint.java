@@ -0,0 +1,178 @@
+package com.vladmihalcea.hpjp.util.metrics;
+
+/**
+ * <code>SQLFingerprint</code> - Normalizes a SQL statement so that the statements that differ
+ * only by their literal values or by the length of their IN lists share the same fingerprint.
+ * <p>
+ * The normalization:
+ * <ul>
+ * <li>replaces the string and numeric literals with a <code>?</code> placeholder,</li>
+ * <li>collapses the IN lists made of placeholders into <code>in (...)</code>,</li>
+ * <li>removes the comments and collapses the whitespace into a single space.</li>
+ * </ul>
+ * The quoted identifiers are kept as they are.
+ *
+ * @author Vlad Mihalcea
+ */
+public final class SQLFingerprint {
+
+    private static final String IN_LIST = "in (...)";
+
+    private SQLFingerprint() {
+        throw new UnsupportedOperationException("SQLFingerprint is not instantiable!");
+    }
+
+    public static String of(String sql) {
+        int length = sql.length();
+        StringBuilder fingerprint = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                appendSpace(fingerprint);
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                fingerprint.append('?');
+            } else if (c == '"' || c == '`') {
+                int end = skipQuoted(sql, i, c);
+                fingerprint.append(sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                appendSpace(fingerprint);
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i + 2);
+                i = end < 0 ? length : end + 1;
+                appendSpace(fingerprint);
+            } else if (Character.isDigit(c) && !isIdentifierPart(fingerprint)) {
+                while (i < length && isNumberPart(sql.charAt(i))) {
+                    i++;
+                }
+                fingerprint.append('?');
+            } else if (c == '(' && endsWithIn(fingerprint)) {
+                int end = skipPlaceholderList(sql, i);
+                if (end > 0) {
+                    trimTrailingSpace(fingerprint);
+                    fingerprint.setLength(fingerprint.length() - 2);
+                    fingerprint.append(IN_LIST);
+                    i = end;
+                } else {
+                    fingerprint.append(c);
+                    i++;
+                }
+            } else {
+                fingerprint.append(c);
+                i++;
+            }
+        }
+        trimTrailingSpace(fingerprint);
+        return fingerprint.toString();
+    }
+
+    private static void appendSpace(StringBuilder fingerprint) {
+        int length = fingerprint.length();
+        if (length > 0 && fingerprint.charAt(length - 1) != ' ') {
+            fingerprint.append(' ');
+        }
+    }
+
+    private static void trimTrailingSpace(StringBuilder fingerprint) {
+        int length = fingerprint.length();
+        if (length > 0 && fingerprint.charAt(length - 1) == ' ') {
+            fingerprint.setLength(length - 1);
+        }
+    }
+
+    private static boolean isIdentifierPart(StringBuilder fingerprint) {
+        int length = fingerprint.length();
+        if (length == 0) {
+            return false;
+        }
+        char previous = fingerprint.charAt(length - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+    }
+
+    private static boolean isNumberPart(char c) {
+        return Character.isDigit(c) || c == '.' || c == 'e' || c == 'E';
+    }
+
+    /**
+     * @return whether the fingerprint ends with the <code>in</code> keyword, possibly followed by a space
+     */
+    private static boolean endsWithIn(StringBuilder fingerprint) {
+        int end = fingerprint.length();
+        if (end > 0 && fingerprint.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end < 2) {
+            return false;
+        }
+        char i = fingerprint.charAt(end - 2);
+        char n = fingerprint.charAt(end - 1);
+        if ((i != 'i' && i != 'I') || (n != 'n' && n != 'N')) {
+            return false;
+        }
+        if (end == 2) {
+            return true;
+        }
+        char previous = fingerprint.charAt(end - 3);
+        return !(Character.isLetterOrDigit(previous) || previous == '_' || previous == '.');
+    }
+
+    /**
+     * Skip a parenthesized list made of bind parameters and literals only.
+     *
+     * @return the index following the closing parenthesis, or -1 if the list contains anything else
+     */
+    private static int skipPlaceholderList(String sql, int start) {
+        int length = sql.length();
+        int i = start + 1;
+        boolean expectValue = true;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (expectValue && c == '?') {
+                expectValue = false;
+                i++;
+            } else if (expectValue && c == '\'') {
+                expectValue = false;
+                i = skipQuoted(sql, i, '\'');
+            } else if (expectValue && (Character.isDigit(c) || c == '-')) {
+                expectValue = false;
+                i++;
+                while (i < length && isNumberPart(sql.charAt(i))) {
+                    i++;
+                }
+            } else if (!expectValue && c == ',') {
+                expectValue = true;
+                i++;
+            } else if (!expectValue && c == ')') {
+                return i + 1;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the index following the closing quote, where a doubled quote is an escaped quote
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        int i = start + 1;
+        while (i < length) {
+            if (sql.charAt(i++) == quote) {
+                if (i < length && sql.charAt(i) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return length;
+    }
+}
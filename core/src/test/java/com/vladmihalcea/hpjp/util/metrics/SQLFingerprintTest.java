@@ -0,0 +1,43 @@
+package com.vladmihalcea.hpjp.util.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class SQLFingerprintTest {
+
+    @Test
+    public void testLiteralsAndInLists() {
+        assertEquals(
+            "select p.id, p.title from post p where p.id in (...) and p.title = ? and p.score > ?",
+            SQLFingerprint.of("""
+                select p.id, p.title
+                from post p
+                where p.id in (1, 2, 3) and p.title = 'It''s a /* title */' and p.score > 1.5
+                """)
+        );
+        assertEquals(
+            SQLFingerprint.of("select * from post where id in (?, ?)"),
+            SQLFingerprint.of("select * from post where id IN(?,?,?,?,?,?,?,?)")
+        );
+        assertEquals(
+            "select * from post where id in (select post_id from post_comment where id = ?)",
+            SQLFingerprint.of("select * from post where id in (select post_id from post_comment where id = 5)")
+        );
+    }
+
+    @Test
+    public void testIdentifiersAndComments() {
+        assertEquals(
+            "select p1_0.id, \"p1_0\".\"title 2\" from post_v2 p1_0 where p1_0.id = ?",
+            SQLFingerprint.of("/* load Post */ select p1_0.id, \"p1_0\".\"title 2\" from post_v2 p1_0 -- by id\n where p1_0.id = ?")
+        );
+        assertEquals(
+            "select * from post where origin = ? limit ?",
+            SQLFingerprint.of("select * from post where origin = 'in (1, 2)' limit 10")
+        );
+    }
+}
@@ -0,0 +1,429 @@
+package com.vladmihalcea.hpjp.util.metrics;
+
+import com.vladmihalcea.hpjp.hibernate.statistics.StripedRecorder;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * <code>StatementMetricsDataSource</code> - A {@link DataSource} wrapper that records the execution
+ * time and the number of rows of every SQL statement, grouped by the {@link SQLFingerprint} of the statement.
+ * <p>
+ * Unlike the logging proxies, it doesn't build any String or write any log entry when a statement
+ * is executed. The fingerprint of a {@link PreparedStatement} is resolved when the statement is prepared,
+ * and the fingerprints are cached by SQL string, so executing a statement only takes a timestamp
+ * and increments a few striped counters.
+ * <p>
+ * At most <code>maxFingerprintCacheSize</code> fingerprints and SQL strings are tracked, so the memory
+ * stays bounded when the SQL strings are generated dynamically. The statements whose fingerprint
+ * is found after the limit is reached are aggregated under the {@link #OTHER_FINGERPRINT}.
+ * <p>
+ * The execution time covers the <code>execute</code> call only, while the row count is the number
+ * of rows fetched from the {@link ResultSet} or the update count.
+ *
+ * @author Vlad Mihalcea
+ */
+public class StatementMetricsDataSource implements DataSource {
+
+    public static final int DEFAULT_MAX_FINGERPRINT_CACHE_SIZE = 4096;
+
+    public static final String OTHER_FINGERPRINT = "<other>";
+
+    private final DataSource dataSource;
+
+    private final int maxFingerprintCacheSize;
+
+    private final Map<String, StatementStatistics> sqlStatistics = new ConcurrentHashMap<>();
+
+    private final Map<String, StatementStatistics> fingerprintStatistics = new ConcurrentHashMap<>();
+
+    private volatile StatementStatistics otherStatistics = new StatementStatistics(OTHER_FINGERPRINT);
+
+    public StatementMetricsDataSource(DataSource dataSource) {
+        this(dataSource, DEFAULT_MAX_FINGERPRINT_CACHE_SIZE);
+    }
+
+    public StatementMetricsDataSource(DataSource dataSource, int maxFingerprintCacheSize) {
+        this.dataSource = dataSource;
+        this.maxFingerprintCacheSize = maxFingerprintCacheSize;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return metricsConnection(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return metricsConnection(dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Get the statements with the largest total execution time.
+     *
+     * @param limit maximum number of statements
+     * @return the statement metrics, sorted by the total execution time, in descending order
+     */
+    public List<StatementMetrics> topStatements(int limit) {
+        List<StatementMetrics> statementMetrics = new ArrayList<>(fingerprintStatistics.size());
+        for (Map.Entry<String, StatementStatistics> entry : fingerprintStatistics.entrySet()) {
+            StatementStatistics statistics = entry.getValue();
+            statementMetrics.add(
+                new StatementMetrics(
+                    entry.getKey(),
+                    statistics.executionNanos.peek(),
+                    statistics.rows.peek()
+                )
+            );
+        }
+        StripedRecorder.Snapshot otherExecutionNanos = otherStatistics.executionNanos.peek();
+        if (otherExecutionNanos.count() > 0) {
+            statementMetrics.add(
+                new StatementMetrics(OTHER_FINGERPRINT, otherExecutionNanos, otherStatistics.rows.peek())
+            );
+        }
+        statementMetrics.sort(Comparator.comparingLong(StatementMetrics::totalNanos).reversed());
+        return statementMetrics.size() > limit ? statementMetrics.subList(0, limit) : statementMetrics;
+    }
+
+    public StatementMetrics statementMetrics(String sql) {
+        StatementStatistics statistics = fingerprintStatistics.get(SQLFingerprint.of(sql));
+        return statistics != null ?
+            new StatementMetrics(statistics.fingerprint, statistics.executionNanos.peek(), statistics.rows.peek()) :
+            null;
+    }
+
+    public void reset() {
+        sqlStatistics.clear();
+        fingerprintStatistics.clear();
+        otherStatistics = new StatementStatistics(OTHER_FINGERPRINT);
+    }
+
+    private StatementStatistics statistics(String sql) {
+        StatementStatistics statistics = sqlStatistics.get(sql);
+        if (statistics == null) {
+            String fingerprint = SQLFingerprint.of(sql);
+            statistics = fingerprintStatistics.get(fingerprint);
+            if (statistics == null) {
+                statistics = fingerprintStatistics.size() < maxFingerprintCacheSize ?
+                    fingerprintStatistics.computeIfAbsent(fingerprint, StatementStatistics::new) :
+                    otherStatistics;
+            }
+            if (sqlStatistics.size() < maxFingerprintCacheSize) {
+                sqlStatistics.putIfAbsent(sql, statistics);
+            }
+        }
+        return statistics;
+    }
+
+    private Connection metricsConnection(Connection connection) {
+        ConnectionHandler connectionHandler = new ConnectionHandler(connection);
+        connectionHandler.proxy = (Connection) Proxy.newProxyInstance(
+            StatementMetricsDataSource.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            connectionHandler
+        );
+        return connectionHandler.proxy;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object wrapperMethod(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "unwrap" -> ((Class<?>) args[0]).isInstance(proxy) ? proxy : null;
+            case "isWrapperFor" -> ((Class<?>) args[0]).isInstance(proxy) ? Boolean.TRUE : null;
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    public record StatementMetrics(String fingerprint, StripedRecorder.Snapshot executionNanos, StripedRecorder.Snapshot rows) {
+
+        public long executionCount() {
+            return executionNanos.count();
+        }
+
+        public long totalNanos() {
+            return executionNanos.sum();
+        }
+    }
+
+    private static class StatementStatistics {
+
+        private final String fingerprint;
+
+        private final StripedRecorder executionNanos = new StripedRecorder();
+
+        private final StripedRecorder rows = new StripedRecorder();
+
+        private StatementStatistics(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private Connection proxy;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object wrapperResult = wrapperMethod(proxy, method, args);
+            if (wrapperResult != null) {
+                return wrapperResult;
+            }
+            Object result = StatementMetricsDataSource.invoke(connection, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statementProxy(Statement.class, (Statement) result, null);
+                case "prepareStatement" -> statementProxy(PreparedStatement.class, (Statement) result, statistics((String) args[0]));
+                case "prepareCall" -> statementProxy(CallableStatement.class, (Statement) result, statistics((String) args[0]));
+                default -> result;
+            };
+        }
+
+        private Object statementProxy(Class<? extends Statement> statementInterface, Statement statement, StatementStatistics statistics) {
+            return Proxy.newProxyInstance(
+                StatementMetricsDataSource.class.getClassLoader(),
+                new Class<?>[]{statementInterface},
+                new StatementHandler(this, statement, statistics)
+            );
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final ConnectionHandler connectionHandler;
+
+        private final Statement statement;
+
+        /**
+         * The statistics of the prepared SQL statement, or {@code null} for a plain {@link Statement}.
+         */
+        private final StatementStatistics preparedStatistics;
+
+        private StatementStatistics batchStatistics;
+
+        private StatementStatistics executedStatistics;
+
+        private ResultSetHandler resultSetHandler;
+
+        private StatementHandler(ConnectionHandler connectionHandler, Statement statement, StatementStatistics preparedStatistics) {
+            this.connectionHandler = connectionHandler;
+            this.statement = statement;
+            this.preparedStatistics = preparedStatistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object wrapperResult = wrapperMethod(proxy, method, args);
+            if (wrapperResult != null) {
+                return wrapperResult;
+            }
+            String methodName = method.getName();
+            switch (methodName) {
+                case "getConnection":
+                    return connectionHandler.proxy;
+                case "getResultSet":
+                    ResultSet resultSet = statement.getResultSet();
+                    if (resultSetHandler != null && resultSetHandler.resultSet == resultSet) {
+                        return resultSetHandler.proxy;
+                    }
+                    return resultSet != null ? resultSetProxy(proxy, resultSet, executedStatistics) : null;
+                case "addBatch":
+                    if (batchStatistics == null && args != null && args.length == 1) {
+                        batchStatistics = StatementMetricsDataSource.this.statistics((String) args[0]);
+                    }
+                    break;
+                case "clearBatch":
+                    batchStatistics = null;
+                    break;
+                case "close":
+                    flushResultSet();
+                    break;
+            }
+            if (!methodName.startsWith("execute")) {
+                return StatementMetricsDataSource.invoke(statement, method, args);
+            }
+
+            flushResultSet();
+            StatementStatistics statistics = methodName.equals("executeBatch") || methodName.equals("executeLargeBatch") ?
+                (preparedStatistics != null ? preparedStatistics : batchStatistics) :
+                resolveStatistics(args);
+            batchStatistics = null;
+            executedStatistics = statistics;
+            long startNanos = System.nanoTime();
+            Object result = StatementMetricsDataSource.invoke(statement, method, args);
+            if (statistics == null) {
+                return result;
+            }
+            statistics.executionNanos.record(System.nanoTime() - startNanos);
+            if (result instanceof ResultSet resultSet) {
+                return resultSetProxy(proxy, resultSet, statistics);
+            } else if (result instanceof Integer updateCount) {
+                statistics.rows.record(updateCount);
+            } else if (result instanceof Long updateCount) {
+                statistics.rows.record(updateCount);
+            } else if (result instanceof int[] updateCounts) {
+                long rowCount = 0;
+                for (int updateCount : updateCounts) {
+                    rowCount += Math.max(updateCount, 0);
+                }
+                statistics.rows.record(rowCount);
+            } else if (result instanceof long[] updateCounts) {
+                long rowCount = 0;
+                for (long updateCount : updateCounts) {
+                    rowCount += Math.max(updateCount, 0);
+                }
+                statistics.rows.record(rowCount);
+            } else if (result instanceof Boolean hasResultSet && !hasResultSet) {
+                statistics.rows.record(statement.getUpdateCount());
+            }
+            return result;
+        }
+
+        private StatementStatistics resolveStatistics(Object[] args) {
+            if (preparedStatistics != null) {
+                return preparedStatistics;
+            }
+            return args != null && args.length > 0 && args[0] instanceof String sql ?
+                StatementMetricsDataSource.this.statistics(sql) :
+                null;
+        }
+
+        private ResultSet resultSetProxy(Object statementProxy, ResultSet resultSet, StatementStatistics statistics) {
+            flushResultSet();
+            if (statistics == null) {
+                return resultSet;
+            }
+            resultSetHandler = new ResultSetHandler(statementProxy, resultSet, statistics);
+            resultSetHandler.proxy = (ResultSet) Proxy.newProxyInstance(
+                StatementMetricsDataSource.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                resultSetHandler
+            );
+            return resultSetHandler.proxy;
+        }
+
+        /**
+         * Record the rows of the current {@link ResultSet}, which is closed when
+         * the statement is executed again or closed.
+         */
+        private void flushResultSet() {
+            if (resultSetHandler != null) {
+                resultSetHandler.recordRows();
+                resultSetHandler = null;
+            }
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final Object statementProxy;
+
+        private final ResultSet resultSet;
+
+        private final StatementStatistics statistics;
+
+        private ResultSet proxy;
+
+        private long rowCount;
+
+        private boolean recorded;
+
+        private ResultSetHandler(Object statementProxy, ResultSet resultSet, StatementStatistics statistics) {
+            this.statementProxy = statementProxy;
+            this.resultSet = resultSet;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object wrapperResult = wrapperMethod(proxy, method, args);
+            if (wrapperResult != null) {
+                return wrapperResult;
+            }
+            switch (method.getName()) {
+                case "next":
+                    boolean hasNext = resultSet.next();
+                    if (hasNext) {
+                        rowCount++;
+                    }
+                    return hasNext;
+                case "getStatement":
+                    return statementProxy;
+                case "close":
+                    recordRows();
+                    break;
+            }
+            return StatementMetricsDataSource.invoke(resultSet, method, args);
+        }
+
+        private void recordRows() {
+            if (!recorded) {
+                recorded = true;
+                statistics.rows.record(rowCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.vladmihalcea.hpjp.util.metrics;
+
+import com.vladmihalcea.hpjp.util.AbstractTest;
+import com.vladmihalcea.hpjp.util.DataSourceProxyType;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class StatementMetricsDataSourceTest extends AbstractTest {
+
+    @Override
+    protected Class<?>[] entities() {
+        return new Class<?>[]{
+            Post.class
+        };
+    }
+
+    @Override
+    protected DataSourceProxyType dataSourceProxyType() {
+        return DataSourceProxyType.METRICS;
+    }
+
+    @Override
+    protected void additionalProperties(Properties properties) {
+        properties.put("hibernate.jdbc.batch_size", "10");
+        properties.put("hibernate.query.in_clause_parameter_padding", "false");
+    }
+
+    @Override
+    protected void afterInit() {
+        doInJPA(entityManager -> {
+            for (long i = 1; i <= 25; i++) {
+                entityManager.persist(
+                    new Post()
+                        .setId(i)
+                        .setTitle(String.format("High-Performance Java Persistence, part %d", i))
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testTopStatements() throws SQLException {
+        StatementMetricsDataSource metricsDataSource = dataSource().unwrap(StatementMetricsDataSource.class);
+
+        for (int i = 1; i <= 5; i++) {
+            List<Long> ids = LongStream.rangeClosed(1, i).boxed().toList();
+            doInJPA(entityManager -> {
+                assertEquals(
+                    ids.size(),
+                    entityManager.createQuery("""
+                        select p
+                        from Post p
+                        where p.id in :ids
+                        """, Post.class)
+                    .setParameter("ids", ids)
+                    .getResultList()
+                    .size()
+                );
+            });
+        }
+
+        try (Connection connection = dataSource().getConnection();
+             Statement statement = connection.createStatement()) {
+            for (int i = 1; i <= 3; i++) {
+                try (ResultSet resultSet = statement.executeQuery("select title from post where id = " + i)) {
+                    assertTrue(resultSet.next());
+                    assertSame(statement, resultSet.getStatement());
+                }
+            }
+        }
+
+        List<StatementMetricsDataSource.StatementMetrics> topStatements = metricsDataSource.topStatements(10);
+        for (StatementMetricsDataSource.StatementMetrics metrics : topStatements) {
+            LOGGER.info(
+                "Statement [{}] executed {} times, total: {} μs, p99: {} μs, rows: {}",
+                metrics.fingerprint(),
+                metrics.executionCount(),
+                TimeUnit.NANOSECONDS.toMicros(metrics.totalNanos()),
+                TimeUnit.NANOSECONDS.toMicros(metrics.executionNanos().percentile(0.99)),
+                metrics.rows().sum()
+            );
+        }
+        for (int i = 1; i < topStatements.size(); i++) {
+            assertTrue(topStatements.get(i - 1).totalNanos() >= topStatements.get(i).totalNanos());
+        }
+
+        StatementMetricsDataSource.StatementMetrics insertMetrics = metricsDataSource.statementMetrics(
+            "insert into post (title,id) values (?,?)"
+        );
+        assertEquals(3, insertMetrics.executionCount());
+        assertEquals(25, insertMetrics.rows().sum());
+
+        StatementMetricsDataSource.StatementMetrics selectInMetrics = metricsDataSource.statementMetrics(
+            "select p1_0.id,p1_0.title from post p1_0 where p1_0.id in (?)"
+        );
+        assertEquals(5, selectInMetrics.executionCount());
+        assertEquals(15, selectInMetrics.rows().sum());
+        assertEquals(5, selectInMetrics.rows().max());
+
+        StatementMetricsDataSource.StatementMetrics selectByIdMetrics = metricsDataSource.statementMetrics(
+            "select title from post where id = 1"
+        );
+        assertEquals("select title from post where id = ?", selectByIdMetrics.fingerprint());
+        assertEquals(3, selectByIdMetrics.executionCount());
+        assertEquals(3, selectByIdMetrics.rows().sum());
+
+        assertEquals(2, metricsDataSource.topStatements(2).size());
+    }
+
+    @Test
+    public void testMaxFingerprintCacheSize() throws SQLException {
+        StatementMetricsDataSource metricsDataSource = new StatementMetricsDataSource(dataSource(), 2);
+
+        try (Connection connection = metricsDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (int i = 1; i <= 3; i++) {
+                statement.executeQuery("select title from post where id = " + i).close();
+                statement.executeQuery("select id from post where id = " + i).close();
+                statement.executeQuery("select count(*) from post where id > " + i).close();
+                statement.executeQuery("select max(id) from post where id < " + i).close();
+            }
+        }
+
+        List<StatementMetricsDataSource.StatementMetrics> topStatements = metricsDataSource.topStatements(10);
+        assertEquals(3, topStatements.size());
+        assertEquals(3, metricsDataSource.statementMetrics("select title from post where id = 1").executionCount());
+        assertEquals(3, metricsDataSource.statementMetrics("select id from post where id = 1").executionCount());
+        assertNull(metricsDataSource.statementMetrics("select count(*) from post where id > 1"));
+
+        StatementMetricsDataSource.StatementMetrics otherMetrics = topStatements.stream()
+            .filter(metrics -> metrics.fingerprint().equals(StatementMetricsDataSource.OTHER_FINGERPRINT))
+            .findFirst()
+            .orElseThrow();
+        assertEquals(6, otherMetrics.executionCount());
+
+        metricsDataSource.reset();
+        assertTrue(metricsDataSource.topStatements(10).isEmpty());
+    }
+
+    @Entity(name = "Post")
+    @Table(name = "post")
+    public static class Post {
+
+        @Id
+        private Long id;
+
+        private String title;
+
+        public Long getId() {
+            return id;
+        }
+
+        public Post setId(Long id) {
+            this.id = id;
+            return this;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Post setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.vladmihalcea.hpjp.jooq;
 
 import com.vladmihalcea.util.AbstractTest;
+import com.zaxxer.hikari.HikariDataSource;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
 import org.hibernate.tool.schema.internal.script.MultiLineSqlScriptExtractor;
+import org.jooq.Configuration;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.jooq.impl.DefaultConfiguration;
+import org.jooq.impl.ThreadLocalTransactionProvider;
 import org.junit.Assert;
 
 import java.io.BufferedReader;
@@ -18,14 +23,31 @@ import java.sql.Statement;
 import java.util.List;
 import java.util.Properties;
 
+import javax.sql.DataSource;
+
 import static org.junit.Assert.fail;
 
 
 /**
+ * <code>AbstractJOOQIntegrationTest</code> - Base class for the jOOQ tests.
+ * <p>
+ * The {@link #doInJOOQ(DSLContextCallable)} methods borrow the JDBC connection from a Hibernate
+ * {@link Session} and build a new jOOQ {@link Configuration} for every call, while the
+ * {@link #doInJOOQTransaction(DSLContextCallable)} methods use the {@link #jooqConfiguration()},
+ * which is built once per test and gets the connections from a dedicated connection pool.
+ *
  * @author Vlad Mihalcea
  */
 public abstract class AbstractJOOQIntegrationTest extends AbstractTest {
 
+    private final ExecutionMetricsListener executionMetrics = new ExecutionMetricsListener();
+
+    private final SQLRenderCache renderCache = new SQLRenderCache();
+
+    private Configuration jooqConfiguration;
+
+    private HikariDataSource jooqDataSource;
+
     @Override
     protected Class<?>[] entities() {
         return new Class<?>[] {
@@ -64,6 +86,18 @@ public abstract class AbstractJOOQIntegrationTest extends AbstractTest {
         }
     }
 
+    @Override
+    protected void afterDestroy() {
+        if (jooqConfiguration != null) {
+            LOGGER.debug("jOOQ execution metrics: {}", executionMetrics);
+            jooqConfiguration = null;
+        }
+        if (jooqDataSource != null) {
+            jooqDataSource.close();
+            jooqDataSource = null;
+        }
+    }
+
     @Override
     protected Properties properties() {
         Properties properties = super.properties();
@@ -118,6 +152,70 @@ public abstract class AbstractJOOQIntegrationTest extends AbstractTest {
         }
     }
 
+    /**
+     * The jOOQ {@link Configuration} shared by all the {@link #doInJOOQTransaction(DSLContextCallable)} calls.
+     * The connections are acquired from the {@link #jooqDataSource()} connection pool, and the
+     * {@link ThreadLocalTransactionProvider} binds the transaction connection to the current thread,
+     * so nested calls join the current transaction instead of acquiring a new connection.
+     *
+     * @return shared jOOQ {@link Configuration}
+     */
+    protected Configuration jooqConfiguration() {
+        if (jooqConfiguration == null) {
+            jooqConfiguration = newJOOQConfiguration();
+        }
+        return jooqConfiguration;
+    }
+
+    protected Configuration newJOOQConfiguration() {
+        return new DefaultConfiguration()
+            .set(sqlDialect())
+            .set(jooqSettings())
+            .set(new ThreadLocalTransactionProvider(new DataSourceConnectionProvider(jooqDataSource())))
+            .set(executionMetrics);
+    }
+
+    /**
+     * The connection pool used by the {@link #jooqConfiguration()}. Unless the test already pools
+     * the {@link #dataSource()}, a dedicated pool is built on top of it and closed after the test,
+     * so the {@link #doInJOOQ(DSLContextCallable)} methods keep using the non-pooled connections.
+     *
+     * @return the {@link DataSource} used by the shared jOOQ {@link Configuration}
+     */
+    protected DataSource jooqDataSource() {
+        if (connectionPooling()) {
+            return dataSource();
+        }
+        if (jooqDataSource == null) {
+            jooqDataSource = connectionPoolDataSource(dataSource());
+        }
+        return jooqDataSource;
+    }
+
+    protected Settings jooqSettings() {
+        return new Settings();
+    }
+
+    protected ExecutionMetricsListener executionMetrics() {
+        return executionMetrics;
+    }
+
+    protected SQLRenderCache renderCache() {
+        return renderCache;
+    }
+
+    protected <T> T doInJOOQTransaction(DSLContextCallable<T> callable) {
+        return DSL.using(jooqConfiguration()).transactionResult(
+            configuration -> callable.execute(configuration.dsl())
+        );
+    }
+
+    protected void doInJOOQTransaction(DSLContextVoidCallable callable) {
+        DSL.using(jooqConfiguration()).transaction(
+            configuration -> callable.execute(configuration.dsl())
+        );
+    }
+
     protected <T> T doInJOOQ(DSLContextCallable<T> callable) {
         return doInJOOQ(callable, null);
     }
@@ -0,0 +1,133 @@
+package com.vladmihalcea.hpjp.jooq;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <code>ExecutionMetricsListener</code> - Records how much time jOOQ spends rendering the SQL,
+ * binding the parameters, executing the statement, and fetching the result set.
+ * <p>
+ * The same listener instance is shared by all the threads using the {@link org.jooq.Configuration},
+ * so the start time of every phase is stored in the {@link ExecuteContext}, which is created
+ * for every execution.
+ *
+ * @author Vlad Mihalcea
+ */
+public class ExecutionMetricsListener implements ExecuteListener {
+
+    public enum Phase {
+        RENDER,
+        BIND,
+        EXECUTE,
+        FETCH
+    }
+
+    private final Map<Phase, LongAdder> counts = new EnumMap<>(Phase.class);
+
+    private final Map<Phase, LongAdder> nanos = new EnumMap<>(Phase.class);
+
+    public ExecutionMetricsListener() {
+        for (Phase phase : Phase.values()) {
+            counts.put(phase, new LongAdder());
+            nanos.put(phase, new LongAdder());
+        }
+    }
+
+    @Override
+    public void renderStart(ExecuteContext ctx) {
+        start(ctx, Phase.RENDER);
+    }
+
+    @Override
+    public void renderEnd(ExecuteContext ctx) {
+        end(ctx, Phase.RENDER);
+    }
+
+    @Override
+    public void bindStart(ExecuteContext ctx) {
+        start(ctx, Phase.BIND);
+    }
+
+    @Override
+    public void bindEnd(ExecuteContext ctx) {
+        end(ctx, Phase.BIND);
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        start(ctx, Phase.EXECUTE);
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        end(ctx, Phase.EXECUTE);
+    }
+
+    @Override
+    public void fetchStart(ExecuteContext ctx) {
+        start(ctx, Phase.FETCH);
+    }
+
+    @Override
+    public void fetchEnd(ExecuteContext ctx) {
+        end(ctx, Phase.FETCH);
+    }
+
+    public PhaseMetrics getMetrics(Phase phase) {
+        return new PhaseMetrics(phase, counts.get(phase).sum(), nanos.get(phase).sum());
+    }
+
+    public void reset() {
+        for (Phase phase : Phase.values()) {
+            counts.get(phase).reset();
+            nanos.get(phase).reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            if (!builder.isEmpty()) {
+                builder.append(", ");
+            }
+            builder.append(getMetrics(phase));
+        }
+        return builder.toString();
+    }
+
+    private void start(ExecuteContext ctx, Phase phase) {
+        ctx.data(phase, System.nanoTime());
+    }
+
+    private void end(ExecuteContext ctx, Phase phase) {
+        Object startNanos = ctx.data(phase);
+        if (startNanos instanceof Long) {
+            counts.get(phase).increment();
+            nanos.get(phase).add(System.nanoTime() - (Long) startNanos);
+        }
+    }
+
+    public record PhaseMetrics(Phase phase, long count, long totalNanos) {
+
+        public long averageNanos() {
+            return count > 0 ? totalNanos / count : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "%s: count=%d, total=%d us, avg=%d ns",
+                phase,
+                count,
+                TimeUnit.NANOSECONDS.toMicros(totalNanos),
+                averageNanos()
+            );
+        }
+    }
+}
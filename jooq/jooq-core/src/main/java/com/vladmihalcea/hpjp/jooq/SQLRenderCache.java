@@ -0,0 +1,125 @@
+package com.vladmihalcea.hpjp.jooq;
+
+import org.jooq.*;
+import org.jooq.Record;
+import org.jooq.conf.ParamType;
+import org.jooq.conf.SettingsTools;
+import org.jooq.impl.DSL;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * <code>SQLRenderCache</code> - Renders the SQL of a query shape once and reuses it afterward.
+ * <p>
+ * jOOQ renders the SQL string of a {@link Query} every time the query is executed. For a query
+ * that's executed over and over with different bind parameter values, the SQL string is always the same,
+ * so the cache renders the query shape with <code>?</code> placeholders, whatever the {@link ParamType}
+ * setting is, the first time it's used, and then executes the cached SQL as a plain SQL query,
+ * using the bind values of the current call.
+ * <p>
+ * The query shape must not inline any value that changes from one call to the other, and the
+ * bind values must be provided in the order of the placeholders of the rendered SQL.
+ * Once the cache reaches its maximum size, the new query shapes are rendered on every call.
+ *
+ * @author Vlad Mihalcea
+ */
+public class SQLRenderCache {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final Map<Object, CachedQuery> cache = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public SQLRenderCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SQLRenderCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Fetch the result of the given query shape.
+     *
+     * @param sql current {@link DSLContext}
+     * @param key query shape key
+     * @param queryShape builds the query shape, if the SQL was not rendered already
+     * @param bindValues bind parameter values
+     * @return query result
+     */
+    public Result<Record> fetch(
+            DSLContext sql,
+            Object key,
+            Function<DSLContext, ? extends ResultQuery<?>> queryShape,
+            Object... bindValues) {
+        CachedQuery cachedQuery = get(sql, key, queryShape);
+        ResultQuery<Record> query = sql.resultQuery(cachedQuery.sql(), bindValues);
+        return cachedQuery.fields() != null ?
+            query.coerce(cachedQuery.fields()).fetch() :
+            query.fetch();
+    }
+
+    /**
+     * Execute the given DML query shape.
+     *
+     * @param sql current {@link DSLContext}
+     * @param key query shape key
+     * @param queryShape builds the query shape, if the SQL was not rendered already
+     * @param bindValues bind parameter values
+     * @return the number of affected rows
+     */
+    public int execute(
+            DSLContext sql,
+            Object key,
+            Function<DSLContext, ? extends Query> queryShape,
+            Object... bindValues) {
+        return sql.execute(get(sql, key, queryShape).sql(), bindValues);
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    private CachedQuery get(DSLContext sql, Object key, Function<DSLContext, ? extends Query> queryShape) {
+        CachedQuery cachedQuery = cache.get(key);
+        if (cachedQuery != null) {
+            hitCount.increment();
+            return cachedQuery;
+        }
+        missCount.increment();
+        Query query = queryShape.apply(sql);
+        cachedQuery = new CachedQuery(
+            DSL.using(
+                sql.configuration().derive(SettingsTools.clone(sql.settings()).withParamType(ParamType.INDEXED))
+            ).render(query),
+            query instanceof ResultQuery<?> resultQuery ? resultQuery.fields() : null
+        );
+        if (cache.size() < maxSize) {
+            cache.putIfAbsent(key, cachedQuery);
+        }
+        return cachedQuery;
+    }
+
+    record CachedQuery(String sql, Field<?>[] fields) {
+    }
+}
@@ -1,8 +1,11 @@
 package com.vladmihalcea.util;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.ToLongFunction;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <code>CollectionUtils</code> - Collection utilities holder.
@@ -39,4 +42,64 @@ public final class CollectionUtils {
                 )
             );
     }
+
+    /**
+     * Split an element iterator into batches, pulling the elements lazily.
+     *
+     * @param elements  elements to split in batches
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(Iterator<T> elements, int batchSize) {
+        return StreamSupport.stream(new BatchSpliterator<>(elements, batchSize), false);
+    }
+
+    /**
+     * Split an element iterator into batches bounded by both the element count and the byte size,
+     * pulling the elements lazily.
+     *
+     * @param elements         elements to split in batches
+     * @param batchSize        max number of elements in a batch
+     * @param maxBatchBytes    max number of bytes in a batch, unless the batch has a single element
+     * @param byteSizeFunction function estimating the byte size of an element
+     * @param <T>              class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(
+            Iterator<T> elements,
+            int batchSize,
+            long maxBatchBytes,
+            ToLongFunction<? super T> byteSizeFunction) {
+        return StreamSupport.stream(
+            new BatchSpliterator<>(elements, batchSize, maxBatchBytes, byteSizeFunction),
+            false
+        );
+    }
+
+    /**
+     * Split an element iterable into batches, pulling the elements lazily.
+     *
+     * @param elements  elements to split in batches
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(Iterable<T> elements, int batchSize) {
+        return spitInBatches(elements.iterator(), batchSize);
+    }
+
+    /**
+     * Split an element stream into batches, pulling the elements lazily.
+     * Closing the returned Stream closes the source Stream, so a jOOQ <code>Cursor</code>
+     * can be split using <code>spitInBatches(cursor.stream(), batchSize)</code>.
+     *
+     * @param elements  elements to split in batches
+     * @param batchSize max number of elements in a batch
+     * @param <T>       class type
+     * @return the Stream of batches
+     */
+    public static <T> Stream<List<T>> spitInBatches(Stream<T> elements, int batchSize) {
+        return spitInBatches(elements.iterator(), batchSize).onClose(elements::close);
+    }
 }
@@ -0,0 +1,302 @@
+package com.vladmihalcea.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <code>TopKTreeAssembler</code> - Builds a forest out of a stream of <code>(id, parentId, score)</code> rows
+ * and returns the roots with the highest total score.
+ * <p>
+ * Nodes are indexed by their primitive <code>long</code> identifier using an open-addressing table,
+ * so no boxed keys or map entries are created. The total score of every tree is aggregated while
+ * the rows arrive, using a union-find structure whose representative is the topmost known ancestor,
+ * so children may be added before their parents. Only the top K roots are kept, using a bounded
+ * min-heap, and only the nodes belonging to those roots are linked to their parents.
+ * <p>
+ * A row can be added multiple times for the same node identifier, in which case the scores are summed,
+ * which allows aggregating votes directly. Nodes whose root never arrives are discarded.
+ * <p>
+ * An instance is not thread-safe. Reusing it, after calling {@link #clear()}, avoids reallocating
+ * the internal arrays, so only the nodes themselves are allocated per tree.
+ *
+ * @param <T> node type
+ * @author Vlad Mihalcea
+ */
+public class TopKTreeAssembler<T> {
+
+    /**
+     * Parent identifier used for root nodes.
+     */
+    public static final long NO_PARENT = Long.MIN_VALUE;
+
+    private static final int NO_SLOT = -1;
+
+    /**
+     * Callback used to link the selected nodes and to publish their aggregated score.
+     *
+     * @param <T> node type
+     */
+    public interface NodeHandler<T> {
+
+        void addChild(T parent, T child);
+
+        void setScore(T node, long score);
+    }
+
+    private final NodeHandler<T> nodeHandler;
+
+    private long[] tableKeys;
+    private int[] tableSlots;
+    private int tableMask;
+
+    private int size;
+    private long[] scores;
+    private long[] totalScores;
+    private int[] parents;
+    private int[] representatives;
+    private Object[] nodes;
+
+    public TopKTreeAssembler(NodeHandler<T> nodeHandler) {
+        this(nodeHandler, 16);
+    }
+
+    public TopKTreeAssembler(NodeHandler<T> nodeHandler, int expectedNodeCount) {
+        this.nodeHandler = nodeHandler;
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, expectedNodeCount) - 1) << 1);
+        scores = new long[capacity];
+        totalScores = new long[capacity];
+        parents = new int[capacity];
+        representatives = new int[capacity];
+        nodes = new Object[capacity];
+        initTable(capacity << 1);
+    }
+
+    /**
+     * Add a row to the forest.
+     *
+     * @param id       node identifier
+     * @param parentId parent identifier or {@link #NO_PARENT}
+     * @param score    score to add to the node
+     * @param row      row the node is created from
+     * @param factory  node factory, called only the first time the node identifier is found
+     * @param <R>      row type
+     */
+    public <R> void add(long id, long parentId, long score, R row, Function<R, T> factory) {
+        int slot = slot(id);
+        if (nodes[slot] == null) {
+            nodes[slot] = factory.apply(row);
+            if (parentId != NO_PARENT) {
+                int parentSlot = slot(parentId);
+                parents[slot] = parentSlot;
+                int parentRepresentative = find(parentSlot);
+                if (parentRepresentative != slot) {
+                    representatives[slot] = parentRepresentative;
+                    totalScores[parentRepresentative] += totalScores[slot];
+                    totalScores[slot] = 0;
+                }
+            }
+        }
+        scores[slot] += score;
+        totalScores[find(slot)] += score;
+    }
+
+    /**
+     * Add a node whose row carries both the identifiers and the score.
+     *
+     * @param id       node identifier
+     * @param parentId parent identifier or <code>null</code> for roots
+     * @param score    node score
+     * @param node     node
+     */
+    public void add(long id, Long parentId, long score, T node) {
+        add(id, parentId != null ? parentId : NO_PARENT, score, node, Function.identity());
+    }
+
+    /**
+     * Select the roots with the highest total score, link their descendants and publish the node scores.
+     *
+     * @param k maximum number of roots to return
+     * @return the roots, ordered by their total score in descending order
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> topRoots(int k) {
+        if (k <= 0 || size == 0) {
+            return Collections.emptyList();
+        }
+        int[] heap = new int[Math.min(k, size)];
+        int heapSize = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (nodes[slot] == null || parents[slot] != NO_SLOT) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                heap[heapSize] = slot;
+                siftUp(heap, heapSize++);
+            } else if (before(slot, heap[0])) {
+                heap[0] = slot;
+                siftDown(heap, 0, heapSize);
+            }
+        }
+        if (heapSize == 0) {
+            return Collections.emptyList();
+        }
+        boolean[] selected = new boolean[size];
+        for (int i = 0; i < heapSize; i++) {
+            selected[heap[i]] = true;
+        }
+        for (int slot = 0; slot < size; slot++) {
+            if (nodes[slot] == null || !selected[find(slot)]) {
+                continue;
+            }
+            T node = (T) nodes[slot];
+            nodeHandler.setScore(node, scores[slot]);
+            int parentSlot = parents[slot];
+            if (parentSlot != NO_SLOT) {
+                nodeHandler.addChild((T) nodes[parentSlot], node);
+            }
+        }
+        Object[] roots = new Object[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            roots[i] = nodes[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, 0, i);
+        }
+        return (List<T>) Arrays.asList(roots);
+    }
+
+    /**
+     * @return the number of distinct node identifiers, including the ones referenced only as parents
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove all nodes while keeping the allocated arrays.
+     */
+    public void clear() {
+        Arrays.fill(nodes, 0, size, null);
+        Arrays.fill(tableSlots, NO_SLOT);
+        size = 0;
+    }
+
+    private int slot(long id) {
+        int index = index(id);
+        while (true) {
+            int slot = tableSlots[index];
+            if (slot == NO_SLOT) {
+                break;
+            }
+            if (tableKeys[index] == id) {
+                return slot;
+            }
+            index = (index + 1) & tableMask;
+        }
+        if (size == nodes.length) {
+            grow();
+            return slot(id);
+        }
+        int slot = size++;
+        tableKeys[index] = id;
+        tableSlots[index] = slot;
+        scores[slot] = 0;
+        totalScores[slot] = 0;
+        parents[slot] = NO_SLOT;
+        representatives[slot] = slot;
+        return slot;
+    }
+
+    private int find(int slot) {
+        int root = slot;
+        while (representatives[root] != root) {
+            root = representatives[root];
+        }
+        while (representatives[slot] != root) {
+            int next = representatives[slot];
+            representatives[slot] = root;
+            slot = next;
+        }
+        return root;
+    }
+
+    /**
+     * Heap order: the lowest total score is at the top, and, on equal scores,
+     * the latest arrival is evicted first, so the result is stable.
+     */
+    private boolean before(int slot, int otherSlot) {
+        long total = totalScores[slot];
+        long otherTotal = totalScores[otherSlot];
+        return total != otherTotal ? total > otherTotal : slot < otherSlot;
+    }
+
+    private void siftUp(int[] heap, int index) {
+        int slot = heap[index];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentSlot = heap[parentIndex];
+            if (!before(parentSlot, slot)) {
+                break;
+            }
+            heap[index] = parentSlot;
+            index = parentIndex;
+        }
+        heap[index] = slot;
+    }
+
+    private void siftDown(int[] heap, int index, int heapSize) {
+        int slot = heap[index];
+        int half = heapSize >>> 1;
+        while (index < half) {
+            int childIndex = (index << 1) + 1;
+            int rightIndex = childIndex + 1;
+            if (rightIndex < heapSize && before(heap[childIndex], heap[rightIndex])) {
+                childIndex = rightIndex;
+            }
+            if (!before(slot, heap[childIndex])) {
+                break;
+            }
+            heap[index] = heap[childIndex];
+            index = childIndex;
+        }
+        heap[index] = slot;
+    }
+
+    private void grow() {
+        int capacity = nodes.length << 1;
+        scores = Arrays.copyOf(scores, capacity);
+        totalScores = Arrays.copyOf(totalScores, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        representatives = Arrays.copyOf(representatives, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+        long[] oldTableKeys = tableKeys;
+        int[] oldTableSlots = tableSlots;
+        initTable(capacity << 1);
+        for (int i = 0; i < oldTableSlots.length; i++) {
+            int slot = oldTableSlots[i];
+            if (slot == NO_SLOT) {
+                continue;
+            }
+            long id = oldTableKeys[i];
+            int index = index(id);
+            while (tableSlots[index] != NO_SLOT) {
+                index = (index + 1) & tableMask;
+            }
+            tableKeys[index] = id;
+            tableSlots[index] = slot;
+        }
+    }
+
+    private void initTable(int tableCapacity) {
+        tableKeys = new long[tableCapacity];
+        tableSlots = new int[tableCapacity];
+        tableMask = tableCapacity - 1;
+        Arrays.fill(tableSlots, NO_SLOT);
+    }
+
+    private int index(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & tableMask;
+    }
+}
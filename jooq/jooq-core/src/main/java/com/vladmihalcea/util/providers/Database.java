@@ -7,6 +7,12 @@ import org.hibernate.dialect.Dialect;
  * @author Vlad Mihalcea
  */
 public enum Database {
+    HSQLDB {
+        @Override
+        public Class<? extends DataSourceProvider> dataSourceProviderClass() {
+            return HSQLDBDataSourceProvider.class;
+        }
+    },
     //Mandatory databases
     POSTGRESQL {
         @Override
@@ -0,0 +1,46 @@
+package com.vladmihalcea.hpjp.jooq;
+
+import com.vladmihalcea.util.providers.Database;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+
+/**
+ * Runs the jOOQ core tests against an in-memory HSQLDB database, whose <code>post</code> table
+ * is referenced using plain DSL fields, since this module does not generate the jOOQ schema classes.
+ *
+ * @author Vlad Mihalcea
+ */
+public abstract class AbstractJOOQHSQLDBTest extends AbstractJOOQIntegrationTest {
+
+    protected static final Table<Record> POST = table(name("POST"));
+
+    protected static final Field<Long> POST_ID = field(name("ID"), Long.class);
+
+    protected static final Field<String> POST_TITLE = field(name("TITLE"), String.class);
+
+    @Override
+    protected String ddlFolder() {
+        return "hsqldb";
+    }
+
+    @Override
+    protected String ddlScript() {
+        return "core_schema.sql";
+    }
+
+    @Override
+    protected SQLDialect sqlDialect() {
+        return SQLDialect.HSQLDB;
+    }
+
+    @Override
+    protected Database database() {
+        return Database.HSQLDB;
+    }
+}
@@ -0,0 +1,94 @@
+package com.vladmihalcea.hpjp.jooq;
+
+import com.vladmihalcea.hpjp.jooq.ExecutionMetricsListener.Phase;
+import com.vladmihalcea.hpjp.jooq.ExecutionMetricsListener.PhaseMetrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class ExecutionMetricsListenerTest extends AbstractJOOQHSQLDBTest {
+
+    @Test
+    public void testPhaseCounts() {
+        doInJOOQTransaction(sql -> {
+            for (long i = 1; i <= 3; i++) {
+                sql
+                .insertInto(POST).columns(POST_ID, POST_TITLE)
+                .values(i, String.format("Post no. %d", i))
+                .execute();
+            }
+        });
+
+        doInJOOQTransaction(sql -> {
+            assertEquals(3, sql.selectFrom(POST).fetch().size());
+            assertEquals(1, sql.selectFrom(POST).where(POST_ID.eq(1L)).fetch().size());
+        });
+
+        ExecutionMetricsListener metrics = executionMetrics();
+        assertEquals(5, metrics.getMetrics(Phase.RENDER).count());
+        assertEquals(5, metrics.getMetrics(Phase.BIND).count());
+        assertEquals(5, metrics.getMetrics(Phase.EXECUTE).count());
+        assertEquals(2, metrics.getMetrics(Phase.FETCH).count());
+        assertTrue(metrics.getMetrics(Phase.EXECUTE).totalNanos() > 0);
+
+        //The doInJOOQ methods build their own Configuration, so they are not recorded
+        doInJOOQ(sql -> {
+            sql.selectFrom(POST).fetch();
+        });
+        assertEquals(5, metrics.getMetrics(Phase.EXECUTE).count());
+
+        metrics.reset();
+        for (Phase phase : Phase.values()) {
+            assertEquals(0, metrics.getMetrics(phase).count());
+            assertEquals(0, metrics.getMetrics(phase).totalNanos());
+        }
+    }
+
+    @Test
+    public void testConcurrentExecutions() throws Exception {
+        int threadCount = 4;
+        int queriesPerThread = 25;
+
+        //Build the shared Configuration before the worker threads use it
+        jooqConfiguration();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < queriesPerThread; j++) {
+                        doInJOOQTransaction(sql -> {
+                            sql.selectFrom(POST).fetch();
+                        });
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ExecutionMetricsListener metrics = executionMetrics();
+        assertEquals(threadCount * queriesPerThread, metrics.getMetrics(Phase.EXECUTE).count());
+        assertEquals(threadCount * queriesPerThread, metrics.getMetrics(Phase.RENDER).count());
+    }
+
+    @Test
+    public void testAverage() {
+        assertEquals(100, new PhaseMetrics(Phase.EXECUTE, 4, 400).averageNanos());
+        assertEquals(0, new PhaseMetrics(Phase.EXECUTE, 0, 0).averageNanos());
+    }
+}
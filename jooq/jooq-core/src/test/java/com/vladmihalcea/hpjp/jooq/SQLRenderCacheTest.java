@@ -0,0 +1,100 @@
+package com.vladmihalcea.hpjp.jooq;
+
+import org.jooq.Record;
+import org.jooq.Result;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class SQLRenderCacheTest extends AbstractJOOQHSQLDBTest {
+
+    @Override
+    protected void afterInit() {
+        doInJOOQ(sql -> {
+            for (long i = 1; i <= 10; i++) {
+                sql
+                .insertInto(POST).columns(POST_ID, POST_TITLE)
+                .values(i, String.format("Post no. %d", i))
+                .execute();
+            }
+        });
+    }
+
+    @Test
+    public void testBindValueOrder() {
+        doInJOOQTransaction(sql -> {
+            //The placeholders are rendered in the order of the where clause: TITLE like ?, ID > ?, ID <= ?
+            Result<Record> posts = renderCache().fetch(
+                sql,
+                "postsByTitleAndIdRange",
+                dsl -> dsl
+                    .select(POST_ID, POST_TITLE)
+                    .from(POST)
+                    .where(POST_TITLE.like(""))
+                    .and(POST_ID.gt(0L))
+                    .and(POST_ID.le(0L))
+                    .orderBy(POST_ID),
+                "Post no. 1%",
+                0L,
+                5L
+            );
+            assertEquals(1, posts.size());
+            assertEquals(Long.valueOf(1), posts.get(0).get(POST_ID));
+
+            posts = renderCache().fetch(
+                sql,
+                "postsByTitleAndIdRange",
+                dsl -> {
+                    throw new AssertionError("The query shape should not be rendered again");
+                },
+                "Post no. %",
+                3L,
+                6L
+            );
+            assertEquals(3, posts.size());
+            assertEquals(Long.valueOf(4), posts.get(0).get(POST_ID));
+            assertEquals("Post no. 6", posts.get(2).get(POST_TITLE));
+        });
+
+        assertEquals(1, renderCache().getMissCount());
+        assertEquals(1, renderCache().getHitCount());
+        assertEquals(1, renderCache().size());
+    }
+
+    @Test
+    public void testBindValueOrderForUpdate() {
+        doInJOOQTransaction(sql -> {
+            //The SET clause placeholder comes before the WHERE clause one
+            for (long id = 1; id <= 3; id++) {
+                int updateCount = renderCache().execute(
+                    sql,
+                    "updatePostTitle",
+                    dsl -> dsl
+                        .update(POST)
+                        .set(POST_TITLE, "")
+                        .where(POST_ID.eq(0L)),
+                    String.format("Updated post no. %d", id),
+                    id
+                );
+                assertEquals(1, updateCount);
+            }
+        });
+
+        doInJOOQTransaction(sql -> {
+            assertEquals(
+                "Updated post no. 2",
+                sql.select(POST_TITLE).from(POST).where(POST_ID.eq(2L)).fetchOne(POST_TITLE)
+            );
+            assertEquals(
+                "Post no. 4",
+                sql.select(POST_TITLE).from(POST).where(POST_ID.eq(4L)).fetchOne(POST_TITLE)
+            );
+        });
+
+        assertEquals(1, renderCache().getMissCount());
+        assertEquals(2, renderCache().getHitCount());
+    }
+}
@@ -0,0 +1,3 @@
+drop table post if exists cascade;
+
+create table post (id bigint not null, title varchar(250), primary key (id));
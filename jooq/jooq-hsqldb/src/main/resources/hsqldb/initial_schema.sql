@@ -0,0 +1,24 @@
+drop table post_comment_details if exists cascade;
+drop table post_comment if exists cascade;
+drop table post_details if exists cascade;
+drop table post_tag if exists cascade;
+drop table post if exists cascade;
+drop table tag if exists cascade;
+
+drop sequence hibernate_sequence if exists;
+
+create table post (id bigint not null, title varchar(250), primary key (id));
+create table post_comment (id bigint not null, review varchar(250), post_id bigint, primary key (id));
+create table post_details (id bigint not null, created_by varchar(250), created_on timestamp, updated_by varchar(250), updated_on timestamp, primary key (id));
+create table post_tag (post_id bigint not null, tag_id bigint not null);
+create table tag (id bigint not null, name varchar(50), primary key (id));
+create table post_comment_details (id bigint not null, post_id bigint not null, user_id bigint not null, ip varchar(18) not null, fingerprint varchar(256), primary key (id));
+
+create index post_details_created_on_idx on post_details (created_on desc, id desc);
+
+alter table post_comment add constraint post_comment_post_id foreign key (post_id) references post;
+alter table post_details add constraint post_details_post_id foreign key (id) references post;
+alter table post_tag add constraint post_tag_tag_id foreign key (tag_id) references tag;
+alter table post_tag add constraint post_tag_post_id foreign key (post_id) references post;
+
+create sequence hibernate_sequence as bigint start with 1 increment by 1;
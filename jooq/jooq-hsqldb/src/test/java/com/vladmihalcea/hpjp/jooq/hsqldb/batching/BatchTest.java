@@ -0,0 +1,61 @@
+package com.vladmihalcea.hpjp.jooq.hsqldb.batching;
+
+import com.vladmihalcea.hpjp.jooq.ExecutionMetricsListener;
+import com.vladmihalcea.hpjp.jooq.hsqldb.util.AbstractJOOQHSQLDBIntegrationTest;
+import org.jooq.BatchBindStep;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.junit.Test;
+
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class BatchTest extends AbstractJOOQHSQLDBIntegrationTest {
+
+    @Test
+    public void testBatching() {
+        doInJOOQ(sql -> {
+            BatchBindStep batch = sql.batch(sql
+                .insertInto(POST, POST.ID, POST.TITLE)
+                .values((Long) null, null)
+            );
+            for (long i = 1; i <= 3; i++) {
+                batch.bind(i, String.format("Post no. %d", i));
+            }
+            int[] insertCounts = batch.execute();
+            assertEquals(3, insertCounts.length);
+            Result<Record> posts = sql.select().from(POST).fetch();
+            assertEquals(3, posts.size());
+        });
+    }
+
+    @Test
+    public void testBatchingInSharedConfiguration() {
+        int postCount = 50;
+        int batchSize = 10;
+        doInJOOQTransaction(sql -> {
+            for (long batchStart = 1; batchStart <= postCount; batchStart += batchSize) {
+                BatchBindStep batch = sql.batch(sql
+                    .insertInto(POST, POST.ID, POST.TITLE)
+                    .values((Long) null, null)
+                );
+                for (long id = batchStart; id < batchStart + batchSize; id++) {
+                    batch.bind(id, String.format("Post no. %d", id));
+                }
+                batch.execute();
+            }
+        });
+
+        int count = doInJOOQTransaction(sql -> {
+            return sql.fetchCount(POST);
+        });
+        assertEquals(postCount, count);
+        assertEquals(
+            postCount / batchSize + 1,
+            executionMetrics().getMetrics(ExecutionMetricsListener.Phase.EXECUTE).count()
+        );
+    }
+}
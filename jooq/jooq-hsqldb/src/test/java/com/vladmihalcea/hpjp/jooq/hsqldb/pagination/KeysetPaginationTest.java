@@ -0,0 +1,169 @@
+package com.vladmihalcea.hpjp.jooq.hsqldb.pagination;
+
+import com.vladmihalcea.hpjp.jooq.hsqldb.util.AbstractJOOQHSQLDBIntegrationTest;
+import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.jooq.SelectSeekStep2;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST;
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST_DETAILS;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Vlad Mihalcea
+ */
+public class KeysetPaginationTest extends AbstractJOOQHSQLDBIntegrationTest {
+
+    @Override
+    protected void afterInit() {
+        String user = "Vlad Mihalcea";
+
+        doInJOOQ(sql -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            for (long i = 1; i < 100; i++) {
+                sql
+                .insertInto(POST).columns(POST.ID, POST.TITLE)
+                .values(i, String.format("High-Performance Java Persistence - Chapter %d", i))
+                .execute();
+
+                sql
+                .insertInto(POST_DETAILS).columns(POST_DETAILS.ID, POST_DETAILS.CREATED_ON, POST_DETAILS.CREATED_BY)
+                .values(i, now.plusHours(i / 10), user)
+                .execute();
+            }
+        });
+    }
+
+    @Test
+    public void testPagination() {
+        doInJOOQ(sql -> {
+            int pageSize = 5;
+
+            List<PostSummary> results = nextPage(sql, pageSize, null);
+
+            assertEquals(5, results.size());
+
+            results = nextPage(sql, pageSize, results.get(results.size() - 1));
+
+            assertEquals(5, results.size());
+        });
+
+        doInJOOQ(sql -> {
+            int pageSize = 5;
+
+            PostSummary offsetPostSummary = null;
+
+            int pageCount = 0;
+
+            while (true) {
+                List<PostSummary> results = nextPage(sql, pageSize, offsetPostSummary);
+                if(results.isEmpty()) {
+                    break;
+                }
+
+                offsetPostSummary = results.get(results.size() - 1);
+                pageCount++;
+            }
+
+            assertEquals(Long.valueOf(1), offsetPostSummary.getId());
+            assertEquals(20, pageCount);
+        });
+    }
+
+    @Test
+    public void testPaginationWithRenderCache() {
+        int pageSize = 5;
+
+        PostSummary offsetPostSummary = null;
+
+        int pageCount = 0;
+
+        while (true) {
+            PostSummary previousPostSummary = offsetPostSummary;
+            List<PostSummary> results = doInJOOQTransaction(sql -> {
+                return previousPostSummary == null ?
+                    nextPage(sql, pageSize, null) :
+                    //HSQLDB supports row value expressions, so the seek predicate is (CREATED_ON, ID) < (?, ?)
+                    renderCache().fetch(
+                        sql,
+                        "nextPage",
+                        dsl -> selectPostSummaries(dsl)
+                            .seek(LocalDateTime.MIN, 0L)
+                            .limit(pageSize),
+                        previousPostSummary.getCreatedOn(),
+                        previousPostSummary.getId(),
+                        pageSize
+                    )
+                    .into(PostSummary.class);
+            });
+            if (results.isEmpty()) {
+                break;
+            }
+
+            offsetPostSummary = results.get(results.size() - 1);
+            pageCount++;
+        }
+
+        assertEquals(Long.valueOf(1), offsetPostSummary.getId());
+        assertEquals(20, pageCount);
+        assertEquals(1, renderCache().getMissCount());
+        assertEquals(19, renderCache().getHitCount());
+    }
+
+    public List<PostSummary> nextPage(DSLContext sql, int pageSize, PostSummary offsetPostSummary) {
+        SelectSeekStep2<Record3<Long, String, LocalDateTime>, LocalDateTime, Long> selectStep =
+            selectPostSummaries(sql);
+
+        return (offsetPostSummary != null)
+            ? selectStep
+            .seek(offsetPostSummary.getCreatedOn(), offsetPostSummary.getId())
+            .limit(pageSize)
+            .fetchInto(PostSummary.class)
+            : selectStep
+            .limit(pageSize)
+            .fetchInto(PostSummary.class);
+    }
+
+    private SelectSeekStep2<Record3<Long, String, LocalDateTime>, LocalDateTime, Long> selectPostSummaries(DSLContext sql) {
+        return sql
+            .select(POST.ID, POST.TITLE, POST_DETAILS.CREATED_ON)
+            .from(POST)
+            .join(POST_DETAILS).on(POST.ID.eq(POST_DETAILS.ID))
+            .orderBy(POST_DETAILS.CREATED_ON.desc(), POST.ID.desc());
+    }
+
+    /**
+     * @author Vlad Mihalcea
+     */
+    public static class PostSummary {
+
+        private final Long id;
+
+        private final String title;
+
+        private final LocalDateTime createdOn;
+
+        public PostSummary(Long id, String title, LocalDateTime createdOn) {
+            this.id = id;
+            this.title = title;
+            this.createdOn = createdOn;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public LocalDateTime getCreatedOn() {
+            return createdOn;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.vladmihalcea.hpjp.jooq.hsqldb.upsert;
+
+import com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.tables.records.PostDetailsRecord;
+import com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.tables.records.PostRecord;
+import com.vladmihalcea.hpjp.jooq.hsqldb.util.AbstractJOOQHSQLDBIntegrationTest;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Sequences.HIBERNATE_SEQUENCE;
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.Tables.POST;
+import static com.vladmihalcea.hpjp.jooq.hsqldb.schema.crud.tables.PostDetails.POST_DETAILS;
+import static org.jooq.impl.DSL.val;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * HSQLDB has no lock timeout, and the statement timeout doesn't apply to lock waits,
+ * so, unlike the PostgreSQL and MySQL tests, Bob's upsert is not aborted. Instead, it waits
+ * until Alice commits, and then it finds her row and ignores the insert.
+ *
+ * @author Vlad Mihalcea
+ */
+public class UpsertAndGetConcurrencyTest extends AbstractJOOQHSQLDBIntegrationTest {
+
+    @Test
+    public void testUpsert() throws Exception {
+        AtomicReference<Future<Integer>> bobUpsertHolder = new AtomicReference<>();
+
+        Long postId = doInJOOQ(sql -> {
+            PostRecord postRecord = sql
+            .insertInto(POST).columns(POST.ID, POST.TITLE)
+            .values(HIBERNATE_SEQUENCE.nextval(), val("High-Performance Java Persistence"))
+            .returning(POST.ID)
+            .fetchOne();
+
+            final Long _postId = postRecord.getId();
+
+            sql
+            .insertInto(POST_DETAILS)
+            .columns(POST_DETAILS.ID, POST_DETAILS.CREATED_BY, POST_DETAILS.CREATED_ON)
+            .values(_postId, "Alice", LocalDateTime.now())
+            .onDuplicateKeyIgnore()
+            .execute();
+
+            Future<Integer> bobUpsert = executorService.submit(() -> doInJOOQ(_sql -> {
+                return _sql
+                .insertInto(POST_DETAILS)
+                .columns(POST_DETAILS.ID, POST_DETAILS.CREATED_BY, POST_DETAILS.CREATED_ON)
+                .values(_postId, "Bob", LocalDateTime.now())
+                .onDuplicateKeyIgnore()
+                .execute();
+            }));
+            bobUpsertHolder.set(bobUpsert);
+
+            try {
+                bobUpsert.get(1, TimeUnit.SECONDS);
+                fail("Bob's upsert should be blocked by Alice's uncommitted insert");
+            } catch (TimeoutException expected) {
+                LOGGER.info("Bob's upsert is blocked by Alice's uncommitted insert");
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+
+            return _postId;
+        });
+
+        assertEquals(0, bobUpsertHolder.get().get(5, TimeUnit.SECONDS).intValue());
+
+        doInJOOQ(sql -> {
+            PostDetailsRecord postDetailsRecord = sql.selectFrom(POST_DETAILS)
+            .where(POST_DETAILS.ID.eq(postId))
+            .fetchOne();
+
+            assertEquals("Alice", postDetailsRecord.getCreatedBy());
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.vladmihalcea.hpjp.jooq.hsqldb.util;
+
+import com.vladmihalcea.hpjp.jooq.AbstractJOOQIntegrationTest;
+import com.vladmihalcea.util.providers.Database;
+import org.jooq.SQLDialect;
+
+/**
+ * The HSQLDB database is in-memory, so, unlike the PostgreSQL and MySQL tests, which expect
+ * the schema created by the build, every test recreates the schema using the initial script.
+ *
+ * @author Vlad Mihalcea
+ */
+public abstract class AbstractJOOQHSQLDBIntegrationTest extends AbstractJOOQIntegrationTest {
+
+    @Override
+    protected String ddlFolder() {
+        return "hsqldb";
+    }
+
+    @Override
+    protected String ddlScript() {
+        return "initial_schema.sql";
+    }
+
+    @Override
+    protected SQLDialect sqlDialect() {
+        return SQLDialect.HSQLDB;
+    }
+
+    @Override
+    protected Database database() {
+        return Database.HSQLDB;
+    }
+}
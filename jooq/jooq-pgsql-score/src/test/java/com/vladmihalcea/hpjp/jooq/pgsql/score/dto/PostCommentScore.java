@@ -1,5 +1,7 @@
 package com.vladmihalcea.hpjp.jooq.pgsql.score.dto;
 
+import com.vladmihalcea.util.TopKTreeAssembler;
+
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
@@ -10,6 +12,19 @@ import java.util.List;
  */
 public class PostCommentScore {
 
+    public static final TopKTreeAssembler.NodeHandler<PostCommentScore> NODE_HANDLER =
+        new TopKTreeAssembler.NodeHandler<>() {
+            @Override
+            public void addChild(PostCommentScore parent, PostCommentScore child) {
+                parent.addChild(child);
+            }
+
+            @Override
+            public void setScore(PostCommentScore node, long score) {
+                node.setScore(score);
+            }
+        };
+
     private Long id;
     private Long parentId;
     private String review;
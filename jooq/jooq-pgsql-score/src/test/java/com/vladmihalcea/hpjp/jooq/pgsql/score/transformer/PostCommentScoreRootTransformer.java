@@ -1,11 +1,9 @@
 package com.vladmihalcea.hpjp.jooq.pgsql.score.transformer;
 
 import com.vladmihalcea.hpjp.jooq.pgsql.score.dto.PostCommentScore;
+import com.vladmihalcea.util.TopKTreeAssembler;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * @author Vlad Mihalcea
@@ -15,21 +13,22 @@ public class PostCommentScoreRootTransformer {
     public static final PostCommentScoreRootTransformer INSTANCE = new PostCommentScoreRootTransformer();
 
     public List<PostCommentScore> transform(List<PostCommentScore> postCommentScores) {
-        Map<Long, PostCommentScore> postCommentScoreMap = new HashMap<>();
-        List<PostCommentScore> roots = new ArrayList<>();
+        return transform(postCommentScores, Integer.MAX_VALUE);
+    }
 
+    public List<PostCommentScore> transform(List<PostCommentScore> postCommentScores, int rank) {
+        TopKTreeAssembler<PostCommentScore> treeAssembler = new TopKTreeAssembler<>(
+            PostCommentScore.NODE_HANDLER,
+            postCommentScores.size()
+        );
         for (PostCommentScore postCommentScore : postCommentScores) {
-            Long parentId = postCommentScore.getParentId();
-            if (parentId == null) {
-                roots.add(postCommentScore);
-            } else {
-                PostCommentScore parent = postCommentScoreMap.get(parentId);
-                if (parent != null) {
-                    parent.addChild(postCommentScore);
-                }
-            }
-            postCommentScoreMap.putIfAbsent(postCommentScore.getId(), postCommentScore);
+            treeAssembler.add(
+                postCommentScore.getId(),
+                postCommentScore.getParentId(),
+                postCommentScore.getScore(),
+                postCommentScore
+            );
         }
-        return roots;
+        return treeAssembler.topRoots(rank);
     }
 }